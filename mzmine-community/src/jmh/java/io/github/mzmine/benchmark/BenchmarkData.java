@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.IMSRawDataFile;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.MobilityType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.impl.BuildingMobilityScan;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.datamodel.impl.SimpleFrame;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.project.impl.IMSRawDataFileImpl;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.DataPointSorter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import javafx.scene.paint.Color;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reproducible synthetic data for the benchmarks. All generators are seeded, so that every
+ * benchmark run processes the same spectra, scans and feature lists.
+ */
+public final class BenchmarkData {
+
+  public static final double MIN_MZ = 100;
+  public static final double MAX_MZ = 1200;
+  // minutes between two MS1 scans
+  public static final float SCAN_CYCLE = 0.01f;
+  // chromatographic peak width (sigma) in number of scans
+  private static final double PEAK_SIGMA_SCANS = 3;
+  // mobility peak width (sigma) in number of mobility scans
+  private static final double MOBILITY_PEAK_SIGMA_SCANS = 4;
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * @param mz     the m/z of the compound
+   * @param rt     retention time of the apex in minutes
+   * @param height apex intensity
+   */
+  public record Compound(double mz, float rt, double height) {
+
+  }
+
+  /**
+   * Compounds that elute within the retention time range of a raw data file with numScans
+   */
+  public static List<Compound> createCompounds(long seed, int numCompounds, int numScans) {
+    final Random random = new Random(seed);
+    final float maxRt = (numScans - 1) * SCAN_CYCLE;
+    final List<Compound> compounds = new ArrayList<>(numCompounds);
+    for (int i = 0; i < numCompounds; i++) {
+      final double mz = MIN_MZ + random.nextDouble() * (MAX_MZ - MIN_MZ);
+      final float rt = random.nextFloat() * maxRt;
+      // log normal distributed heights over a few orders of magnitude
+      final double height = Math.exp(9 + random.nextGaussian() * 1.5);
+      compounds.add(new Compound(mz, rt, height));
+    }
+    return compounds;
+  }
+
+  /**
+   * Profile spectrum with gaussian shaped signals on a fixed m/z grid
+   *
+   * @param numSignals number of signals
+   * @param step       m/z distance between two profile data points
+   * @return [mzs, intensities]
+   */
+  public static double[][] createProfileSpectrum(Random random, int numSignals, double step) {
+    final int numPoints = (int) ((MAX_MZ - MIN_MZ) / step);
+    final double[] mzs = new double[numPoints];
+    final double[] intensities = new double[numPoints];
+    for (int i = 0; i < numPoints; i++) {
+      mzs[i] = MIN_MZ + i * step;
+      // baseline noise
+      intensities[i] = random.nextDouble() * 50;
+    }
+    // signals span ~10 profile points
+    final double sigma = 2.5 * step;
+    for (int s = 0; s < numSignals; s++) {
+      final double center = MIN_MZ + random.nextDouble() * (MAX_MZ - MIN_MZ);
+      final double height = Math.exp(8 + random.nextGaussian() * 1.5);
+      final int centerIndex = (int) ((center - MIN_MZ) / step);
+      for (int i = Math.max(0, centerIndex - 8); i < Math.min(numPoints, centerIndex + 9); i++) {
+        final double d = (mzs[i] - center) / sigma;
+        intensities[i] += height * Math.exp(-0.5 * d * d);
+      }
+    }
+    return new double[][]{mzs, intensities};
+  }
+
+  /**
+   * Centroid spectrum sorted by m/z
+   *
+   * @return [mzs, intensities]
+   */
+  public static double[][] createCentroidSpectrum(Random random, int numSignals) {
+    final double[] mzs = new double[numSignals];
+    for (int i = 0; i < numSignals; i++) {
+      mzs[i] = MIN_MZ + random.nextDouble() * (MAX_MZ - MIN_MZ);
+    }
+    Arrays.sort(mzs);
+    final double[] intensities = new double[numSignals];
+    for (int i = 0; i < numSignals; i++) {
+      intensities[i] = Math.exp(7 + random.nextGaussian() * 2);
+    }
+    return new double[][]{mzs, intensities};
+  }
+
+  /**
+   * Fragment spectrum sorted by intensity (descending) as used by the similarity functions.
+   * Signals are drawn from a shared pool, so that two spectra of the same pool overlap in parts.
+   *
+   * @param pool shared fragment m/z values
+   */
+  public static DataPoint[] createFragmentSpectrum(Random random, double[] pool, int numSignals) {
+    final DataPoint[] dps = new DataPoint[numSignals];
+    for (int i = 0; i < numSignals; i++) {
+      final double mz = random.nextDouble() < 0.5 ? pool[random.nextInt(pool.length)]
+          + random.nextGaussian() * 0.001 : 50 + random.nextDouble() * 800;
+      dps[i] = new SimpleDataPoint(mz, Math.exp(6 + random.nextGaussian() * 2));
+    }
+    Arrays.sort(dps, DataPointSorter.DEFAULT_INTENSITY);
+    return dps;
+  }
+
+  /**
+   * LC-MS raw data file with centroided MS1 scans and mass lists. Each compound elutes as a
+   * gaussian peak, additional random noise signals are added to each scan.
+   *
+   * @param noiseSignals number of random signals per scan
+   */
+  public static RawDataFile createRawDataFile(String name, long seed, int numScans,
+      List<Compound> compounds, int noiseSignals) {
+    final Random random = new Random(seed);
+    final RawDataFile file = new RawDataFileImpl(name, null, null, Color.BLACK);
+    final Range<Double> mzRange = Range.closed(MIN_MZ, MAX_MZ);
+
+    final double[] mzBuffer = new double[compounds.size() + noiseSignals];
+    final double[] intensityBuffer = new double[mzBuffer.length];
+    for (int scanIndex = 0; scanIndex < numScans; scanIndex++) {
+      final float rt = scanIndex * SCAN_CYCLE;
+      int n = 0;
+      for (Compound compound : compounds) {
+        final double d = (rt - compound.rt()) / SCAN_CYCLE / PEAK_SIGMA_SCANS;
+        if (Math.abs(d) < 4) {
+          mzBuffer[n] = compound.mz() + random.nextGaussian() * 0.0005;
+          intensityBuffer[n] = compound.height() * Math.exp(-0.5 * d * d);
+          n++;
+        }
+      }
+      for (int i = 0; i < noiseSignals; i++) {
+        mzBuffer[n] = MIN_MZ + random.nextDouble() * (MAX_MZ - MIN_MZ);
+        intensityBuffer[n] = 100 + random.nextDouble() * 500;
+        n++;
+      }
+
+      final double[][] sorted = sortByMz(mzBuffer, intensityBuffer, n);
+      final SimpleScan scan = new SimpleScan(file, scanIndex + 1, 1, rt, null, sorted[0],
+          sorted[1], MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", mzRange);
+      scan.addMassList(new SimpleMassList(null, sorted[0], sorted[1]));
+      try {
+        file.addScan(scan);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return file;
+  }
+
+  /**
+   * TIMS raw data file with centroided mobility scans that are used as mass lists. Each compound
+   * elutes as a gaussian peak in retention time and mobility, additional random noise signals are
+   * added to each mobility scan.
+   *
+   * @param numMobilityScans number of mobility scans per frame
+   * @param noiseSignals     number of random signals per mobility scan
+   */
+  public static IMSRawDataFile createIMSRawDataFile(String name, long seed, int numFrames,
+      int numMobilityScans, List<Compound> compounds, int noiseSignals) {
+    final Random random = new Random(seed);
+    final IMSRawDataFile file = new IMSRawDataFileImpl(name, null, null, Color.BLACK);
+    final Range<Double> mzRange = Range.closed(MIN_MZ, MAX_MZ);
+
+    // apex of each compound in the mobility dimension
+    final double[] apexMobilityScans = new double[compounds.size()];
+    for (int i = 0; i < apexMobilityScans.length; i++) {
+      apexMobilityScans[i] = random.nextDouble() * numMobilityScans;
+    }
+    // tims mobility decreases with the mobility scan number
+    final double[] mobilities = new double[numMobilityScans];
+    for (int i = 0; i < numMobilityScans; i++) {
+      mobilities[i] = 1.6 - i * (1d / numMobilityScans);
+    }
+
+    final double[] mzBuffer = new double[compounds.size() + noiseSignals];
+    final double[] intensityBuffer = new double[mzBuffer.length];
+    for (int frameIndex = 0; frameIndex < numFrames; frameIndex++) {
+      final float rt = frameIndex * SCAN_CYCLE;
+      final int[] eluting = IntStream.range(0, compounds.size()).filter(
+          c -> Math.abs(rt - compounds.get(c).rt()) / SCAN_CYCLE / PEAK_SIGMA_SCANS < 4).toArray();
+      final List<BuildingMobilityScan> mobilityScans = new ArrayList<>(numMobilityScans);
+      for (int mobilityScanIndex = 0; mobilityScanIndex < numMobilityScans; mobilityScanIndex++) {
+        int n = 0;
+        for (final int c : eluting) {
+          final Compound compound = compounds.get(c);
+          final double dRt = (rt - compound.rt()) / SCAN_CYCLE / PEAK_SIGMA_SCANS;
+          final double dMobility = (mobilityScanIndex - apexMobilityScans[c])
+              / MOBILITY_PEAK_SIGMA_SCANS;
+          if (Math.abs(dMobility) < 4) {
+            mzBuffer[n] = compound.mz() + random.nextGaussian() * 0.001;
+            intensityBuffer[n] = compound.height() * Math.exp(
+                -0.5 * (dRt * dRt + dMobility * dMobility));
+            n++;
+          }
+        }
+        for (int i = 0; i < noiseSignals; i++) {
+          mzBuffer[n] = MIN_MZ + random.nextDouble() * (MAX_MZ - MIN_MZ);
+          intensityBuffer[n] = 10 + random.nextDouble() * 100;
+          n++;
+        }
+        final double[][] sorted = sortByMz(mzBuffer, intensityBuffer, n);
+        mobilityScans.add(new BuildingMobilityScan(mobilityScanIndex, sorted[0], sorted[1]));
+      }
+
+      final SimpleFrame frame = new SimpleFrame(file, frameIndex + 1, 1, rt, new double[0],
+          new double[0], MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", mzRange,
+          MobilityType.TIMS, null, null);
+      frame.setMobilities(mobilities);
+      frame.setMobilityScans(mobilityScans, true);
+      try {
+        file.addScan(frame);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return file;
+  }
+
+  private static double[][] sortByMz(double[] mzs, double[] intensities, int n) {
+    final Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(mzs[a], mzs[b]));
+    final double[] sortedMzs = new double[n];
+    final double[] sortedIntensities = new double[n];
+    for (int i = 0; i < n; i++) {
+      sortedMzs[i] = mzs[order[i]];
+      sortedIntensities[i] = intensities[order[i]];
+    }
+    return new double[][]{sortedMzs, sortedIntensities};
+  }
+
+  /**
+   * Feature list with one row per compound. The m/z and RT of each compound are shifted slightly
+   * per file to simulate the deviations between samples that aligners have to handle.
+   *
+   * @param seed            seed of the per file deviations
+   * @param withFeatureData creates an ion time series for each feature from the scans of the file,
+   *                        otherwise only m/z, RT, height and area are set
+   */
+  public static ModularFeatureList createFeatureList(String name, RawDataFile file, long seed,
+      List<Compound> compounds, boolean withFeatureData) {
+    final Random random = new Random(seed);
+    final ModularFeatureList flist = new ModularFeatureList(name, null, file);
+    final List<Scan> scans = List.copyOf(file.getScans());
+    flist.setSelectedScans(file, scans);
+
+    int id = 1;
+    for (Compound compound : compounds) {
+      final double mz = compound.mz() + random.nextGaussian() * 0.001;
+      final float rt = compound.rt() + (float) random.nextGaussian() * 0.02f;
+
+      final ModularFeature feature;
+      if (withFeatureData && !scans.isEmpty()) {
+        feature = new ModularFeature(flist, file, createIonTimeSeries(scans, mz, rt, compound),
+            FeatureStatus.DETECTED);
+      } else {
+        feature = new ModularFeature(flist, file, FeatureStatus.DETECTED);
+        feature.setMZ(mz);
+        feature.setRT(rt);
+        feature.setHeight((float) compound.height());
+        feature.setArea((float) (compound.height() * PEAK_SIGMA_SCANS * SCAN_CYCLE * 2.5));
+      }
+      flist.addRow(new ModularFeatureListRow(flist, id++, feature));
+    }
+    return flist;
+  }
+
+  @NotNull
+  private static SimpleIonTimeSeries createIonTimeSeries(List<Scan> scans, double mz, float rt,
+      Compound compound) {
+    final int apex = Math.clamp(Math.round(rt / SCAN_CYCLE), 0, scans.size() - 1);
+    final int from = Math.max(0, apex - 10);
+    final int to = Math.min(scans.size(), apex + 11);
+    final double[] mzs = new double[to - from];
+    final double[] intensities = new double[to - from];
+    for (int i = from; i < to; i++) {
+      final double d = (i - apex) / PEAK_SIGMA_SCANS;
+      mzs[i - from] = mz;
+      intensities[i - from] = compound.height() * Math.exp(-0.5 * d * d);
+    }
+    return new SimpleIonTimeSeries(null, mzs, intensities, scans.subList(from, to));
+  }
+
+  /**
+   * Minimal task for APIs that require a parent task, e.g., to check for cancellation
+   */
+  public static AbstractTask createParentTask() {
+    return new AbstractTask(null, Instant.now()) {
+      @Override
+      public String getTaskDescription() {
+        return "Benchmark";
+      }
+
+      @Override
+      public double getFinishedPercentage() {
+        return 0;
+      }
+
+      @Override
+      public void run() {
+        setStatus(TaskStatus.FINISHED);
+      }
+    };
+  }
+}
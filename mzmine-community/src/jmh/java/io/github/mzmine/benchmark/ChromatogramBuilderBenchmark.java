@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ADAPChromatogramBuilderParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderModule;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ADAP chromatogram building on one LC-MS file with MS1 mass lists
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChromatogramBuilderBenchmark {
+
+  @Param({"2000"})
+  public int numScans;
+
+  @Param({"3000"})
+  public int numCompounds;
+
+  @Param({"200"})
+  public int noiseSignalsPerScan;
+
+  private RawDataFile file;
+  private ParameterSet parameters;
+
+  @Setup
+  public void setup() {
+    final var compounds = BenchmarkData.createCompounds(1, numCompounds, numScans);
+    file = BenchmarkData.createRawDataFile("chromatograms", 2, numScans, compounds,
+        noiseSignalsPerScan);
+
+    parameters = new ADAPChromatogramBuilderParameters().cloneParameterSet();
+    parameters.setParameter(ADAPChromatogramBuilderParameters.scanSelection, new ScanSelection(1));
+    parameters.setParameter(ADAPChromatogramBuilderParameters.minimumConsecutiveScans, 5);
+    parameters.setParameter(ADAPChromatogramBuilderParameters.minGroupIntensity, 0d);
+    parameters.setParameter(ADAPChromatogramBuilderParameters.mzTolerance,
+        new MZTolerance(0.002, 10));
+    parameters.setParameter(ADAPChromatogramBuilderParameters.suffix, "eics");
+    parameters.setParameter(ADAPChromatogramBuilderParameters.minHighestPoint, 1E3);
+  }
+
+  @Benchmark
+  public Object buildChromatograms() {
+    final MZmineProjectImpl project = new MZmineProjectImpl();
+    final var task = new ModularADAPChromatogramBuilderTask(project, file, parameters, null,
+        Instant.now(), ModularADAPChromatogramBuilderModule.class, null, null);
+    task.run();
+    return project.getCurrentFeatureLists();
+  }
+}
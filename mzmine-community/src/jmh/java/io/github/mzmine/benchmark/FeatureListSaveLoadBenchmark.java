@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.modules.io.projectload.version_3_0.FeatureListLoadTask;
+import io.github.mzmine.modules.io.projectsave.FeatureListSaveTask;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Feature list part of the project save and load. Opening a full project requires the GUI,
+ * therefore the feature list save and load tasks are measured directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeatureListSaveLoadBenchmark {
+
+  @Param({"10000"})
+  public int numRows;
+
+  private RawDataFile file;
+  private ModularFeatureList flist;
+  private File savedFile;
+  private File saveTarget;
+
+  @Setup
+  public void setup() throws IOException {
+    final var compounds = BenchmarkData.createCompounds(1, numRows, 2000);
+    file = BenchmarkData.createRawDataFile("sample", 1, 2000, compounds, 0);
+    flist = BenchmarkData.createFeatureList("flist", file, 2, compounds, true);
+
+    savedFile = File.createTempFile("mzmine_flist_load", ".zip");
+    saveTarget = File.createTempFile("mzmine_flist_save", ".zip");
+    save(savedFile);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(savedFile.toPath());
+    Files.deleteIfExists(saveTarget.toPath());
+  }
+
+  @Benchmark
+  public File saveFeatureList() throws IOException {
+    save(saveTarget);
+    return saveTarget;
+  }
+
+  @Benchmark
+  public Object loadFeatureList() throws IOException {
+    final MZmineProjectImpl project = new MZmineProjectImpl();
+    project.addFile(file);
+    try (ZipFile zip = new ZipFile(savedFile)) {
+      new FeatureListLoadTask(null, project, zip).run();
+    }
+    return project.getCurrentFeatureLists();
+  }
+
+  private void save(File target) throws IOException {
+    try (var zos = new ZipOutputStream(
+        new BufferedOutputStream(new FileOutputStream(target)))) {
+      new FeatureListSaveTask(flist, zos).run();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import static io.github.mzmine.util.FeatureListRowSorter.MZ_ASCENDING;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.modules.dataprocessing.align_common.BaseFeatureListAligner;
+import io.github.mzmine.modules.dataprocessing.align_common.FeatureCloner.SimpleFeatureCloner;
+import io.github.mzmine.modules.dataprocessing.align_join.JoinAlignerParameters;
+import io.github.mzmine.modules.dataprocessing.align_join.JoinRowAlignScorer;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance.Unit;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Join aligner on feature lists of the same compounds with small m/z and RT deviations per file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JoinAlignerBenchmark {
+
+  @Param({"20"})
+  public int numFiles;
+
+  @Param({"5000"})
+  public int rowsPerList;
+
+  private List<FeatureList> featureLists;
+  private ParameterSet parameters;
+  private AbstractTask parentTask;
+
+  @Setup
+  public void setup() {
+    final var compounds = BenchmarkData.createCompounds(1, rowsPerList, 2000);
+    featureLists = new ArrayList<>(numFiles);
+    for (int i = 0; i < numFiles; i++) {
+      // files are only referenced, scans are not needed for alignment
+      final RawDataFile file = BenchmarkData.createRawDataFile("sample_" + i, i, 0, compounds, 0);
+      featureLists.add(
+          BenchmarkData.createFeatureList("flist_" + i, file, 100 + i, compounds, false));
+    }
+
+    parameters = new JoinAlignerParameters().cloneParameterSet();
+    parameters.setParameter(JoinAlignerParameters.peakListName, "aligned");
+    parameters.setParameter(JoinAlignerParameters.MZTolerance, new MZTolerance(0.005, 10));
+    parameters.setParameter(JoinAlignerParameters.MZWeight, 3d);
+    parameters.setParameter(JoinAlignerParameters.RTTolerance, new RTTolerance(0.1f, Unit.MINUTES));
+    parameters.setParameter(JoinAlignerParameters.RTWeight, 1d);
+    parameters.setParameter(JoinAlignerParameters.mobilityTolerance, false);
+    parameters.setParameter(JoinAlignerParameters.mobilityWeight, 1d);
+    parameters.setParameter(JoinAlignerParameters.SameChargeRequired, false);
+    parameters.setParameter(JoinAlignerParameters.SameIDRequired, false);
+    parameters.setParameter(JoinAlignerParameters.compareIsotopePattern, false);
+    parameters.setParameter(JoinAlignerParameters.compareSpectraSimilarity, false);
+
+    parentTask = BenchmarkData.createParentTask();
+  }
+
+  @Benchmark
+  public Object align() {
+    final var aligner = new BaseFeatureListAligner(parentTask, featureLists, "aligned", null,
+        new JoinRowAlignScorer(parameters), new SimpleFeatureCloner(), MZ_ASCENDING);
+    return aligner.alignFeatureLists();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetector;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetectors;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.centroid.CentroidMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.exactmass.ExactMassDetectorParameters;
+import io.github.mzmine.parameters.ParameterSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mass detection on profile spectra (exact mass, factor of lowest) and centroid spectra
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MassDetectionBenchmark {
+
+  private static final int NUM_SPECTRA = 50;
+
+  @Param({"EXACT", "FACTOR_OF_LOWEST", "CENTROID"})
+  public MassDetectors detectorType;
+
+  @Param({"500"})
+  public int signalsPerSpectrum;
+
+  private MassDetector detector;
+  private MassSpectrumType spectrumType;
+  private double[][][] spectra;
+
+  @Setup
+  public void setup() {
+    final ParameterSet parameters = detectorType.getParametersCopy();
+    switch (detectorType) {
+      case CENTROID -> parameters.setParameter(CentroidMassDetectorParameters.noiseLevel, 1E3);
+      case EXACT -> parameters.setParameter(ExactMassDetectorParameters.noiseLevel, 1E3);
+      default -> {
+      }
+    }
+    detector = detectorType.createMassDetector(parameters);
+    spectrumType =
+        detectorType == MassDetectors.CENTROID ? MassSpectrumType.CENTROIDED
+            : MassSpectrumType.PROFILE;
+
+    final Random random = new Random(42);
+    spectra = new double[NUM_SPECTRA][][];
+    for (int i = 0; i < NUM_SPECTRA; i++) {
+      spectra[i] = spectrumType == MassSpectrumType.PROFILE ? BenchmarkData.createProfileSpectrum(
+          random, signalsPerSpectrum, 0.002)
+          : BenchmarkData.createCentroidSpectrum(random, signalsPerSpectrum);
+    }
+  }
+
+  /**
+   * One operation detects the masses in all spectra
+   */
+  @Benchmark
+  public void detectMasses(Blackhole bh) {
+    for (double[][] spectrum : spectra) {
+      bh.consume(detector.getMassValues(spectrum[0], spectrum[1], spectrumType));
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLArrayType;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLBinaryDataInfo;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLBitLength;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLCompressionType;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLPeaksDecoder;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding of base64 encoded and optionally zlib compressed mzML binary data arrays
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MzMLDecodingBenchmark {
+
+  private static final int NUM_ARRAYS = 50;
+
+  @Param({"NO_COMPRESSION", "ZLIB"})
+  public MzMLCompressionType compression;
+
+  @Param({"THIRTY_TWO_BIT_FLOAT", "SIXTY_FOUR_BIT_FLOAT"})
+  public MzMLBitLength bitLength;
+
+  @Param({"5000"})
+  public int valuesPerArray;
+
+  private MzMLBinaryDataInfo[] arrays;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(42);
+    arrays = new MzMLBinaryDataInfo[NUM_ARRAYS];
+    for (int i = 0; i < NUM_ARRAYS; i++) {
+      final double[][] spectrum = BenchmarkData.createCentroidSpectrum(random, valuesPerArray);
+      final String encoded = encode(spectrum[0]);
+      final MzMLBinaryDataInfo info = new MzMLBinaryDataInfo(encoded.length(), valuesPerArray);
+      info.setBitLength(bitLength);
+      info.setCompressionType(compression);
+      info.setArrayType(MzMLArrayType.MZ);
+      info.setTextContent(encoded);
+      arrays[i] = info;
+    }
+  }
+
+  private String encode(double[] values) {
+    final boolean isDouble = bitLength == MzMLBitLength.SIXTY_FOUR_BIT_FLOAT;
+    final ByteBuffer buffer = ByteBuffer.allocate(values.length * (isDouble ? 8 : 4))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    for (double value : values) {
+      if (isDouble) {
+        buffer.putDouble(value);
+      } else {
+        buffer.putFloat((float) value);
+      }
+    }
+    byte[] bytes = buffer.array();
+    if (compression.isZlibCompressed()) {
+      final Deflater deflater = new Deflater();
+      deflater.setInput(bytes);
+      deflater.finish();
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+      final byte[] chunk = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      deflater.end();
+      bytes = out.toByteArray();
+    }
+    return Base64.getEncoder().encodeToString(bytes);
+  }
+
+  /**
+   * One operation decodes all arrays
+   */
+  @Benchmark
+  public void decodeToDouble(Blackhole bh) {
+    for (MzMLBinaryDataInfo info : arrays) {
+      bh.consume(MzMLPeaksDecoder.decodeToDouble(info));
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.IMSRawDataFile;
+import io.github.mzmine.modules.dataprocessing.featdet_recursiveimsbuilder.RecursiveIMSBuilderParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_recursiveimsbuilder.RecursiveIMSBuilderTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Recursive IMS feature building on one synthetic TIMS file with mobility scan mass lists. Run with
+ * -prof gc to compare allocation rates and GC time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecursiveIMSBuilderBenchmark {
+
+  @Param({"300"})
+  public int numFrames;
+
+  @Param({"400"})
+  public int numMobilityScans;
+
+  @Param({"2000"})
+  public int numCompounds;
+
+  @Param({"20"})
+  public int noiseSignalsPerMobilityScan;
+
+  private IMSRawDataFile file;
+  private ParameterSet parameters;
+
+  @Setup
+  public void setup() {
+    final var compounds = BenchmarkData.createCompounds(1, numCompounds, numFrames);
+    file = BenchmarkData.createIMSRawDataFile("ims", 2, numFrames, numMobilityScans, compounds,
+        noiseSignalsPerMobilityScan);
+
+    parameters = new RecursiveIMSBuilderParameters().cloneParameterSet();
+    parameters.setParameter(RecursiveIMSBuilderParameters.scanSelection, new ScanSelection(1));
+    parameters.setParameter(RecursiveIMSBuilderParameters.mzTolerance,
+        new MZTolerance(0.005, 15));
+    parameters.setParameter(RecursiveIMSBuilderParameters.minNumConsecutive, 5);
+    parameters.setParameter(RecursiveIMSBuilderParameters.minNumDatapoints, 50);
+  }
+
+  @Benchmark
+  public Object buildIonMobilityFeatures() {
+    final MZmineProjectImpl project = new MZmineProjectImpl();
+    final var task = new RecursiveIMSBuilderTask(null, file, parameters, project, Instant.now());
+    task.run();
+    return project.getCurrentFeatureLists();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.main.MZmineCore;
+import io.github.mzmine.modules.dataprocessing.group_spectral_networking.SpectralNetworkingTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.scans.similarity.Weights;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedCosineSpectralSimilarityParameters;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pairwise cosine similarity of fragment spectra as used in library matching and networking
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SpectralSimilarityBenchmark {
+
+  private static final int NUM_SPECTRA = 100;
+  private static final MZTolerance MZ_TOL = new MZTolerance(0.005, 10);
+
+  @Param({"20", "100"})
+  public int signalsPerSpectrum;
+
+  private DataPoint[][] spectra;
+  private double[] precursorMzs;
+  private WeightedCosineSpectralSimilarity weightedCosine;
+  private ParameterSet weightedCosineParameters;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(42);
+    final double[] pool = new double[200];
+    for (int i = 0; i < pool.length; i++) {
+      pool[i] = 50 + random.nextDouble() * 800;
+    }
+    spectra = new DataPoint[NUM_SPECTRA][];
+    precursorMzs = new double[NUM_SPECTRA];
+    for (int i = 0; i < NUM_SPECTRA; i++) {
+      spectra[i] = BenchmarkData.createFragmentSpectrum(random, pool, signalsPerSpectrum);
+      precursorMzs[i] = 200 + random.nextDouble() * 800;
+    }
+
+    weightedCosine = MZmineCore.getModuleInstance(WeightedCosineSpectralSimilarity.class);
+    weightedCosineParameters = new WeightedCosineSpectralSimilarityParameters().cloneParameterSet();
+    weightedCosineParameters.setParameter(WeightedCosineSpectralSimilarityParameters.weight,
+        Weights.MASSBANK);
+    weightedCosineParameters.setParameter(WeightedCosineSpectralSimilarityParameters.minCosine,
+        0d);
+  }
+
+  /**
+   * One operation compares all unique pairs of spectra
+   */
+  @Benchmark
+  public void weightedCosine(Blackhole bh) {
+    for (int i = 0; i < NUM_SPECTRA; i++) {
+      for (int j = i + 1; j < NUM_SPECTRA; j++) {
+        bh.consume(weightedCosine.getSimilarity(weightedCosineParameters, MZ_TOL, 0, spectra[i],
+            spectra[j]));
+      }
+    }
+  }
+
+  /**
+   * One operation compares all unique pairs of spectra
+   */
+  @Benchmark
+  public void modifiedCosine(Blackhole bh) {
+    for (int i = 0; i < NUM_SPECTRA; i++) {
+      for (int j = i + 1; j < NUM_SPECTRA; j++) {
+        bh.consume(SpectralNetworkingTask.createMS2SimModificationAware(MZ_TOL, spectra[i],
+            spectra[j], 0, SpectralNetworkingTask.SIZE_OVERLAP, precursorMzs[i], precursorMzs[j]));
+      }
+    }
+  }
+}
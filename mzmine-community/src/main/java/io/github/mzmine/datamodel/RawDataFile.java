@@ -28,6 +28,7 @@ package io.github.mzmine.datamodel;
 import static java.util.Objects.requireNonNullElse;
 
 import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.data_access.CentroidMzIndex;
 import io.github.mzmine.datamodel.features.FeatureList.FeatureListAppliedMethod;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.collections.BinarySearch;
@@ -311,6 +312,23 @@ public interface RawDataFile {
    */
   void applyMassListChanged(Scan scan, MassList old, MassList masses);
 
+  /**
+   * Optional index of all centroids sorted by m/z, created after mass detection. Implementations
+   * drop the index once the mass list of an indexed scan changes, see
+   * {@link #applyMassListChanged(Scan, MassList, MassList)}
+   *
+   * @return the index or null if none was created
+   */
+  default @Nullable CentroidMzIndex getCentroidMzIndex() {
+    return null;
+  }
+
+  /**
+   * @param index the centroid index or null to remove the current index
+   */
+  default void setCentroidMzIndex(@Nullable CentroidMzIndex index) {
+  }
+
   /**
    * The scan at the specified scan number or null
    *
@@ -26,11 +26,18 @@
 package io.github.mzmine.datamodel.data_access;
 
 import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.modules.dataprocessing.group_metacorrelate.corrgrouping.CorrelateGroupingTask;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -47,6 +54,9 @@ public class CachedFeatureDataAccess {
 
   protected final Map<Feature, double[]> intensityMap;
   protected final Map<Feature, double[]> mzMap;
+  protected final Map<Feature, GridIntensities> gridIntensityMap;
+  // index of each scan on the scan grid shared by all features of its raw data file
+  protected final Map<RawDataFile, Reference2IntMap<Scan>> scanGrids;
 
   /**
    * Initialize data access as a cache with {@link ConcurrentHashMap} for thread safety. This is
@@ -56,6 +66,8 @@ public class CachedFeatureDataAccess {
   public CachedFeatureDataAccess() {
     intensityMap = new ConcurrentHashMap<>();
     mzMap = new ConcurrentHashMap<>();
+    gridIntensityMap = new ConcurrentHashMap<>();
+    scanGrids = new ConcurrentHashMap<>();
   }
 
   /**
@@ -83,14 +95,36 @@ public class CachedFeatureDataAccess {
    */
   public CachedFeatureDataAccess(FeatureListRow[] rows, boolean preloadMz,
       boolean preloadIntensity) {
+    this(rows, preloadMz, preloadIntensity, false);
+  }
+
+  /**
+   * Preloads specific data for all feature in an array of rows. This is useful if all (or most) of
+   * the features in the selected rows are accessed multiple times. Otherwise, access the feature
+   * data directly.
+   *
+   * @param rows               a list of rows (provides the option to prefilter)
+   * @param preloadMz          preload all m/z arrays for all features
+   * @param preloadIntensity   preload all intensity arrays for all features
+   * @param preloadGrid        preload the intensities of all features resampled on a scan grid
+   *                           that only contains the scans of these rows, see
+   *                           {@link #getGridIntensities(Feature)}
+   */
+  public CachedFeatureDataAccess(FeatureListRow[] rows, boolean preloadMz,
+      boolean preloadIntensity, boolean preloadGrid) {
     intensityMap = new HashMap<>();
     mzMap = new HashMap<>();
+    gridIntensityMap = new HashMap<>();
+    scanGrids = new HashMap<>();
     if (preloadMz) {
       loadMzValues(rows);
     }
     if (preloadIntensity) {
       loadIntensityValues(rows);
     }
+    if (preloadGrid) {
+      loadGridIntensities(rows);
+    }
   }
 
   /**
@@ -117,6 +151,94 @@ public class CachedFeatureDataAccess {
         .getMzValues(new double[feature.getNumberOfDataPoints()]));
   }
 
+  /**
+   * The intensities of a feature resampled on the scan grid of its raw data file. All features of
+   * the same raw data file share this grid, so that data points of two features are matched by
+   * their grid index. Grid positions without a data point of this feature are {@link Double#NaN}.
+   * For preloaded rows, the grid only contains the scans of any of their features. Otherwise, it
+   * contains all scans of the raw data file. The intensities are kept in memory for later
+   * accessions.
+   *
+   * @param f feature
+   * @return the intensities of this feature on the scan grid
+   */
+  public GridIntensities getGridIntensities(Feature f) {
+    assert f != null;
+    return gridIntensityMap.computeIfAbsent(f, this::createGridIntensities);
+  }
+
+  private GridIntensities createGridIntensities(Feature feature) {
+    final Reference2IntMap<Scan> grid = scanGrids.computeIfAbsent(feature.getRawDataFile(),
+        raw -> createScanGrid(raw.getScans()));
+    final List<Scan> scans = feature.getScanNumbers();
+    if (scans.isEmpty()) {
+      return new GridIntensities(0, new double[0]);
+    }
+    // do not keep the intensity arrays if they were not preloaded
+    double[] intensities = intensityMap.get(feature);
+    if (intensities == null) {
+      intensities = feature.getFeatureData()
+          .getIntensityValues(new double[feature.getNumberOfDataPoints()]);
+    }
+    final int first = grid.getInt(scans.getFirst());
+    final double[] values = new double[grid.getInt(scans.getLast()) - first + 1];
+    Arrays.fill(values, Double.NaN);
+    for (int i = 0; i < intensities.length; i++) {
+      values[grid.getInt(scans.get(i)) - first] = intensities[i];
+    }
+    return new GridIntensities(first, values);
+  }
+
+  /**
+   * @param scans ascending scans of a raw data file
+   * @return the index of each scan
+   */
+  private static Reference2IntMap<Scan> createScanGrid(List<Scan> scans) {
+    final Reference2IntMap<Scan> grid = new Reference2IntOpenHashMap<>(scans.size());
+    grid.defaultReturnValue(-1);
+    for (int i = 0; i < scans.size(); i++) {
+      grid.put(scans.get(i), i);
+    }
+    return grid;
+  }
+
+  /**
+   * Load all grid intensities. The scan grid of each raw data file is reduced to the scans used by
+   * the features of these rows to keep the grid intensities short, e.g., without MS2 scans.
+   *
+   * @param rows load data for these rows
+   */
+  private void loadGridIntensities(FeatureListRow[] rows) {
+    final Map<RawDataFile, BitSet> usedScans = new HashMap<>();
+    final Map<RawDataFile, Reference2IntMap<Scan>> rawGrids = new HashMap<>();
+    for (FeatureListRow row : rows) {
+      for (Feature feature : row.getFeatures()) {
+        if (feature == null) {
+          continue;
+        }
+        final RawDataFile raw = feature.getRawDataFile();
+        final Reference2IntMap<Scan> rawGrid = rawGrids.computeIfAbsent(raw,
+            r -> createScanGrid(r.getScans()));
+        final BitSet used = usedScans.computeIfAbsent(raw, r -> new BitSet());
+        for (Scan scan : feature.getScanNumbers()) {
+          used.set(rawGrid.getInt(scan));
+        }
+      }
+    }
+    usedScans.forEach((raw, used) -> {
+      final List<Scan> scans = raw.getScans();
+      scanGrids.put(raw, createScanGrid(used.stream().mapToObj(scans::get).toList()));
+    });
+
+    for (FeatureListRow row : rows) {
+      for (Feature feature : row.getFeatures()) {
+        if (feature != null && !feature.getFeatureStatus().equals(FeatureStatus.UNKNOWN)) {
+          gridIntensityMap.put(feature, createGridIntensities(feature));
+        }
+      }
+    }
+  }
+
   /**
    * Load all intensity values
    *
@@ -149,4 +271,37 @@ public class CachedFeatureDataAccess {
     }
   }
 
+  /**
+   * Intensities of a feature on the scan grid of its raw data file
+   *
+   * @param firstIndex  grid index of the first value
+   * @param intensities the intensity at each grid index from firstIndex or {@link Double#NaN} if
+   *                    the feature has no data point on this scan
+   */
+  public record GridIntensities(int firstIndex, double[] intensities) {
+
+    /**
+     * @param gridIndex index on the scan grid
+     * @return the intensity or {@link Double#NaN} if there is no data point on this grid index
+     */
+    public double get(int gridIndex) {
+      final int i = gridIndex - firstIndex;
+      return i >= 0 && i < intensities.length ? intensities[i] : Double.NaN;
+    }
+
+    /**
+     * @return the grid index of the highest intensity
+     */
+    public int indexOfMax() {
+      int maxIndex = 0;
+      double max = 0;
+      for (int i = 0; i < intensities.length; i++) {
+        if (intensities[i] > max) {
+          maxIndex = i;
+          max = intensities[i];
+        }
+      }
+      return firstIndex + maxIndex;
+    }
+  }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.data_access;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassList;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.IntensityMode;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.MzMode;
+import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
+import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.IndexRange;
+import io.github.mzmine.util.exceptions.MissingMassListException;
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Index of all centroids (mass list data points) of a set of scans sorted by m/z and then by scan.
+ * The m/z, scan index and intensity columns are stored in the {@link MemoryMapStorage}. Any m/z
+ * range extraction is a binary search for the first data point followed by a contiguous scan over
+ * the columns, instead of a binary search in every scan.
+ * <p>
+ * The index is a snapshot of the mass lists at creation time and is attached to a raw data file
+ * with {@link RawDataFile#setCentroidMzIndex(CentroidMzIndex)}. The raw data file drops the index
+ * as soon as the mass list of an indexed scan changes.
+ */
+public final class CentroidMzIndex {
+
+  private final RawDataFile dataFile;
+  // scans in the order of the data file
+  private final List<Scan> scans;
+  private final int numValues;
+  private final DoubleBuffer mzs;
+  private final IntBuffer scanIndices;
+  private final Buffer intensities;
+
+  private CentroidMzIndex(final RawDataFile dataFile, final List<Scan> scans,
+      final DoubleBuffer mzs, final IntBuffer scanIndices, final Buffer intensities) {
+    this.dataFile = dataFile;
+    this.scans = scans;
+    this.mzs = mzs;
+    this.scanIndices = scanIndices;
+    this.intensities = intensities;
+    numValues = mzs.limit();
+  }
+
+  /**
+   * Creates the index from the mass lists of the scans
+   *
+   * @param scans   scans in the order of the data file. All scans need a mass list
+   * @param storage stores the columns or null to keep them in memory
+   * @throws MissingMassListException if a scan has no mass list
+   */
+  @NotNull
+  public static CentroidMzIndex create(@NotNull final RawDataFile dataFile,
+      @NotNull final List<? extends Scan> scans, @Nullable final MemoryMapStorage storage) {
+    long total = 0;
+    for (final Scan scan : scans) {
+      final MassList masses = scan.getMassList();
+      if (masses == null) {
+        throw new MissingMassListException(scan);
+      }
+      total += masses.getNumberOfDataPoints();
+    }
+    if (total > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException(
+          "Too many centroids (%d) to create an m/z index for %s".formatted(total,
+              dataFile.getName()));
+    }
+
+    final int n = (int) total;
+    final double[] mzs = new double[n];
+    final int[] scanIndices = new int[n];
+    final double[] intensities = new double[n];
+
+    double[] buffer = new double[0];
+    int offset = 0;
+    for (int s = 0; s < scans.size(); s++) {
+      final MassList masses = scans.get(s).getMassList();
+      final int numDp = masses.getNumberOfDataPoints();
+      buffer = masses.getMzValues(buffer);
+      System.arraycopy(buffer, 0, mzs, offset, numDp);
+      buffer = masses.getIntensityValues(buffer);
+      System.arraycopy(buffer, 0, intensities, offset, numDp);
+      Arrays.fill(scanIndices, offset, offset + numDp, s);
+      offset += numDp;
+    }
+
+    // sort by mz and then by scan so that every mz range is ordered by scan like the mass lists
+    it.unimi.dsi.fastutil.Arrays.parallelQuickSort(0, n, (a, b) -> {
+      final int mzCompare = Double.compare(mzs[a], mzs[b]);
+      return mzCompare != 0 ? mzCompare : Integer.compare(scanIndices[a], scanIndices[b]);
+    }, (a, b) -> {
+      final double mz = mzs[a];
+      mzs[a] = mzs[b];
+      mzs[b] = mz;
+      final int scan = scanIndices[a];
+      scanIndices[a] = scanIndices[b];
+      scanIndices[b] = scan;
+      final double intensity = intensities[a];
+      intensities[a] = intensities[b];
+      intensities[b] = intensity;
+    });
+
+    return new CentroidMzIndex(dataFile, List.copyOf(scans),
+        StorageUtils.storeValuesToDoubleBuffer(storage, mzs),
+        StorageUtils.storeValuesToIntBuffer(storage, scanIndices),
+        StorageUtils.storeIntensityValues(storage, intensities));
+  }
+
+  public RawDataFile getDataFile() {
+    return dataFile;
+  }
+
+  /**
+   * @return all indexed scans in the order of the data file
+   */
+  public List<Scan> getScans() {
+    return scans;
+  }
+
+  /**
+   * @return true if the mass list of this scan is part of the index
+   */
+  public boolean containsScan(@NotNull Scan scan) {
+    // scans are sorted by retention time, only scans with the same retention time are checked
+    final IndexRange range = BinarySearch.indexRange(Range.singleton(scan.getRetentionTime()), scans,
+        Scan::getRetentionTime);
+    for (int i = range.min(); i < range.maxExclusive(); i++) {
+      if (scans.get(i) == scan) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return total number of indexed centroids
+   */
+  public int getNumberOfValues() {
+    return numValues;
+  }
+
+  public double getMz(int index) {
+    return mzs.get(index);
+  }
+
+  /**
+   * @return the index of the scan in {@link #getScans()}
+   */
+  public int getScanIndex(int index) {
+    return scanIndices.get(index);
+  }
+
+  public double getIntensity(int index) {
+    return StorageUtils.getIntensity(intensities, index);
+  }
+
+  /**
+   * @return the first index with an m/z >= mz or {@link #getNumberOfValues()} if all values are
+   * lower
+   */
+  public int lowerBound(double mz) {
+    // first occurrence is needed as many scans may share the same mz
+    int low = 0;
+    int high = numValues;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (mzs.get(mid) < mz) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Visits all centroids within the m/z range and retention time range, sorted by m/z and then by
+   * scan
+   *
+   * @param rtRange  retention time range or null for all indexed scans
+   * @param consumer receives the index of the scan in {@link #getScans()}
+   */
+  public void forEachValue(@NotNull Range<Double> mzRange, @Nullable Range<Float> rtRange,
+      @NotNull CentroidConsumer consumer) {
+    int fromScan = 0;
+    int toScanExclusive = scans.size();
+    if (rtRange != null) {
+      final IndexRange scanRange = BinarySearch.indexRange(rtRange, scans,
+          Scan::getRetentionTime);
+      if (scanRange.isEmpty()) {
+        return;
+      }
+      fromScan = scanRange.min();
+      toScanExclusive = scanRange.maxExclusive();
+    }
+
+    final double upper = mzRange.upperEndpoint();
+    for (int i = lowerBound(mzRange.lowerEndpoint()); i < numValues; i++) {
+      final double mz = mzs.get(i);
+      if (mz > upper) {
+        break;
+      }
+      final int scan = scanIndices.get(i);
+      if (scan >= fromScan && scan < toScanExclusive) {
+        consumer.accept(scan, mz, getIntensity(i));
+      }
+    }
+  }
+
+  /**
+   * Maps the indexed scans to the positions of the target scans
+   *
+   * @param targetScans scans in the order of the data file
+   * @return the position in targetScans for each indexed scan (-1 if the scan is not a target) or
+   * null if any target scan is not part of this index
+   */
+  public int @Nullable [] mapScans(@NotNull List<? extends Scan> targetScans) {
+    final int[] positions = new int[scans.size()];
+    Arrays.fill(positions, -1);
+    int s = 0;
+    for (int t = 0; t < targetScans.size(); t++) {
+      final Scan target = targetScans.get(t);
+      while (s < scans.size() && scans.get(s) != target) {
+        s++;
+      }
+      if (s == scans.size()) {
+        return null;
+      }
+      positions[s] = t;
+      s++;
+    }
+    return positions;
+  }
+
+  /**
+   * Extracts ion series for all m/z ranges. The result equals a scan-by-scan extraction over the
+   * mass lists of the target scans.
+   *
+   * @param mzRanges    the m/z ranges, may overlap
+   * @param targetScans scans in the order of the data file that the ion series span
+   * @return one ion series per m/z range or null if this index does not cover all target scans
+   */
+  public BuildingIonSeries @Nullable [] extract(@NotNull List<Range<Double>> mzRanges,
+      @NotNull List<? extends Scan> targetScans, @NotNull MzMode mzMode,
+      @NotNull IntensityMode intensityMode) {
+    final int[] positions = mapScans(targetScans);
+    if (positions == null) {
+      return null;
+    }
+
+    final BuildingIonSeries[] series = new BuildingIonSeries[mzRanges.size()];
+    for (int r = 0; r < series.length; r++) {
+      final BuildingIonSeries ionSeries = new BuildingIonSeries(targetScans.size(), mzMode,
+          intensityMode);
+      series[r] = ionSeries;
+      forEachValue(mzRanges.get(r), null, (scan, mz, intensity) -> {
+        final int position = positions[scan];
+        if (position != -1) {
+          ionSeries.addValue(position, mz, intensity);
+        }
+      });
+    }
+    return series;
+  }
+
+  @FunctionalInterface
+  public interface CentroidConsumer {
+
+    void accept(int scanIndex, double mz, double intensity);
+  }
+}
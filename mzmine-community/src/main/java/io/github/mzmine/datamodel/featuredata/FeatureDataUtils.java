@@ -40,11 +40,9 @@ import io.github.mzmine.datamodel.features.types.numbers.RTRangeType;
 import io.github.mzmine.datamodel.features.types.numbers.TailingFactorType;
 import io.github.mzmine.modules.tools.qualityparameters.QualityParameters;
 import io.github.mzmine.util.ArrayUtils;
-import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.maths.CenterFunction;
 import io.github.mzmine.util.maths.CenterMeasure;
 import io.github.mzmine.util.maths.Weighting;
-import java.nio.DoubleBuffer;
 import java.util.List;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -214,12 +212,11 @@ public class FeatureDataUtils {
       return 0f;
     }
     float area = 0f;
-    DoubleBuffer intensities = series.getIntensityValueBuffer();
     List<? extends Scan> scans = series.getSpectra();
-    double lastIntensity = intensities.get(0);
+    double lastIntensity = series.getIntensity(0);
     float lastRT = scans.get(0).getRetentionTime();
     for (int i = 1; i < series.getNumberOfValues(); i++) {
-      final double thisIntensity = intensities.get(i);
+      final double thisIntensity = series.getIntensity(i);
       final float thisRT = scans.get(i).getRetentionTime();
       area += (thisRT - lastRT) * ((float) (thisIntensity + lastIntensity)) / 2.0;
       lastIntensity = thisIntensity;
@@ -237,9 +234,9 @@ public class FeatureDataUtils {
    */
   public static double calculateCenterMz(@NotNull final IonSeries series,
       @NotNull final CenterFunction cf) {
-    double[][] data = DataPointUtils.getDataPointsAsDoubleArray(series.getMZValueBuffer(),
-        series.getIntensityValueBuffer());
-    return cf.calcCenter(data[0], data[1]);
+    final int n = series.getNumberOfValues();
+    return cf.calcCenter(series.getMzValues(new double[n]),
+        series.getIntensityValues(new double[n]));
   }
 
   /**
@@ -255,8 +252,9 @@ public class FeatureDataUtils {
     double[] intensity = new double[endInclusive - startInclusive];
 
     series.getMZValueBuffer().get(startInclusive, mz, 0, endInclusive - startInclusive);
-    series.getIntensityValueBuffer()
-        .get(startInclusive, intensity, 0, endInclusive - startInclusive);
+    for (int i = startInclusive; i < endInclusive; i++) {
+      intensity[i - startInclusive] = series.getIntensity(i);
+    }
     return cf.calcCenter(mz, intensity);
   }
 
@@ -42,7 +42,8 @@ public interface IntensitySeries extends SeriesValueCount {
       throws XMLStreamException {
     writer.writeStartElement(CONST.XML_INTENSITY_VALUES_ELEMENT);
     writer.writeAttribute(CONST.XML_NUM_VALUES_ATTR, String.valueOf(series.getNumberOfValues()));
-    writer.writeCharacters(ParsingUtils.doubleBufferToString(series.getIntensityValueBuffer()));
+    writer.writeCharacters(ParsingUtils.doubleArrayToString(
+        series.getIntensityValues(new double[series.getNumberOfValues()])));
     writer.writeEndElement();
   }
 
@@ -56,8 +57,11 @@ public interface IntensitySeries extends SeriesValueCount {
       return false;
     }
 
-    if (!s1.getIntensityValueBuffer().equals(s2.getIntensityValueBuffer())) {
-      return false;
+    // compares all values by index, without double copies of float precision series
+    for (int i = 0; i < s1.getNumberOfValues(); i++) {
+      if (Double.compare(s1.getIntensity(i), s2.getIntensity(i)) != 0) {
+        return false;
+      }
     }
 
     final int max = s1.getNumberOfValues() - 1;
@@ -28,6 +28,7 @@ package io.github.mzmine.datamodel.featuredata;
 import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.CentroidMzIndex;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
 import io.github.mzmine.datamodel.data_access.ScanDataAccess;
@@ -171,15 +172,69 @@ public class IonTimeSeriesUtils {
   }
 
   /**
+   * Uses the {@link CentroidMzIndex} of the data file if it covers all scans.
+   *
    * @see IonTimeSeriesUtils#extractIonTimeSeries(ScanDataAccess, Range, Range, MemoryMapStorage)
    */
   public static IonTimeSeries<Scan> extractIonTimeSeries(@NotNull RawDataFile file,
       @NotNull List<Scan> scans, @NotNull Range<Double> mzRange, @Nullable Range<Float> rtRange,
       @Nullable MemoryMapStorage storage) {
+    final CentroidMzIndex index = file.getCentroidMzIndex();
+    if (index != null) {
+      final IonTimeSeries<Scan> series = extractIonTimeSeries(index, scans, mzRange, rtRange,
+          storage);
+      if (series != null) {
+        return series;
+      }
+    }
     final ScanDataAccess access = EfficientDataAccess.of(file, ScanDataType.MASS_LIST, scans);
     return extractIonTimeSeries(access, mzRange, rtRange, storage);
   }
 
+  /**
+   * Same result as {@link #extractIonTimeSeries(ScanDataAccess, Range, Range, MemoryMapStorage)}
+   * but the data points are read from the index. A scan has a data point within the m/z range if
+   * and only if its data point closest to the center is within the range.
+   *
+   * @return the chromatogram or null if the index does not cover all scans
+   */
+  private static @Nullable IonTimeSeries<Scan> extractIonTimeSeries(
+      @NotNull CentroidMzIndex index, @NotNull List<Scan> scans, @NotNull Range<Double> mzRange,
+      @Nullable Range<Float> rtRange, @Nullable MemoryMapStorage storage) {
+    final int[] positions = index.mapScans(scans);
+    if (positions == null) {
+      return null;
+    }
+
+    final double centerMz = RangeUtils.rangeCenter(mzRange);
+    final double[] closestMzs = new double[scans.size()];
+    final double[] closestIntensities = new double[scans.size()];
+    index.forEachValue(mzRange, null, (scan, mz, intensity) -> {
+      final int position = positions[scan];
+      if (position != -1 && (closestMzs[position] == 0
+          || Math.abs(mz - centerMz) < Math.abs(closestMzs[position] - centerMz))) {
+        closestMzs[position] = mz;
+        closestIntensities[position] = intensity;
+      }
+    });
+
+    final DoubleArrayList mzs = new DoubleArrayList(scans.size());
+    final DoubleArrayList intensities = new DoubleArrayList(scans.size());
+    final List<Scan> usedScans = new ArrayList<>(scans.size());
+    for (int i = 0; i < scans.size(); i++) {
+      final Scan scan = scans.get(i);
+      if (rtRange != null && !rtRange.contains(scan.getRetentionTime())) {
+        continue;
+      }
+      usedScans.add(scan);
+      mzs.add(closestMzs[i]);
+      intensities.add(closestIntensities[i]);
+    }
+
+    return new SimpleIonTimeSeries(storage, mzs.toDoubleArray(), intensities.toDoubleArray(),
+        usedScans);
+  }
+
   /**
    * Extracts an extracted ion chromatogram from the given raw file. The peak closest to the center
    * of the given mz range will be used for every scan in the given rtRange.
@@ -34,9 +34,13 @@ import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.featuredata.MzSeries;
 import io.github.mzmine.modules.io.projectload.CachedIMSFrame;
 import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
+import io.github.mzmine.modules.io.projectload.version_3_0.SeriesBinaryXMLStreamReader;
+import io.github.mzmine.modules.io.projectsave.SeriesBinaryXMLStreamWriter;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.ParsingUtils;
+import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.DoubleBuffer;
 import java.util.Collections;
 import java.util.Comparator;
@@ -59,7 +63,8 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
   public static final String XML_ELEMENT = "simpleiontimeseries";
 
   protected final List<? extends Scan> scans;
-  protected final DoubleBuffer intensityValues;
+  // double or float precision, see StorageUtils#storeIntensityValues
+  protected final Buffer intensityValues;
   protected final DoubleBuffer mzValues;
 
   /**
@@ -83,12 +88,17 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
     this.scans = scans;
 
     this.mzValues = StorageUtils.storeValuesToDoubleBuffer(storage, mzValues);
-    this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage, intensityValues);
+    this.intensityValues = StorageUtils.storeIntensityValues(storage, intensityValues);
   }
 
   public static SimpleIonTimeSeries loadFromXML(XMLStreamReader reader, MemoryMapStorage storage,
       RawDataFile file) throws XMLStreamException {
 
+    final String binaryOffset = reader.getAttributeValue(null, CONST.XML_BINARY_OFFSET_ATTR);
+    if (binaryOffset != null) {
+      return loadFromBinary(reader, storage, file, Long.parseLong(binaryOffset));
+    }
+
     List<Scan> scans = null;
     double[] mzs = null;
     double[] intensities = null;
@@ -105,14 +115,7 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
       switch (reader.getLocalName()) {
         case CONST.XML_SCAN_LIST_ELEMENT -> {
           int[] indices = ParsingUtils.stringToIntArray(reader.getElementText());
-          scans = ParsingUtils.getSublistFromIndices(file.getScans(), indices); // use all scans
-
-          // if the scans were CachedFrames, we have to replace them when storing them to the series,
-          // otherwise, we would keep the refences to cached mobility scans alive.
-          if (scans.get(0) instanceof CachedIMSFrame) {
-            scans = scans.stream().map(scan -> ((CachedIMSFrame) scan).getOriginalFrame())
-                .map(f -> (Scan) f).toList();
-          }
+          scans = getScansFromIndices(file, indices);
         }
         case CONST.XML_MZ_VALUES_ELEMENT ->
             mzs = ParsingUtils.stringToDoubleArray(reader.getElementText());
@@ -124,6 +127,40 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
     return new SimpleIonTimeSeries(storage, mzs, intensities, scans);
   }
 
+  /**
+   * Loads the series values from the binary block referenced by the current element.
+   */
+  private static SimpleIonTimeSeries loadFromBinary(XMLStreamReader reader,
+      MemoryMapStorage storage, RawDataFile file, long offset) throws XMLStreamException {
+    if (!(reader instanceof SeriesBinaryXMLStreamReader binaryReader)) {
+      throw new XMLStreamException("Series references binary data but no binary data is present.");
+    }
+    final int numValues = Integer.parseInt(
+        reader.getAttributeValue(null, CONST.XML_NUM_VALUES_ATTR));
+    final int[] indices = new int[numValues];
+    final double[] mzs = new double[numValues];
+    final double[] intensities = new double[numValues];
+    binaryReader.readSeries(offset, indices, mzs, intensities);
+
+    while (reader.hasNext() && !(reader.isEndElement() && reader.getLocalName()
+        .equals(SimpleIonTimeSeries.XML_ELEMENT))) {
+      reader.next();
+    }
+    return new SimpleIonTimeSeries(storage, mzs, intensities, getScansFromIndices(file, indices));
+  }
+
+  private static List<Scan> getScansFromIndices(RawDataFile file, int[] indices) {
+    List<Scan> scans = ParsingUtils.getSublistFromIndices(file.getScans(), indices); // use all scans
+
+    // if the scans were CachedFrames, we have to replace them when storing them to the series,
+    // otherwise, we would keep the refences to cached mobility scans alive.
+    if (!scans.isEmpty() && scans.get(0) instanceof CachedIMSFrame) {
+      scans = scans.stream().map(scan -> ((CachedIMSFrame) scan).getOriginalFrame())
+          .map(f -> (Scan) f).toList();
+    }
+    return scans;
+  }
+
   @Override
   public SimpleIonTimeSeries subSeries(@Nullable MemoryMapStorage storage,
       @NotNull List<Scan> subset) {
@@ -159,9 +196,28 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
     return new SimpleIonTimeSeries(storage, mzs, intensities, subset);
   }
 
+  /**
+   * @return the intensities, a copy if stored with float precision. Prefer
+   * {@link #getIntensity(int)} and {@link #getIntensityValues(double[])}
+   */
   @Override
   public DoubleBuffer getIntensityValueBuffer() {
-    return intensityValues;
+    return StorageUtils.asDoubleBuffer(intensityValues);
+  }
+
+  @Override
+  public double getIntensity(int index) {
+    return StorageUtils.getIntensity(intensityValues, index);
+  }
+
+  @Override
+  public double[] getIntensityValues(double[] dst) {
+    return StorageUtils.getIntensityValues(intensityValues, dst);
+  }
+
+  @Override
+  public int getNumberOfValues() {
+    return intensityValues.limit();
   }
 
   @Override
@@ -181,10 +237,8 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
 
   @Override
   public IonSpectrumSeries<Scan> copy(MemoryMapStorage storage) {
-    double[][] data = DataPointUtils.getDataPointsAsDoubleArray(getMZValueBuffer(),
-        getIntensityValueBuffer());
-
-    return copyAndReplace(storage, data[0], data[1]);
+    return copyAndReplace(storage, DataPointUtils.getDoubleBufferAsArray(mzValues),
+        getIntensityValues(new double[getNumberOfValues()]));
   }
 
   @Override
@@ -199,6 +253,23 @@ public class SimpleIonTimeSeries implements IonTimeSeries<Scan> {
       throws XMLStreamException {
     writer.writeStartElement(SimpleIonTimeSeries.XML_ELEMENT);
 
+    if (writer instanceof SeriesBinaryXMLStreamWriter binaryWriter) {
+      final int numValues = getNumberOfValues();
+      final int[] indices = ParsingUtils.getIndicesOfSubListElements(getSpectra(), allScans);
+      final double[] mzs = new double[numValues];
+      mzValues.get(0, mzs, 0, numValues);
+      try {
+        final long offset = binaryWriter.writeSeries(indices, mzs,
+            getIntensityValues(new double[numValues]));
+        writer.writeAttribute(CONST.XML_NUM_VALUES_ATTR, String.valueOf(numValues));
+        writer.writeAttribute(CONST.XML_BINARY_OFFSET_ATTR, String.valueOf(offset));
+      } catch (IOException e) {
+        throw new XMLStreamException("Cannot write binary series data", e);
+      }
+      writer.writeEndElement();
+      return;
+    }
+
     IonSpectrumSeries.saveSpectraIndicesToXML(writer, this, allScans); // use all scans
     IntensitySeries.saveIntensityValuesToXML(writer, this);
     MzSeries.saveMzValuesToXML(writer, this);
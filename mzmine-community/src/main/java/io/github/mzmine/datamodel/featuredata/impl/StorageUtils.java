@@ -30,7 +30,9 @@ import io.github.mzmine.datamodel.impl.AbstractStorableSpectrum;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -47,6 +49,23 @@ import org.jetbrains.annotations.Nullable;
  */
 public class StorageUtils {
 
+  private static final FloatBuffer EMPTY_FLOAT_BUFFER = FloatBuffer.wrap(new float[0]);
+  // intensities have no meaningful precision beyond float
+  private static volatile boolean storeIntensitiesAsFloat = false;
+
+  /**
+   * @param asFloat store new intensity values with float precision in
+   *                {@link #storeIntensityValues(MemoryMapStorage, double[])}. Only applies to new
+   *                data.
+   */
+  public static void setStoreIntensitiesAsFloat(boolean asFloat) {
+    storeIntensitiesAsFloat = asFloat;
+  }
+
+  public static boolean isStoreIntensitiesAsFloat() {
+    return storeIntensitiesAsFloat;
+  }
+
   public static <T> List<double[][]> mapTo2dDoubleArrayList(List<T> objects,
       Function<T, double[]> firstDimension, Function<T, double[]> secondDimension) {
     return objects.stream().<double[][]>mapMulti((scan, c) -> {
@@ -72,8 +91,10 @@ public class StorageUtils {
     final List<double[][]> mzIntensities = new ArrayList<>();
 
     for (final T series : seriesList) {
-      double[][] mzIntensity = DataPointUtils.getDataPointsAsDoubleArray(series.getMZValueBuffer(),
-          series.getIntensityValueBuffer());
+      // read intensities without a temporary double buffer for float precision
+      double[][] mzIntensity = new double[][]{
+          DataPointUtils.getDoubleBufferAsArray(series.getMZValueBuffer()),
+          series.getIntensityValues(new double[series.getNumberOfValues()])};
       mzIntensities.add(mzIntensity);
     }
 
@@ -215,4 +236,81 @@ public class StorageUtils {
     }
     return buffer;
   }
+
+  /**
+   * Stores intensity values in the current precision, see
+   * {@link #setStoreIntensitiesAsFloat(boolean)}. Values are read with
+   * {@link #getIntensity(Buffer, int)} and {@link #getIntensityValues(Buffer, double[])}.
+   *
+   * @param storage The storage to be used. If null, the values will be kept in RAM.
+   * @param values  The values to be stored. If storage is null and values are stored as double, a
+   *                double buffer will be wrapped around this array.
+   * @return a {@link DoubleBuffer} or {@link FloatBuffer}
+   */
+  @NotNull
+  public static Buffer storeIntensityValues(@Nullable final MemoryMapStorage storage,
+      @NotNull final double[] values) {
+    if (!storeIntensitiesAsFloat) {
+      return storeValuesToDoubleBuffer(storage, values);
+    }
+    if (values.length == 0) {
+      return EMPTY_FLOAT_BUFFER;
+    }
+
+    final float[] floats = new float[values.length];
+    for (int i = 0; i < values.length; i++) {
+      floats[i] = (float) values[i];
+    }
+    if (storage != null) {
+      try {
+        return storage.storeData(floats);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    return FloatBuffer.wrap(floats);
+  }
+
+  /**
+   * @param intensities buffer created by {@link #storeIntensityValues(MemoryMapStorage, double[])}
+   * @return the intensity at index
+   */
+  public static double getIntensity(@NotNull final Buffer intensities, final int index) {
+    if (intensities instanceof FloatBuffer floats) {
+      return floats.get(index);
+    }
+    return ((DoubleBuffer) intensities).get(index);
+  }
+
+  /**
+   * @param intensities buffer created by {@link #storeIntensityValues(MemoryMapStorage, double[])}
+   * @param dst         results are written to this array if it is large enough
+   * @return dst or a new array with all intensities
+   */
+  public static double[] getIntensityValues(@NotNull final Buffer intensities, double[] dst) {
+    final int n = intensities.limit();
+    if (dst.length < n) {
+      dst = new double[n];
+    }
+    if (intensities instanceof FloatBuffer floats) {
+      for (int i = 0; i < n; i++) {
+        dst[i] = floats.get(i);
+      }
+    } else {
+      ((DoubleBuffer) intensities).get(0, dst, 0, n);
+    }
+    return dst;
+  }
+
+  /**
+   * @param intensities buffer created by {@link #storeIntensityValues(MemoryMapStorage, double[])}
+   * @return the same buffer for double precision or a copy with double values for float precision
+   */
+  @NotNull
+  public static DoubleBuffer asDoubleBuffer(@NotNull final Buffer intensities) {
+    if (intensities instanceof DoubleBuffer doubles) {
+      return doubles;
+    }
+    return DoubleBuffer.wrap(getIntensityValues(intensities, new double[intensities.limit()]));
+  }
 }
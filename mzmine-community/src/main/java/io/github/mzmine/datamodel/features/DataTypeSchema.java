@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.DoubleType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.FloatType;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Append only registry that assigns each {@link DataType} a fixed slot index. Each
+ * {@link ModularFeatureList} has one schema for its rows and one for its features, so that slot
+ * arrays only grow with the types that are used in this list. {@link DoubleType}s and
+ * {@link FloatType}s additionally get an index into the primitive number column, all other types
+ * are stored as objects only.
+ */
+public final class DataTypeSchema {
+
+  static final byte KIND_OBJECT = 0;
+  static final byte KIND_FLOAT = 1;
+  static final byte KIND_DOUBLE = 2;
+
+  private final Map<DataType, Integer> slots = new ConcurrentHashMap<>();
+  // copy on write, a slot index is only published after all arrays contain it
+  private volatile DataType[] types = new DataType[0];
+  private volatile byte[] kinds = new byte[0];
+  // index in the number column or -1 for object types
+  private volatile int[] numberIndices = new int[0];
+  private volatile int numberCount = 0;
+
+  DataTypeSchema() {
+  }
+
+  /**
+   * @return the slot of this type or -1 if the type was never registered
+   */
+  public int slotOf(@NotNull DataType type) {
+    final Integer slot = slots.get(type);
+    return slot == null ? -1 : slot;
+  }
+
+  /**
+   * @return the slot of this type, registers the type if it was not yet part of the schema
+   */
+  public int register(@NotNull DataType type) {
+    final Integer slot = slots.get(type);
+    if (slot != null) {
+      return slot;
+    }
+    synchronized (this) {
+      final Integer existing = slots.get(type);
+      if (existing != null) {
+        return existing;
+      }
+      final int newSlot = types.length;
+      final byte kind = kindOf(type);
+      final DataType[] newTypes = Arrays.copyOf(types, newSlot + 1);
+      newTypes[newSlot] = type;
+      final byte[] newKinds = Arrays.copyOf(kinds, newSlot + 1);
+      newKinds[newSlot] = kind;
+      final int[] newNumberIndices = Arrays.copyOf(numberIndices, newSlot + 1);
+      newNumberIndices[newSlot] = kind == KIND_OBJECT ? -1 : numberCount;
+      if (kind != KIND_OBJECT) {
+        numberCount++;
+      }
+      kinds = newKinds;
+      numberIndices = newNumberIndices;
+      types = newTypes;
+      slots.put(type, newSlot);
+      return newSlot;
+    }
+  }
+
+  @Nullable
+  public DataType getType(int slot) {
+    final DataType[] types = this.types;
+    return slot < types.length ? types[slot] : null;
+  }
+
+  byte getKind(int slot) {
+    return kinds[slot];
+  }
+
+  /**
+   * @return the index of this slot in the number column or -1 if the type is stored as object
+   */
+  int getNumberIndex(int slot) {
+    return numberIndices[slot];
+  }
+
+  /**
+   * @return number of registered types
+   */
+  public int size() {
+    return types.length;
+  }
+
+  /**
+   * @return number of registered types with a primitive number index
+   */
+  int numberCount() {
+    return numberCount;
+  }
+
+  private static byte kindOf(DataType type) {
+    return switch (type) {
+      case DoubleType _ -> KIND_DOUBLE;
+      case FloatType _ -> KIND_FLOAT;
+      default -> KIND_OBJECT;
+    };
+  }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import io.github.mzmine.datamodel.features.types.DataType;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Map of {@link DataType} values that stores its entries in arrays indexed by the slots of the
+ * {@link DataTypeSchema} of its feature list instead of hash entries. Float and double values of
+ * number types are kept in a primitive column, use {@link #getDouble(DataType, double)} and
+ * {@link #getFloat(DataType, float)} to read them without boxing. Like {@link java.util.HashMap}
+ * this map is not synchronized and accepts null values, null keys are not supported.
+ */
+public class DataTypeSlotMap extends AbstractMap<DataType, Object> {
+
+  private static final Object[] EMPTY_OBJECTS = new Object[0];
+  private static final double[] EMPTY_NUMBERS = new double[0];
+  private static final long[] EMPTY_BITS = new long[0];
+
+  private @NotNull DataTypeSchema schema;
+  private final @Nullable Consumer<DataType> onTypeAdded;
+  private Object[] objects = EMPTY_OBJECTS;
+  // indexed by the number index of a slot, only for number types
+  private double[] numbers = EMPTY_NUMBERS;
+  // slot has a mapping
+  private long[] present = EMPTY_BITS;
+  // mapped value is stored in numbers
+  private long[] primitive = EMPTY_BITS;
+  private int size;
+  private EntrySet entrySet;
+
+  /**
+   * @param schema      defines the slot of each type
+   * @param onTypeAdded called whenever a type gets a mapping that had none before
+   */
+  public DataTypeSlotMap(@NotNull DataTypeSchema schema, @Nullable Consumer<DataType> onTypeAdded) {
+    this.schema = schema;
+    this.onTypeAdded = onTypeAdded;
+  }
+
+  private static boolean isSet(long[] bits, int slot) {
+    final int word = slot >>> 6;
+    return word < bits.length && (bits[word] & (1L << slot)) != 0;
+  }
+
+  private static void setBit(long[] bits, int slot, boolean value) {
+    if (value) {
+      bits[slot >>> 6] |= 1L << slot;
+    } else {
+      bits[slot >>> 6] &= ~(1L << slot);
+    }
+  }
+
+  private int slotOf(Object key) {
+    return key instanceof DataType type ? schema.slotOf(type) : -1;
+  }
+
+  private boolean isPresent(int slot) {
+    return slot >= 0 && isSet(present, slot);
+  }
+
+  private void ensureCapacity(int slot) {
+    if (slot < objects.length) {
+      return;
+    }
+    final int capacity = Math.max(slot + 1, Math.max(8, schema.size()));
+    objects = Arrays.copyOf(objects, capacity);
+    final int words = (capacity + 63) >>> 6;
+    present = Arrays.copyOf(present, words);
+    primitive = Arrays.copyOf(primitive, words);
+  }
+
+  private void ensureNumberCapacity(int numberIndex) {
+    if (numberIndex < numbers.length) {
+      return;
+    }
+    numbers = Arrays.copyOf(numbers,
+        Math.max(numberIndex + 1, Math.max(4, schema.numberCount())));
+  }
+
+  private Object valueAt(int slot) {
+    if (!isSet(primitive, slot)) {
+      return objects[slot];
+    }
+    final double value = numbers[schema.getNumberIndex(slot)];
+    // no conditional expression, numeric promotion would turn the Float into a Double
+    if (schema.getKind(slot) == DataTypeSchema.KIND_FLOAT) {
+      return Float.valueOf((float) value);
+    }
+    return Double.valueOf(value);
+  }
+
+  /**
+   * Moves all mappings to the slots of another schema, e.g., when a row is added to another feature
+   * list. All types are reported as added.
+   */
+  public void setSchema(@NotNull DataTypeSchema schema) {
+    if (this.schema == schema) {
+      return;
+    }
+    final List<Entry<DataType, Object>> entries = new ArrayList<>(size);
+    for (Entry<DataType, Object> entry : entrySet()) {
+      entries.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+    }
+    this.schema = schema;
+    objects = EMPTY_OBJECTS;
+    numbers = EMPTY_NUMBERS;
+    present = EMPTY_BITS;
+    primitive = EMPTY_BITS;
+    size = 0;
+    for (Entry<DataType, Object> entry : entries) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Reads a number without boxing if it is stored in the primitive column
+   *
+   * @return the value or the default value if there is no mapping or the value is null
+   */
+  public double getDouble(@NotNull DataType<? extends Number> type, double defaultValue) {
+    final int slot = schema.slotOf(type);
+    if (!isPresent(slot)) {
+      return defaultValue;
+    }
+    if (isSet(primitive, slot)) {
+      return numbers[schema.getNumberIndex(slot)];
+    }
+    return objects[slot] instanceof Number n ? n.doubleValue() : defaultValue;
+  }
+
+  /**
+   * Reads a number without boxing if it is stored in the primitive column
+   *
+   * @return the value or the default value if there is no mapping or the value is null
+   */
+  public float getFloat(@NotNull DataType<? extends Number> type, float defaultValue) {
+    final int slot = schema.slotOf(type);
+    if (!isPresent(slot)) {
+      return defaultValue;
+    }
+    if (isSet(primitive, slot)) {
+      return (float) numbers[schema.getNumberIndex(slot)];
+    }
+    return objects[slot] instanceof Number n ? n.floatValue() : defaultValue;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return isPresent(slotOf(key));
+  }
+
+  @Override
+  public Object get(Object key) {
+    final int slot = slotOf(key);
+    return isPresent(slot) ? valueAt(slot) : null;
+  }
+
+  @Override
+  public Object getOrDefault(Object key, Object defaultValue) {
+    final int slot = slotOf(key);
+    return isPresent(slot) ? valueAt(slot) : defaultValue;
+  }
+
+  @Override
+  public Object put(@NotNull DataType key, Object value) {
+    final int slot = schema.register(key);
+    ensureCapacity(slot);
+    final boolean wasPresent = isSet(present, slot);
+    final Object old = wasPresent ? valueAt(slot) : null;
+
+    final byte kind = schema.getKind(slot);
+    // only exact matches go to the primitive array so that the boxed value class is retained
+    if ((kind == DataTypeSchema.KIND_DOUBLE && value instanceof Double)
+        || (kind == DataTypeSchema.KIND_FLOAT && value instanceof Float)) {
+      final int numberIndex = schema.getNumberIndex(slot);
+      ensureNumberCapacity(numberIndex);
+      numbers[numberIndex] = ((Number) value).doubleValue();
+      objects[slot] = null;
+      setBit(primitive, slot, true);
+    } else {
+      objects[slot] = value;
+      setBit(primitive, slot, false);
+    }
+
+    if (!wasPresent) {
+      setBit(present, slot, true);
+      size++;
+      if (onTypeAdded != null) {
+        onTypeAdded.accept(key);
+      }
+    }
+    return old;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    final int slot = slotOf(key);
+    if (!isPresent(slot)) {
+      return null;
+    }
+    return removeSlot(slot);
+  }
+
+  private Object removeSlot(int slot) {
+    final Object old = valueAt(slot);
+    objects[slot] = null;
+    setBit(primitive, slot, false);
+    setBit(present, slot, false);
+    size--;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(objects, null);
+    Arrays.fill(present, 0L);
+    Arrays.fill(primitive, 0L);
+    size = 0;
+  }
+
+  @Override
+  public @NotNull Set<Entry<DataType, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<DataType, Object>> {
+
+    @Override
+    public @NotNull Iterator<Entry<DataType, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void clear() {
+      DataTypeSlotMap.this.clear();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<DataType, Object>> {
+
+    private int next = nextPresent(0);
+    private int last = -1;
+
+    private int nextPresent(int from) {
+      final int length = present.length << 6;
+      for (int slot = from; slot < length; slot++) {
+        if (isSet(present, slot)) {
+          return slot;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next >= 0;
+    }
+
+    @Override
+    public Entry<DataType, Object> next() {
+      if (next < 0) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      next = nextPresent(last + 1);
+      return new SlotEntry(last);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      if (isSet(present, last)) {
+        removeSlot(last);
+      }
+      last = -1;
+    }
+  }
+
+  private final class SlotEntry implements Entry<DataType, Object> {
+
+    private final int slot;
+
+    private SlotEntry(int slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    public DataType getKey() {
+      return schema.getType(slot);
+    }
+
+    @Override
+    public Object getValue() {
+      return isPresent(slot) ? valueAt(slot) : null;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      return put(getKey(), value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Map.Entry<?, ?> e && getKey().equals(e.getKey()) && Objects.equals(getValue(),
+          e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      final Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
@@ -53,7 +53,7 @@ public interface ModularDataModel {
    * @return types that are covered by the model
    */
   default Set<DataType> getTypes() {
-    return getMap().keySet();
+    return getValueMap().keySet();
   }
 
   /**
@@ -64,8 +64,36 @@ public interface ModularDataModel {
    */
   ObservableMap<DataType, Object> getMap();
 
+  /**
+   * The map that backs {@link #getMap()}. All default methods read and write through this map so
+   * that implementations may create the observable wrapper only when it is actually bound.
+   *
+   * @return the backing value map, by default {@link #getMap()}
+   */
+  default Map<DataType, Object> getValueMap() {
+    return getMap();
+  }
+
   default boolean isEmpty() {
-    return getMap().isEmpty();
+    return getValueMap().isEmpty();
+  }
+
+  /**
+   * Number value without boxing if the implementation stores primitives
+   *
+   * @return the value or the default value if the value is null
+   */
+  default double getDouble(@NotNull DataType<? extends Number> type, double defaultValue) {
+    return getValueMap().get(type) instanceof Number n ? n.doubleValue() : defaultValue;
+  }
+
+  /**
+   * Number value without boxing if the implementation stores primitives
+   *
+   * @return the value or the default value if the value is null
+   */
+  default float getFloat(@NotNull DataType<? extends Number> type, float defaultValue) {
+    return getValueMap().get(type) instanceof Number n ? n.floatValue() : defaultValue;
   }
 
   /**
@@ -124,7 +152,7 @@ public interface ModularDataModel {
    */
   @Nullable
   default <T extends Object> T get(DataType<T> type) {
-    return (T) getMap().get(type);
+    return (T) getValueMap().get(type);
   }
 
 
@@ -148,7 +176,7 @@ public interface ModularDataModel {
    */
   @Nullable
   default <T> T getOrDefault(DataType<T> type, T defaultValue) {
-    return (T) getMap().getOrDefault(type, defaultValue);
+    return (T) getValueMap().getOrDefault(type, defaultValue);
   }
 
   /**
@@ -169,7 +197,7 @@ public interface ModularDataModel {
    */
   @NotNull
   default <T> T getNonNullElse(DataType<T> type, @NotNull T defaultValue) {
-    return (T) requireNonNullElse(getMap().getOrDefault(type, null), defaultValue);
+    return (T) requireNonNullElse(getValueMap().getOrDefault(type, null), defaultValue);
   }
 
 
@@ -179,7 +207,7 @@ public interface ModularDataModel {
    */
   @Nullable
   default <T extends Object> boolean hasValueFor(DataType<T> type) {
-    return getMap().get(type) != null;
+    return getValueMap().get(type) != null;
   }
 
   /**
@@ -228,7 +256,7 @@ public interface ModularDataModel {
           STR."Type \{type.getClass()} is not meant to be added to a feature.");
     }
 
-    Object old = getMap().put(type, value);
+    Object old = getValueMap().put(type, value);
     // send changes to all listeners for this data type
     List<DataTypeValueChangeListener<?>> listeners = getValueChangeListeners().get(type);
     if (!Objects.equals(old, value)) {
@@ -273,7 +301,7 @@ public interface ModularDataModel {
    */
   default <T> void remove(DataType<T> type) {
     if (type != null) {
-      Object old = getMap().remove(type);
+      Object old = getValueMap().remove(type);
       if (old != null) {
         List<DataTypeValueChangeListener<?>> listeners = getValueChangeListeners().get(type);
         if (listeners != null) {
@@ -296,7 +324,7 @@ public interface ModularDataModel {
    * Stream all map.entries
    */
   default Stream<Entry<DataType, Object>> stream() {
-    return getMap().entrySet().stream();
+    return getValueMap().entrySet().stream();
   }
 
 }
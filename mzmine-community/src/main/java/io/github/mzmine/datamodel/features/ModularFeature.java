@@ -64,7 +64,6 @@ import io.github.mzmine.modules.tools.qualityparameters.QualityParameters;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.FeatureUtils;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -72,7 +71,6 @@ import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -85,7 +83,9 @@ import org.jetbrains.annotations.Nullable;
 public class ModularFeature implements Feature, ModularDataModel {
 
   private static final Logger logger = Logger.getLogger(ModularFeature.class.getName());
-  private final ObservableMap<DataType, Object> map = FXCollections.observableMap(new HashMap<>());
+  private final DataTypeSlotMap map;
+  // only created on demand, e.g., when the GUI binds to this feature
+  private volatile ObservableMap<DataType, Object> observableMap;
   // buffert col charts and nodes
   @NotNull
   private ModularFeatureList flist;
@@ -94,13 +94,7 @@ public class ModularFeature implements Feature, ModularDataModel {
 
   public ModularFeature(@NotNull ModularFeatureList flist) {
     this.flist = flist;
-
-    //
-    map.addListener((MapChangeListener<? super DataType, ? super Object>) change -> {
-      if (change.wasAdded()) {
-        flist.addFeatureType(change.getKey());
-      }
-    });
+    map = new DataTypeSlotMap(flist.getFeatureSchema(), type -> this.flist.addFeatureType(type));
   }
 
   // NOT TESTED
@@ -286,7 +280,34 @@ public class ModularFeature implements Feature, ModularDataModel {
   // todo make this private?
   @Override
   public ObservableMap<DataType, Object> getMap() {
-    return map;
+    ObservableMap<DataType, Object> observable = observableMap;
+    if (observable == null) {
+      synchronized (map) {
+        observable = observableMap;
+        if (observable == null) {
+          observable = FXCollections.observableMap(map);
+          observableMap = observable;
+        }
+      }
+    }
+    return observable;
+  }
+
+  @Override
+  public Map<DataType, Object> getValueMap() {
+    // once the observable map exists, all changes go through it to notify its listeners
+    final ObservableMap<DataType, Object> observable = observableMap;
+    return observable != null ? observable : map;
+  }
+
+  @Override
+  public double getDouble(@NotNull DataType<? extends Number> type, double defaultValue) {
+    return map.getDouble(type, defaultValue);
+  }
+
+  @Override
+  public float getFloat(@NotNull DataType<? extends Number> type, float defaultValue) {
+    return map.getFloat(type, defaultValue);
   }
 
   /**
@@ -431,6 +452,7 @@ public class ModularFeature implements Feature, ModularDataModel {
   @Override
   public void setFeatureList(@NotNull FeatureList flist) {
     this.flist = (ModularFeatureList) flist;
+    map.setSchema(this.flist.getFeatureSchema());
   }
 
   @Override
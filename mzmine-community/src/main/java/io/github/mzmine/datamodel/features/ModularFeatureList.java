@@ -114,6 +114,9 @@ public class ModularFeatureList implements FeatureList {
   private final ObservableList<FeatureListAppliedMethod> descriptionOfAppliedTasks;
 
   private final R2RNetworkingMaps r2rNetworkingMaps = new R2RNetworkingMaps();
+  // slots of the data types in the rows and features of this list
+  private final DataTypeSchema rowSchema = new DataTypeSchema();
+  private final DataTypeSchema featureSchema = new DataTypeSchema();
 
   @NotNull
   private String nameProperty = "";
@@ -826,6 +829,22 @@ public class ModularFeatureList implements FeatureList {
     return memoryMapStorage;
   }
 
+  /**
+   * @return the slots of the data types in all rows of this list
+   */
+  @NotNull
+  DataTypeSchema getRowSchema() {
+    return rowSchema;
+  }
+
+  /**
+   * @return the slots of the data types in all features of this list
+   */
+  @NotNull
+  DataTypeSchema getFeatureSchema() {
+    return featureSchema;
+  }
+
   /**
    * Replaces {@link CachedIMSRawDataFile}s and {@link CachedIMSFrame}s in the selected scans and
    * raw data files of this feature list. Cached files are used during feature list import to avoid
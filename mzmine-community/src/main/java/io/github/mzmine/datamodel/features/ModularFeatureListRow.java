@@ -84,7 +84,6 @@ import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import org.jetbrains.annotations.NotNull;
@@ -107,7 +106,9 @@ public class ModularFeatureListRow implements FeatureListRow {
    * this final map is used in the FeaturesType - only ModularFeatureListRow is supposed to change
    * this map see {@link #addFeature}
    */
-  private final ObservableMap<DataType, Object> map = FXCollections.observableMap(new HashMap<>());
+  private final DataTypeSlotMap map;
+  // only created on demand, e.g., when the GUI binds to this row
+  private volatile ObservableMap<DataType, Object> observableMap;
   private final Map<RawDataFile, ModularFeature> features;
   @NotNull
   private ModularFeatureList flist;
@@ -120,12 +121,7 @@ public class ModularFeatureListRow implements FeatureListRow {
    */
   public ModularFeatureListRow(@NotNull ModularFeatureList flist, int id) {
     this.flist = flist;
-
-    map.addListener((MapChangeListener<? super DataType, ? super Object>) change -> {
-      if (change.wasAdded()) {
-        flist.addRowType(change.getKey());
-      }
-    });
+    map = new DataTypeSlotMap(flist.getRowSchema(), type -> getFeatureList().addRowType(type));
 
     // features
     List<RawDataFile> raws = flist.getRawDataFiles();
@@ -202,7 +198,34 @@ public class ModularFeatureListRow implements FeatureListRow {
   // todo make private?
   @Override
   public ObservableMap<DataType, Object> getMap() {
-    return map;
+    ObservableMap<DataType, Object> observable = observableMap;
+    if (observable == null) {
+      synchronized (map) {
+        observable = observableMap;
+        if (observable == null) {
+          observable = FXCollections.observableMap(map);
+          observableMap = observable;
+        }
+      }
+    }
+    return observable;
+  }
+
+  @Override
+  public Map<DataType, Object> getValueMap() {
+    // once the observable map exists, all changes go through it to notify its listeners
+    final ObservableMap<DataType, Object> observable = observableMap;
+    return observable != null ? observable : map;
+  }
+
+  @Override
+  public double getDouble(@NotNull DataType<? extends Number> type, double defaultValue) {
+    return map.getDouble(type, defaultValue);
+  }
+
+  @Override
+  public float getFloat(@NotNull DataType<? extends Number> type, float defaultValue) {
+    return map.getFloat(type, defaultValue);
   }
 
   @Override
@@ -380,6 +403,7 @@ public class ModularFeatureListRow implements FeatureListRow {
           "Cannot set non-modular feature list to modular feature list row.");
     }
     this.flist = (ModularFeatureList) flist;
+    map.setSchema(this.flist.getRowSchema());
   }
 
   @Override
@@ -499,7 +523,7 @@ public class ModularFeatureListRow implements FeatureListRow {
 
   @Override
   public void addCompoundAnnotation(CompoundDBAnnotation id) {
-    synchronized (getMap()) {
+    synchronized (map) {
       List<CompoundDBAnnotation> matches = get(CompoundDatabaseMatchesType.class);
       if (matches == null) {
         matches = new ArrayList<>();
@@ -518,7 +542,7 @@ public class ModularFeatureListRow implements FeatureListRow {
 
   @Override
   public void setCompoundAnnotations(List<CompoundDBAnnotation> annotations) {
-    synchronized (getMap()) {
+    synchronized (map) {
       set(CompoundDatabaseMatchesType.class, annotations);
     }
   }
@@ -532,7 +556,7 @@ public class ModularFeatureListRow implements FeatureListRow {
    */
   @Override
   public boolean isIdentified() {
-    for (Entry<DataType, Object> entry : getMap().entrySet()) {
+    for (Entry<DataType, Object> entry : map.entrySet()) {
       final DataType dt = entry.getKey();
       if (dt instanceof ListWithSubsType<?> listType && dt instanceof AnnotationType) {
         final List<?> list = get(listType);
@@ -546,7 +570,7 @@ public class ModularFeatureListRow implements FeatureListRow {
 
   @Override
   public void addSpectralLibraryMatch(SpectralDBAnnotation id) {
-    synchronized (getMap()) {
+    synchronized (map) {
       List<SpectralDBAnnotation> matches = get(SpectralLibraryMatchesType.class);
       if (matches == null) {
         matches = new ArrayList<>();
@@ -558,7 +582,7 @@ public class ModularFeatureListRow implements FeatureListRow {
 
   @Override
   public void addSpectralLibraryMatches(List<SpectralDBAnnotation> matches) {
-    synchronized (getMap()) {
+    synchronized (map) {
       List<SpectralDBAnnotation> old = get(SpectralLibraryMatchesType.class);
       if (old == null) {
         old = new ArrayList<>();
@@ -576,7 +600,7 @@ public class ModularFeatureListRow implements FeatureListRow {
 
   @Override
   public void setSpectralLibraryMatch(List<SpectralDBAnnotation> matches) {
-    synchronized (getMap()) {
+    synchronized (map) {
       set(SpectralLibraryMatchesType.class, matches);
     }
   }
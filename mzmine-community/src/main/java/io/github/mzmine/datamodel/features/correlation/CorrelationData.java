@@ -25,6 +25,7 @@
 
 package io.github.mzmine.datamodel.features.correlation;
 
+import io.github.mzmine.util.maths.similarity.Similarity;
 import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
 import org.jetbrains.annotations.Nullable;
 import org.apache.commons.math.MathException;
@@ -85,6 +86,16 @@ public interface CorrelationData {
   @Nullable
   double[][] getData();
 
+  /**
+   * Maximum fold change from the minimum to the maximum value of one feature
+   *
+   * @param dimension 0 for the first and 1 for the second feature
+   * @return max / min
+   */
+  default double getMaxFoldChange(int dimension) {
+    return Similarity.maxFoldChange(getData(), dimension);
+  }
+
   /**
    * Simple check if the correlation is valid
    *
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable compressed sparse row (CSR) adjacency of all row pairs in a {@link R2RMap}. Nodes are
+ * the sorted unique row IDs, each undirected edge is stored once and referenced from both of its
+ * nodes. Create via {@link R2RMap#freeze()}.
+ */
+public final class R2RAdjacency<T> {
+
+  /**
+   * sorted unique row IDs
+   */
+  private final int[] rowIds;
+  /**
+   * neighbors of node i are in [nodeStart[i], nodeStart[i+1])
+   */
+  private final int[] nodeStart;
+  /**
+   * node indices of neighbors
+   */
+  private final int[] neighborNodes;
+  private final int[] neighborEdges;
+  /**
+   * edges sorted by key
+   */
+  private final long[] edgeKeys;
+  private final Object[] edgeValues;
+
+  private R2RAdjacency(long[] edgeKeys, Object[] edgeValues) {
+    this.edgeKeys = edgeKeys;
+    this.edgeValues = edgeValues;
+    final int numEdges = edgeKeys.length;
+
+    // unique sorted node IDs
+    final int[] ids = new int[numEdges * 2];
+    for (int e = 0; e < numEdges; e++) {
+      ids[e * 2] = R2RMap.getRowIdA(edgeKeys[e]);
+      ids[e * 2 + 1] = R2RMap.getRowIdB(edgeKeys[e]);
+    }
+    IntArrays.parallelQuickSort(ids);
+    int numNodes = 0;
+    for (int i = 0; i < ids.length; i++) {
+      if (i == 0 || ids[i] != ids[i - 1]) {
+        ids[numNodes++] = ids[i];
+      }
+    }
+    rowIds = Arrays.copyOf(ids, numNodes);
+
+    // degrees then prefix sums
+    nodeStart = new int[numNodes + 1];
+    for (final long key : edgeKeys) {
+      nodeStart[indexOf(R2RMap.getRowIdA(key)) + 1]++;
+      nodeStart[indexOf(R2RMap.getRowIdB(key)) + 1]++;
+    }
+    for (int i = 0; i < numNodes; i++) {
+      nodeStart[i + 1] += nodeStart[i];
+    }
+
+    neighborNodes = new int[numEdges * 2];
+    neighborEdges = new int[numEdges * 2];
+    final int[] fill = Arrays.copyOf(nodeStart, numNodes);
+    for (int e = 0; e < numEdges; e++) {
+      final int a = R2RMap.getRowIdA(edgeKeys[e]);
+      final int b = R2RMap.getRowIdB(edgeKeys[e]);
+      final int nodeA = indexOf(a);
+      final int nodeB = indexOf(b);
+      final int posA = fill[nodeA]++;
+      neighborNodes[posA] = nodeB;
+      neighborEdges[posA] = e;
+      final int posB = fill[nodeB]++;
+      neighborNodes[posB] = nodeA;
+      neighborEdges[posB] = e;
+    }
+  }
+
+  /**
+   * @param map source map, may still be filled by other threads but changes during this call may
+   *            or may not be included
+   * @return a frozen snapshot of the map
+   */
+  @NotNull
+  static <T> R2RAdjacency<T> of(@NotNull R2RMap<T> map) {
+    final LongArrayList keys = new LongArrayList(map.size());
+    final List<Object> values = new ArrayList<>(map.size());
+    map.forEach((rowIdA, rowIdB, value) -> {
+      keys.add(R2RMap.toKey(rowIdA, rowIdB));
+      values.add(value);
+    });
+
+    final long[] edgeKeys = keys.toLongArray();
+    final Object[] edgeValues = values.toArray();
+    it.unimi.dsi.fastutil.Arrays.quickSort(0, edgeKeys.length,
+        (i, j) -> Long.compare(edgeKeys[i], edgeKeys[j]), (i, j) -> {
+          final long key = edgeKeys[i];
+          edgeKeys[i] = edgeKeys[j];
+          edgeKeys[j] = key;
+          final Object value = edgeValues[i];
+          edgeValues[i] = edgeValues[j];
+          edgeValues[j] = value;
+        });
+    return new R2RAdjacency<>(edgeKeys, edgeValues);
+  }
+
+  public int getNumNodes() {
+    return rowIds.length;
+  }
+
+  public int getNumEdges() {
+    return edgeKeys.length;
+  }
+
+  /**
+   * @param node node index in [0, getNumNodes())
+   * @return the row ID of this node
+   */
+  public int getRowId(int node) {
+    return rowIds[node];
+  }
+
+  /**
+   * @return the node index of this row ID or -1 if the row has no edges
+   */
+  public int indexOf(int rowId) {
+    final int index = Arrays.binarySearch(rowIds, rowId);
+    return index < 0 ? -1 : index;
+  }
+
+  /**
+   * @return number of edges of this row, 0 if the row has no edges
+   */
+  public int getDegree(int rowId) {
+    final int node = indexOf(rowId);
+    return node < 0 ? 0 : nodeStart[node + 1] - nodeStart[node];
+  }
+
+  /**
+   * @param edge edge index in [0, getNumEdges())
+   * @return the lower row ID of this edge
+   */
+  public int getRowIdA(int edge) {
+    return R2RMap.getRowIdA(edgeKeys[edge]);
+  }
+
+  /**
+   * @param edge edge index in [0, getNumEdges())
+   * @return the higher row ID of this edge
+   */
+  public int getRowIdB(int edge) {
+    return R2RMap.getRowIdB(edgeKeys[edge]);
+  }
+
+  /**
+   * @param edge edge index in [0, getNumEdges())
+   * @return the value of this edge
+   */
+  @SuppressWarnings("unchecked")
+  public T getValue(int edge) {
+    return (T) edgeValues[edge];
+  }
+
+  /**
+   * @return the value of the edge between both rows or null if there is no edge
+   */
+  @Nullable
+  public T get(int rowIdA, int rowIdB) {
+    return get(R2RMap.toKey(rowIdA, rowIdB));
+  }
+
+  /**
+   * @param key undirected key created by {@link R2RMap#toKey(int, int)}
+   * @return the value of this edge or null if there is no edge
+   */
+  @Nullable
+  public T get(long key) {
+    final int edge = Arrays.binarySearch(edgeKeys, key);
+    return edge < 0 ? null : getValue(edge);
+  }
+
+  /**
+   * Iterates all neighbors of a row
+   */
+  public void forEachNeighbor(int rowId, NeighborConsumer<? super T> consumer) {
+    final int node = indexOf(rowId);
+    if (node < 0) {
+      return;
+    }
+    for (int i = nodeStart[node]; i < nodeStart[node + 1]; i++) {
+      consumer.accept(rowIds[neighborNodes[i]], neighborEdges[i], getValue(neighborEdges[i]));
+    }
+  }
+
+  /**
+   * Iterates all edges once, sorted by lower and then higher row ID
+   */
+  public void forEachEdge(R2RMap.EdgeConsumer<? super T> consumer) {
+    for (int e = 0; e < edgeKeys.length; e++) {
+      consumer.accept(getRowIdA(e), getRowIdB(e), getValue(e));
+    }
+  }
+
+  /**
+   * Connected components over all edges that match the filter. Rows without any matching edge are
+   * not reported.
+   *
+   * @param edgeFilter only edges with matching values connect rows
+   * @return the row IDs of each component with at least two rows
+   */
+  @NotNull
+  public List<int[]> getConnectedComponents(@NotNull Predicate<? super T> edgeFilter) {
+    final int numNodes = rowIds.length;
+    final int[] component = new int[numNodes];
+    Arrays.fill(component, -1);
+    final IntArrayList stack = new IntArrayList();
+    final List<int[]> components = new ArrayList<>();
+    final IntArrayList members = new IntArrayList();
+
+    for (int start = 0; start < numNodes; start++) {
+      if (component[start] != -1) {
+        continue;
+      }
+      component[start] = start;
+      members.clear();
+      stack.add(start);
+      while (!stack.isEmpty()) {
+        final int node = stack.popInt();
+        members.add(rowIds[node]);
+        for (int i = nodeStart[node]; i < nodeStart[node + 1]; i++) {
+          if (!edgeFilter.test(getValue(neighborEdges[i]))) {
+            continue;
+          }
+          final int neighbor = neighborNodes[i];
+          if (component[neighbor] == -1) {
+            component[neighbor] = start;
+            stack.add(neighbor);
+          }
+        }
+      }
+      if (members.size() > 1) {
+        components.add(members.toIntArray());
+      }
+    }
+    return components;
+  }
+
+  /**
+   * Consumes a neighbor of a row
+   */
+  @FunctionalInterface
+  public interface NeighborConsumer<T> {
+
+    /**
+     * @param neighborRowId the row ID of the neighbor
+     * @param edge          the edge index, see {@link R2RAdjacency#getValue(int)}
+     * @param value         the edge value
+     */
+    void accept(int neighborRowId, int edge, T value);
+  }
+}
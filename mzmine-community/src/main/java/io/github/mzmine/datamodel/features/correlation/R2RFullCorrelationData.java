@@ -105,9 +105,15 @@ public class R2RFullCorrelationData extends R2RCorrelationData {
     avgShapeCosineSim = avgShapeCosineSim / c;
 
     // create new total corr
-    double[][] data = corrFeatureShape.values().stream().map(CorrelationData::getData)
-        .flatMap(Arrays::stream).toArray(double[][]::new);
-    corrTotal = new FullCorrelationData(data);
+    if (corrFeatureShape.values().stream().allMatch(SummedCorrelationData.class::isInstance)) {
+      // merge running sums without creating the data points
+      corrTotal = SummedCorrelationData.combine(corrFeatureShape.values().stream()
+          .map(SummedCorrelationData.class::cast).toList());
+    } else {
+      double[][] data = corrFeatureShape.values().stream().map(CorrelationData::getData)
+          .flatMap(Arrays::stream).toArray(double[][]::new);
+      corrTotal = new FullCorrelationData(data);
+    }
   }
 
   public CorrelationData getCorrFeatureShape(RawDataFile raw) {
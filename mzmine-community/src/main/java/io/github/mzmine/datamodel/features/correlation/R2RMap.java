@@ -26,19 +26,48 @@
 package io.github.mzmine.datamodel.features.correlation;
 
 import io.github.mzmine.datamodel.features.FeatureListRow;
-import io.github.mzmine.util.MathUtils;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * Map an object to two rows
+ * Map an object to two rows. The undirected pair of row IDs is packed into a primitive long key
+ * (lower ID in the upper 32 bits) and kept in lock striped primitive hash maps, so many threads can
+ * add relationships concurrently without boxing every key. Use {@link #freeze()} to create a
+ * compressed sparse adjacency for neighbor iteration and grouping once the map is filled. The last
+ * frozen adjacency is kept until the map changes and serves {@link #get(long)} without locking, so
+ * freeze the map before many parallel lookups.
  *
  * @author Robin Schmid
  */
-public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
+public class R2RMap<T> {
 
+  /**
+   * Number of independently locked stripes, power of two
+   */
+  private static final int STRIPES = 64;
+
+  private final Long2ObjectOpenHashMap<T>[] stripes;
+  /**
+   * incremented on every change, invalidates the frozen adjacency
+   */
+  private final AtomicLong version = new AtomicLong();
+  private volatile Frozen<T> frozen;
+
+  @SuppressWarnings("unchecked")
   public R2RMap() {
+    stripes = new Long2ObjectOpenHashMap[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Long2ObjectOpenHashMap<>();
+    }
   }
 
   /**
@@ -48,8 +77,37 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * @param b Feature list row with getID >=0
    * @return unique undirected ID
    */
-  public static int toKey(FeatureListRow a, FeatureListRow b) {
-    return MathUtils.undirectedPairing(a.getID(), b.getID());
+  public static long toKey(FeatureListRow a, FeatureListRow b) {
+    return toKey(a.getID(), b.getID());
+  }
+
+  /**
+   * A unique undirected key for two row IDs. The lower ID is stored in the upper 32 bits.
+   *
+   * @return unique undirected ID
+   */
+  public static long toKey(int rowIdA, int rowIdB) {
+    final int min = Math.min(rowIdA, rowIdB);
+    final int max = Math.max(rowIdA, rowIdB);
+    return ((long) min << 32) | (max & 0xffffffffL);
+  }
+
+  /**
+   * @return the lower row ID of a key created by {@link #toKey(int, int)}
+   */
+  public static int getRowIdA(long key) {
+    return (int) (key >>> 32);
+  }
+
+  /**
+   * @return the higher row ID of a key created by {@link #toKey(int, int)}
+   */
+  public static int getRowIdB(long key) {
+    return (int) key;
+  }
+
+  private Long2ObjectOpenHashMap<T> stripe(long key) {
+    return stripes[(int) HashCommon.mix(key) & (STRIPES - 1)];
   }
 
   /**
@@ -59,7 +117,7 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * @param value values is mapped to the pair of FeatureListRows a and b
    */
   public void add(FeatureListRow a, FeatureListRow b, T value) {
-    this.put(toKey(a, b), value);
+    put(a, b, value);
   }
 
   /**
@@ -67,9 +125,24 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * and yield the same mapping.
    *
    * @param value values is mapped to the pair of FeatureListRows a and b
+   * @return the previous value or null
+   */
+  public T put(FeatureListRow a, FeatureListRow b, T value) {
+    return put(toKey(a, b), value);
+  }
+
+  /**
+   * @param key   undirected key created by {@link #toKey(int, int)}
+   * @param value the value to map
+   * @return the previous value or null
    */
-  public void put(FeatureListRow a, FeatureListRow b, T value) {
-    super.put(toKey(a, b), value);
+  public T put(long key, T value) {
+    final Long2ObjectOpenHashMap<T> stripe = stripe(key);
+    synchronized (stripe) {
+      final T previous = stripe.put(key, value);
+      version.incrementAndGet();
+      return previous;
+    }
   }
 
   /**
@@ -77,10 +150,70 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    *
    * @return the value mapped to the pair of a-b (== b-a) or null if no mapping exists
    */
+  @Nullable
   public T get(FeatureListRow a, FeatureListRow b) {
     return get(toKey(a, b));
   }
 
+  /**
+   * @param key undirected key created by {@link #toKey(int, int)}
+   * @return the mapped value or null if no mapping exists
+   */
+  @Nullable
+  public T get(long key) {
+    final Frozen<T> frozen = this.frozen;
+    if (frozen != null && frozen.version == version.get()) {
+      return frozen.graph.get(key);
+    }
+    final Long2ObjectOpenHashMap<T> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.get(key);
+    }
+  }
+
+  /**
+   * The order of arguments does not matter
+   *
+   * @return the removed value or null
+   */
+  @Nullable
+  public T remove(int rowIdA, int rowIdB) {
+    final long key = toKey(rowIdA, rowIdB);
+    final Long2ObjectOpenHashMap<T> stripe = stripe(key);
+    synchronized (stripe) {
+      final T removed = stripe.remove(key);
+      if (removed != null) {
+        version.incrementAndGet();
+      }
+      return removed;
+    }
+  }
+
+  /**
+   * Removes all mappings with values that match the filter
+   *
+   * @return true if any value was removed
+   */
+  public boolean removeIf(Predicate<? super T> filter) {
+    boolean removed = false;
+    for (Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        if (stripe.values().removeIf(filter)) {
+          removed = true;
+          version.incrementAndGet();
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Copies all mappings of the other map into this map
+   */
+  public void putAll(R2RMap<? extends T> map) {
+    map.forEach((rowIdA, rowIdB, value) -> put(toKey(rowIdA, rowIdB), value));
+  }
+
   /**
    * Performance optimised version to get a stream of all correlated rows in this {@link R2RMap}.
    * Mapping is based on the ID of the two rows. Make sure the row and allRows originate from the
@@ -107,4 +240,90 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
   public boolean contains(final FeatureListRow a, final FeatureListRow b) {
     return get(a, b) != null;
   }
+
+  /**
+   * @return the number of mapped row pairs
+   */
+  public int size() {
+    int size = 0;
+    for (Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @return a snapshot of all values
+   */
+  @NotNull
+  public List<T> values() {
+    final List<T> values = new ArrayList<>(size());
+    for (Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        values.addAll(stripe.values());
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Iterates all mappings. Each stripe is locked during its iteration, so the consumer should not
+   * modify this map.
+   */
+  public void forEach(EdgeConsumer<? super T> consumer) {
+    for (Long2ObjectOpenHashMap<T> stripe : stripes) {
+      synchronized (stripe) {
+        for (Long2ObjectMap.Entry<T> e : stripe.long2ObjectEntrySet()) {
+          final long key = e.getLongKey();
+          consumer.accept(getRowIdA(key), getRowIdB(key), e.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates an immutable compressed sparse adjacency of the current state. Later changes to this
+   * map are not reflected. The adjacency is reused by further calls and lock free lookups until
+   * the map changes.
+   *
+   * @return the frozen graph of all row pairs
+   */
+  @NotNull
+  public R2RAdjacency<T> freeze() {
+    final Frozen<T> current = frozen;
+    final long before = version.get();
+    if (current != null && current.version == before) {
+      return current.graph;
+    }
+    final R2RAdjacency<T> graph = R2RAdjacency.of(this);
+    // only serve lookups if no change happened while the snapshot was created
+    if (version.get() == before) {
+      frozen = new Frozen<>(before, graph);
+    }
+    return graph;
+  }
+
+  private record Frozen<T>(long version, @NotNull R2RAdjacency<T> graph) {
+
+  }
+
+  /**
+   * Consumes an undirected edge between two rows
+   */
+  @FunctionalInterface
+  public interface EdgeConsumer<T> {
+
+    /**
+     * @param rowIdA the lower row ID
+     * @param rowIdB the higher row ID
+     * @param value  the mapped value
+     */
+    void accept(int rowIdA, int rowIdB, T value);
+  }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import io.github.mzmine.datamodel.data_access.CachedFeatureDataAccess.GridIntensities;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Supplier;
+import org.apache.commons.math.MathException;
+import org.apache.commons.math.distribution.TDistributionImpl;
+
+/**
+ * correlation of two feature shapes from the running sums of their data points. Does not store
+ * data point pairs to reduce the memory footprint, the data are only created on demand.
+ */
+public class SummedCorrelationData implements CorrelationData {
+
+  private final Supplier<double[][]> data;
+  private int numDP;
+  private double sumX;
+  private double sumY;
+  private double sumXY;
+  private double sumXX;
+  private double sumYY;
+  private double minX = Double.POSITIVE_INFINITY;
+  private double maxX = Double.NEGATIVE_INFINITY;
+  private double minY = Double.POSITIVE_INFINITY;
+  private double maxY = Double.NEGATIVE_INFINITY;
+
+  private SummedCorrelationData(Supplier<double[][]> data) {
+    this.data = data;
+  }
+
+  /**
+   * Correlates two features on a shared scan grid from the apex to both edges. Grid indices where
+   * both features have no data point are skipped.
+   *
+   * @param a    the higher feature
+   * @param b    the other feature
+   * @param apex grid index of the apex of a
+   * @param from first grid index of the correlated range
+   * @param to   last grid index of the correlated range
+   */
+  public static SummedCorrelationData ofGrid(GridIntensities a, GridIntensities b, int apex,
+      int from, int to) {
+    final SummedCorrelationData corr = new SummedCorrelationData(
+        () -> createData(a, b, apex, from, to));
+    for (int i = from; i <= to; i++) {
+      final double x = a.get(i);
+      if (!Double.isNaN(x)) {
+        corr.add(x, b.get(i));
+      }
+    }
+    return corr;
+  }
+
+  /**
+   * Combines the data points of multiple correlations
+   *
+   * @param correlations the correlations to combine
+   * @return one correlation of all data points
+   */
+  public static SummedCorrelationData combine(Collection<SummedCorrelationData> correlations) {
+    final SummedCorrelationData total = new SummedCorrelationData(
+        () -> correlations.stream().map(SummedCorrelationData::getData).flatMap(Arrays::stream)
+            .toArray(double[][]::new));
+    for (SummedCorrelationData c : correlations) {
+      total.numDP += c.numDP;
+      total.sumX += c.sumX;
+      total.sumY += c.sumY;
+      total.sumXY += c.sumXY;
+      total.sumXX += c.sumXX;
+      total.sumYY += c.sumYY;
+      total.minX = Math.min(total.minX, c.minX);
+      total.maxX = Math.max(total.maxX, c.maxX);
+      total.minY = Math.min(total.minY, c.minY);
+      total.maxY = Math.max(total.maxY, c.maxY);
+    }
+    return total;
+  }
+
+  /**
+   * Same order as the data points are matched: from the apex to the left edge, then to the right
+   */
+  private static double[][] createData(GridIntensities a, GridIntensities b, int apex, int from,
+      int to) {
+    final double[][] data = new double[to - from + 1][];
+    int n = 0;
+    for (int i = apex; i >= from; i--) {
+      if (!Double.isNaN(a.get(i))) {
+        data[n++] = new double[]{a.get(i), b.get(i)};
+      }
+    }
+    for (int i = apex + 1; i <= to; i++) {
+      if (!Double.isNaN(a.get(i))) {
+        data[n++] = new double[]{a.get(i), b.get(i)};
+      }
+    }
+    return n == data.length ? data : Arrays.copyOf(data, n);
+  }
+
+  private void add(double x, double y) {
+    numDP++;
+    sumX += x;
+    sumY += y;
+    sumXY += x * y;
+    sumXX += x * x;
+    sumYY += y * y;
+    minX = Math.min(minX, x);
+    maxX = Math.max(maxX, x);
+    minY = Math.min(minY, y);
+    maxY = Math.max(maxY, y);
+  }
+
+  /**
+   * @return sum of squared deviations of x from its mean
+   */
+  private double centeredSumXX() {
+    return centeredSquares(sumXX, sumX);
+  }
+
+  private double centeredSumYY() {
+    return centeredSquares(sumYY, sumY);
+  }
+
+  /**
+   * Constant values result in rounding errors around zero instead of zero
+   */
+  private double centeredSquares(double sumSquares, double sum) {
+    final double centered = sumSquares - sum * sum / numDP;
+    return centered <= sumSquares * 1E-12 ? 0d : centered;
+  }
+
+  private double centeredSumXY() {
+    return sumXY - sumX * sumY / numDP;
+  }
+
+  @Override
+  public int getDPCount() {
+    return numDP;
+  }
+
+  @Override
+  public double getPearsonR() {
+    final double sxx = centeredSumXX();
+    final double syy = centeredSumYY();
+    if (numDP < 2 || sxx == 0 || syy == 0) {
+      return Double.NaN;
+    }
+    return centeredSumXY() / Math.sqrt(sxx * syy);
+  }
+
+  @Override
+  public double getCosineSimilarity() {
+    return sumXY / (Math.sqrt(sumXX) * Math.sqrt(sumYY));
+  }
+
+  @Override
+  public double[][] getData() {
+    return data.get();
+  }
+
+  @Override
+  public double getMaxFoldChange(int dimension) {
+    return dimension == 0 ? maxX / minX : maxY / minY;
+  }
+
+  @Override
+  public double getSlope() {
+    final double sxx = centeredSumXX();
+    if (numDP < 2 || sxx == 0) {
+      return Double.NaN;
+    }
+    return centeredSumXY() / sxx;
+  }
+
+  /**
+   * Two-sided significance of the slope from a t-distribution with n-2 degrees of freedom, same as
+   * {@link org.apache.commons.math.stat.regression.SimpleRegression#getSignificance()}
+   */
+  @Override
+  public double getRegressionSignificance() throws MathException {
+    final double sxx = centeredSumXX();
+    if (numDP < 3 || sxx == 0) {
+      return Double.NaN;
+    }
+    final double sxy = centeredSumXY();
+    final double sumSquaredErrors = Math.max(0d, centeredSumYY() - sxy * sxy / sxx);
+    final double slopeStdErr = Math.sqrt(sumSquaredErrors / (numDP - 2) / sxx);
+    return 2d * (1d - new TDistributionImpl(numDP - 2).cumulativeProbability(
+        Math.abs(getSlope()) / slopeStdErr));
+  }
+}
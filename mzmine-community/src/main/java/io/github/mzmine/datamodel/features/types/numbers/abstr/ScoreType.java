@@ -25,6 +25,7 @@
 
 package io.github.mzmine.datamodel.features.types.numbers.abstr;
 
+import io.github.mzmine.gui.preferences.ThreadLocalNumberFormat;
 import io.github.mzmine.main.MZmineCore;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -35,7 +36,7 @@ import org.jetbrains.annotations.NotNull;
  */
 public class ScoreType extends FloatType {
 
-  public static final DecimalFormat DEFAULT = new DecimalFormat("0.000");
+  public static final NumberFormat DEFAULT = ThreadLocalNumberFormat.of(new DecimalFormat("0.000"));
 
   public ScoreType() {
     super(DEFAULT);
@@ -53,11 +53,8 @@ public abstract class AbstractMassSpectrum implements MassSpectrum {
   protected synchronized void updateMzRangeAndTICValues() {
 
     final DoubleBuffer mzValues = getMzValues();
-    final DoubleBuffer intensityValues = getIntensityValues();
 
     assert mzValues != null;
-    assert intensityValues != null;
-    assert mzValues.limit() == intensityValues.limit();
 
 
     if (mzValues.limit() == 0) {
@@ -70,7 +67,7 @@ public abstract class AbstractMassSpectrum implements MassSpectrum {
     basePeakIndex = 0;
 
     double lastMz = mzValues.get(0);
-    double maxIntensity = intensityValues.get(0);
+    double maxIntensity = getIntensityValue(0);
     totalIonCurrent = maxIntensity;
     for (int i = 1; i < mzValues.limit(); i++) {
 
@@ -81,7 +78,7 @@ public abstract class AbstractMassSpectrum implements MassSpectrum {
       }
 
       // Update base peak index
-      double intensity = intensityValues.get(i);
+      double intensity = getIntensityValue(i);
       if (intensity > maxIntensity) {
         basePeakIndex = i;
         maxIntensity = intensity;
@@ -135,7 +132,7 @@ public abstract class AbstractMassSpectrum implements MassSpectrum {
     if (spectrumType == null) {
       spectrumType = ScanUtils.detectSpectrumType(
           DataPointUtils.getDoubleBufferAsArray(getMzValues()),
-          DataPointUtils.getDoubleBufferAsArray(getIntensityValues()));
+          getIntensityValues(new double[getNumberOfDataPoints()]));
     }
 
     return spectrumType;
@@ -150,11 +147,6 @@ public abstract class AbstractMassSpectrum implements MassSpectrum {
     return getMzValues().get(index);
   }
 
-  @Override
-  public double getIntensityValue(int index) {
-    return getIntensityValues().get(index);
-  }
-
   @Override
   @Nullable
   public Double getBasePeakMz() {
@@ -171,14 +163,12 @@ public abstract class AbstractMassSpectrum implements MassSpectrum {
     if (basePeakIndex == null) {
       return null;
     } else {
-      return getIntensityValues().get(basePeakIndex);
+      return getIntensityValue(basePeakIndex);
     }
   }
 
   abstract DoubleBuffer getMzValues();
 
-  abstract DoubleBuffer getIntensityValues();
-
   @Override
   public Iterator<DataPoint> iterator() {
     return new DataPointIterator(this);
@@ -30,6 +30,7 @@ import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
 import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.MemoryMapStorage;
+import java.nio.Buffer;
 import java.nio.DoubleBuffer;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -44,7 +45,8 @@ public abstract class AbstractStorableSpectrum extends AbstractMassSpectrum {
   public static final DoubleBuffer EMPTY_BUFFER = DoubleBuffer.wrap(new double[0]);
 
   protected DoubleBuffer mzValues;
-  protected DoubleBuffer intensityValues;
+  // double or float precision, see StorageUtils#storeIntensityValues
+  protected Buffer intensityValues;
 
   /**
    * Note: mz and intensity values for a scan shall only be set once and are enforced to be
@@ -64,8 +66,13 @@ public abstract class AbstractStorableSpectrum extends AbstractMassSpectrum {
     setDataPoints(storage, mzValues, intensityValues);
   }
 
+  /**
+   * @param mzValues        m/z values sorted ascending
+   * @param intensityValues a {@link DoubleBuffer} or a {@link java.nio.FloatBuffer} with the
+   *                        intensities
+   */
   public AbstractStorableSpectrum(@Nullable DoubleBuffer mzValues,
-      @Nullable DoubleBuffer intensityValues) {
+      @Nullable Buffer intensityValues) {
     if (mzValues == null ^ intensityValues == null) {
       // one is null the other not
       throw new IllegalArgumentException(
@@ -100,7 +107,7 @@ public abstract class AbstractStorableSpectrum extends AbstractMassSpectrum {
         new SimpleSpectralArrays(mzValues, intensityValues));
 
     this.mzValues = StorageUtils.storeValuesToDoubleBuffer(storage, sorted.mzs());
-    this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage, sorted.intensities());
+    this.intensityValues = StorageUtils.storeIntensityValues(storage, sorted.intensities());
     onDataChangedEvent();
   }
 
@@ -116,12 +123,9 @@ public abstract class AbstractStorableSpectrum extends AbstractMassSpectrum {
     }
   }
 
-  DoubleBuffer getIntensityValues() {
-    if (intensityValues == null) {
-      return EMPTY_BUFFER;
-    } else {
-      return intensityValues;
-    }
+  @Override
+  public double getIntensityValue(int index) {
+    return StorageUtils.getIntensity(intensityValues, index);
   }
 
   @Override
@@ -142,11 +146,7 @@ public abstract class AbstractStorableSpectrum extends AbstractMassSpectrum {
       return new double[0];
     }
 
-    if (dst.length < getNumberOfDataPoints()) {
-      dst = new double[getNumberOfDataPoints()];
-    }
-    intensityValues.get(0, dst, 0, getNumberOfDataPoints());
-    return dst;
+    return StorageUtils.getIntensityValues(intensityValues, dst);
   }
 
 }
@@ -32,6 +32,8 @@ import io.github.mzmine.datamodel.PolarityType;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.modules.io.import_rawdata_bruker_tdf.datamodel.sql.MaldiSpotInfo;
 import io.github.mzmine.modules.io.import_rawdata_imzml.Coordinates;
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
 import org.jetbrains.annotations.Nullable;
 
 
@@ -55,6 +57,27 @@ public class SimpleImagingScan extends SimpleScan implements ImagingScan {
     this.setCoordinates(coordinates);
   }
 
+  /**
+   * Uses already stored data, e.g., one m/z buffer that is shared by all pixels of a continuous
+   * mode imzML file.
+   *
+   * @param mzValues        m/z values sorted ascending
+   * @param intensityValues a {@link DoubleBuffer} or a {@link java.nio.FloatBuffer}
+   */
+  public SimpleImagingScan(RawDataFile dataFile, int scanNumber, int msLevel, float retentionTime,
+      double precursorMZ, int precursorCharge, DoubleBuffer mzValues, Buffer intensityValues,
+      MassSpectrumType spectrumType, PolarityType polarity, String scanDefinition,
+      Range<Double> scanMZRange, Coordinates coordinates) {
+    super(dataFile, scanNumber, msLevel, retentionTime, null, mzValues, intensityValues,
+        spectrumType, polarity, scanDefinition, scanMZRange, null);
+    if (Double.compare(precursorMZ, 0d) != 0) {
+      setMsMsInfo(new DDAMsMsInfoImpl(precursorMZ, precursorCharge != 0 ? precursorCharge : null,
+          null, this, null, msLevel, null, null));
+    }
+
+    this.setCoordinates(coordinates);
+  }
+
   /**
    * @return the xyz coordinates. null if no coordinates were specified
    */
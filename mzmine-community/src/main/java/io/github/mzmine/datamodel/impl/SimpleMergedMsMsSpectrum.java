@@ -188,7 +188,8 @@ public class SimpleMergedMsMsSpectrum extends SimpleMergedMassSpectrum implement
     writer.writeEndElement();
 
     writer.writeStartElement(CONST.XML_INTENSITY_VALUES_ELEMENT);
-    writer.writeCharacters(ParsingUtils.doubleBufferToString(getIntensityValues()));
+    writer.writeCharacters(
+        ParsingUtils.doubleArrayToString(getIntensityValues(new double[getNumberOfDataPoints()])));
     writer.writeEndElement();
 
     List<MobilityScan> mobilityScans = getSourceSpectra().stream()
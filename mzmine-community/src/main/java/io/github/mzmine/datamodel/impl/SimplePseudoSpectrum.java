@@ -127,7 +127,8 @@ public class SimplePseudoSpectrum extends SimpleScan implements PseudoSpectrum {
     writer.writeEndElement();
 
     writer.writeStartElement(CONST.XML_INTENSITY_VALUES_ELEMENT);
-    writer.writeCharacters(ParsingUtils.doubleBufferToString(getIntensityValues()));
+    writer.writeCharacters(
+        ParsingUtils.doubleArrayToString(getIntensityValues(new double[getNumberOfDataPoints()])));
     writer.writeEndElement();
 
     writer.writeEndElement();
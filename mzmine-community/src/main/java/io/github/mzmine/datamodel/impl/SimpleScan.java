@@ -33,6 +33,7 @@ import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.msms.MsMsInfo;
 import io.github.mzmine.util.scans.ScanUtils;
+import java.nio.Buffer;
 import java.nio.DoubleBuffer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -110,7 +111,7 @@ public class SimpleScan extends AbstractStorableSpectrum implements Scan {
   }
 
   public SimpleScan(@NotNull RawDataFile dataFile, int scanNumber, int msLevel, float retentionTime,
-      @Nullable MsMsInfo msMsInfo, DoubleBuffer mzValues, DoubleBuffer intensityValues,
+      @Nullable MsMsInfo msMsInfo, DoubleBuffer mzValues, Buffer intensityValues,
       MassSpectrumType spectrumType, PolarityType polarity, String scanDefinition,
       Range<Double> scanMZRange, @Nullable Float injectionTime) {
 
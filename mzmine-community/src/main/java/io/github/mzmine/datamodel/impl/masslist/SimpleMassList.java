@@ -33,6 +33,7 @@ import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.ParsingUtils;
+import java.nio.DoubleBuffer;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
@@ -51,6 +52,14 @@ public class SimpleMassList extends AbstractStorableSpectrum implements MassList
     super(storage, mzValues, intensityValues);
   }
 
+  /**
+   * @param mzValues        m/z values sorted ascending, e.g., in a memory mapped buffer
+   * @param intensityValues intensity values
+   */
+  public SimpleMassList(@NotNull DoubleBuffer mzValues, @NotNull DoubleBuffer intensityValues) {
+    super(mzValues, intensityValues);
+  }
+
   /**
    * @param storage       the storage
    * @param mzIntensities 2D array with mzs[0][] an d intensities[1][].
@@ -29,6 +29,7 @@ import io.github.mzmine.gui.chartbasics.chartthemes.ChartThemeParameters;
 import io.github.mzmine.gui.chartbasics.chartutils.paintscales.PaintScaleTransform;
 import io.github.mzmine.main.ConfigService;
 import io.github.mzmine.main.KeepInMemory;
+import io.github.mzmine.main.StoragePrecision;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.ParameterSet;
@@ -161,6 +162,20 @@ public class MZminePreferences extends SimpleParameterSet {
       KeepInMemory.ALL, KeepInMemory.MASSES_AND_FEATURES), KeepInMemory.values(),
       KeepInMemory.NONE);
 
+  public static final ComboParameter<StoragePrecision> storagePrecision = new ComboParameter<>(
+      "Storage precision", """
+      Precision of intensities in new scans, mass lists and feature data. Intensities have no \
+      meaningful precision beyond float, which reduces memory and temporary file size by about a \
+      third. m/z values always keep double precision.""", StoragePrecision.values(),
+      StoragePrecision.DOUBLE);
+
+  public static final BooleanParameter pipelineBatchSteps = new BooleanParameter(
+      "Pipeline batch steps per file", """
+      Consecutive batch steps that process each data file independently (e.g., mass detection, \
+      chromatogram building, smoothing, resolving, isotope grouping) are run for each file \
+      without waiting for the other files to finish each step. Steps that combine files, \
+      like alignment, still wait for all files.""", false);
+
   /*public static final BooleanParameter applyTimsPressureCompensation = new BooleanParameter(
       "Use MALDI-TIMS pressure compensation", """
       Specifies if mobility values from Bruker timsTOF fleX MALDI raw data shall be recalibrated using a Bruker algorithm.
@@ -195,7 +210,8 @@ public class MZminePreferences extends SimpleParameterSet {
 
   public MZminePreferences() {
     super(// start with performance
-        numOfThreads, memoryOption, tempDirectory, proxySettings,
+        numOfThreads, memoryOption, storagePrecision, tempDirectory, proxySettings,
+        pipelineBatchSteps,
         /*applyTimsPressureCompensation,*/
         // visuals
         // number formats
@@ -233,8 +249,8 @@ public class MZminePreferences extends SimpleParameterSet {
 
     // add groups
     dialog.addParameterGroup("General",
-        new Parameter[]{numOfThreads, memoryOption, tempDirectory, proxySettings,
-            /*, applyTimsPressureCompensation*/});
+        new Parameter[]{numOfThreads, memoryOption, storagePrecision, tempDirectory,
+            proxySettings, pipelineBatchSteps /*, applyTimsPressureCompensation*/});
     dialog.addParameterGroup("Formats",
         new Parameter[]{mzFormat, rtFormat, mobilityFormat, ccsFormat, intensityFormat, ppmFormat,
             scoreFormat, unitFormat});
@@ -274,6 +290,10 @@ public class MZminePreferences extends SimpleParameterSet {
     final KeepInMemory keepInMemory = config.getPreferences()
         .getParameter(MZminePreferences.memoryOption).getValue();
     keepInMemory.enforceToMemoryMapping();
+    final StoragePrecision precision = getValue(MZminePreferences.storagePrecision);
+    if (precision != null) {
+      precision.enforceToStorage();
+    }
 
     final Themes theme = getValue(MZminePreferences.theme);
     if (previousTheme != null) {
@@ -35,6 +35,21 @@ public record NumberFormats(NumberFormat mzFormat, NumberFormat rtFormat,
                             UnitFormat unitFormat) {
 
   private static final String empty = "";
+
+  /**
+   * The formats are shared by all threads, e.g., in exports that format rows in parallel
+   */
+  public NumberFormats {
+    mzFormat = ThreadLocalNumberFormat.of(mzFormat);
+    rtFormat = ThreadLocalNumberFormat.of(rtFormat);
+    mobilityFormat = ThreadLocalNumberFormat.of(mobilityFormat);
+    ccsFormat = ThreadLocalNumberFormat.of(ccsFormat);
+    intensityFormat = ThreadLocalNumberFormat.of(intensityFormat);
+    ppmFormat = ThreadLocalNumberFormat.of(ppmFormat);
+    percentFormat = ThreadLocalNumberFormat.of(percentFormat);
+    scoreFormat = ThreadLocalNumberFormat.of(scoreFormat);
+  }
+
   public String mz(double mz) {
     return mzFormat.format(mz);
   }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.gui.preferences;
+
+import java.math.RoundingMode;
+import java.text.AttributedCharacterIterator;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.util.Currency;
+
+/**
+ * A {@link NumberFormat} that can be shared by multiple threads. {@link java.text.DecimalFormat}
+ * keeps a state while formatting, so each thread formats with its own copy of the template format.
+ * The settings cannot be changed, {@link #clone()} returns a modifiable copy of the template.
+ */
+public final class ThreadLocalNumberFormat extends NumberFormat {
+
+  private final NumberFormat template;
+  private final transient ThreadLocal<NumberFormat> local;
+
+  private ThreadLocalNumberFormat(NumberFormat template) {
+    this.template = (NumberFormat) template.clone();
+    local = ThreadLocal.withInitial(() -> (NumberFormat) this.template.clone());
+  }
+
+  /**
+   * @param format the template, later changes to format are not reflected
+   * @return a thread safe format
+   */
+  public static NumberFormat of(NumberFormat format) {
+    if (format == null || format instanceof ThreadLocalNumberFormat) {
+      return format;
+    }
+    return new ThreadLocalNumberFormat(format);
+  }
+
+  @Override
+  public StringBuffer format(Object number, StringBuffer toAppendTo, FieldPosition pos) {
+    return local.get().format(number, toAppendTo, pos);
+  }
+
+  @Override
+  public StringBuffer format(double number, StringBuffer toAppendTo, FieldPosition pos) {
+    return local.get().format(number, toAppendTo, pos);
+  }
+
+  @Override
+  public StringBuffer format(long number, StringBuffer toAppendTo, FieldPosition pos) {
+    return local.get().format(number, toAppendTo, pos);
+  }
+
+  @Override
+  public AttributedCharacterIterator formatToCharacterIterator(Object obj) {
+    return local.get().formatToCharacterIterator(obj);
+  }
+
+  @Override
+  public Number parse(String source, ParsePosition parsePosition) {
+    return local.get().parse(source, parsePosition);
+  }
+
+  @Override
+  public boolean isParseIntegerOnly() {
+    return template.isParseIntegerOnly();
+  }
+
+  @Override
+  public boolean isGroupingUsed() {
+    return template.isGroupingUsed();
+  }
+
+  @Override
+  public int getMaximumIntegerDigits() {
+    return template.getMaximumIntegerDigits();
+  }
+
+  @Override
+  public int getMinimumIntegerDigits() {
+    return template.getMinimumIntegerDigits();
+  }
+
+  @Override
+  public int getMaximumFractionDigits() {
+    return template.getMaximumFractionDigits();
+  }
+
+  @Override
+  public int getMinimumFractionDigits() {
+    return template.getMinimumFractionDigits();
+  }
+
+  @Override
+  public Currency getCurrency() {
+    return template.getCurrency();
+  }
+
+  @Override
+  public RoundingMode getRoundingMode() {
+    return template.getRoundingMode();
+  }
+
+  @Override
+  public void setParseIntegerOnly(boolean value) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setGroupingUsed(boolean newValue) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setMaximumIntegerDigits(int newValue) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setMinimumIntegerDigits(int newValue) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setMaximumFractionDigits(int newValue) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setMinimumFractionDigits(int newValue) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setCurrency(Currency currency) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public void setRoundingMode(RoundingMode roundingMode) {
+    throw new UnsupportedOperationException("Thread local formats cannot be changed");
+  }
+
+  @Override
+  public Object clone() {
+    return template.clone();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof ThreadLocalNumberFormat other && template.equals(other.template);
+  }
+
+  @Override
+  public int hashCode() {
+    return template.hashCode();
+  }
+}
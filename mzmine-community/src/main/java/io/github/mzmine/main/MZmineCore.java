@@ -241,6 +241,10 @@ public final class MZmineCore {
 
       // apply memory management option
       keepInMemory.enforceToMemoryMapping();
+      final StoragePrecision precision = preferences.getValue(MZminePreferences.storagePrecision);
+      if (precision != null) {
+        precision.enforceToStorage();
+      }
 
       // batch mode defined by command line argument
       File batchFile = argsParser.getBatchFile();
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.main;
+
+import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
+
+/**
+ * Precision of stored spectral and feature data. m/z values always keep double precision.
+ */
+public enum StoragePrecision {
+
+  DOUBLE, FLOAT_INTENSITIES;
+
+  /**
+   * Apply this option to all new scans, mass lists and feature series
+   */
+  public void enforceToStorage() {
+    StorageUtils.setStoreIntensitiesAsFloat(this == FLOAT_INTENSITIES);
+  }
+
+  @Override
+  public String toString() {
+    return switch (this) {
+      case DOUBLE -> "Double (m/z and intensity)";
+      case FLOAT_INTENSITIES -> "Float intensities (double m/z)";
+    };
+  }
+}
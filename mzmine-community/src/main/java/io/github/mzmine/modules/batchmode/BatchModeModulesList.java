@@ -33,6 +33,7 @@ import io.github.mzmine.modules.dataanalysis.spec_chimeric_precursor.PrecursorPu
 import io.github.mzmine.modules.dataanalysis.statsdashboard.StatsDasboardModule;
 import io.github.mzmine.modules.dataanalysis.volcanoplot.VolcanoPlotModule;
 import io.github.mzmine.modules.dataprocessing.align_gc.GCAlignerModule;
+import io.github.mzmine.modules.dataprocessing.align_join.JoinAlignerAddSamplesModule;
 import io.github.mzmine.modules.dataprocessing.align_join.JoinAlignerModule;
 import io.github.mzmine.modules.dataprocessing.align_path.PathAlignerModule;
 import io.github.mzmine.modules.dataprocessing.align_ransac.RansacAlignerModule;
@@ -283,6 +284,7 @@ public class BatchModeModulesList {
        * {@link io.github.mzmine.modules.MZmineModuleCategory#ALIGNMENT}
        */
       JoinAlignerModule.class, //
+      JoinAlignerAddSamplesModule.class, //
       GCAlignerModule.class, //
 //      ADAP3AlignerModule.class, //
 //      HierarAlignerGcModule.class, // not MIT compatible license
@@ -28,19 +28,24 @@ package io.github.mzmine.modules.batchmode;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.gui.preferences.MZminePreferences;
+import io.github.mzmine.main.ConfigService;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.modules.MZmineProcessingStep;
 import io.github.mzmine.modules.batchmode.change_outfiles.ChangeOutputFilesUtils;
 import io.github.mzmine.modules.batchmode.timing.StepTimeMeasurement;
+import io.github.mzmine.modules.impl.PerFileProcessingModule;
 import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportParameters;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.EmbeddedParameterSet;
 import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsParameter;
 import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsSelection;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsSelectionType;
 import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParameter;
 import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesSelection;
+import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesSelectionType;
 import io.github.mzmine.project.ProjectService;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.Task;
@@ -61,11 +66,13 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -82,6 +89,8 @@ public class BatchTask extends AbstractTask {
   private int processedSteps;
   private final boolean useAdvanced;
   private final int datasets;
+  // run consecutive per file steps for each file independently
+  private final boolean pipelineSteps;
   private List<File> subDirectories;
   private List<RawDataFile> createdDataFiles;
   private List<RawDataFile> previousCreatedDataFiles;
@@ -122,6 +131,7 @@ public class BatchTask extends AbstractTask {
     } else {
       datasets = 1;
     }
+    pipelineSteps = ConfigService.getPreference(MZminePreferences.pipelineBatchSteps);
     stepsPerDataset = queue.size();
     totalSteps = stepsPerDataset * datasets;
     createdDataFiles = new ArrayList<>();
@@ -142,8 +152,19 @@ public class BatchTask extends AbstractTask {
    */
   private static TaskStatus runInTaskPool(final MZmineProcessingModule method,
       final List<Task> tasksToRun) {
+    return runInTaskPool(STR."\{method.getName()} on \{tasksToRun.size()} items", tasksToRun);
+  }
+
+  /**
+   * Runs all tasks in a single {@link ThreadPoolTask} on the {@link TaskController#getExecutor()}
+   * default executor
+   *
+   * @param description for logging
+   * @param tasksToRun  list will be cleared after scheduling
+   * @return the {@link TaskStatus} of the carrier task
+   */
+  private static TaskStatus runInTaskPool(final String description, final List<Task> tasksToRun) {
     TaskController taskController = MZmineCore.getTaskController();
-    var description = STR."\{method.getName()} on \{tasksToRun.size()} items";
     var threadPoolTask = ThreadPoolTask.createDefaultTaskManagerPool(description, tasksToRun);
     // clear tasks to not leak the long running tasks by keeping them alive
     tasksToRun.clear();
@@ -223,9 +244,16 @@ public class BatchTask extends AbstractTask {
         }
       }
 
-      // run step
-      processQueueStep(i % stepsPerDataset);
-      processedSteps++;
+      // run step or pipeline consecutive per file steps
+      final int stepNumber = i % stepsPerDataset;
+      final int pipelineEnd = pipelineSteps ? findPipelineEnd(stepNumber) : stepNumber;
+      if (pipelineEnd - stepNumber > 1 && processPipelinedSteps(stepNumber, pipelineEnd)) {
+        processedSteps += pipelineEnd - stepNumber;
+        i += pipelineEnd - stepNumber - 1;
+      } else {
+        processQueueStep(stepNumber);
+        processedSteps++;
+      }
 
       // If we are canceled or ran into error, stop here
       if (isCanceled()) {
@@ -405,6 +433,121 @@ public class BatchTask extends AbstractTask {
     stepTimes.add(new StepTimeMeasurement(stepNumber, method.getName(), duration));
   }
 
+  /**
+   * @param firstStep the first step to pipeline
+   * @return the exclusive end of consecutive steps that can be pipelined per file, equals
+   * firstStep if the first step cannot be pipelined
+   */
+  private int findPipelineEnd(int firstStep) {
+    int end = firstStep;
+    while (end < stepsPerDataset && isPerFileStep(queue.get(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * @return true if the step runs independently per file on the data of the previous batch step
+   */
+  private static boolean isPerFileStep(MZmineProcessingStep<?> step) {
+    return step.getModule() instanceof PerFileProcessingModule
+           && usesOnlyBatchLastData(step.getParameterSet());
+  }
+
+  private static boolean usesOnlyBatchLastData(ParameterSet parameters) {
+    for (Parameter<?> p : parameters.getParameters()) {
+      if (p instanceof RawDataFilesParameter rdp && (rdp.getValue() == null
+          || rdp.getValue().getSelectionType() != RawDataFilesSelectionType.BATCH_LAST_FILES)) {
+        return false;
+      } else if (p instanceof FeatureListsParameter flp && (flp.getValue() == null
+          || flp.getValue().getSelectionType()
+             != FeatureListsSelectionType.BATCH_LAST_FEATURELISTS)) {
+        return false;
+      } else if (p instanceof EmbeddedParameterSet embedded && !usesOnlyBatchLastData(
+          embedded.getEmbeddedParameters())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Runs the steps for each raw data file in its own {@link PerFileBatchStepsTask} so that files
+   * only wait for each other after the last step.
+   *
+   * @param firstStep first step
+   * @param endStep   exclusive end step
+   * @return false if the steps cannot be pipelined because the data of the previous step is not
+   * separated by raw data file. The steps need to be processed one by one then. True if the steps
+   * were processed, status is set to error on failure.
+   */
+  private boolean processPipelinedSteps(int firstStep, int endStep) {
+    final Instant start = Instant.now();
+
+    // If the last step did not produce any data files or feature lists, use
+    // the ones from the previous step
+    final List<RawDataFile> dataFiles =
+        createdDataFiles.isEmpty() ? previousCreatedDataFiles : createdDataFiles;
+    final List<FeatureList> featureLists =
+        createdFeatureLists.isEmpty() ? previousCreatedFeatureLists : createdFeatureLists;
+
+    // each pipeline processes the data of one file
+    final Set<RawDataFile> files = new LinkedHashSet<>(dataFiles);
+    for (FeatureList flist : featureLists) {
+      if (flist.getNumberOfRawDataFiles() != 1) {
+        return false;
+      }
+      files.add(flist.getRawDataFiles().getFirst());
+    }
+    if (files.size() < 2) {
+      return false;
+    }
+
+    final String stepNames = IntStream.range(firstStep, endStep)
+        .mapToObj(step -> queue.get(step).getModule().getName())
+        .collect(Collectors.joining(", "));
+    logger.info("Starting steps # %d to %d per file: %s".formatted(firstStep + 1, endStep,
+        stepNames));
+
+    final Instant moduleCallDate = Instant.now();
+    final List<PerFileBatchStepsTask> pipelines = new ArrayList<>();
+    for (RawDataFile file : files) {
+      final List<RawDataFile> fileDataFiles = dataFiles.contains(file) ? List.of(file) : List.of();
+      final List<FeatureList> fileFeatureLists = featureLists.stream()
+          .filter(flist -> flist.getRawDataFiles().getFirst().equals(file)).toList();
+      pipelines.add(new PerFileBatchStepsTask(project, queue, firstStep, endStep, file,
+          fileDataFiles, fileFeatureLists, moduleCallDate));
+    }
+
+    final TaskStatus status = runInTaskPool(
+        STR."Batch steps \{firstStep + 1}-\{endStep} on \{files.size()} files",
+        new ArrayList<>(pipelines));
+    if (status != TaskStatus.FINISHED) {
+      if (!isCanceled()) {
+        setStatus(TaskStatus.ERROR);
+        setErrorMessage(pipelines.stream().map(PerFileBatchStepsTask::getErrorMessage)
+            .filter(Objects::nonNull).findFirst()
+            .orElse("Batch steps %d to %d did not finish".formatted(firstStep + 1, endStep)));
+      }
+      return true;
+    }
+
+    // same state as after processing the steps one by one
+    // per file modules do not create data files
+    createdDataFiles = new ArrayList<>();
+    previousCreatedDataFiles = dataFiles;
+    createdFeatureLists = pipelines.stream()
+        .flatMap(pipeline -> pipeline.getCreatedFeatureLists().stream())
+        .collect(Collectors.toCollection(ArrayList::new));
+    previousCreatedFeatureLists = pipelines.stream()
+        .flatMap(pipeline -> pipeline.getPreviousCreatedFeatureLists().stream())
+        .collect(Collectors.toCollection(ArrayList::new));
+
+    Duration duration = Duration.between(start, Instant.now());
+    stepTimes.add(new StepTimeMeasurement(firstStep, STR."\{stepNames} (per file)", duration));
+    return true;
+  }
+
   /**
    * Runs all tasks in the {@link TaskController}
    *
@@ -475,6 +618,23 @@ public class BatchTask extends AbstractTask {
     return true;
   }
 
+  /**
+   * Recursively sets the batch last files and feature lists to all selections in the parameters
+   * and embedded parameters.
+   */
+  static void setBatchLastData(ParameterSet parameters, RawDataFile[] dataFiles,
+      FeatureList[] featureLists) {
+    for (Parameter<?> p : parameters.getParameters()) {
+      if (p instanceof RawDataFilesParameter rdp && rdp.getValue() != null) {
+        rdp.getValue().setBatchLastFiles(dataFiles);
+      } else if (p instanceof FeatureListsParameter flp && flp.getValue() != null) {
+        flp.getValue().setBatchLastFeatureLists(featureLists);
+      } else if (p instanceof EmbeddedParameterSet embedded) {
+        setBatchLastData(embedded.getEmbeddedParameters(), dataFiles, featureLists);
+      }
+    }
+  }
+
   @Override
   public TaskPriority getTaskPriority() {
     // to not block mzmine when run with single thread
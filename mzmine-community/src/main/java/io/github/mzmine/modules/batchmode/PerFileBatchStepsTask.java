@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.batchmode;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.MZmineProcessingStep;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.ExitCode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs a range of pipelined batch steps for a single raw data file. The steps are all
+ * {@link io.github.mzmine.modules.impl.PerFileProcessingModule} and use the batch last files and
+ * feature lists, which are restricted to the data of this file. The tasks of each step run on the
+ * thread of this task, one after another.
+ */
+class PerFileBatchStepsTask extends AbstractTask {
+
+  private static final Logger logger = Logger.getLogger(PerFileBatchStepsTask.class.getName());
+
+  private final MZmineProject project;
+  private final BatchQueue queue;
+  private final int firstStep;
+  private final int endStep;
+  private final RawDataFile file;
+  private List<RawDataFile> createdDataFiles;
+  private List<RawDataFile> previousCreatedDataFiles;
+  private List<FeatureList> createdFeatureLists;
+  private List<FeatureList> previousCreatedFeatureLists;
+  private volatile @Nullable Task currentTask;
+  private int currentStep;
+
+  /**
+   * @param firstStep    first step in queue
+   * @param endStep      exclusive end step in queue
+   * @param file         the raw data file of this pipeline
+   * @param dataFiles    the batch last files of this pipeline, either the file or empty
+   * @param featureLists the batch last feature lists of this file
+   */
+  PerFileBatchStepsTask(@NotNull MZmineProject project, @NotNull BatchQueue queue, int firstStep,
+      int endStep, @NotNull RawDataFile file, @NotNull List<RawDataFile> dataFiles,
+      @NotNull List<FeatureList> featureLists, @NotNull Instant moduleCallDate) {
+    super(null, moduleCallDate);
+    this.project = project;
+    this.queue = queue;
+    this.firstStep = firstStep;
+    this.endStep = endStep;
+    this.file = file;
+    this.currentStep = firstStep;
+    createdDataFiles = new ArrayList<>(dataFiles);
+    previousCreatedDataFiles = new ArrayList<>(dataFiles);
+    createdFeatureLists = new ArrayList<>(featureLists);
+    previousCreatedFeatureLists = new ArrayList<>(featureLists);
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+    for (int step = firstStep; step < endStep; step++) {
+      currentStep = step;
+      if (isCanceled() || !processStep(step)) {
+        return;
+      }
+    }
+    currentTask = null;
+    setStatus(TaskStatus.FINISHED);
+  }
+
+  /**
+   * @return false if the step failed or was canceled, the status is set accordingly
+   */
+  private boolean processStep(int step) {
+    final MZmineProcessingStep<?> queueStep = queue.get(step);
+    final MZmineProcessingModule method = (MZmineProcessingModule) queueStep.getModule();
+    // parameters are cloned to restrict the selection to the data of this file
+    final ParameterSet parameters = queueStep.getParameterSet().cloneParameterSet();
+
+    // If the last step did not produce any data files or feature lists, use
+    // the ones from the previous step
+    if (createdDataFiles.isEmpty()) {
+      createdDataFiles = previousCreatedDataFiles;
+    }
+    if (createdFeatureLists.isEmpty()) {
+      createdFeatureLists = previousCreatedFeatureLists;
+    }
+    BatchTask.setBatchLastData(parameters, createdDataFiles.toArray(new RawDataFile[0]),
+        createdFeatureLists.toArray(new FeatureList[0]));
+
+    final List<String> messages = new ArrayList<>();
+    if (!parameters.checkParameterValues(messages)) {
+      error("Invalid parameter settings for module %s on file %s: %s".formatted(method.getName(),
+          file.getName(), Arrays.toString(messages.toArray())));
+      return false;
+    }
+
+    final List<FeatureList> beforeFeatureLists = project.getCurrentFeatureLists();
+    final List<Task> tasks = new ArrayList<>();
+    final ExitCode exitCode = method.runModule(project, parameters, tasks, Instant.now());
+    if (exitCode != ExitCode.OK) {
+      error("Could not start batch step %s on file %s".formatted(method.getName(),
+          file.getName()));
+      return false;
+    }
+
+    while (!tasks.isEmpty()) {
+      // remove to not keep finished tasks alive
+      final Task task = tasks.removeFirst();
+      currentTask = task;
+      if (isCanceled()) {
+        return false;
+      }
+      task.run();
+      if (task.getStatus() == TaskStatus.ERROR) {
+        error("Batch step %s failed on file %s: %s".formatted(method.getName(), file.getName(),
+            task.getErrorMessage()));
+        return false;
+      } else if (task.getStatus() != TaskStatus.FINISHED) {
+        cancel();
+        return false;
+      }
+    }
+
+    // other pipelines add feature lists concurrently, only keep those of this file
+    createdFeatureLists = new ArrayList<>();
+    for (FeatureList flist : project.getCurrentFeatureLists()) {
+      if (!beforeFeatureLists.contains(flist) && flist.getNumberOfRawDataFiles() == 1
+          && flist.getRawDataFiles().getFirst().equals(file)) {
+        createdFeatureLists.add(flist);
+      }
+    }
+    // per file modules do not create new data files
+    createdDataFiles = new ArrayList<>();
+
+    if (!createdFeatureLists.isEmpty()) {
+      previousCreatedFeatureLists = createdFeatureLists;
+    }
+    logger.finest(() -> "Finished batch step %d %s on file %s".formatted(step + 1,
+        method.getName(), file.getName()));
+    return true;
+  }
+
+  @Override
+  public void cancel() {
+    super.cancel();
+    final Task task = currentTask;
+    if (task != null) {
+      task.cancel();
+    }
+  }
+
+  /**
+   * @return feature lists created by the last step that created feature lists
+   */
+  @NotNull List<FeatureList> getPreviousCreatedFeatureLists() {
+    return previousCreatedFeatureLists;
+  }
+
+  /**
+   * @return feature lists created by the last step
+   */
+  @NotNull List<FeatureList> getCreatedFeatureLists() {
+    return createdFeatureLists;
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Batch step %d/%d on %s".formatted(currentStep - firstStep + 1, endStep - firstStep,
+        file.getName());
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    final Task task = currentTask;
+    final double stepProgress = task == null ? 0 : task.getFinishedPercentage();
+    return (currentStep - firstStep + stepProgress) / (endStep - firstStep);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.pca_new;
+
+import io.github.mzmine.datamodel.AbundanceMeasure;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.modules.dataanalysis.utils.StatisticUtils;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunctions;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunctions;
+import io.github.mzmine.modules.visualization.projectmetadata.SampleTypeFilter;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Computes the PCA of feature list rows with a {@link TruncatedSVD} and keeps the intermediate
+ * matrices of the last computation. Changing the scaling only repeats the scaling and
+ * decomposition, changing the imputation repeats all steps after reading the abundances. Selecting
+ * other components reuses the last decomposition if it already contains them.
+ */
+public class CachedPCA {
+
+  private static final Logger logger = Logger.getLogger(CachedPCA.class.getName());
+  // fixed seed for reproducible plots
+  private static final long SEED = 42;
+
+  private List<FeatureListRow> rows;
+  private List<RawDataFile> files;
+  private AbundanceMeasure measure;
+  // row-major data (files x rows) of each step
+  private double[] abundances;
+  private ImputationFunctions imputation;
+  private double[] imputed;
+  private ScalingFunctions scaling;
+  private double[] pretreated;
+  private PCAResult result;
+
+  /**
+   * Performs a PCA on a list of feature list rows and reuses the previous steps if the inputs did
+   * not change.
+   *
+   * @param rows          The rows.
+   * @param measure       The abundance to use.
+   * @param numComponents the minimum number of components to compute. Limited by the number of
+   *                      rows and files.
+   * @return A pca result that can be mapped to the used rows.
+   */
+  public synchronized PCARowsResult performPCAOnRows(List<FeatureListRow> rows,
+      AbundanceMeasure measure, ScalingFunctions scaling, ImputationFunctions imputation,
+      SampleTypeFilter sampleTypeFilter, int numComponents) {
+    final List<RawDataFile> files = rows.stream().flatMap(row -> row.getRawDataFiles().stream())
+        .distinct().filter(sampleTypeFilter::matches).toList();
+
+    if (files.isEmpty() || rows.isEmpty()) {
+      throw new IllegalArgumentException("PCA requires at least one row and one sample");
+    }
+
+    if (abundances == null || measure != this.measure || !files.equals(this.files)
+        || !rows.equals(this.rows)) {
+      logger.finest("Reading abundances for PCA");
+      abundances = StatisticUtils.createPrimitiveDatasetFromRows(rows, files, measure);
+      this.rows = List.copyOf(rows);
+      this.files = files;
+      this.measure = measure;
+      imputed = null;
+    }
+
+    final int numFiles = files.size();
+    if (imputed == null || imputation != this.imputation) {
+      imputed = abundances.clone();
+      StatisticUtils.imputeMissingValues(imputed, numFiles, imputation);
+      this.imputation = imputation;
+      pretreated = null;
+    }
+
+    if (pretreated == null || scaling != this.scaling) {
+      pretreated = imputed.clone();
+      StatisticUtils.centerAndScale(pretreated, numFiles, scaling);
+      this.scaling = scaling;
+      result = null;
+    }
+
+    final int maxComponents = Math.min(numFiles, rows.size());
+    if (result == null || result.componentCount() < Math.min(numComponents, maxComponents)) {
+      logger.finest(() -> "Performing truncated singular value decomposition");
+      result = TruncatedSVD.decompose(pretreated, numFiles, rows.size(), numComponents, SEED);
+    }
+    return new PCARowsResult(result, this.rows, files);
+  }
+}
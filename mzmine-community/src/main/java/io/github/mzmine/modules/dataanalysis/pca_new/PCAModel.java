@@ -66,6 +66,8 @@ public class PCAModel {
       ImputationFunctions.OneFifthOfMinimum);
   private final ObjectProperty<SampleTypeFilter> sampleTypeFilter = new SimpleObjectProperty<>(
       SampleTypeFilter.sample());
+  // keeps the pretreated data between updates
+  private final CachedPCA cachedPCA = new CachedPCA();
 
 
   public ObservableList<Integer> getAvailablePCs() {
@@ -215,4 +217,8 @@ public class PCAModel {
   public void setSampleTypeFilter(@NotNull SampleTypeFilter filter) {
     sampleTypeFilter.set(filter);
   }
+
+  public CachedPCA getCachedPCA() {
+    return cachedPCA;
+  }
 }
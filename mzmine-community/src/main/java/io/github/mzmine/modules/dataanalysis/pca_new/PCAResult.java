@@ -37,22 +37,31 @@ import org.jetbrains.annotations.NotNull;
  * into the PC space using U and a submatrix of S, which creates the scores plot. Loadings are the
  * transpose of V.
  * <p>
+ * The decomposition may be truncated to the first components, see {@link TruncatedSVD}.
+ * <p>
  * https://stats.stackexchange.com/questions/134282/relationship-between-svd-and-pca-how-to-use-svd-to-perform-pca
  *
+ * @param u              the principal components (samples x components)
+ * @param singularValues the singular values in descending order
+ * @param v              the feature loadings (features x components)
  */
-public record PCAResult(SingularValueDecomposition svd) {
+public record PCAResult(RealMatrix u, double[] singularValues, RealMatrix v) {
+
+  public PCAResult(SingularValueDecomposition svd) {
+    this(svd.getU(), svd.getSingularValues(), svd.getV());
+  }
 
   /**
    * @param numComponents
    * @return Returns a sub-matrix the first n principal components of the decomposition.
    */
   public RealMatrix firstNComponents(int numComponents) {
-    return svd.getU().getSubMatrix(0, svd.getU().getRowDimension() - 1, 0, numComponents - 1);
+    return u.getSubMatrix(0, u.getRowDimension() - 1, 0, numComponents - 1);
   }
 
   public RealMatrix principalComponentsMatrix() {
     // the u matrix of an svd contains the principal components.
-    return svd.getU();
+    return u;
   }
 
   /**
@@ -62,10 +71,11 @@ public record PCAResult(SingularValueDecomposition svd) {
    * @param numComponents the number of components n.
    */
   public RealMatrix projectDataToScores(int numComponents) {
-    final RealMatrix firstNComponents = firstNComponents(numComponents);
-    final RealMatrix subMatrixS = svd.getS()
-        .getSubMatrix(0, numComponents - 1, 0, numComponents - 1);
-    final RealMatrix projectedData = firstNComponents.multiply(subMatrixS);
+    final RealMatrix projectedData = firstNComponents(numComponents).copy();
+    for (int c = 0; c < numComponents; c++) {
+      projectedData.setColumnVector(c,
+          projectedData.getColumnVector(c).mapMultiply(singularValues[c]));
+    }
     return projectedData;
   }
 
@@ -77,8 +87,11 @@ public record PCAResult(SingularValueDecomposition svd) {
    */
   public RealMatrix projectDataToScores(int domainColIndex, int rangeColIndex) {
     final RealMatrix pcMatrix = pcMatrix(domainColIndex, rangeColIndex);
-    final RealMatrix projected = pcMatrix.multiply(svd.getS().getSubMatrix(0, 1, 0, 1));
-    return projected;
+    pcMatrix.setColumnVector(0,
+        pcMatrix.getColumnVector(0).mapMultiply(singularValues[domainColIndex]));
+    pcMatrix.setColumnVector(1,
+        pcMatrix.getColumnVector(1).mapMultiply(singularValues[rangeColIndex]));
+    return pcMatrix;
   }
 
   /**
@@ -86,11 +99,10 @@ public record PCAResult(SingularValueDecomposition svd) {
    */
   @NotNull
   private RealMatrix pcMatrix(int domainColIndex, int rangeColIndex) {
-    final RealMatrix pcs = svd.getU();
     // the vectors are the respective components.
-    final RealVector domainVector = pcs.getColumnVector(domainColIndex);
-    final RealVector rangeVector = pcs.getColumnVector(rangeColIndex);
-    RealMatrix pcMatrix = new Array2DRowRealMatrix(pcs.getRowDimension(), 2);
+    final RealVector domainVector = u.getColumnVector(domainColIndex);
+    final RealVector rangeVector = u.getColumnVector(rangeColIndex);
+    RealMatrix pcMatrix = new Array2DRowRealMatrix(u.getRowDimension(), 2);
     pcMatrix.setColumnVector(0, domainVector);
     pcMatrix.setColumnVector(1, rangeVector);
 
@@ -102,11 +114,14 @@ public record PCAResult(SingularValueDecomposition svd) {
    * loadings are the transpose of the v matrix.
    */
   public RealMatrix getLoadingsMatrix() {
-    final RealMatrix transpose = svd.getV().transpose();
+    final RealMatrix transpose = v.transpose();
     return transpose;
   }
 
+  /**
+   * @return the number of principal components in this result
+   */
   public int componentCount() {
-    return principalComponentsMatrix().getRowDimension();
+    return singularValues.length;
   }
 }
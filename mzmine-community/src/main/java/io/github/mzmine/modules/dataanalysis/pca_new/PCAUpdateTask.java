@@ -35,9 +35,7 @@ import io.github.mzmine.gui.chartbasics.simplechart.datasets.DatasetAndRenderer;
 import io.github.mzmine.gui.chartbasics.simplechart.datasets.RunOption;
 import io.github.mzmine.gui.chartbasics.simplechart.renderers.ColoredXYShapeRenderer;
 import io.github.mzmine.javafx.mvci.FxUpdateTask;
-import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunction;
 import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunctions;
-import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
 import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunctions;
 import io.github.mzmine.modules.visualization.projectmetadata.SampleTypeFilter;
 import io.github.mzmine.modules.visualization.projectmetadata.table.columns.MetadataColumn;
@@ -54,6 +52,8 @@ import org.jetbrains.annotations.NotNull;
 
 public class PCAUpdateTask extends FxUpdateTask<PCAModel> {
 
+  private static final int DEFAULT_COMPONENTS = 10;
+
   private final TotalFinishedItemsProgress progressProvider = new TotalFinishedItemsProgress(3);
   private final Integer rangePcIndex;
   private final Integer domainPcIndex;
@@ -64,9 +64,9 @@ public class PCAUpdateTask extends FxUpdateTask<PCAModel> {
   private final List<DatasetAndRenderer> scoresDatasets = new ArrayList<>();
   private final List<DatasetAndRenderer> loadingsDatasets = new ArrayList<>();
   private final List<Integer> components = new ArrayList<>();
-  private final ImputationFunction imputer;
-
-  private final ScalingFunction scaling;
+  private final ImputationFunctions imputation;
+  private final ScalingFunctions scaling;
+  private final CachedPCA cachedPCA;
   private final SampleTypeFilter sampleTypeFilter;
   private PCARowsResult pcaRowsResult;
 
@@ -80,11 +80,9 @@ public class PCAUpdateTask extends FxUpdateTask<PCAModel> {
     flists = model.getFlists();
     abundance = model.getAbundance();
 
-    final ScalingFunctions scalingFunction = model.getScalingFunction();
-    scaling = scalingFunction.getScalingFunction();
-
-    final ImputationFunctions imputationFunction = model.getImputationFunction();
-    imputer = imputationFunction.getImputer();
+    scaling = model.getScalingFunction();
+    imputation = model.getImputationFunction();
+    cachedPCA = model.getCachedPCA();
     sampleTypeFilter = model.getSampleTypeFilter();
   }
 
@@ -125,8 +123,11 @@ public class PCAUpdateTask extends FxUpdateTask<PCAModel> {
         ((r1, r2) -> annotationPrioSorter.compare(rowsMappedToBestAnnotation.get(r1),
             rowsMappedToBestAnnotation.get(r2)))).toList();
 
-    pcaRowsResult = PCAUtils.performPCAOnRows(rowsSortedByAnnotationPrio, abundance, scaling,
-        imputer, sampleTypeFilter);
+    // compute one more component than selected so that the next one can be selected
+    final int numComponents = Math.max(DEFAULT_COMPONENTS,
+        Math.max(domainPcIndex, rangePcIndex) + 2);
+    pcaRowsResult = cachedPCA.performPCAOnRows(rowsSortedByAnnotationPrio, abundance, scaling,
+        imputation, sampleTypeFilter, numComponents);
     progressProvider.getAndIncrement();
 
     final PCAScoresProvider scores = new PCAScoresProvider(pcaRowsResult, "Scores", Color.RED,
@@ -142,8 +143,7 @@ public class PCAUpdateTask extends FxUpdateTask<PCAModel> {
     loadingsDatasets.add(new DatasetAndRenderer(loadingsDS, new ColoredXYShapeRenderer()));
     scoresDatasets.add(new DatasetAndRenderer(scoresDS, new ColoredXYShapeRenderer()));
 
-    for (int i = 1; i <= pcaRowsResult.pcaResult().principalComponentsMatrix().getRowDimension();
-        i++) {
+    for (int i = 1; i <= pcaRowsResult.pcaResult().componentCount(); i++) {
       components.add(i);
     }
   }
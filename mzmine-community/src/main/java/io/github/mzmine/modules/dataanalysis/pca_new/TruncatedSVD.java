@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.pca_new;
+
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+/**
+ * Computes the first singular vectors and values of a dense matrix with a randomized range finder
+ * (Halko, Martinsson, Tropp 2011). The data is projected onto a few random vectors, refined by power
+ * iterations, and only the small projected matrix is decomposed by a full SVD. The products with
+ * the data matrix dominate the runtime and run in parallel. Small matrices are decomposed exactly.
+ */
+public class TruncatedSVD {
+
+  private static final Logger logger = Logger.getLogger(TruncatedSVD.class.getName());
+
+  // additional random vectors improve the accuracy of the last requested components
+  private static final int OVERSAMPLING = 10;
+  // power iterations separate components with close singular values in noisy data
+  private static final int POWER_ITERATIONS = 4;
+  private static final int COLUMNS_PER_TASK = 1024;
+
+  /**
+   * @param data          the data in row-major order (samples x features). Not modified.
+   * @param numRows       number of rows (samples)
+   * @param numColumns    number of columns (features)
+   * @param numComponents the number of components to compute. Limited by the matrix dimensions
+   * @param seed          seed of the random projection for reproducible results
+   * @return the truncated decomposition
+   */
+  public static PCAResult decompose(double[] data, int numRows, int numColumns, int numComponents,
+      long seed) {
+    if (numRows <= 0 || numColumns <= 0 || numComponents <= 0) {
+      throw new IllegalArgumentException(
+          "Cannot decompose a %d x %d matrix into %d components".formatted(numRows, numColumns,
+              numComponents));
+    }
+    if (data.length != numRows * numColumns) {
+      throw new IllegalArgumentException("Data does not match the matrix dimensions");
+    }
+
+    final int maxComponents = Math.min(numRows, numColumns);
+    final int components = Math.min(numComponents, maxComponents);
+    final int sampleSize = Math.min(components + OVERSAMPLING, maxComponents);
+    if (sampleSize == maxComponents) {
+      return exact(data, numRows, numColumns, components);
+    }
+
+    logger.finest(() -> "Randomized svd of a %d x %d matrix for %d components".formatted(numRows,
+        numColumns, components));
+
+    // random projection of the columns captures the range of the data
+    final Random random = new Random(seed);
+    final double[] omega = new double[numColumns * sampleSize];
+    for (int i = 0; i < omega.length; i++) {
+      omega[i] = random.nextGaussian();
+    }
+
+    double[] q = multiply(data, numRows, numColumns, omega, sampleSize);
+    orthonormalize(q, numRows, sampleSize);
+    for (int i = 0; i < POWER_ITERATIONS; i++) {
+      final double[] z = multiplyTransposed(data, numRows, numColumns, q, sampleSize);
+      orthonormalize(z, numColumns, sampleSize);
+      q = multiply(data, numRows, numColumns, z, sampleSize);
+      orthonormalize(q, numRows, sampleSize);
+    }
+
+    // B = Q^T * A is small. Decompose B^T = U' * S * V'^T so that A ~ (Q * V') * S * U'^T
+    final double[] bTransposed = multiplyTransposed(data, numRows, numColumns, q, sampleSize);
+    final SingularValueDecomposition svd = new SingularValueDecomposition(
+        toMatrix(bTransposed, numColumns, sampleSize));
+    final RealMatrix uSmall = svd.getV();
+    final RealMatrix v = svd.getU();
+    final double[] singularValues = svd.getSingularValues();
+
+    final double[] u = new double[numRows * components];
+    for (int row = 0; row < numRows; row++) {
+      for (int c = 0; c < components; c++) {
+        double sum = 0;
+        for (int s = 0; s < sampleSize; s++) {
+          sum += q[row * sampleSize + s] * uSmall.getEntry(s, c);
+        }
+        u[row * components + c] = sum;
+      }
+    }
+
+    final double[] vTruncated = new double[numColumns * components];
+    for (int row = 0; row < numColumns; row++) {
+      for (int c = 0; c < components; c++) {
+        vTruncated[row * components + c] = v.getEntry(row, c);
+      }
+    }
+
+    final double[] s = new double[components];
+    System.arraycopy(singularValues, 0, s, 0, components);
+    return createResult(u, numRows, s, vTruncated, numColumns);
+  }
+
+  /**
+   * Full svd for small matrices, truncated to the requested components
+   */
+  private static PCAResult exact(double[] data, int numRows, int numColumns, int components) {
+    final SingularValueDecomposition svd = new SingularValueDecomposition(
+        toMatrix(data, numRows, numColumns));
+    final RealMatrix fullU = svd.getU();
+    final RealMatrix fullV = svd.getV();
+
+    final double[] u = new double[numRows * components];
+    for (int row = 0; row < numRows; row++) {
+      for (int c = 0; c < components; c++) {
+        u[row * components + c] = fullU.getEntry(row, c);
+      }
+    }
+    final double[] v = new double[numColumns * components];
+    for (int row = 0; row < numColumns; row++) {
+      for (int c = 0; c < components; c++) {
+        v[row * components + c] = fullV.getEntry(row, c);
+      }
+    }
+    final double[] s = new double[components];
+    System.arraycopy(svd.getSingularValues(), 0, s, 0, components);
+    return createResult(u, numRows, s, v, numColumns);
+  }
+
+  /**
+   * Fixes the sign of each component so that the largest absolute entry of U is positive. Keeps
+   * scores plots from flipping when the decomposition is repeated with different components.
+   */
+  private static PCAResult createResult(double[] u, int numRows, double[] s, double[] v,
+      int numColumns) {
+    final int components = s.length;
+    for (int c = 0; c < components; c++) {
+      double max = 0;
+      for (int row = 0; row < numRows; row++) {
+        final double value = u[row * components + c];
+        if (Math.abs(value) > Math.abs(max)) {
+          max = value;
+        }
+      }
+      if (max < 0) {
+        for (int row = 0; row < numRows; row++) {
+          u[row * components + c] = -u[row * components + c];
+        }
+        for (int row = 0; row < numColumns; row++) {
+          v[row * components + c] = -v[row * components + c];
+        }
+      }
+    }
+    return new PCAResult(toMatrix(u, numRows, components), s, toMatrix(v, numColumns, components));
+  }
+
+  /**
+   * @return A * X with A (rows x columns) and X (columns x width), both row-major
+   */
+  private static double[] multiply(double[] a, int numRows, int numColumns, double[] x,
+      int width) {
+    final double[] result = new double[numRows * width];
+    IntStream.range(0, numRows).parallel().forEach(row -> {
+      final int offset = row * numColumns;
+      final int resultOffset = row * width;
+      for (int col = 0; col < numColumns; col++) {
+        final double value = a[offset + col];
+        if (value == 0) {
+          continue;
+        }
+        final int xOffset = col * width;
+        for (int w = 0; w < width; w++) {
+          result[resultOffset + w] += value * x[xOffset + w];
+        }
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @return A^T * X with A (rows x columns) and X (rows x width), both row-major. Each task sums a
+   * block of columns so that the data is read in memory order
+   */
+  private static double[] multiplyTransposed(double[] a, int numRows, int numColumns, double[] x,
+      int width) {
+    final double[] result = new double[numColumns * width];
+    final int numTasks = Math.ceilDiv(numColumns, COLUMNS_PER_TASK);
+    IntStream.range(0, numTasks).parallel().forEach(task -> {
+      final int from = task * COLUMNS_PER_TASK;
+      final int to = Math.min(from + COLUMNS_PER_TASK, numColumns);
+      for (int row = 0; row < numRows; row++) {
+        final int offset = row * numColumns;
+        final int xOffset = row * width;
+        for (int col = from; col < to; col++) {
+          final double value = a[offset + col];
+          if (value == 0) {
+            continue;
+          }
+          final int resultOffset = col * width;
+          for (int w = 0; w < width; w++) {
+            result[resultOffset + w] += value * x[xOffset + w];
+          }
+        }
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Orthonormalizes the columns of a row-major matrix in place by modified Gram-Schmidt with
+   * reorthogonalization. Linearly dependent columns are set to zero.
+   */
+  static void orthonormalize(double[] matrix, int numRows, int numColumns) {
+    for (int col = 0; col < numColumns; col++) {
+      final double initialNorm = columnNorm(matrix, numRows, numColumns, col);
+      // two passes keep the columns orthogonal despite rounding errors
+      for (int pass = 0; pass < 2; pass++) {
+        for (int prev = 0; prev < col; prev++) {
+          double dot = 0;
+          for (int row = 0; row < numRows; row++) {
+            dot += matrix[row * numColumns + prev] * matrix[row * numColumns + col];
+          }
+          for (int row = 0; row < numRows; row++) {
+            matrix[row * numColumns + col] -= dot * matrix[row * numColumns + prev];
+          }
+        }
+      }
+
+      final double norm = columnNorm(matrix, numRows, numColumns, col);
+      final double scale = norm > initialNorm * 1E-10 && norm > 0 ? 1d / norm : 0d;
+      for (int row = 0; row < numRows; row++) {
+        matrix[row * numColumns + col] *= scale;
+      }
+    }
+  }
+
+  private static double columnNorm(double[] matrix, int numRows, int numColumns, int col) {
+    double sum = 0;
+    for (int row = 0; row < numRows; row++) {
+      final double value = matrix[row * numColumns + col];
+      sum += value * value;
+    }
+    return Math.sqrt(sum);
+  }
+
+  private static RealMatrix toMatrix(double[] data, int numRows, int numColumns) {
+    final double[][] rows = new double[numRows][];
+    for (int row = 0; row < numRows; row++) {
+      rows[row] = new double[numColumns];
+      System.arraycopy(data, row * numColumns, rows[row], 0, numColumns);
+    }
+    return new Array2DRowRealMatrix(rows, false);
+  }
+}
@@ -32,13 +32,17 @@ import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularDataModel;
 import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.modules.dataanalysis.significance.RowSignificanceTestResult;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunctions;
 import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunctions;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import org.apache.commons.math.util.MathUtils;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
@@ -163,4 +167,70 @@ public class StatisticUtils {
 
     return data;
   }
+
+  /**
+   * Creates a contiguous dataset in row-major order with the same layout as
+   * {@link #createDatasetFromRows(List, List, AbundanceMeasure)}. Missing values are NaN.
+   *
+   * @return the values (files x rows)
+   */
+  public static double[] createPrimitiveDatasetFromRows(List<FeatureListRow> rows,
+      List<RawDataFile> allFiles, AbundanceMeasure measure) {
+    final int numColumns = rows.size();
+    final double[] data = new double[allFiles.size() * numColumns];
+
+    IntStream.range(0, numColumns).parallel().forEach(rowIndex -> {
+      final FeatureListRow row = rows.get(rowIndex);
+      for (int fileIndex = 0; fileIndex < allFiles.size(); fileIndex++) {
+        final Feature feature = row.getFeature(allFiles.get(fileIndex));
+        data[fileIndex * numColumns + rowIndex] =
+            feature != null ? measure.getOrNaN((ModularDataModel) feature) : Double.NaN;
+      }
+    });
+    return data;
+  }
+
+  /**
+   * Imputes missing values of each column of a row-major dataset in place.
+   *
+   * @see #imputeMissingValues(RealMatrix, boolean, Function)
+   */
+  public static void imputeMissingValues(double[] data, int numRows,
+      ImputationFunctions imputation) {
+    final int numColumns = data.length / numRows;
+    IntStream.range(0, numColumns).parallel().forEach(col -> {
+      final ArrayRealVector column = getColumn(data, numRows, numColumns, col);
+      final double imputedValue = imputation.getImputer().apply(column);
+      for (int row = 0; row < numRows; row++) {
+        if (Double.isNaN(data[row * numColumns + col])) {
+          data[row * numColumns + col] = imputedValue;
+        }
+      }
+    });
+  }
+
+  /**
+   * Centers and scales each column of a row-major dataset in place.
+   *
+   * @see #centerAndScale(RealMatrix, ScalingFunction, boolean)
+   */
+  public static void centerAndScale(double[] data, int numRows, ScalingFunctions scaling) {
+    final int numColumns = data.length / numRows;
+    IntStream.range(0, numColumns).parallel().forEach(col -> {
+      final ArrayRealVector column = getColumn(data, numRows, numColumns, col);
+      final double mean = column.getL1Norm() / numRows;
+      final RealVector scaled = scaling.getScalingFunction().apply(column.mapSubtract(mean));
+      for (int row = 0; row < numRows; row++) {
+        data[row * numColumns + col] = scaled.getEntry(row);
+      }
+    });
+  }
+
+  private static ArrayRealVector getColumn(double[] data, int numRows, int numColumns, int col) {
+    final double[] column = new double[numRows];
+    for (int row = 0; row < numRows; row++) {
+      column[row] = data[row * numColumns + col];
+    }
+    return new ArrayRealVector(column, false);
+  }
 }
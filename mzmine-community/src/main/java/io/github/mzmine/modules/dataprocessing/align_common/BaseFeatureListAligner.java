@@ -66,6 +66,8 @@ public class BaseFeatureListAligner {
   private final FeatureListRowSorter baseRowSorter;
   private final TotalFinishedItemsProgress progress = new TotalFinishedItemsProgress();
   private int iteration = 1;
+  // number of scored row pairs in the last iteration
+  private long lastScoredPairs;
 
   public BaseFeatureListAligner(final Task parentTask, final List<FeatureList> featureLists,
       final String featureListName, final @Nullable MemoryMapStorage storage,
@@ -215,6 +217,84 @@ public class BaseFeatureListAligner {
     return alignedFeatureList;
   }
 
+  /**
+   * Adds the feature lists of this aligner to an aligned feature list, which is modified in place.
+   * Call this on a copy that is not yet part of the project or on the aligned feature list itself to
+   * process it in place. Rows are first aligned on the existing
+   * rows, the remaining rows are aligned with each other and added as new rows. IDs of existing rows
+   * are kept. Row bindings are only updated for changed and new rows, alignment scores of all rows
+   * are recalculated for the new number of samples.
+   *
+   * @param alignedFeatureList the aligned feature list or its copy
+   * @return the number of changed and new rows or -1 if canceled
+   * @throws IllegalArgumentException if a raw data file is already part of the aligned feature
+   *                                  list
+   */
+  public int addToAlignedFeatureList(final ModularFeatureList alignedFeatureList) {
+    progress.setTotal(featureLists.stream().mapToLong(FeatureList::getNumberOfRows).sum());
+
+    final List<RawDataFile> newDataFiles = FeatureListUtils.getAllDataFiles(featureLists);
+    for (RawDataFile dataFile : newDataFiles) {
+      if (alignedFeatureList.getRawDataFiles().contains(dataFile)) {
+        throw new IllegalArgumentException(
+            "File " + dataFile + " is already part of the aligned feature list "
+            + alignedFeatureList.getName());
+      }
+    }
+    alignedFeatureList.getRawDataFiles().addAll(newDataFiles);
+    FeatureListUtils.transferRowTypes(alignedFeatureList, featureLists);
+    FeatureListUtils.transferSelectedScans(alignedFeatureList, featureLists);
+
+    final List<List<FeatureListRow>> allRows = new ArrayList<>(featureLists.size());
+    for (var flist : featureLists) {
+      allRows.add(new ArrayList<>(flist.getRows()));
+    }
+
+    // first iteration aligns on the existing rows
+    final List<FeatureListRow> existingRows = new ArrayList<>(alignedFeatureList.getRows());
+    existingRows.sort(baseRowSorter);
+    alignRowsOnBaseRows(allRows, existingRows, alignedFeatureList);
+    iteration++;
+
+    final List<FeatureListRow> changedRows = new ArrayList<>();
+    for (FeatureListRow row : existingRows) {
+      for (RawDataFile dataFile : newDataFiles) {
+        if (row.hasFeature(dataFile)) {
+          changedRows.add(row);
+          break;
+        }
+      }
+    }
+
+    // remaining rows create new rows, new rows are appended to the end of the list
+    final int numExistingRows = existingRows.size();
+    final AtomicInteger newRowID = new AtomicInteger(
+        existingRows.stream().mapToInt(FeatureListRow::getID).max().orElse(0) + 1);
+    while (!allRows.isEmpty()) {
+      if (parentTask.isCanceled()) {
+        return -1;
+      }
+      var finishedAll = nextAlignmentIteration(allRows, alignedFeatureList, newRowID);
+      if (finishedAll) {
+        break; // end loop
+      }
+      iteration++;
+    }
+    final List<FeatureListRow> rows = alignedFeatureList.getRows();
+    changedRows.addAll(rows.subList(numExistingRows, rows.size()));
+
+    // keep IDs stable for existing rows
+    FeatureListUtils.sortByDefaultRT(alignedFeatureList);
+
+    changedRows.parallelStream().filter(row -> row.getNumberOfFeatures() > 1)
+        .forEach(FeatureListRow::applyRowBindings);
+
+    // all rows are rescored as the number of samples changed
+    rowAligner.updateAlignmentScores(alignedFeatureList, featureLists);
+
+    return changedRows.size();
+  }
+
   private boolean nextAlignmentIteration(final List<List<FeatureListRow>> allRows,
       final ModularFeatureList alignedFeatureList, final AtomicInteger newRowID) {
     // sort remaining unaligned rows by size
@@ -242,25 +322,98 @@ public class BaseFeatureListAligner {
 
     // align all remaining feature lists onto the feature list with max(row number) = nextBaseRows
     if (!allRows.isEmpty()) {
+      alignRowsOnBaseRows(allRows, nextBaseRows, alignedFeatureList);
+    }
+
+    // add all new base rows
+    for (var row : nextBaseRows) {
+      alignedFeatureList.addRow(row);
+    }
+    return false;
+  }
+
+  /**
+   * Aligns the rows of all feature lists on the base rows and removes all aligned rows from
+   * allRows
+   *
+   * @param baseRowsSorted sorted by {@link #baseRowSorter}
+   */
+  private void alignRowsOnBaseRows(final List<List<FeatureListRow>> allRows,
+      final List<FeatureListRow> baseRowsSorted, final ModularFeatureList alignedFeatureList) {
+    final long startTime = System.currentTimeMillis();
+    final Object2BooleanOpenHashMap<FeatureListRow> alignedRowsMap;
+    if (rowAligner instanceof IndexedRowAlignScorer indexedAligner) {
+      alignedRowsMap = alignRowsOnIndex(indexedAligner, allRows, baseRowsSorted,
+          alignedFeatureList);
+    } else {
       Collection<RowVsRowScore> scoresList = rowAligner.alignRowsOnBaseRows(parentTask, allRows,
-          nextBaseRows);
+          baseRowsSorted);
+      lastScoredPairs = scoresList.size();
 
       // after an iteration, rows of all other featureLists have been given a mapping
       // now we have to find the best match
       // track all aligned rows - only align to highest scoring row
-      final var alignedRowsMap = addFeaturesBasedOnScores(scoresList, alignedFeatureList,
-          featureCloner, progress.getFinished());
-
-      // keep track of unaligned rows for the next interation.
-      AlignedRemainingRows result = removeAlignedRows(allRows, alignedRowsMap);
-      result.logStatus(iteration, featureLists.size());
+      alignedRowsMap = addFeaturesBasedOnScores(scoresList, alignedFeatureList, featureCloner,
+          progress.getFinished());
     }
+    logIterationStats(System.currentTimeMillis() - startTime);
 
-    // add all new base rows
-    for (var row : nextBaseRows) {
-      alignedFeatureList.addRow(row);
+    // keep track of unaligned rows for the next interation.
+    AlignedRemainingRows result = removeAlignedRows(allRows, alignedRowsMap);
+    result.logStatus(iteration, featureLists.size());
+  }
+
+  /**
+   * Scores each feature list in parallel against an index of the base rows and only keeps the best
+   * base row per row. Results are equal to
+   * {@link #addFeaturesBasedOnScores(Collection, ModularFeatureList, FeatureCloner, AtomicLong)}
+   * without creating and sorting all scores.
+   *
+   * @return marks all aligned rows
+   */
+  private Object2BooleanOpenHashMap<FeatureListRow> alignRowsOnIndex(
+      final IndexedRowAlignScorer indexedAligner, final List<List<FeatureListRow>> allRows,
+      final List<FeatureListRow> baseRowsSorted, final ModularFeatureList alignedFeatureList) {
+    final BaseRowGridIndex index = indexedAligner.createBaseRowIndex(baseRowsSorted);
+    final IndexedRowAssigner assigner = new IndexedRowAssigner(parentTask, indexedAligner, index);
+
+    final List<int[]> assignments = allRows.parallelStream().map(assigner::assign).toList();
+    lastScoredPairs = assigner.getScoredPairs();
+
+    // adding features is not thread safe, each row is only added to one base row
+    final Object2BooleanOpenHashMap<FeatureListRow> alignedRowsMap =
+        new Object2BooleanOpenHashMap<>();
+    final AtomicLong alignedRows = progress.getFinished();
+    for (int l = 0; l < allRows.size(); l++) {
+      final List<FeatureListRow> rows = allRows.get(l);
+      final int[] assigned = assignments.get(l);
+      for (int r = 0; r < assigned.length; r++) {
+        if (assigned[r] < 0) {
+          continue;
+        }
+        final FeatureListRow row = rows.get(r);
+        final FeatureListRow alignedRow = index.getRow(assigned[r]);
+        for (Feature feature : row.getFeatures()) {
+          final RawDataFile dataFile = feature.getRawDataFile();
+          if (!alignedRow.hasFeature(dataFile)) {
+            var newFeature = featureCloner.cloneFeature(feature, alignedFeatureList, alignedRow);
+            alignedRow.addFeature(dataFile, newFeature, false);
+            alignedRowsMap.put(row, true);
+            alignedRows.getAndIncrement();
+          }
+        }
+      }
     }
-    return false;
+    return alignedRowsMap;
+  }
+
+  private void logIterationStats(final long timeMillis) {
+    final Runtime runtime = Runtime.getRuntime();
+    final long usedMemMB = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    final long scoredPairs = lastScoredPairs;
+    logger.finer(() -> String.format(
+        "Alignment iteration %d took %d ms, scored %d row pairs, used memory %d MB", iteration,
+        timeMillis, scoredPairs, usedMemMB));
   }
 
   public double getFinishedPercentage() {
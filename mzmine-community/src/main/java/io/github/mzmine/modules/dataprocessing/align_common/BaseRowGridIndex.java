@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_common;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
+import java.util.List;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable m/z and RT grid over the base rows of one alignment iteration. Row values are copied
+ * into primitive arrays and row indices are stored per cell in a compressed layout (cell offsets +
+ * indices). Rows without RT are kept in an extra RT column that is visited by every query.
+ */
+public final class BaseRowGridIndex {
+
+  private final List<FeatureListRow> rows;
+  private final double[] mzs;
+  private final float[] rts;
+  private final double minMz;
+  private final double mzBinWidth;
+  private final int mzBins;
+  private final float minRt;
+  private final float rtBinWidth;
+  // last RT column is reserved for rows without RT
+  private final int rtBins;
+  private final int[] cellStart;
+  private final int[] cellRows;
+
+  /**
+   * @param rows        the base rows
+   * @param mzTolerance defines the m/z bin width or null if m/z is not used for the search
+   * @param rtTolerance defines the RT bin width or null if RT is not used for the search
+   */
+  public BaseRowGridIndex(@NotNull List<FeatureListRow> rows, @Nullable MZTolerance mzTolerance,
+      @Nullable RTTolerance rtTolerance) {
+    this.rows = rows;
+    final int n = rows.size();
+    mzs = new double[n];
+    rts = new float[n];
+
+    double minMz = Double.POSITIVE_INFINITY;
+    double maxMz = Double.NEGATIVE_INFINITY;
+    float minRt = Float.POSITIVE_INFINITY;
+    float maxRt = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < n; i++) {
+      final FeatureListRow row = rows.get(i);
+      final Double mz = row.getAverageMZ();
+      final Float rt = row.getAverageRT();
+      mzs[i] = mz == null ? Double.NaN : mz;
+      rts[i] = rt == null ? Float.NaN : rt;
+      if (mz != null) {
+        minMz = Math.min(minMz, mz);
+        maxMz = Math.max(maxMz, mz);
+      }
+      if (rt != null) {
+        minRt = Math.min(minRt, rt);
+        maxRt = Math.max(maxRt, rt);
+      }
+    }
+    if (minMz > maxMz) {
+      minMz = maxMz = 0;
+    }
+    if (minRt > maxRt) {
+      minRt = maxRt = 0;
+    }
+    this.minMz = minMz;
+    this.minRt = minRt;
+
+    final double mzSpan = maxMz - minMz;
+    final double rtSpan = maxRt - minRt;
+    int mzBins = numBins(mzSpan, mzTolerance == null ? 0 : length(
+        mzTolerance.getToleranceRange(maxMz)));
+    int rtBins = numBins(rtSpan, rtTolerance == null ? 0 : length(
+        rtTolerance.getToleranceRange(maxRt)));
+    // limit the number of cells to the number of rows, the search cost is dominated by rows anyway
+    final long maxCells = Math.max(16, 4L * n);
+    while ((long) mzBins * (rtBins + 1) > maxCells) {
+      if (mzBins >= rtBins) {
+        mzBins = (mzBins + 1) / 2;
+      } else {
+        rtBins = (rtBins + 1) / 2;
+      }
+    }
+    this.mzBins = mzBins;
+    this.rtBins = rtBins;
+    mzBinWidth = mzSpan > 0 ? mzSpan / mzBins : 1;
+    rtBinWidth = rtSpan > 0 ? (float) (rtSpan / rtBins) : 1f;
+
+    // count, prefix sum, fill
+    final int numCells = mzBins * (rtBins + 1);
+    final int[] cellOfRow = new int[n];
+    cellStart = new int[numCells + 1];
+    for (int i = 0; i < n; i++) {
+      final int cell = cell(mzBin(mzs[i]), Float.isNaN(rts[i]) ? rtBins : rtBin(rts[i]));
+      cellOfRow[i] = cell;
+      cellStart[cell + 1]++;
+    }
+    for (int c = 0; c < numCells; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    cellRows = new int[n];
+    final int[] fill = new int[numCells];
+    for (int i = 0; i < n; i++) {
+      final int cell = cellOfRow[i];
+      cellRows[cellStart[cell] + fill[cell]++] = i;
+    }
+  }
+
+  private static int numBins(double span, double binWidth) {
+    if (!(span > 0) || !(binWidth > 0)) {
+      return 1;
+    }
+    return (int) Math.max(1, Math.min(1 << 20, Math.ceil(span / binWidth)));
+  }
+
+  private static double length(Range<? extends Number> range) {
+    return range.upperEndpoint().doubleValue() - range.lowerEndpoint().doubleValue();
+  }
+
+  private int cell(int mzBin, int rtBin) {
+    return mzBin * (rtBins + 1) + rtBin;
+  }
+
+  private int mzBin(double mz) {
+    if (Double.isNaN(mz)) {
+      return 0;
+    }
+    return Math.clamp((long) Math.floor((mz - minMz) / mzBinWidth), 0, mzBins - 1);
+  }
+
+  private int rtBin(float rt) {
+    return Math.clamp((long) Math.floor((rt - minRt) / rtBinWidth), 0, rtBins - 1);
+  }
+
+  /**
+   * Visits all rows with an m/z within mzRange and an RT within rtRange or without RT. Same
+   * criteria as {@link io.github.mzmine.util.FeatureListUtils#getCandidatesWithinRanges}, apart
+   * from mobility, which is left to the caller. The visiting order is not defined.
+   *
+   * @param mzRange  search range, use Range.all() to deactivate
+   * @param rtRange  search range, use Range.all() to deactivate
+   * @param consumer receives the index of the row in {@link #getRows()}
+   */
+  public void forEachCandidate(@NotNull Range<Double> mzRange, @NotNull Range<Float> rtRange,
+      @NotNull IntConsumer consumer) {
+    final int mzFrom = mzRange.hasLowerBound() ? mzBin(mzRange.lowerEndpoint()) : 0;
+    final int mzTo = mzRange.hasUpperBound() ? mzBin(mzRange.upperEndpoint()) : mzBins - 1;
+    final int rtFrom = rtRange.hasLowerBound() ? rtBin(rtRange.lowerEndpoint()) : 0;
+    final int rtTo = rtRange.hasUpperBound() ? rtBin(rtRange.upperEndpoint()) : rtBins - 1;
+
+    for (int mzBin = mzFrom; mzBin <= mzTo; mzBin++) {
+      for (int rtBin = rtFrom; rtBin <= rtTo; rtBin++) {
+        visitCell(cell(mzBin, rtBin), mzRange, rtRange, consumer);
+      }
+      // rows without RT
+      visitCell(cell(mzBin, rtBins), mzRange, rtRange, consumer);
+    }
+  }
+
+  private void visitCell(int cell, Range<Double> mzRange, Range<Float> rtRange,
+      IntConsumer consumer) {
+    for (int p = cellStart[cell], end = cellStart[cell + 1]; p < end; p++) {
+      final int i = cellRows[p];
+      final double mz = mzs[i];
+      final float rt = rts[i];
+      if (!Double.isNaN(mz) && mzRange.contains(mz) && (Float.isNaN(rt) || rtRange.contains(rt))) {
+        consumer.accept(i);
+      }
+    }
+  }
+
+  /**
+   * @return the indexed rows in the original order
+   */
+  public List<FeatureListRow> getRows() {
+    return rows;
+  }
+
+  public FeatureListRow getRow(int index) {
+    return rows.get(index);
+  }
+
+  public int size() {
+    return rows.size();
+  }
+}
@@ -74,4 +74,14 @@ public interface FeatureRowAlignScorer {
 
   void calculateAlignmentScores(ModularFeatureList alignedFeatureList,
       List<FeatureList> originalFeatureLists);
+
+  /**
+   * Recalculates the scores of all rows after samples were added to an existing aligned feature
+   * list, so that rates and distances reflect the new number of samples and row averages.
+   *
+   * @param addedFeatureLists extra features are only counted in the added feature lists, the
+   *                          counts of all other samples are kept
+   */
+  void updateAlignmentScores(ModularFeatureList alignedFeatureList,
+      List<FeatureList> addedFeatureLists);
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_common;
+
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link FeatureRowAlignScorer} that can score rows against an index of the base rows. This
+ * allows {@link BaseFeatureListAligner} to keep only the best candidate per row instead of
+ * collecting and sorting all {@link io.github.mzmine.modules.dataprocessing.align_join.RowVsRowScore}
+ * of an iteration.
+ */
+public interface IndexedRowAlignScorer extends FeatureRowAlignScorer {
+
+  /**
+   * @param baseRowsSorted the base rows of the next alignment iteration
+   * @return an index over the base rows that is used in
+   * {@link #scoreRowAgainstIndex(BaseRowGridIndex, FeatureListRow, BaseRowScoreConsumer)}
+   */
+  @NotNull BaseRowGridIndex createBaseRowIndex(@NotNull List<FeatureListRow> baseRowsSorted);
+
+  /**
+   * Scores a row against all matching base rows. Needs to apply the same criteria and score as
+   * {@link #scoreRowAgainstBaseRows}. Is called concurrently.
+   *
+   * @param index    the base row index
+   * @param rowToAdd row to score
+   * @param consumer receives each base row that passed all checks with its score
+   */
+  void scoreRowAgainstIndex(@NotNull BaseRowGridIndex index, @NotNull FeatureListRow rowToAdd,
+      @NotNull BaseRowScoreConsumer consumer);
+
+  @FunctionalInterface
+  interface BaseRowScoreConsumer {
+
+    /**
+     * @param baseRowIndex index in {@link BaseRowGridIndex#getRows()}
+     * @param score        the alignment score, higher is better
+     */
+    void accept(int baseRowIndex, double score);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_common;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.Feature;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.modules.dataprocessing.align_common.IndexedRowAlignScorer.BaseRowScoreConsumer;
+import io.github.mzmine.taskcontrol.Task;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Assigns the rows of one feature list to the base rows of an alignment iteration. Result is the
+ * same as sorting all {@link io.github.mzmine.modules.dataprocessing.align_join.RowVsRowScore} and
+ * adding rows greedily, see {@link BaseFeatureListAligner#addFeaturesBasedOnScores}: Rows of
+ * different feature lists never compete for the same raw data file in a base row, so each list
+ * is solved on its own and lists can be processed in parallel. Each row keeps only its best base
+ * row. Rows are processed from best to worst score and a row is only rescored if its best base row
+ * was taken by another row of the same list in the meantime.
+ */
+final class IndexedRowAssigner {
+
+  private final Task parentTask;
+  private final IndexedRowAlignScorer scorer;
+  private final BaseRowGridIndex index;
+  private final LongAdder scoredPairs = new LongAdder();
+
+  IndexedRowAssigner(final Task parentTask, final IndexedRowAlignScorer scorer,
+      final BaseRowGridIndex index) {
+    this.parentTask = parentTask;
+    this.scorer = scorer;
+    this.index = index;
+  }
+
+  /**
+   * @param rows the unaligned rows of a single feature list
+   * @return the assigned base row index for each row or -1 if the row was not aligned
+   */
+  int[] assign(final List<FeatureListRow> rows) {
+    final int n = rows.size();
+    final int[] best = new int[n];
+    final double[] bestScore = new double[n];
+    final int[] assigned = new int[n];
+    Arrays.fill(assigned, -1);
+
+    // files added to base rows by rows of this list
+    final Int2ObjectOpenHashMap<Set<RawDataFile>> addedFiles = new Int2ObjectOpenHashMap<>();
+
+    IntStream.range(0, n).parallel().forEach(r -> {
+      if (!parentTask.isCanceled()) {
+        findBest(rows.get(r), r, best, bestScore, null);
+      }
+    });
+
+    // best score first
+    final IntHeapPriorityQueue queue = new IntHeapPriorityQueue(n,
+        (a, b) -> Double.compare(bestScore[b], bestScore[a]));
+    for (int r = 0; r < n; r++) {
+      if (best[r] >= 0) {
+        queue.enqueue(r);
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      if (parentTask.isCanceled()) {
+        return assigned;
+      }
+      final int r = queue.dequeueInt();
+      final FeatureListRow row = rows.get(r);
+      if (isBlocked(row, best[r], addedFiles)) {
+        // scores only get worse, the next best base row is put back into the queue
+        findBest(row, r, best, bestScore, addedFiles);
+        if (best[r] >= 0) {
+          queue.enqueue(r);
+        }
+        continue;
+      }
+      assigned[r] = best[r];
+      final Set<RawDataFile> files = addedFiles.computeIfAbsent(best[r], _ -> new HashSet<>());
+      for (final Feature feature : row.getFeatures()) {
+        files.add(feature.getRawDataFile());
+      }
+    }
+    return assigned;
+  }
+
+  /**
+   * Top-1 search for a row. Sets best[r] to -1 if there was no matching base row.
+   */
+  private void findBest(final FeatureListRow row, final int r, final int[] best,
+      final double[] bestScore, final Int2ObjectOpenHashMap<Set<RawDataFile>> addedFiles) {
+    best[r] = -1;
+    bestScore[r] = Double.NEGATIVE_INFINITY;
+    final BaseRowScoreConsumer consumer = (baseRow, score) -> {
+      scoredPairs.increment();
+      if ((best[r] == -1 || score > bestScore[r]) && (addedFiles == null || !isBlocked(row,
+          baseRow, addedFiles))) {
+        best[r] = baseRow;
+        bestScore[r] = score;
+      }
+    };
+    scorer.scoreRowAgainstIndex(index, row, consumer);
+  }
+
+  /**
+   * A row is blocked if the base row already has a feature for all of its raw data files. Then no
+   * feature would be added.
+   */
+  private boolean isBlocked(final FeatureListRow row, final int baseRowIndex,
+      final Int2ObjectOpenHashMap<Set<RawDataFile>> addedFiles) {
+    final FeatureListRow baseRow = index.getRow(baseRowIndex);
+    final Set<RawDataFile> added = addedFiles.get(baseRowIndex);
+    for (final Feature feature : row.getFeatures()) {
+      final RawDataFile file = feature.getRawDataFile();
+      if (!baseRow.hasFeature(file) && (added == null || !added.contains(file))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return number of row vs base row scores calculated so far
+   */
+  long getScoredPairs() {
+    return scoredPairs.sum();
+  }
+}
@@ -123,10 +123,21 @@ public class GcRowAlignScorer implements FeatureRowAlignScorer {
   @Override
   public void calculateAlignmentScores(final ModularFeatureList alignedFeatureList,
       final List<FeatureList> originalFeatureLists) {
+    FeatureListUtils.addAlignmentScores(alignedFeatureList,
+        createScoreCalculator(originalFeatureLists), false);
+  }
 
+  @Override
+  public void updateAlignmentScores(final ModularFeatureList alignedFeatureList,
+      final List<FeatureList> addedFeatureLists) {
+    FeatureListUtils.recalcAlignmentScores(alignedFeatureList,
+        createScoreCalculator(addedFeatureLists));
+  }
+
+  private RowAlignmentScoreCalculator createScoreCalculator(
+      final List<FeatureList> originalFeatureLists) {
     // TODO think about best way to calculate an alignment score that also includes spectral similarity
-    RowAlignmentScoreCalculator calculator = new RowAlignmentScoreCalculator(originalFeatureLists,
-        mzTolerance, rtTolerance, null, 0, rtWeight, 0);
-    FeatureListUtils.addAlignmentScores(alignedFeatureList, calculator, false);
+    return new RowAlignmentScoreCalculator(originalFeatureLists, mzTolerance, rtTolerance, null, 0,
+        rtWeight, 0);
   }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_join;
+
+import io.github.mzmine.parameters.Parameter;
+import io.github.mzmine.parameters.impl.IonMobilitySupport;
+import io.github.mzmine.parameters.impl.SimpleParameterSet;
+import io.github.mzmine.parameters.parametertypes.OriginalFeatureListHandlingParameter;
+import io.github.mzmine.parameters.parametertypes.StringParameter;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsParameter;
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Adds new samples to a copy of an existing aligned feature list. Uses the same scoring parameters
+ * as the {@link JoinAlignerParameters} so that {@link JoinRowAlignScorer} can be reused.
+ */
+public class JoinAlignerAddSamplesParameters extends SimpleParameterSet {
+
+  public static final FeatureListsParameter alignedFeatureList = new FeatureListsParameter(
+      "Aligned feature list", "The existing aligned feature list. A copy receives the new samples.",
+      1, 1, true);
+
+  public static final FeatureListsParameter newFeatureLists = new FeatureListsParameter(
+      "New feature lists", "Feature lists of the new samples that are added to the aligned list",
+      1, Integer.MAX_VALUE);
+
+  public static final StringParameter suffix = new StringParameter("Name suffix",
+      "Suffix to be added to the name of the aligned feature list", "added samples");
+
+  public static final OriginalFeatureListHandlingParameter handleOriginal = new OriginalFeatureListHandlingParameter(
+      true);
+
+  public JoinAlignerAddSamplesParameters() {
+    super(new Parameter[]{alignedFeatureList, newFeatureLists, suffix,
+            JoinAlignerParameters.MZTolerance,
+            JoinAlignerParameters.MZWeight, JoinAlignerParameters.RTTolerance,
+            JoinAlignerParameters.RTWeight, JoinAlignerParameters.mobilityTolerance,
+            JoinAlignerParameters.mobilityWeight, JoinAlignerParameters.SameChargeRequired,
+            JoinAlignerParameters.SameIDRequired, JoinAlignerParameters.compareIsotopePattern,
+            JoinAlignerParameters.compareSpectraSimilarity, handleOriginal},
+        "https://mzmine.github.io/mzmine_documentation/module_docs/join_aligner/join_aligner.html");
+  }
+
+  @Override
+  public boolean checkParameterValues(final Collection<String> errorMessages,
+      final boolean skipRawDataAndFeatureListParameters) {
+    boolean state = super.checkParameterValues(errorMessages, skipRawDataAndFeatureListParameters);
+
+    if (getValue(JoinAlignerParameters.MZWeight) == 0
+        && getValue(JoinAlignerParameters.RTWeight) == 0) {
+      errorMessages.add("Cannot align with both rt and mz weight 0");
+      state = false;
+    }
+    return state;
+  }
+
+  @NotNull
+  @Override
+  public IonMobilitySupport getIonMobilitySupport() {
+    return IonMobilitySupport.SUPPORTED;
+  }
+}
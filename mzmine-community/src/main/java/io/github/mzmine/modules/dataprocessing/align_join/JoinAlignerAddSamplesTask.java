@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_join;
+
+import static io.github.mzmine.util.FeatureListRowSorter.MZ_ASCENDING;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.modules.MZmineModule;
+import io.github.mzmine.modules.dataprocessing.align_common.BaseFeatureListAligner;
+import io.github.mzmine.modules.dataprocessing.align_common.FeatureCloner.SimpleFeatureCloner;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.OriginalFeatureListHandlingParameter.OriginalFeatureListOption;
+import io.github.mzmine.taskcontrol.AbstractFeatureListTask;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Maps the rows of new samples onto an existing aligned feature list instead of aligning the
+ * whole study again. The samples are added to a copy of the aligned feature list, which is only
+ * added to the project when finished, or directly to the aligned feature list when processing in
+ * place.
+ */
+public class JoinAlignerAddSamplesTask extends AbstractFeatureListTask {
+
+  private static final Logger logger = Logger.getLogger(
+      JoinAlignerAddSamplesTask.class.getName());
+
+  private final MZmineProject project;
+  private final ModularFeatureList alignedFeatureList;
+  private final List<FeatureList> newFeatureLists;
+  private final String suffix;
+  private final OriginalFeatureListOption handleOriginal;
+  private BaseFeatureListAligner listAligner;
+  private ModularFeatureList resultFeatureList;
+
+  public JoinAlignerAddSamplesTask(@NotNull MZmineProject project,
+      @Nullable MemoryMapStorage storage, @NotNull Instant moduleCallDate,
+      @NotNull ParameterSet parameters, @NotNull Class<? extends MZmineModule> moduleClass) {
+    super(storage, moduleCallDate, parameters, moduleClass);
+    this.project = project;
+    suffix = parameters.getValue(JoinAlignerAddSamplesParameters.suffix);
+    handleOriginal = parameters.getValue(JoinAlignerAddSamplesParameters.handleOriginal);
+    alignedFeatureList = parameters.getValue(JoinAlignerAddSamplesParameters.alignedFeatureList)
+        .getMatchingFeatureLists()[0];
+    // never add the aligned list to itself
+    newFeatureLists = Arrays.stream(
+            parameters.getValue(JoinAlignerAddSamplesParameters.newFeatureLists)
+                .getMatchingFeatureLists()).filter(flist -> flist != alignedFeatureList)
+        .map(flist -> (FeatureList) flist).toList();
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    if (listAligner == null) {
+      return 0;
+    }
+    return listAligner.getFinishedPercentage();
+  }
+
+  @Override
+  protected void process() {
+    List<String> errors = new ArrayList<>();
+    if (!parameters.checkParameterValues(errors)) {
+      setStatus(TaskStatus.ERROR);
+      setErrorMessage(String.join("\n", errors));
+      return;
+    }
+
+    logger.info(() -> "Adding " + newFeatureLists.size() + " feature lists to aligned list "
+                      + alignedFeatureList.getName());
+
+    // create copy or work on same list
+    final ModularFeatureList resultList = switch (handleOriginal) {
+      case KEEP, REMOVE -> alignedFeatureList.createCopy(
+          alignedFeatureList.getName() + " " + suffix, getMemoryMapStorage(), false);
+      case PROCESS_IN_PLACE -> alignedFeatureList;
+    };
+    listAligner = new BaseFeatureListAligner(this, newFeatureLists, resultList.getName(),
+        getMemoryMapStorage(), new JoinRowAlignScorer(parameters), new SimpleFeatureCloner(),
+        MZ_ASCENDING);
+
+    final int changedRows;
+    try {
+      changedRows = listAligner.addToAlignedFeatureList(resultList);
+    } catch (IllegalArgumentException ex) {
+      error(ex.getMessage());
+      return;
+    }
+    if (changedRows < 0 || isCanceled()) {
+      return;
+    }
+    resultFeatureList = resultList;
+
+    logger.info(() -> "Finished adding samples, changed or added " + changedRows + " of "
+                      + resultList.getNumberOfRows() + " rows");
+    handleOriginal.reflectNewFeatureListToProject(suffix, project, resultList, alignedFeatureList);
+  }
+
+  @Override
+  protected @NotNull List<FeatureList> getProcessedFeatureLists() {
+    return resultFeatureList == null ? List.of() : List.of(resultFeatureList);
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Add samples to aligned feature list " + alignedFeatureList.getName();
+  }
+}
@@ -33,7 +33,8 @@ import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.modules.MZmineProcessingStep;
-import io.github.mzmine.modules.dataprocessing.align_common.FeatureRowAlignScorer;
+import io.github.mzmine.modules.dataprocessing.align_common.BaseRowGridIndex;
+import io.github.mzmine.modules.dataprocessing.align_common.IndexedRowAlignScorer;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreCalculator;
 import io.github.mzmine.modules.tools.isotopepatternscore.IsotopePatternScoreParameters;
 import io.github.mzmine.parameters.ParameterSet;
@@ -47,12 +48,13 @@ import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunction;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * the row aligner used by {@link JoinAlignerTask}. Based on weighted mz, rt, mobility difference
  * and additional filters
  */
-public class JoinRowAlignScorer implements FeatureRowAlignScorer {
+public class JoinRowAlignScorer implements IndexedRowAlignScorer {
 
   private final MZTolerance mzTolerance;
   private final RTTolerance rtTolerance;
@@ -117,13 +119,9 @@ public class JoinRowAlignScorer implements FeatureRowAlignScorer {
   public void scoreRowAgainstBaseRows(final List<FeatureListRow> baseRowsByMz,
       final FeatureListRow rowToAdd, final ConcurrentLinkedDeque<RowVsRowScore> scoresList) {
     // ranges are build with prechecks - so if there is no mobility use Range.all() to deactivate the filter
-    final Range<Double> mzRange =
-        mzWeight > 0 ? mzTolerance.getToleranceRange(rowToAdd.getAverageMZ()) : Range.all();
-    final Range<Float> rtRange =
-        rtWeight > 0 ? rtTolerance.getToleranceRange(rowToAdd.getAverageRT()) : Range.all();
-    final Range<Float> mobilityRange =
-        compareMobility && mobilityWeight > 0 && rowToAdd.getAverageMobility() != null
-            ? mobilityTolerance.getToleranceRange(rowToAdd.getAverageMobility()) : Range.all();
+    final Range<Double> mzRange = getMzRange(rowToAdd);
+    final Range<Float> rtRange = getRtRange(rowToAdd);
+    final Range<Float> mobilityRange = getMobilityRange(rowToAdd);
 
     // find all rows in the aligned rows that might match
     final List<FeatureListRow> candidatesInAligned = FeatureListUtils.getCandidatesWithinRanges(
@@ -144,6 +142,46 @@ public class JoinRowAlignScorer implements FeatureRowAlignScorer {
     }
   }
 
+  @Override
+  public @NotNull BaseRowGridIndex createBaseRowIndex(
+      @NotNull final List<FeatureListRow> baseRowsSorted) {
+    return new BaseRowGridIndex(baseRowsSorted, mzWeight > 0 ? mzTolerance : null,
+        rtWeight > 0 ? rtTolerance : null);
+  }
+
+  @Override
+  public void scoreRowAgainstIndex(@NotNull final BaseRowGridIndex index,
+      @NotNull final FeatureListRow rowToAdd, @NotNull final BaseRowScoreConsumer consumer) {
+    final Range<Double> mzRange = getMzRange(rowToAdd);
+    final Range<Float> rtRange = getRtRange(rowToAdd);
+    final Range<Float> mobilityRange = getMobilityRange(rowToAdd);
+
+    index.forEachCandidate(mzRange, rtRange, i -> {
+      final FeatureListRow candidate = index.getRow(i);
+      final Float mobility = candidate.getAverageMobility();
+      if ((mobility == null || mobilityRange.contains(mobility)) //
+          && additionalChecks(rowToAdd, candidate)) {
+        // same score as RowVsRowScore
+        consumer.accept(i,
+            FeatureListUtils.getAlignmentScore(candidate, mzRange, rtRange, mobilityRange, null,
+                mzWeight, rtWeight, mobilityWeight, 0));
+      }
+    });
+  }
+
+  private Range<Double> getMzRange(final FeatureListRow row) {
+    return mzWeight > 0 ? mzTolerance.getToleranceRange(row.getAverageMZ()) : Range.all();
+  }
+
+  private Range<Float> getRtRange(final FeatureListRow row) {
+    return rtWeight > 0 ? rtTolerance.getToleranceRange(row.getAverageRT()) : Range.all();
+  }
+
+  private Range<Float> getMobilityRange(final FeatureListRow row) {
+    return compareMobility && mobilityWeight > 0 && row.getAverageMobility() != null
+        ? mobilityTolerance.getToleranceRange(row.getAverageMobility()) : Range.all();
+  }
+
   private boolean additionalChecks(final FeatureListRow row,
       final FeatureListRow candidateInAligned) {
     return (!sameChargeRequired || FeatureUtils.compareChargeState(row, candidateInAligned)) //
@@ -232,10 +270,21 @@ public class JoinRowAlignScorer implements FeatureRowAlignScorer {
   @Override
   public void calculateAlignmentScores(final ModularFeatureList alignedFeatureList,
       final List<FeatureList> originalFeatureLists) {
+    FeatureListUtils.addAlignmentScores(alignedFeatureList,
+        createScoreCalculator(originalFeatureLists), false);
+  }
 
+  @Override
+  public void updateAlignmentScores(final ModularFeatureList alignedFeatureList,
+      final List<FeatureList> addedFeatureLists) {
+    FeatureListUtils.recalcAlignmentScores(alignedFeatureList,
+        createScoreCalculator(addedFeatureLists));
+  }
+
+  private RowAlignmentScoreCalculator createScoreCalculator(
+      final List<FeatureList> originalFeatureLists) {
     MobilityTolerance mobTol = compareMobility ? mobilityTolerance : null;
-    RowAlignmentScoreCalculator calculator = new RowAlignmentScoreCalculator(originalFeatureLists,
-        mzTolerance, rtTolerance, mobTol, mzWeight, rtWeight, mobilityWeight);
-    FeatureListUtils.addAlignmentScores(alignedFeatureList, calculator, false);
+    return new RowAlignmentScoreCalculator(originalFeatureLists, mzTolerance, rtTolerance, mobTol,
+        mzWeight, rtWeight, mobilityWeight);
   }
 }
@@ -31,6 +31,7 @@ import static io.github.mzmine.util.FeatureListRowSorter.MZ_ASCENDING;
 
 import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.types.alignment.AlignmentScores;
@@ -38,6 +39,7 @@ import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
 import io.github.mzmine.parameters.parametertypes.tolerances.mobilitytolerance.MobilityTolerance;
 import io.github.mzmine.util.FeatureListUtils;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +92,34 @@ public class RowAlignmentScoreCalculator {
    * @return alignment score
    */
   public @NotNull AlignmentScores calcScore(@NotNull FeatureListRow alignedRow) {
+    return calcScore(alignedRow, totalSamples, 0, false);
+  }
+
+  /**
+   * Recalculates the score of a row after samples were added to an aligned feature list. The rate
+   * is based on the new number of samples. Distances and deltas cover all features of the row and
+   * are calculated against the current row averages. Extra features can only be counted for the
+   * feature lists of this calculator, the count of all other samples is taken from the previous
+   * score.
+   *
+   * @param totalSamples  number of samples in the aligned feature list
+   * @param previousScore score before the samples were added or null
+   * @return alignment score
+   */
+  public @NotNull AlignmentScores recalcScore(@NotNull FeatureListRow alignedRow,
+      int totalSamples, @Nullable AlignmentScores previousScore) {
+    final int previousExtra =
+        previousScore == null ? 0 : Math.max(0, previousScore.extraFeatures());
+    return calcScore(alignedRow, totalSamples, previousExtra, true);
+  }
+
+  /**
+   * @param extraFeatures extra features of samples that are not part of this calculator
+   * @param allFeatures   score all features of the row or only those of the samples of this
+   *                      calculator
+   */
+  private @NotNull AlignmentScores calcScore(@NotNull FeatureListRow alignedRow,
+      int totalSamples, int extraFeatures, boolean allFeatures) {
     Float rt = alignedRow.getAverageRT();
     Float mobility = alignedRow.getAverageMobility();
     Double mz = alignedRow.getAverageMZ();
@@ -109,7 +139,8 @@ public class RowAlignmentScoreCalculator {
 
     double alignmentScore = 0;
     // extra features more than the aligned
-    int sumExtra = 0;
+    int sumExtra = extraFeatures;
+    final List<Feature> scoredFeatures = new ArrayList<>();
     for (var entry : originalRowsMap.entrySet()) {
       RawDataFile raw = entry.getKey();
       SortedList<FeatureListRow> originals = entry.getValue();
@@ -121,26 +152,33 @@ public class RowAlignmentScoreCalculator {
       // if the row has a feature, remove 1 and then add to the total
       sumExtra += Math.max(0, matchedRows.size() - (feature != null ? 1 : 0));
 
-      if (feature != null) {
-        testedAlignedFeatures++;
-        if (mz != null && feature.getMZ() != null) {
-          var featureMz = feature.getMZ();
-          minMz = min(featureMz, minMz);
-          maxMz = max(featureMz, maxMz);
-        }
-        if (rt != null && feature.getRT() != null) {
-          var featureRt = feature.getRT();
-          minRt = min(featureRt, minRt);
-          maxRt = max(featureRt, maxRt);
-        }
-        if (mobility != null && feature.getMobility() != null) {
-          var featureMobility = feature.getMobility();
-          minMobility = min(featureMobility, minMobility);
-          maxMobility = max(featureMobility, maxMobility);
-        }
-        alignmentScore += FeatureListUtils.getAlignmentScore(feature, mzRange, rtRange, null,
-            mobilityRange, mzWeight, rtWeight, mobilityWeight, 1);
+      if (feature != null && !allFeatures) {
+        scoredFeatures.add(feature);
+      }
+    }
+    if (allFeatures) {
+      scoredFeatures.addAll(alignedRow.getFeatures());
+    }
+
+    for (Feature feature : scoredFeatures) {
+      testedAlignedFeatures++;
+      if (mz != null && feature.getMZ() != null) {
+        var featureMz = feature.getMZ();
+        minMz = min(featureMz, minMz);
+        maxMz = max(featureMz, maxMz);
+      }
+      if (rt != null && feature.getRT() != null) {
+        var featureRt = feature.getRT();
+        minRt = min(featureRt, minRt);
+        maxRt = max(featureRt, maxRt);
+      }
+      if (mobility != null && feature.getMobility() != null) {
+        var featureMobility = feature.getMobility();
+        minMobility = min(featureMobility, minMobility);
+        maxMobility = max(featureMobility, maxMobility);
       }
+      alignmentScore += FeatureListUtils.getAlignmentScore(feature, mzRange, rtRange, null,
+          mobilityRange, mzWeight, rtWeight, mobilityWeight, 1);
     }
 
     // rows
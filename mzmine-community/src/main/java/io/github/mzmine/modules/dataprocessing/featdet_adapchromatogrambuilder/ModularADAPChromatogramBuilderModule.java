@@ -28,7 +28,7 @@ package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.modules.MZmineModuleCategory;
-import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.impl.PerFileProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
@@ -37,7 +37,7 @@ import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
 
-public class ModularADAPChromatogramBuilderModule implements MZmineProcessingModule {
+public class ModularADAPChromatogramBuilderModule implements PerFileProcessingModule {
 
   private static final String MODULE_NAME = "Chromatogram builder";
   private static final String MODULE_DESCRIPTION = "This module connects data points from mass lists and builds chromatograms.";
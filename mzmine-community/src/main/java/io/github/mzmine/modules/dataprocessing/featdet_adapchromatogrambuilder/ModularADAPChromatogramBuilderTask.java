@@ -28,9 +28,6 @@ package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
 
 import static java.util.Objects.requireNonNullElse;
 
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
-import com.google.common.collect.TreeRangeMap;
 import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.MassSpectrum;
@@ -54,18 +51,14 @@ import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
-import io.github.mzmine.util.DataPointSorter;
 import io.github.mzmine.util.DataTypeUtils;
 import io.github.mzmine.util.FeatureConvertors;
 import io.github.mzmine.util.FeatureListUtils;
 import io.github.mzmine.util.MemoryMapStorage;
-import io.github.mzmine.util.SortingDirection;
-import io.github.mzmine.util.SortingProperty;
 import io.github.mzmine.util.exceptions.MissingMassListException;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -160,7 +153,6 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     return dataFile;
   }
 
-  @SuppressWarnings("UnstableApiUsage")
   @Override
   public void run() {
     setStatus(TaskStatus.PROCESSING);
@@ -225,16 +217,6 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
       }
     }
 
-    // make a list of all the data points
-    // sort data points by intensity
-    // loop through list
-    // add data point to chromatogrm or make new one
-    // update mz avg and other stuff
-    //
-
-    // map the mz tolerance to chromatograms
-    RangeMap<Double, ADAPChromatogram> rangeToChromMap = TreeRangeMap.create();
-
     // make a list of all the data points
     final int totalDps = Arrays.stream(scans).map(s -> {
       if (s.getMassList() != null) {
@@ -244,23 +226,24 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
       DesktopService.getDesktop().displayErrorMessage(ex.getMessage());
       throw ex;
     }).mapToInt(MassSpectrum::getNumberOfDataPoints).sum();
-    int dpCounter = 0;
 
-    ExpandedDataPoint[] allMzValues = new ExpandedDataPoint[totalDps];
+    // all data points are stored in primitive arrays
+    final PrimitiveADAPChromatogramBuilder builder = new PrimitiveADAPChromatogramBuilder(scans,
+        totalDps, mzTolerance, minHighestPoint);
 
     ScanDataAccess scanData = EfficientDataAccess.of(dataFile, ScanDataType.MASS_LIST,
         scanSelection);
 
     progress = 0;
     double progressStep = 0.1 / scanData.getNumberOfScans();
+    int scanIndex = 0;
     while (scanData.hasNextScan()) {
       if (isCanceled()) {
         return;
       }
 
-      Scan scan;
       try {
-        scan = scanData.nextScan();
+        scanData.nextScan();
       } catch (MissingMassListException e) {
         setStatus(TaskStatus.ERROR);
         StringBuilder b = new StringBuilder("Scan #");
@@ -277,57 +260,19 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
         return;
       }
 
-      int dps = scanData.getNumberOfDataPoints();
-      for (int i = 0; i < dps; i++) {
-        ExpandedDataPoint curDatP = new ExpandedDataPoint(scanData.getMzValue(i),
-            scanData.getIntensityValue(i), scan);
-        allMzValues[dpCounter] = curDatP;
-        dpCounter++;
-      }
+      builder.addScan(scanIndex, scanData);
+      scanIndex++;
       progress += progressStep;
     }
 
-    // sort data points by intensity
-    Arrays.parallelSort(allMzValues,
-        new DataPointSorter(SortingProperty.Intensity, SortingDirection.Descending));
-
-    // count starts at 1 since we already have added one with a single point.
+    // sort data points by intensity and add them to chromatograms or start new ones
     progress = 0.1;
-    progressStep = (allMzValues.length > 0) ? 0.45 / allMzValues.length : 0.0;
-
-    for (ExpandedDataPoint mzFeature : allMzValues) {
-
-      progress += progressStep;
-
-      if (isCanceled()) {
-        return;
-      }
-
-      if (mzFeature == null || Double.isNaN(mzFeature.getMZ()) || Double.isNaN(
-          mzFeature.getIntensity())) {
-        continue;
-      }
-
-      final Entry<Range<Double>, ADAPChromatogram> existing = rangeToChromMap.getEntry(
-          mzFeature.getMZ());
-      if (existing != null) {
-        // add data point to chromatogram
-        existing.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
-      } else {
-        // skip it entierly if the intensity is not high enough
-        if (mzFeature.getIntensity() < minHighestPoint) {
-          continue;
-        }
-        // add a new chromatogram to the range map - limit ranges to avoid overlap
-        startNewChromatogramLimitMzRanges(rangeToChromMap, mzFeature);
-      }
+    final int numChromatograms = builder.buildChromatograms(this);
+    if (numChromatograms < 0 || isCanceled()) {
+      return;
     }
-
-    // finish chromatograms sorted by m/z
-    final Map<Range<Double>, ADAPChromatogram> finalRangeMap = rangeToChromMap.asMapOfRanges();
-
-    int numChromatograms = finalRangeMap.size();
-    progressStep = numChromatograms > 0 ? 0.45 / numChromatograms : 0.0;
+    progress = 0.55;
+    final double chromProgressStep = numChromatograms > 0 ? 0.45 / numChromatograms : 0.0;
 
     // Create new feature list
     newFeatureList = new ModularFeatureList(dataFile + " " + suffix, getMemoryMapStorage(),
@@ -335,35 +280,25 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     // ensure that the default columns are available
     DataTypeUtils.addDefaultChromatographicTypeColumns(newFeatureList);
 
-    int newFeatureID = 1;
-    // add chromatograms that match criteria
-    for (ADAPChromatogram chromatogram : finalRangeMap.values()) {
-      if (isCanceled()) {
-        return;
-      }
-
-      progress += progressStep;
-
-      // And remove chromatograms who dont have a certain number of continous points above the
-      // IntensityThresh2 level.
-      var dps = chromatogram.getNumberOfDataPoints();
-      if (dps >= minimumTotalScans && chromatogram.matchesMinContinuousDataPoints(scans,
-          minGroupIntensity, minimumConsecutiveScans, minHighestPoint)) {
-        // add zeros to edges
-        chromatogram.addNZeros(scans, 1, 1);
-
-        // add to list
-        ModularFeature modular = FeatureConvertors.ADAPChromatogramToModularFeature(newFeatureList,
-            dataFile, chromatogram);
-        ModularFeatureListRow newRow = new ModularFeatureListRow(newFeatureList, newFeatureID,
-            modular);
-        newFeatureList.addRow(newRow);
-        // activate shape for this row
-        if (!isImaging) {
-          newRow.set(FeatureShapeType.class, true);
-        }
-        newFeatureID++;
-      }
+    // add chromatograms that match criteria sorted by m/z
+    // remove chromatograms who dont have a certain number of continous points above the
+    // IntensityThresh2 level. Zeros are added to the edges
+    final AtomicInteger newFeatureID = new AtomicInteger(1);
+    final boolean finished = builder.createIonTimeSeries(getMemoryMapStorage(), minimumTotalScans,
+        minGroupIntensity, minimumConsecutiveScans, this, series -> {
+          progress += chromProgressStep;
+          ModularFeature modular = FeatureConvertors.ADAPChromatogramToModularFeature(
+              newFeatureList, dataFile, series);
+          ModularFeatureListRow newRow = new ModularFeatureListRow(newFeatureList,
+              newFeatureID.getAndIncrement(), modular);
+          newFeatureList.addRow(newRow);
+          // activate shape for this row
+          if (!isImaging) {
+            newRow.set(FeatureShapeType.class, true);
+          }
+        });
+    if (!finished) {
+      return;
     }
 
     // sort and reset IDs here to have the same sorting for every feature list
@@ -384,51 +319,4 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     logger.info(() -> "Finished chromatogram builder on " + dataFile);
   }
 
-  /**
-   * Starts a new chromatogram and limits its range so that it does not overlap with existing m/z
-   * ranges
-   *
-   * @param rangeToChromMap started chromatograms with their non overlapping m/z range
-   * @param mzFeature       current tested data point
-   */
-  @SuppressWarnings("UnstableApiUsage")
-  private void startNewChromatogramLimitMzRanges(RangeMap<Double, ADAPChromatogram> rangeToChromMap,
-      ExpandedDataPoint mzFeature) {
-    // start new chromatogram and create new range (subract overlapping existing ranges)
-    Range<Double> toleranceRange = mzTolerance.getToleranceRange(mzFeature.getMZ());
-
-    // look +- mz tolerance to see if ther is a range near by.
-    // If there is use the proper boundry of that range for the
-    // new range to insure than NON OF THE RANGES OVERLAP.
-    final Entry<Range<Double>, ADAPChromatogram> minusRange = rangeToChromMap.getEntry(
-        toleranceRange.lowerEndpoint());
-    final Entry<Range<Double>, ADAPChromatogram> plusRange = rangeToChromMap.getEntry(
-        toleranceRange.upperEndpoint());
-
-    // If both of the above ranges are null then we make the new range spaning the full
-    // mz tolerance range.
-    // If one or both are not null we need to properly modify the range of the new
-    // chromatogram so that none of the points are overlapping.
-    Double toBeLowerBound =
-        minusRange == null ? toleranceRange.lowerEndpoint() : minusRange.getKey().upperEndpoint();
-    Double toBeUpperBound =
-        plusRange == null ? toleranceRange.upperEndpoint() : plusRange.getKey().lowerEndpoint();
-
-    if (toBeLowerBound < toBeUpperBound) {
-      // use closed open so that every value may be captured by rangeMap
-      Range<Double> newRange = Range.closedOpen(toBeLowerBound, toBeUpperBound);
-      ADAPChromatogram newChrom = new ADAPChromatogram();
-      newChrom.addMzFeature(mzFeature.getScan(), mzFeature);
-
-      rangeToChromMap.put(newRange, newChrom);
-    } else if (toBeLowerBound.equals(toBeUpperBound) && plusRange != null) {
-      plusRange.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
-    } else {
-      throw new IllegalStateException(
-          String.format("Incorrect range [%f, %f] for m/z %f", toBeLowerBound, toBeUpperBound,
-              mzFeature.getMZ()));
-    }
-  }
-
 }
-
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
+
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.ScanDataAccess;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.collections.DisjointIntervalIndex;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Chromatogram builder engine of the ADAP chromatogram builder working on primitive arrays. All
+ * centroids are kept as struct of arrays (m/z, intensity, scan index) and are sorted by an index
+ * permutation. Open chromatograms are tracked in a {@link DisjointIntervalIndex} and data points
+ * are only assigned a chromatogram id. This avoids one object per data point, the range map of
+ * open chromatograms and one tree map per chromatogram. Results are identical to the former object
+ * based implementation, see PrimitiveADAPChromatogramBuilderTest.
+ * <p>
+ * Usage: add all scans with {@link #addScan(int, ScanDataAccess)}, then call
+ * {@link #buildChromatograms(Task)} and finally
+ * {@link #createIonTimeSeries(MemoryMapStorage, int, double, int, Task, Consumer)}
+ */
+class PrimitiveADAPChromatogramBuilder {
+
+  private static final int UNASSIGNED = -1;
+
+  private final Scan[] scans;
+  private final MZTolerance mzTolerance;
+  private final double minHighestPoint;
+
+  // all data points as struct of arrays
+  private final double[] mzs;
+  private final double[] intensities;
+  private final int[] scanIndices;
+  private int numDataPoints = 0;
+
+  private DisjointIntervalIndex chromatogramIndex;
+  // data point indices grouped by chromatogram id and sorted by intensity within each group
+  private int[] groupedDataPoints;
+  // start of each chromatogram in groupedDataPoints, length is number of ids + 1
+  private int[] groupStarts;
+
+  /**
+   * @param scans           all scans, sorted by retention time. The index of a scan in this array
+   *                        is used in {@link #addScan(int, ScanDataAccess)}
+   * @param totalDataPoints the total number of data points in all scans
+   * @param minHighestPoint minimum intensity to start a new chromatogram
+   */
+  PrimitiveADAPChromatogramBuilder(@NotNull Scan[] scans, int totalDataPoints,
+      @NotNull MZTolerance mzTolerance, double minHighestPoint) {
+    this.scans = scans;
+    this.mzTolerance = mzTolerance;
+    this.minHighestPoint = minHighestPoint;
+    mzs = new double[totalDataPoints];
+    intensities = new double[totalDataPoints];
+    scanIndices = new int[totalDataPoints];
+  }
+
+  /**
+   * Copies all data points of the current scan of the data access
+   *
+   * @param scanIndex the index of the current scan in the scans array
+   * @param access    data access set to the scan
+   */
+  void addScan(int scanIndex, @NotNull ScanDataAccess access) {
+    final int dps = access.getNumberOfDataPoints();
+    for (int i = 0; i < dps; i++) {
+      mzs[numDataPoints] = access.getMzValue(i);
+      intensities[numDataPoints] = access.getIntensityValue(i);
+      scanIndices[numDataPoints] = scanIndex;
+      numDataPoints++;
+    }
+  }
+
+  /**
+   * Sort all data points by descending intensity and assign them to chromatograms.
+   *
+   * @return the number of chromatograms or -1 if the task was cancelled
+   */
+  int buildChromatograms(@Nullable Task parentTask) {
+    final int[] sortedIndices = sortedByIntensity();
+
+    final int[] chromatogramIds = new int[numDataPoints];
+    Arrays.fill(chromatogramIds, UNASSIGNED);
+    chromatogramIndex = new DisjointIntervalIndex(Math.max(1024, numDataPoints / 100));
+
+    for (int i = 0; i < sortedIndices.length; i++) {
+      if (i % 100_000 == 0 && parentTask != null && parentTask.isCanceled()) {
+        return -1;
+      }
+      final int dp = sortedIndices[i];
+      final double mz = mzs[dp];
+      if (Double.isNaN(mz) || Double.isNaN(intensities[dp])) {
+        continue;
+      }
+
+      final int existing = chromatogramIndex.find(mz);
+      if (existing != DisjointIntervalIndex.NOT_FOUND) {
+        chromatogramIds[dp] = existing;
+      } else if (intensities[dp] >= minHighestPoint) {
+        // skip it entirely if the intensity is not high enough
+        chromatogramIds[dp] = startNewChromatogramLimitMzRanges(mz);
+      }
+    }
+
+    // group data point indices by chromatogram (counting sort) and keep the intensity order
+    final int numIds = chromatogramIndex.getNumberOfIds();
+    groupStarts = new int[numIds + 1];
+    for (final int id : chromatogramIds) {
+      if (id != UNASSIGNED) {
+        groupStarts[id + 1]++;
+      }
+    }
+    for (int i = 0; i < numIds; i++) {
+      groupStarts[i + 1] += groupStarts[i];
+    }
+    groupedDataPoints = new int[groupStarts[numIds]];
+    final int[] insert = Arrays.copyOf(groupStarts, numIds);
+    for (final int dp : sortedIndices) {
+      final int id = chromatogramIds[dp];
+      if (id != UNASSIGNED) {
+        groupedDataPoints[insert[id]++] = dp;
+      }
+    }
+    return chromatogramIndex.size();
+  }
+
+  /**
+   * Starts a new chromatogram and limits its range so that it does not overlap with existing m/z
+   * ranges
+   *
+   * @return the id of the chromatogram the data point was added to
+   */
+  private int startNewChromatogramLimitMzRanges(double mz) {
+    final double tolerance = mzTolerance.getMzToleranceForMass(mz);
+    final double lowerTolerance = mz - tolerance;
+    final double upperTolerance = mz + tolerance;
+
+    // look +- mz tolerance to see if there is a range near by and use its boundary
+    final int minusRange = chromatogramIndex.find(lowerTolerance);
+    final int plusRange = chromatogramIndex.find(upperTolerance);
+
+    final double lower = minusRange == DisjointIntervalIndex.NOT_FOUND ? lowerTolerance
+        : chromatogramIndex.getUpper(minusRange);
+    final double upper = plusRange == DisjointIntervalIndex.NOT_FOUND ? upperTolerance
+        : chromatogramIndex.getLower(plusRange);
+
+    if (lower < upper) {
+      return chromatogramIndex.add(lower, upper);
+    } else if (lower == upper && plusRange != DisjointIntervalIndex.NOT_FOUND) {
+      return plusRange;
+    } else {
+      throw new IllegalStateException(
+          String.format("Incorrect range [%f, %f] for m/z %f", lower, upper, mz));
+    }
+  }
+
+  /**
+   * Creates the ion time series of all chromatograms that match the criteria, sorted by m/z. The
+   * highest data point per scan is used and one zero intensity data point is added to the edges of
+   * each detected segment.
+   *
+   * @param minimumTotalScans       minimum number of detected data points
+   * @param minGroupIntensity       intensity threshold for consecutive data points
+   * @param minimumConsecutiveScans minimum number of consecutive data points above
+   *                                minGroupIntensity
+   * @param seriesConsumer          consumes each created series
+   * @return false if cancelled
+   */
+  boolean createIonTimeSeries(@Nullable MemoryMapStorage storage, int minimumTotalScans,
+      double minGroupIntensity, int minimumConsecutiveScans, @Nullable Task parentTask,
+      @NotNull Consumer<SimpleIonTimeSeries> seriesConsumer) {
+    // reused buffers. scan index and data point index are packed into a long to sort by scan
+    final int[] scanOwner = new int[scans.length];
+    Arrays.fill(scanOwner, UNASSIGNED);
+    final long[] scanDataPoints = new long[scans.length];
+
+    // chromatograms sorted by m/z
+    for (final int id : chromatogramIndex.getSortedIds()) {
+      if (parentTask != null && parentTask.isCanceled()) {
+        return false;
+      }
+
+      // only keep the first (highest) data point per scan
+      int detected = 0;
+      double mzSum = 0;
+      for (int i = groupStarts[id]; i < groupStarts[id + 1]; i++) {
+        final int dp = groupedDataPoints[i];
+        final int scanIndex = scanIndices[dp];
+        if (scanOwner[scanIndex] == id) {
+          continue;
+        }
+        scanOwner[scanIndex] = id;
+        scanDataPoints[detected++] = ((long) scanIndex << 32) | dp;
+        mzSum += mzs[dp];
+      }
+
+      if (detected < minimumTotalScans) {
+        continue;
+      }
+      Arrays.sort(scanDataPoints, 0, detected);
+
+      if (!matchesMinContinuousDataPoints(scanDataPoints, detected, minGroupIntensity,
+          minimumConsecutiveScans)) {
+        continue;
+      }
+
+      seriesConsumer.accept(
+          createSeriesWithZeros(storage, scanDataPoints, detected, mzSum / detected));
+    }
+    return true;
+  }
+
+  /**
+   * Checks for a minimum number of consecutive scans with data points above the intensity threshold.
+   * The highest point of such a segment needs to reach the minimum highest point.
+   *
+   * @param scanDataPoints packed scan and data point indices sorted by scan
+   */
+  private boolean matchesMinContinuousDataPoints(long[] scanDataPoints, int detected,
+      double intensityThresh, int minimumScanSpan) {
+    if (minimumScanSpan <= 1 && detected > 0) {
+      return true;
+    }
+
+    int connectedScans = 0;
+    double maxCurrentHeight = 0d;
+    int lastScanIndex = -2;
+    for (int i = 0; i < detected; i++) {
+      final int scanIndex = (int) (scanDataPoints[i] >>> 32);
+      final int dp = (int) scanDataPoints[i];
+      if (scanIndex != lastScanIndex + 1) {
+        // missing data point in between
+        connectedScans = 0;
+      }
+      lastScanIndex = scanIndex;
+
+      final double intensity = intensities[dp];
+      if (intensity >= intensityThresh) {
+        connectedScans++;
+        if (maxCurrentHeight < intensity) {
+          maxCurrentHeight = intensity;
+        }
+        if (connectedScans >= minimumScanSpan && maxCurrentHeight >= minHighestPoint) {
+          return true;
+        }
+      } else {
+        connectedScans = 0;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Creates the series and adds one zero intensity data point before and after each segment of
+   * consecutive scans. Zeros use the average m/z of the chromatogram.
+   */
+  private SimpleIonTimeSeries createSeriesWithZeros(@Nullable MemoryMapStorage storage,
+      long[] scanDataPoints, int detected, double zeroMz) {
+    // maximum size with zeros
+    final int maxSize = Math.min(detected * 3, scans.length);
+    final double[] seriesMzs = new double[maxSize];
+    final double[] seriesIntensities = new double[maxSize];
+    final List<Scan> seriesScans = new ArrayList<>(maxSize);
+
+    int lastAdded = -1;
+    for (int i = 0; i < detected; i++) {
+      final int scanIndex = (int) (scanDataPoints[i] >>> 32);
+      final int dp = (int) scanDataPoints[i];
+
+      // leading zero if the previous scan was not detected
+      if (scanIndex - 1 > lastAdded) {
+        seriesMzs[seriesScans.size()] = zeroMz;
+        seriesScans.add(scans[scanIndex - 1]);
+      }
+
+      seriesMzs[seriesScans.size()] = mzs[dp];
+      seriesIntensities[seriesScans.size()] = intensities[dp];
+      seriesScans.add(scans[scanIndex]);
+      lastAdded = scanIndex;
+
+      // trailing zero if the next scan was not detected
+      final int nextDetected =
+          i + 1 < detected ? (int) (scanDataPoints[i + 1] >>> 32) : Integer.MAX_VALUE;
+      if (scanIndex + 1 < scans.length && scanIndex + 1 < nextDetected) {
+        seriesMzs[seriesScans.size()] = zeroMz;
+        seriesScans.add(scans[scanIndex + 1]);
+        lastAdded = scanIndex + 1;
+      }
+    }
+
+    final int size = seriesScans.size();
+    return new SimpleIonTimeSeries(storage, Arrays.copyOf(seriesMzs, size),
+        Arrays.copyOf(seriesIntensities, size), seriesScans);
+  }
+
+  /**
+   * Same order as {@link io.github.mzmine.util.DataPointSorter#DEFAULT_INTENSITY}. Equal data points
+   * keep their original order like in the stable parallel sort of objects.
+   */
+  private int[] sortedByIntensity() {
+    final int[] sortedIndices = new int[numDataPoints];
+    Arrays.setAll(sortedIndices, i -> i);
+    IntArrays.parallelQuickSort(sortedIndices, (a, b) -> {
+      int result = Double.compare(intensities[b], intensities[a]);
+      if (result == 0) {
+        result = Double.compare(mzs[b], mzs[a]);
+      }
+      return result != 0 ? result : Integer.compare(a, b);
+    });
+    return sortedIndices;
+  }
+}
@@ -29,7 +29,7 @@ import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.featuredata.FeatureDataUtils;
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.modules.MZmineModuleCategory;
-import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.impl.PerFileProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
@@ -38,7 +38,7 @@ import java.time.Instant;
 import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
 
-public abstract class FeatureResolverModule implements MZmineProcessingModule {
+public abstract class FeatureResolverModule implements PerFileProcessingModule {
 
   private static final String MODULE_NAME = "Chromatogram deconvolution";
   private static final String MODULE_DESCRIPTION = "This module separates each detected chromatogram into individual peaks.";
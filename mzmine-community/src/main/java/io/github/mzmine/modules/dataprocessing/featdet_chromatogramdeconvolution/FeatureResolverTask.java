@@ -35,6 +35,7 @@ import io.github.mzmine.datamodel.featuredata.IonMobilogramTimeSeries;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
@@ -54,15 +55,20 @@ import io.github.mzmine.util.FeatureListUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.maths.CenterFunction;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 
 public class FeatureResolverTask extends AbstractTask {
 
   // Logger.
   private static final Logger logger = Logger.getLogger(FeatureResolverTask.class.getName());
+  private static final int MIN_ROWS_PER_CHUNK = 256;
+  private static final int CHUNKS_PER_THREAD = 4;
 
   // Feature lists.
   private final MZmineProject project;
@@ -73,13 +79,15 @@ public class FeatureResolverTask extends AbstractTask {
   private final CenterFunction mzCenterFunction;
   private FeatureList newPeakList;
   // Counters.
-  private int processedRows;
+  private final AtomicInteger processedRows = new AtomicInteger(0);
   private int totalRows;
   private String errorMsg;
   private boolean setMSMSRange, setMSMSRT;
   private double msmsRange;
   private float RTRangeMSMS;
   private GroupMS2Processor groupMS2Task;
+  // upper limit of row chunks that are resolved in parallel
+  private int maxChunks = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD;
 
   /**
    * Create the task.
@@ -98,7 +106,6 @@ public class FeatureResolverTask extends AbstractTask {
     parameters = parameterSet;
     originalPeakList = list;
     newPeakList = null;
-    processedRows = 0;
     totalRows = 0;
     this.mzCenterFunction = mzCenterFunction;
   }
@@ -116,7 +123,7 @@ public class FeatureResolverTask extends AbstractTask {
     if (groupMS2Task != null) {
       return groupMS2Task.getFinishedPercentage();
     }
-    return totalRows == 0 ? 0.0 : processedRows / (double) totalRows;
+    return totalRows == 0 ? 0.0 : processedRows.get() / (double) totalRows;
   }
 
   @Override
@@ -141,6 +148,13 @@ public class FeatureResolverTask extends AbstractTask {
             dimensionIndependentResolve((ModularFeatureList) originalPeakList);
           }
           // resolving finished
+          if (isCanceled() || getStatus() == TaskStatus.ERROR) {
+            return;
+          }
+          if (newPeakList == null) {
+            error("Resolver could not be initialised.");
+            return;
+          }
 
           // sort and reset IDs here to ahve the same sorting for every feature list
           FeatureListUtils.sortByDefaultRT(newPeakList, true);
@@ -193,21 +207,30 @@ public class FeatureResolverTask extends AbstractTask {
     final RawDataFile dataFile = originalFeatureList.getRawDataFile(0);
     final ModularFeatureList resolvedFeatureList = createNewFeatureList(originalFeatureList);
 
-    final FeatureDataAccess access = EfficientDataAccess.of(originalFeatureList,
-        EfficientDataAccess.FeatureDataType.INCLUDE_ZEROS, dataFile);
+    final List<FeatureListRow> rows = List.copyOf(originalFeatureList.getRows());
+    processedRows.set(0);
+    totalRows = rows.size();
 
-    processedRows = 0;
-    totalRows = originalFeatureList.getNumberOfRows();
-    int peakId = 1;
+    // split the feature list into consecutive chunks of rows. Each chunk uses its own data access
+    // and resolver, rows are created afterwards in the original order to keep IDs stable
+    final int numChunks = Math.clamp(totalRows / MIN_ROWS_PER_CHUNK, 1, maxChunks);
+    final int chunkSize = Math.ceilDiv(Math.max(totalRows, 1), numChunks);
+    final List<List<ResolvedFeature>> resolvedChunks = IntStream.range(0, numChunks).parallel()
+        .mapToObj(chunk -> resolveChunk(originalFeatureList, dataFile,
+            rows.subList(Math.min(chunk * chunkSize, totalRows),
+                Math.min((chunk + 1) * chunkSize, totalRows)))).toList();
 
-    int c = 0;
+    if (isCanceled()) {
+      return;
+    }
 
-    while (access.hasNextFeature()) {
-      final ModularFeature originalFeature = (ModularFeature) access.nextFeature();
-      final List<IonTimeSeries<? extends Scan>> resolvedSeries = resolver.resolve(access,
-          getMemoryMapStorage());
+    int peakId = 1;
+    int c = 0;
+    for (List<ResolvedFeature> chunk : resolvedChunks) {
+      for (ResolvedFeature resolvedFeature : chunk) {
+        final ModularFeature originalFeature = resolvedFeature.original();
+        final IonTimeSeries<? extends Scan> resolved = resolvedFeature.series();
 
-      for (IonTimeSeries<? extends Scan> resolved : resolvedSeries) {
         final ModularFeatureListRow newRow = new ModularFeatureListRow(resolvedFeatureList,
             peakId++);
         final ModularFeature f = new ModularFeature(resolvedFeatureList,
@@ -228,7 +251,6 @@ public class FeatureResolverTask extends AbstractTask {
           c++;
         }
       }
-      processedRows++;
     }
     logger.info(c + "/" + resolvedFeatureList.getNumberOfRows()
         + " have less than 4 scans (frames for IMS data)");
@@ -241,11 +263,50 @@ public class FeatureResolverTask extends AbstractTask {
     newPeakList = resolvedFeatureList;
   }
 
+  /**
+   * Resolves the chromatograms of a consecutive range of rows. Called concurrently for different
+   * ranges.
+   *
+   * @return the resolved series in the order of the input rows
+   */
+  private List<ResolvedFeature> resolveChunk(ModularFeatureList originalFeatureList,
+      RawDataFile dataFile, List<FeatureListRow> rows) {
+    final List<ResolvedFeature> resolvedFeatures = new ArrayList<>();
+    // resolvers keep buffers, use one instance per chunk
+    final Resolver resolver = ((GeneralResolverParameters) parameters).getResolver(parameters,
+        originalFeatureList);
+    final FeatureDataAccess access = EfficientDataAccess.of(originalFeatureList,
+        EfficientDataAccess.FeatureDataType.INCLUDE_ZEROS, dataFile, rows);
+
+    while (access.hasNextFeature()) {
+      if (isCanceled()) {
+        return resolvedFeatures;
+      }
+
+      final ModularFeature originalFeature = (ModularFeature) access.nextFeature();
+      final List<IonTimeSeries<? extends Scan>> resolvedSeries = resolver.resolve(access,
+          getMemoryMapStorage());
+      for (IonTimeSeries<? extends Scan> resolved : resolvedSeries) {
+        resolvedFeatures.add(new ResolvedFeature(originalFeature, resolved));
+      }
+      processedRows.incrementAndGet();
+    }
+    return resolvedFeatures;
+  }
+
   @Override
   public void cancel() {
     super.cancel();
   }
 
+  /**
+   * @param maxChunks upper limit of row chunks that are resolved in parallel, 1 resolves all rows
+   *                  in one chunk
+   */
+  void setMaxChunks(int maxChunks) {
+    this.maxChunks = Math.max(1, maxChunks);
+  }
+
 
   private ModularFeatureList createNewFeatureList(ModularFeatureList originalFeatureList) {
     if (originalFeatureList.getRawDataFiles().size() > 1) {
@@ -286,4 +347,11 @@ public class FeatureResolverTask extends AbstractTask {
 
     return resolvedFeatureList;
   }
+
+  /**
+   * A resolved series and the chromatogram it originates from
+   */
+  private record ResolvedFeature(ModularFeature original, IonTimeSeries<? extends Scan> series) {
+
+  }
 }
@@ -27,6 +27,7 @@ package io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges;
 import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.CentroidMzIndex;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
 import io.github.mzmine.datamodel.data_access.ScanDataAccess;
@@ -52,6 +53,10 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
       ExtractMzRangesIonSeriesFunction.class.getName());
   private final List<Range<Double>> mzRangesSorted;
   private final ScanDataAccess dataAccess;
+  private final RawDataFile dataFile;
+  private final ScanDataType scanDataType;
+  private final @Nullable ScanSelection scanSelection;
+  private final @Nullable List<? extends Scan> scans;
   private MzMode mzMode = MzMode.DEFAULT;
   private IntensityMode intensityMode = IntensityMode.DEFAULT;
   private int processedScans, totalScans;
@@ -67,6 +72,10 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
 
     dataAccess = EfficientDataAccess.of(dataFile, scanDataType, scanSelection);
     this.mzRangesSorted = mzRangesSorted;
+    this.dataFile = dataFile;
+    this.scanDataType = scanDataType;
+    this.scanSelection = scanSelection;
+    this.scans = null;
     description = "Extracting %d ion series from data file %s".formatted(mzRangesSorted.size(),
         dataFile.getName());
   }
@@ -81,6 +90,10 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
 
     dataAccess = EfficientDataAccess.of(dataFile, scanDataType, scans);
     this.mzRangesSorted = mzRangesSorted;
+    this.dataFile = dataFile;
+    this.scanDataType = scanDataType;
+    this.scanSelection = null;
+    this.scans = scans;
   }
 
   public void setMzMode(final MzMode mzMode) {
@@ -116,6 +129,13 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
     }
 
     totalScans = dataAccess.getNumberOfScans();
+
+    final BuildingIonSeries[] indexed = extractFromCentroidIndex();
+    if (indexed != null) {
+      processedScans = totalScans;
+      return indexed;
+    }
+
     // store data points for each range
     BuildingIonSeries[] chromatograms = new BuildingIonSeries[mzRangesSorted.size()];
     for (int i = 0; i < chromatograms.length; i++) {
@@ -168,4 +188,20 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
     return chromatograms;
   }
 
+  /**
+   * Uses the {@link CentroidMzIndex} of the data file if it covers all selected scans. This replaces
+   * the binary search in each scan by one binary search per m/z range.
+   *
+   * @return the ion series or null if there is no matching index
+   */
+  private BuildingIonSeries @Nullable [] extractFromCentroidIndex() {
+    final CentroidMzIndex index = dataFile.getCentroidMzIndex();
+    if (index == null || scanDataType != ScanDataType.MASS_LIST) {
+      return null;
+    }
+    final List<? extends Scan> selectedScans =
+        scans != null ? scans : scanSelection.getMatchingScans(dataFile.getScans());
+    return index.extract(mzRangesSorted, selectedScans, mzMode, intensityMode);
+  }
+
 }
@@ -79,10 +79,17 @@ public class MassDetectionParameters extends SimpleParameterSet {
       This reduces the intensity differences between spectra acquired with different injection times
       and reverts to "raw" intensities.""", false);
 
+  public static final BooleanParameter createCentroidIndex = new BooleanParameter(
+      "Create m/z index", """
+      Creates an index of all detected centroids sorted by m/z for each data file.
+      This speeds up repeated m/z range extraction (e.g., ion series of many targets) but requires
+      additional memory. The index is removed once mass lists change.""", false);
+
   private final Logger logger = Logger.getLogger(this.getClass().getName());
 
   public MassDetectionParameters() {
-    super(new Parameter[]{dataFiles, scanSelection, scanTypes, massDetector, denormalizeMSnScans},
+    super(new Parameter[]{dataFiles, scanSelection, scanTypes, massDetector, denormalizeMSnScans,
+            createCentroidIndex},
         "https://mzmine.github.io/mzmine_documentation/module_docs/featdet_mass_detection/mass-detection.html");
   }
 
@@ -194,6 +201,11 @@ public class MassDetectionParameters extends SimpleParameterSet {
     return nameParameterMap;
   }
 
+  @Override
+  public int getVersion() {
+    return 2;
+  }
+
   @NotNull
   @Override
   public IonMobilitySupport getIonMobilitySupport() {
@@ -27,11 +27,13 @@ package io.github.mzmine.modules.dataprocessing.featdet_massdetection;
 
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.CentroidMzIndex;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.impl.SimpleFrame;
 import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.modules.MZmineProcessingStep;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
 import io.github.mzmine.taskcontrol.AbstractTask;
@@ -39,20 +41,29 @@ import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 
 public class MassDetectionTask extends AbstractTask {
 
   private static final Logger logger = Logger.getLogger(MassDetectionTask.class.getName());
+  // large single files are split into chunks of scans that are processed in parallel
+  private static final int MIN_SCANS_PER_CHUNK = 64;
+  private static final int CHUNKS_PER_THREAD = 4;
   private final RawDataFile dataFile;
   private final ScanSelection scanSelection;
   private final SelectedScanTypes scanTypes;
   private final Boolean denormalizeMSnScans;
+  private final boolean createCentroidIndex;
   private final ParameterSet parameters;
-  private final MassDetector detector;
-  private int processedScans = 0, totalScans = 0;
+  private final MZmineProcessingStep<MassDetector> massDetectorStep;
+  private final AtomicInteger processedScans = new AtomicInteger(0);
+  private int totalScans = 0;
 
   public MassDetectionTask(RawDataFile dataFile, ParameterSet parameters,
       MemoryMapStorage storageMemoryMap, @NotNull Instant moduleCallDate) {
@@ -60,12 +71,12 @@ public class MassDetectionTask extends AbstractTask {
 
     this.dataFile = dataFile;
 
-    var massDetectorStep = parameters.getValue(MassDetectionParameters.massDetector);
-    detector = MassDetectorUtils.createMassDetector(massDetectorStep);
+    massDetectorStep = parameters.getValue(MassDetectionParameters.massDetector);
 
     this.scanSelection = parameters.getValue(MassDetectionParameters.scanSelection);
     this.scanTypes = parameters.getValue(MassDetectionParameters.scanTypes);
     denormalizeMSnScans = parameters.getValue(MassDetectionParameters.denormalizeMSnScans);
+    createCentroidIndex = parameters.getValue(MassDetectionParameters.createCentroidIndex);
 
     this.parameters = parameters;
 
@@ -78,7 +89,7 @@ public class MassDetectionTask extends AbstractTask {
 
   @Override
   public double getFinishedPercentage() {
-    return totalScans == 0 ? 0 : (double) processedScans / totalScans;
+    return totalScans == 0 ? 0 : (double) processedScans.get() / totalScans;
   }
 
   public RawDataFile getDataFile() {
@@ -93,47 +104,26 @@ public class MassDetectionTask extends AbstractTask {
 
       logger.info("Started mass detector on " + dataFile);
 
-      // uses only a single array for each (mz and intensity) to loop over all scans
-      ScanDataAccess data = EfficientDataAccess.of(dataFile, EfficientDataAccess.ScanDataType.RAW,
-          scanSelection);
-      totalScans = data.getNumberOfScans();
+      final List<Scan> scans = scanSelection.getMatchingScans(dataFile.getScans());
+      totalScans = scans.size();
 
-      // all scans
-      while (data.hasNextScan()) {
-        if (isCanceled()) {
-          return;
-        }
-
-        Scan scan = data.nextScan();
-        assert scan != null;
-
-        double[][] mzPeaks;
-        if (scanTypes.applyTo(scan)) {
-          // run mass detection on data object
-          // [mzs, intensities]
-          mzPeaks = detector.getMassValues(data);
-
-          // denormalize scan intensities if injection time of trapped instrument was used.
-          // this is only done for MS2 because absolute intensities do not matter there
-          // MS1 needs to be normalized by injection time, which is already done during data acquisition
-          if (denormalizeMSnScans && scan.getMSLevel() > 1) {
-            ScanUtils.denormalizeIntensitiesMultiplyByInjectTime(mzPeaks[1],
-                scan.getInjectionTime());
-          }
-
-          // add mass list to scans and frames
-          scan.addMassList(new SimpleMassList(getMemoryMapStorage(), mzPeaks[0], mzPeaks[1]));
-        }
+      // split large files into chunks of scans. Each chunk uses its own data access and detector
+      final int maxChunks = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD;
+      final int numChunks = Math.clamp(totalScans / MIN_SCANS_PER_CHUNK, 1, maxChunks);
+      final int chunkSize = Math.ceilDiv(Math.max(totalScans, 1), numChunks);
+      final List<List<Scan>> detectedScans = IntStream.range(0, numChunks).parallel()
+          .mapToObj(chunk -> detectMasses(scans.subList(Math.min(chunk * chunkSize, totalScans),
+              Math.min((chunk + 1) * chunkSize, totalScans)))).toList();
 
-        if (scan instanceof SimpleFrame frame && (scanTypes == SelectedScanTypes.MOBLITY_SCANS
-            || scanTypes == SelectedScanTypes.SCANS)) {
-          // for ion mobility, detect subscans, too
-          frame.getMobilityScanStorage()
-              .generateAndAddMobilityScanMassLists(getMemoryMapStorage(), detector,
-                  denormalizeMSnScans);
-        }
+      if (isCanceled()) {
+        return;
+      }
 
-        processedScans++;
+      if (createCentroidIndex) {
+        final List<Scan> indexScans = detectedScans.stream().flatMap(List::stream).toList();
+        // mass lists are final now, otherwise the data file drops the index
+        dataFile.setCentroidMzIndex(
+            CentroidMzIndex.create(dataFile, indexScans, getMemoryMapStorage()));
       }
 
       dataFile.getAppliedMethods().add(
@@ -150,4 +140,57 @@ public class MassDetectionTask extends AbstractTask {
 
     logger.info("Finished mass detector on " + dataFile);
   }
+
+  /**
+   * Detects masses in a consecutive range of scans. Called concurrently for different ranges
+   *
+   * @return the scans that received a new mass list
+   */
+  private List<Scan> detectMasses(final List<Scan> scans) {
+    final List<Scan> detectedScans = new ArrayList<>(scans.size());
+    // uses only a single array for each (mz and intensity) to loop over all scans of this range
+    final ScanDataAccess data = EfficientDataAccess.of(dataFile,
+        EfficientDataAccess.ScanDataType.RAW, scans);
+    // detectors may cache data, use one instance per range
+    final MassDetector detector = MassDetectorUtils.createMassDetector(massDetectorStep);
+
+    while (data.hasNextScan()) {
+      if (isCanceled()) {
+        return detectedScans;
+      }
+
+      Scan scan = data.nextScan();
+      assert scan != null;
+
+      double[][] mzPeaks;
+      if (scanTypes.applyTo(scan)) {
+        // run mass detection on data object
+        // [mzs, intensities]
+        mzPeaks = detector.getMassValues(data);
+
+        // denormalize scan intensities if injection time of trapped instrument was used.
+        // this is only done for MS2 because absolute intensities do not matter there
+        // MS1 needs to be normalized by injection time, which is already done during data acquisition
+        if (denormalizeMSnScans && scan.getMSLevel() > 1) {
+          ScanUtils.denormalizeIntensitiesMultiplyByInjectTime(mzPeaks[1],
+              scan.getInjectionTime());
+        }
+
+        // add mass list to scans and frames
+        scan.addMassList(new SimpleMassList(getMemoryMapStorage(), mzPeaks[0], mzPeaks[1]));
+        detectedScans.add(scan);
+      }
+
+      if (scan instanceof SimpleFrame frame && (scanTypes == SelectedScanTypes.MOBLITY_SCANS
+                                                || scanTypes == SelectedScanTypes.SCANS)) {
+        // for ion mobility, detect subscans, too
+        frame.getMobilityScanStorage()
+            .generateAndAddMobilityScanMassLists(getMemoryMapStorage(), detector,
+                denormalizeMSnScans);
+      }
+
+      processedScans.incrementAndGet();
+    }
+    return detectedScans;
+  }
 }
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_recursiveimsbuilder;
+
+import io.github.mzmine.datamodel.MobilityScan;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.MemoryMapStorage;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Builds the mobilograms of a single frame from primitive arrays. Produces the same mobilograms as
+ * grouping data point objects in a {@link com.google.common.collect.TreeRangeMap}, but data
+ * points are only referenced by their index, mobilograms are linked lists of these indices sorted
+ * by mobility scan number and the m/z ranges are kept in a grid of cells with the width of the
+ * largest tolerance range. All buffers are reused for the next frame, so an instance should be
+ * reused for all frames of a file. Not thread safe.
+ */
+final class FrameMobilogramBuilder {
+
+  private static final int NONE = -1;
+  private static final double MIN_CELL_WIDTH = 1E-4;
+
+  private final MZTolerance tolerance;
+  private final int recursiveThreshold;
+
+  // mobility scans of the current frame
+  private final List<MobilityScan> mobilityScans = new ArrayList<>();
+  private int[] mobilityScanNumbers = new int[512];
+
+  // data points of the current frame
+  private int numDataPoints = 0;
+  private double[] mzs = new double[4096];
+  private double[] intensities = new double[4096];
+  private int[] scanIndices = new int[4096];
+  private int[] nextInMobilogram = new int[4096];
+
+  // mobilograms and their tolerance ranges of the current frame
+  private int numMobilograms = 0;
+  private int[] firstDataPoint = new int[1024];
+  private double[] lowerMz = new double[1024];
+  private double[] upperMz = new double[1024];
+  private boolean[] removed = new boolean[1024];
+  private int[] nextInCell = new int[1024];
+  private final Long2IntOpenHashMap cellHeads = new Long2IntOpenHashMap();
+  private double cellWidth;
+
+  private final IntArrayList currentLevel = new IntArrayList();
+  private final IntArrayList leftovers = new IntArrayList();
+  // same as the TreeSet comparators before, equal intensities keep the insertion order
+  private final IntComparator intensityDescending = (a, b) -> intensities[a] > intensities[b] ? -1
+      : (intensities[a] < intensities[b] ? 1 : 0);
+
+  /**
+   * @param tolerance          The m/z tolerance of a mobilogram.
+   * @param recursiveThreshold Leftover data points are only grouped into further mobilograms if
+   *                           there are more than this number. Negative to disable recursion.
+   */
+  FrameMobilogramBuilder(@NotNull MZTolerance tolerance, int recursiveThreshold) {
+    this.tolerance = tolerance;
+    this.recursiveThreshold = recursiveThreshold;
+    cellHeads.defaultReturnValue(NONE);
+  }
+
+  /**
+   * Clears all data of the previous frame.
+   */
+  void startFrame() {
+    mobilityScans.clear();
+    numDataPoints = 0;
+  }
+
+  /**
+   * Starts a new mobility scan of the current frame. Following calls to
+   * {@link #addDataPoint(double, double)} add to this scan.
+   */
+  void addMobilityScan(@NotNull MobilityScan scan) {
+    final int index = mobilityScans.size();
+    if (index == mobilityScanNumbers.length) {
+      mobilityScanNumbers = Arrays.copyOf(mobilityScanNumbers, index * 2);
+    }
+    mobilityScanNumbers[index] = scan.getMobilityScanNumber();
+    mobilityScans.add(scan);
+  }
+
+  void addDataPoint(double mz, double intensity) {
+    if (mobilityScans.isEmpty()) {
+      throw new IllegalStateException("No mobility scan was added before the data point.");
+    }
+    if (numDataPoints == mzs.length) {
+      final int newLength = numDataPoints * 2;
+      mzs = Arrays.copyOf(mzs, newLength);
+      intensities = Arrays.copyOf(intensities, newLength);
+      scanIndices = Arrays.copyOf(scanIndices, newLength);
+      nextInMobilogram = Arrays.copyOf(nextInMobilogram, newLength);
+    }
+    mzs[numDataPoints] = mz;
+    intensities[numDataPoints] = intensity;
+    scanIndices[numDataPoints] = mobilityScans.size() - 1;
+    numDataPoints++;
+  }
+
+  /**
+   * Groups the data points of the current frame into mobilograms. Data points are processed by
+   * descending intensity and each creates a new mobilogram if its tolerance range does not overlap
+   * the range of another mobilogram. Data points that could not be added are grouped recursively.
+   *
+   * @param storage The storage for the mobilograms.
+   * @return The mobilograms of the current frame.
+   */
+  @NotNull List<BuildingIonMobilitySeries> buildMobilograms(@Nullable MemoryMapStorage storage) {
+    if (numDataPoints == 0) {
+      return List.of();
+    }
+
+    double maxMz = 0d;
+    for (int i = 0; i < numDataPoints; i++) {
+      maxMz = Math.max(maxMz, mzs[i]);
+    }
+    // a bit wider than every range, so a range covers at most two neighbouring cells
+    cellWidth = Math.max(2.01 * tolerance.getMzToleranceForMass(maxMz), MIN_CELL_WIDTH);
+
+    final List<BuildingIonMobilitySeries> mobilograms = new ArrayList<>();
+    currentLevel.clear();
+    for (int i = 0; i < numDataPoints; i++) {
+      currentLevel.add(i);
+    }
+
+    while (true) {
+      IntArrays.mergeSort(currentLevel.elements(), 0, currentLevel.size(), intensityDescending);
+      groupLevel();
+      collectMobilograms(storage, mobilograms);
+
+      if (recursiveThreshold < 0 || leftovers.size() <= recursiveThreshold) {
+        break;
+      }
+      currentLevel.clear();
+      currentLevel.addAll(leftovers);
+    }
+    return mobilograms;
+  }
+
+  private void groupLevel() {
+    numMobilograms = 0;
+    cellHeads.clear();
+    leftovers.clear();
+
+    final int[] dps = currentLevel.elements();
+    for (int i = 0, size = currentLevel.size(); i < size; i++) {
+      final int dp = dps[i];
+      final double mz = mzs[dp];
+
+      int mobilogram = findMobilogram(mz);
+      if (mobilogram == NONE) {
+        final double tol = tolerance.getMzToleranceForMass(mz);
+        final double lower = mz - tol;
+        final double upper = mz + tol;
+        if (findMobilogram(lower) != NONE || findMobilogram(upper) != NONE) {
+          // would overlap with the range of another mobilogram
+          leftovers.add(dp);
+          continue;
+        }
+        mobilogram = createMobilogram(lower, upper);
+      }
+
+      final int leftover = keepBetterFittingDataPoint(mobilogram, dp);
+      if (leftover != NONE) {
+        leftovers.add(leftover);
+      }
+    }
+  }
+
+  /**
+   * @return The mobilogram with a tolerance range containing the mz or {@link #NONE}.
+   */
+  private int findMobilogram(double mz) {
+    final long cell = cell(mz);
+    for (long c = cell - 1; c <= cell; c++) {
+      for (int m = cellHeads.get(c); m != NONE; m = nextInCell[m]) {
+        if (!removed[m] && lowerMz[m] <= mz && mz <= upperMz[m]) {
+          return m;
+        }
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Adds a new mobilogram for the given range. Like putting a range into a range map, mobilograms
+   * with ranges that lie completely within the new range are removed. Partial overlaps were
+   * checked before.
+   */
+  private int createMobilogram(double lower, double upper) {
+    final long lastCell = cell(upper);
+    for (long c = cell(lower); c <= lastCell; c++) {
+      for (int m = cellHeads.get(c); m != NONE; m = nextInCell[m]) {
+        if (!removed[m] && lower <= lowerMz[m] && lowerMz[m] <= upper) {
+          removed[m] = true;
+        }
+      }
+    }
+
+    final int m = numMobilograms++;
+    if (m == firstDataPoint.length) {
+      final int newLength = m * 2;
+      firstDataPoint = Arrays.copyOf(firstDataPoint, newLength);
+      lowerMz = Arrays.copyOf(lowerMz, newLength);
+      upperMz = Arrays.copyOf(upperMz, newLength);
+      removed = Arrays.copyOf(removed, newLength);
+      nextInCell = Arrays.copyOf(nextInCell, newLength);
+    }
+    firstDataPoint[m] = NONE;
+    lowerMz[m] = lower;
+    upperMz[m] = upper;
+    removed[m] = false;
+
+    final long cell = cell(lower);
+    nextInCell[m] = cellHeads.get(cell);
+    cellHeads.put(cell, m);
+    return m;
+  }
+
+  /**
+   * Adds the data point if the mobilogram has no point of the same mobility scan. Otherwise, the new
+   * point only replaces the current one if it is not further away from the center m/z and closer to
+   * the average intensity of the neighboring points.
+   *
+   * @return The data point that was not kept or {@link #NONE}.
+   */
+  private int keepBetterFittingDataPoint(int mobilogram, int dp) {
+    final int scanNumber = mobilityScanNumbers[scanIndices[dp]];
+    int previous = NONE;
+    int current = firstDataPoint[mobilogram];
+    while (current != NONE && mobilityScanNumbers[scanIndices[current]] < scanNumber) {
+      previous = current;
+      current = nextInMobilogram[current];
+    }
+
+    if (current == NONE || mobilityScanNumbers[scanIndices[current]] != scanNumber) {
+      link(mobilogram, previous, dp, current);
+      return NONE;
+    }
+
+    final double centerMz = calcCenterMz(mobilogram);
+    final double currentDelta = Math.abs(centerMz - mzs[current]);
+    final double proposedDelta = Math.abs(centerMz - mzs[dp]);
+    if (currentDelta < proposedDelta) {
+      return dp;
+    }
+
+    final int next = nextInMobilogram[current];
+    if (previous != NONE && next != NONE) {
+      final double avg = (intensities[next] + intensities[previous]) / 2;
+      if (Math.abs(avg - intensities[dp]) < Math.abs(avg - intensities[current])) {
+        link(mobilogram, previous, dp, next);
+        return current;
+      }
+    }
+    return dp;
+  }
+
+  private void link(int mobilogram, int previous, int dp, int next) {
+    nextInMobilogram[dp] = next;
+    if (previous == NONE) {
+      firstDataPoint[mobilogram] = dp;
+    } else {
+      nextInMobilogram[previous] = dp;
+    }
+  }
+
+  private double calcCenterMz(int mobilogram) {
+    double centerMz = 0d;
+    double summedIntensities = 0d;
+    for (int dp = firstDataPoint[mobilogram]; dp != NONE; dp = nextInMobilogram[dp]) {
+      centerMz += mzs[dp] * intensities[dp];
+      summedIntensities += intensities[dp];
+    }
+    return centerMz / summedIntensities;
+  }
+
+  private void collectMobilograms(@Nullable MemoryMapStorage storage,
+      List<BuildingIonMobilitySeries> mobilograms) {
+    for (int m = 0; m < numMobilograms; m++) {
+      if (removed[m]) {
+        continue;
+      }
+      int numValues = 0;
+      for (int dp = firstDataPoint[m]; dp != NONE; dp = nextInMobilogram[dp]) {
+        numValues++;
+      }
+
+      final double[] mobilogramMzs = new double[numValues];
+      final double[] mobilogramIntensities = new double[numValues];
+      final List<MobilityScan> scans = new ArrayList<>(numValues);
+      int i = 0;
+      for (int dp = firstDataPoint[m]; dp != NONE; dp = nextInMobilogram[dp]) {
+        mobilogramMzs[i] = mzs[dp];
+        mobilogramIntensities[i] = intensities[dp];
+        scans.add(mobilityScans.get(scanIndices[dp]));
+        i++;
+      }
+      mobilograms.add(new BuildingIonMobilitySeries(storage, mobilogramMzs, mobilogramIntensities,
+          scans));
+    }
+  }
+
+  private long cell(double mz) {
+    return (long) Math.floor(mz / cellWidth);
+  }
+}
@@ -42,7 +42,6 @@ import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.features.types.FeatureShapeMobilogramType;
-import io.github.mzmine.modules.dataprocessing.featdet_ionmobilitytracebuilder.RetentionTimeMobilityDataPoint;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
@@ -388,7 +387,9 @@ public class RecursiveIMSBuilderTask extends AbstractTask {
   }
 
   private TreeSet<BuildingIonMobilitySeries> buildFrameMobilograms(MobilityScanDataAccess access) {
-    Set<BuildingIonMobilitySeries> buildingTraces = new HashSet<>();
+    final List<BuildingIonMobilitySeries> buildingTraces = new ArrayList<>();
+    final FrameMobilogramBuilder builder = new FrameMobilogramBuilder(tolerance,
+        enableRecursive ? RECURSIVE_THRESHOLD : -1);
     try {
 
       while (access.hasNextFrame()) {
@@ -396,27 +397,18 @@ public class RecursiveIMSBuilderTask extends AbstractTask {
           return null;
         }
 
-        final Frame frame = access.nextFrame();
+        access.nextFrame();
+        builder.startFrame();
 
-        final TreeSet<RetentionTimeMobilityDataPoint> dps = new TreeSet<>(
-            (o1, o2) -> {
-              if (o1.getIntensity() > o2.getIntensity()) {
-                return -1;
-              }
-              return 1;
-            });
         // get all datapoints
         while (access.hasNextMobilityScan()) {
-          final MobilityScan currentMobilityScan = access.nextMobilityScan();
+          builder.addMobilityScan(access.nextMobilityScan());
           for (int i = 0; i < access.getNumberOfDataPoints(); i++) {
-            dps.add(new RetentionTimeMobilityDataPoint(currentMobilityScan, access.getMzValue(i),
-                access.getIntensityValue(i)));
+            builder.addDataPoint(access.getMzValue(i), access.getIntensityValue(i));
           }
         }
 
-        final Set<TempMobilogram> mobilogramMap = calcMobilograms(dps, tolerance);
-        final List<BuildingIonMobilitySeries> storedTraces = storeBuldingMobilograms(mobilogramMap);
-        buildingTraces.addAll(storedTraces);
+        buildingTraces.addAll(builder.buildMobilograms(tempStorage));
 
         stepProcessed.getAndIncrement();
       }
@@ -440,61 +432,6 @@ public class RecursiveIMSBuilderTask extends AbstractTask {
     return sortedMobilograms;
   }
 
-  @NotNull
-  private Set<TempMobilogram> calcMobilograms(Collection<RetentionTimeMobilityDataPoint> dps,
-      final MZTolerance tolerance) {
-    final RangeMap<Double, TempMobilogram> map = TreeRangeMap.create();
-    Set<RetentionTimeMobilityDataPoint> leftoverDataPoints = new TreeSet<>((o1, o2) -> {
-      if (o1.getIntensity() > o2.getIntensity()) {
-        return -1;
-      }
-      return 1;
-    });
-
-    for (final var dp : dps) {
-      TempMobilogram mobilogram = map.get(dp.getMZ());
-      if (mobilogram == null) {
-        final Range<Double> proposed = tolerance.getToleranceRange(dp.getMZ());
-        final Range<Double> actual = SpectraMerging.createNewNonOverlappingRange(map, proposed);
-        if (proposed.equals(actual)) {
-          mobilogram = new TempMobilogram();
-          map.put(actual, mobilogram);
-        } else {
-          leftoverDataPoints.add(dp);
-          continue;
-        }
-      }
-      final RetentionTimeMobilityDataPoint previousDp = mobilogram.keepBetterFittingDataPoint(dp);
-      if (previousDp != null) {
-        leftoverDataPoints.add(previousDp);
-      }
-    }
-
-    Set<TempMobilogram> mobilograms = new HashSet<>(map.asMapOfRanges().values());
-
-    if (!leftoverDataPoints.isEmpty()) {
-      if (enableRecursive && leftoverDataPoints.size() > RECURSIVE_THRESHOLD) {
-        Set<TempMobilogram> recursiveMobilograms = calcMobilograms(leftoverDataPoints, tolerance);
-//        logger.finest(() -> "Created additional " + recursiveMobilograms.size()
-//            + " mobilograms recursively from " + leftoverDataPoints.size() + " datapoints. "
-//            + leftoverDataPoints.stream().findFirst().get().getMobilityScan().getFrame()
-//            .getFrameId());
-        mobilograms.addAll(recursiveMobilograms);
-      }
-    }
-    return mobilograms;
-  }
-
-  private List<BuildingIonMobilitySeries> storeBuldingMobilograms(
-      final Set<TempMobilogram> traces) {
-    List<BuildingIonMobilitySeries> storedTraces = new ArrayList<>(traces.size());
-    for (TempMobilogram trace : traces) {
-      final BuildingIonMobilitySeries building = trace.toBuildingSeries(tempStorage);
-      storedTraces.add(building);
-    }
-    return storedTraces;
-  }
-
   @Nullable
   private List<TempIMTrace> createTempIMTraces(
       Collection<BuildingIonMobilitySeries> ionMobilitySeries, MZTolerance tolerance) {
@@ -28,7 +28,7 @@ package io.github.mzmine.modules.dataprocessing.featdet_smoothing;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.modules.MZmineModuleCategory;
-import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.impl.PerFileProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
@@ -38,7 +38,7 @@ import java.util.Collection;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-public class SmoothingModule implements MZmineProcessingModule {
+public class SmoothingModule implements PerFileProcessingModule {
 
   private static final String name = "Smoothing";
 
@@ -27,7 +27,6 @@ package io.github.mzmine.modules.dataprocessing.filter_groupms2;
 
 import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.Frame;
-import io.github.mzmine.datamodel.MassList;
 import io.github.mzmine.datamodel.MergedMsMsSpectrum;
 import io.github.mzmine.datamodel.MobilityType;
 import io.github.mzmine.datamodel.RawDataFile;
@@ -38,8 +37,6 @@ import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.types.MsMsInfoType;
 import io.github.mzmine.datamodel.features.types.numbers.RtMs2ApexDistanceType;
-import io.github.mzmine.datamodel.impl.MSnInfoImpl;
-import io.github.mzmine.datamodel.msms.DDAMsMsInfo;
 import io.github.mzmine.datamodel.msms.MsMsInfo;
 import io.github.mzmine.datamodel.msms.PasefMsMsInfo;
 import io.github.mzmine.modules.dataprocessing.filter_groupms2_refine.GroupedMs2RefinementProcessor;
@@ -51,16 +48,18 @@ import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.operations.AbstractTaskSubProcessor;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.exceptions.MissingMassListException;
+import io.github.mzmine.util.scans.FragmentScanIndex;
+import io.github.mzmine.util.scans.FragmentScanIndex.PasefPrecursor;
 import io.github.mzmine.util.scans.FragmentScanSelection;
 import io.github.mzmine.util.scans.FragmentScanSelection.IncludeInputSpectra;
 import io.github.mzmine.util.scans.FragmentScanSorter;
 import io.github.mzmine.util.scans.SpectraMerging;
 import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -85,6 +84,8 @@ public class GroupMS2Processor extends AbstractTaskSubProcessor {
   private final FragmentScanSelection timsFragmentScanSelection;
   private int processedRows;
   private GroupedMs2RefinementProcessor refineTask;
+  // fragment scans of each data file sorted by precursor m/z
+  private final Map<RawDataFile, FragmentScanIndex> fragmentScanIndices = new HashMap<>();
   private @NotNull String description = "";
 
   /**
@@ -191,20 +192,27 @@ public class GroupMS2Processor extends AbstractTaskSubProcessor {
   }
 
   /**
-   * Find all fragment scans for this feature applying RT and mz filters
+   * Find all fragment scans for this feature applying RT and mz filters. The minimum number of
+   * signals is checked afterward by {@link #filterByMinimumSignals(List)}
    *
    * @return list of fragment scans
    */
   @NotNull
   private List<Scan> findFragmentScans(final ModularFeature feature) {
-    final List<Scan> scans;
-    RawDataFile raw = feature.getRawDataFile();
-
-    scans = raw.stream().filter(scan -> scan.getMSLevel() > 1)
-        .filter(scan -> filterScan(scan, feature)).sorted(FragmentScanSorter.DEFAULT_TIC).toList();
+    final FragmentScanIndex index = getFragmentScanIndex(feature.getRawDataFile());
+    final List<Scan> scans = index.getFragmentScans(mzTol.getToleranceRange(feature.getMZ()),
+        rtFilter.getRtRange(feature));
+    scans.sort(FragmentScanSorter.DEFAULT_TIC);
     return scans;
   }
 
+  /**
+   * The index is created once per data file and reused for all features
+   */
+  private FragmentScanIndex getFragmentScanIndex(final RawDataFile raw) {
+    return fragmentScanIndices.computeIfAbsent(raw, FragmentScanIndex::create);
+  }
+
   /**
    * Calculate and set the RT proximity
    *
@@ -225,37 +233,6 @@ public class GroupMS2Processor extends AbstractTaskSubProcessor {
     f.set(RtMs2ApexDistanceType.class, apexDistance);
   }
 
-  /**
-   * Filter scans based on rt and mz
-   *
-   * @param scan tested scan
-   * @return true if matches all criteria
-   */
-  private boolean filterScan(Scan scan, ModularFeature feature) {
-    // minimum signals
-    if (minimumSignals > 0) {
-      MassList massList = scan.getMassList();
-      if (massList == null) {
-        throw new MissingMassListException(scan);
-      }
-      if (massList.getNumberOfDataPoints() < minimumSignals) {
-        return false;
-      }
-    }
-    //
-    final double precursorMZ;
-    if (scan.getMsMsInfo() instanceof MSnInfoImpl msn) {
-      precursorMZ = msn.getMS2PrecursorMz();
-    } else if (scan.getMsMsInfo() instanceof DDAMsMsInfo info) {
-      precursorMZ = info.getIsolationMz();
-    } else {
-      precursorMZ = Objects.requireNonNullElse(scan.getPrecursorMz(), 0d);
-    }
-    return rtFilter.accept(feature, scan.getRetentionTime()) && precursorMZ != 0
-           && mzTol.checkWithinTolerance(feature.getMZ(), precursorMZ);
-  }
-
-
   /**
    * Process tims features. Merge within Frames and optionally merge across frames
    *
@@ -265,39 +242,29 @@ public class GroupMS2Processor extends AbstractTaskSubProcessor {
   @NotNull
   private List<Scan> findFragmentScansForTimsFeature(ModularFeature feature) {
 
-    double fmz = feature.getMZ();
     Float mobility = feature.getMobility();
 
-    final List<? extends Scan> scans = feature.getRawDataFile().getScanNumbers(2).stream()
-        .filter(scan -> rtFilter.accept(feature, scan.getRetentionTime()))
-        .collect(Collectors.toList());
-
-    if (scans.isEmpty() || !(scans.get(0) instanceof Frame)) {
-      return List.of();
-    }
-
-    final List<Frame> frames = (List<Frame>) scans;
+    final FragmentScanIndex index = getFragmentScanIndex(feature.getRawDataFile());
     final List<MsMsInfo> eligibleMsMsInfos = new ArrayList<>();
-    for (Frame frame : frames) {
-      frame.getImsMsMsInfos().forEach(imsMsMsInfo -> {
-        if (mzTol.checkWithinTolerance(fmz, imsMsMsInfo.getIsolationMz())) {
-          // if we have a mobility (=processed by IMS workflow), we can check for the correct range during assignment.
-          if (mobility != null) {
-            // todo: maybe revisit this for a more sophisticated range check
-            int mobilityScannumberOffset = frame.getMobilityScan(0).getMobilityScanNumber();
-            float mobility1 = (float) frame.getMobilityForMobilityScanNumber(
-                imsMsMsInfo.getSpectrumNumberRange().lowerEndpoint() - mobilityScannumberOffset);
-            float mobility2 = (float) frame.getMobilityForMobilityScanNumber(
-                imsMsMsInfo.getSpectrumNumberRange().upperEndpoint() - mobilityScannumberOffset);
-            if (Range.singleton(mobility1).span(Range.singleton(mobility2)).contains(mobility)) {
-              eligibleMsMsInfos.add(imsMsMsInfo);
-            }
-          } else {
-            // if we don't have a mobility, we can simply add the msms info.
-            eligibleMsMsInfos.add(imsMsMsInfo);
-          }
+    for (PasefPrecursor precursor : index.getPasefPrecursors(
+        mzTol.getToleranceRange(feature.getMZ()), rtFilter.getRtRange(feature))) {
+      final Frame frame = precursor.frame();
+      final PasefMsMsInfo imsMsMsInfo = precursor.info();
+      // if we have a mobility (=processed by IMS workflow), we can check for the correct range during assignment.
+      if (mobility != null) {
+        // todo: maybe revisit this for a more sophisticated range check
+        int mobilityScannumberOffset = frame.getMobilityScan(0).getMobilityScanNumber();
+        float mobility1 = (float) frame.getMobilityForMobilityScanNumber(
+            imsMsMsInfo.getSpectrumNumberRange().lowerEndpoint() - mobilityScannumberOffset);
+        float mobility2 = (float) frame.getMobilityForMobilityScanNumber(
+            imsMsMsInfo.getSpectrumNumberRange().upperEndpoint() - mobilityScannumberOffset);
+        if (Range.singleton(mobility1).span(Range.singleton(mobility2)).contains(mobility)) {
+          eligibleMsMsInfos.add(imsMsMsInfo);
         }
-      });
+      } else {
+        // if we don't have a mobility, we can simply add the msms info.
+        eligibleMsMsInfos.add(imsMsMsInfo);
+      }
     }
 
     if (eligibleMsMsInfos.isEmpty()) {
@@ -28,7 +28,7 @@ package io.github.mzmine.modules.dataprocessing.filter_isotopegrouper;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.modules.MZmineModuleCategory;
-import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.impl.PerFileProcessingModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.util.ExitCode;
@@ -41,7 +41,7 @@ import org.jetbrains.annotations.NotNull;
  * This class implements a simple isotopic peaks grouper method based on searching for neighbouring
  * peaks from expected locations.
  */
-public class IsotopeGrouperModule implements MZmineProcessingModule {
+public class IsotopeGrouperModule implements PerFileProcessingModule {
 
   public static final String MODULE_NAME = "13C isotope filter (formerly: isotope grouper)";
   private static final String MODULE_DESCRIPTION =
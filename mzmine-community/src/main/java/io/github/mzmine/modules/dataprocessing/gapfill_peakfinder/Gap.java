@@ -41,6 +41,7 @@ import io.github.mzmine.util.RangeUtils;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.util.ArrayList;
 import java.util.List;
+import org.jetbrains.annotations.Nullable;
 
 public class Gap {
 
@@ -89,8 +90,16 @@ public class Gap {
     }
 
     // Find top m/z peak in our range
-    DataPoint basePeak = ScanUtils.findBasePeak(scan, mzRange);
+    offerBasePeak(scan, scanRT, ScanUtils.findBasePeak(scan, mzRange));
+  }
 
+  /**
+   * Offer the top m/z peak of a scan within the m/z range of this gap. The scan needs to be within
+   * the RT range.
+   *
+   * @param basePeak the base peak within {@link #mzRange} or null if there was no data point
+   */
+  public void offerBasePeak(Scan scan, float scanRT, @Nullable DataPoint basePeak) {
     GapDataPointImpl currentDataPoint;
     if (basePeak != null) {
       currentDataPoint = new GapDataPointImpl(scan, basePeak.getMZ(), scanRT,
@@ -268,4 +277,12 @@ public class Gap {
   public FeatureListRow getFeatureListRow() {
     return featureListRow;
   }
+
+  public Range<Double> getMzRange() {
+    return mzRange;
+  }
+
+  public Range<Float> getRtRange() {
+    return rtRange;
+  }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.multithreaded;
+
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.MobilityScanDataAccess;
+import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.Gap;
+import io.github.mzmine.util.scans.ScanUtils;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Offers scans only to the gaps that contain the scan RT instead of all gaps of a raw data file.
+ * Gaps are sorted by RT start and kept in an active set while the scans pass their RT range. The
+ * active gaps are sorted by m/z so that the base peak search walks the data points of a scan once,
+ * instead of a binary search per gap. Results are the same as offering every scan to every gap via
+ * {@link Gap#offerNextScan(Scan)}.
+ */
+class GapSweepLine {
+
+  // sorted by RT start
+  private final Gap[] gaps;
+  private final float[] rtStart;
+  private final float[] rtEnd;
+  private final double[] mzStart;
+  // indices in gaps
+  private final int[] active;
+  private int numActive;
+  private int nextGap;
+  private boolean activeSorted = true;
+  private float lastRt = Float.NEGATIVE_INFINITY;
+
+  GapSweepLine(List<? extends Gap> gapList) {
+    gaps = gapList.toArray(Gap[]::new);
+    Arrays.sort(gaps, Comparator.comparing(gap -> gap.getRtRange().lowerEndpoint()));
+    final int n = gaps.length;
+    rtStart = new float[n];
+    rtEnd = new float[n];
+    mzStart = new double[n];
+    for (int i = 0; i < n; i++) {
+      rtStart[i] = gaps[i].getRtRange().lowerEndpoint();
+      rtEnd[i] = gaps[i].getRtRange().upperEndpoint();
+      mzStart[i] = gaps[i].getMzRange().lowerEndpoint();
+    }
+    active = new int[n];
+  }
+
+  /**
+   * Offer a scan to all gaps that contain its RT
+   */
+  public void offerNextScan(Scan scan) {
+    final float rt = scan.getRetentionTime();
+    updateActiveGaps(rt);
+    if (numActive == 0) {
+      return;
+    }
+    if (!activeSorted) {
+      IntArrays.quickSort(active, 0, numActive, (a, b) -> Double.compare(mzStart[a], mzStart[b]));
+      activeSorted = true;
+    }
+
+    // gaps are visited by ascending m/z start, so the start index only moves forward
+    final int numDataPoints = scan.getNumberOfDataPoints();
+    int dp = 0;
+    for (int a = 0; a < numActive; a++) {
+      final Gap gap = gaps[active[a]];
+      if (!gap.getRtRange().contains(rt)) {
+        continue;
+      }
+      if (gap instanceof ImsGap) {
+        gap.offerNextScan(scan);
+        continue;
+      }
+      final double lower = mzStart[active[a]];
+      while (dp < numDataPoints && scan.getMzValue(dp) < lower) {
+        dp++;
+      }
+      final int startIndex = dp < numDataPoints ? dp : -1;
+      gap.offerBasePeak(scan, rt, ScanUtils.findBasePeak(scan, gap.getMzRange(), startIndex));
+    }
+  }
+
+  /**
+   * Offer a frame to all ion mobility gaps that contain its RT. The mobility scans are reset before
+   * each gap.
+   */
+  public void offerNextFrame(MobilityScanDataAccess access) {
+    updateActiveGaps(access.getRetentionTime());
+    for (int a = 0; a < numActive; a++) {
+      access.resetMobilityScan();
+      gaps[active[a]].offerNextScan(access);
+    }
+  }
+
+  /**
+   * Adds all gaps that start before or at rt and removes gaps that ended before rt.
+   */
+  private void updateActiveGaps(float rt) {
+    if (rt < lastRt) {
+      // scans are not sorted by RT, restart the sweep
+      numActive = 0;
+      nextGap = 0;
+    }
+    lastRt = rt;
+
+    // remove finished
+    int kept = 0;
+    for (int a = 0; a < numActive; a++) {
+      if (rtEnd[active[a]] >= rt) {
+        active[kept++] = active[a];
+      }
+    }
+    numActive = kept;
+
+    // add started
+    while (nextGap < gaps.length && rtStart[nextGap] <= rt) {
+      if (rtEnd[nextGap] >= rt) {
+        active[numActive++] = nextGap;
+        activeSorted = false;
+      }
+      nextGap++;
+    }
+  }
+}
@@ -211,18 +211,16 @@ class MultiThreadPeakFinderTask extends AbstractTask {
     if (file instanceof IMSRawDataFile imsFile && peakList.hasFeatureType(MobilityType.class)) {
       final MobilityScanDataAccess access = new MobilityScanDataAccess(imsFile,
           MobilityScanDataType.MASS_LIST, (List<Frame>) peakList.getSeletedScans(file));
-      List<ImsGap> imsGaps = (List<ImsGap>) (List<? extends Gap>) gaps;
+      final GapSweepLine sweepLine = new GapSweepLine(gaps);
 
       while (access.hasNextFrame()) {
         if (isCanceled()) {
           return;
         }
 
-        final Frame frame = access.nextFrame();
-        for (ImsGap gap : imsGaps) {
-          access.resetMobilityScan();
-          gap.offerNextScan(access);
-        }
+        access.nextFrame();
+        // only gaps within the RT range of the frame
+        sweepLine.offerNextFrame(access);
         processedScans.incrementAndGet();
       }
 
@@ -231,15 +229,14 @@ class MultiThreadPeakFinderTask extends AbstractTask {
 
       final ScanDataAccess scanAccess = EfficientDataAccess.of(file, ScanDataType.MASS_LIST,
           peakList.getSeletedScans(file));
+      final GapSweepLine sweepLine = new GapSweepLine(gaps);
       while (scanAccess.hasNextScan()) {
         if (isCanceled()) {
           return;
         }
         scanAccess.nextScan();
-        // Feed this scan to all gaps
-        for (Gap gap : gaps) {
-          gap.offerNextScan(scanAccess);
-        }
+        // Feed this scan to all gaps within its RT range
+        sweepLine.offerNextScan(scanAccess);
 
         processedScans.incrementAndGet();
       }
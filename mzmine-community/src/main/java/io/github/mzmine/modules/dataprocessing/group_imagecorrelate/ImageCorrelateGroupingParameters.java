@@ -77,6 +77,12 @@ public class ImageCorrelateGroupingParameters extends SimpleParameterSet {
   public static final PercentParameter MIN_R = new PercentParameter("Minimum similarity",
       "Minimum percentage for image correlation in one raw file.", 0.85, 0d, 1d);
 
+  public static final OptionalParameter<PercentParameter> SKETCH_PREFILTER = new OptionalParameter<>(
+      new PercentParameter("Downsampled image prefilter",
+          "Skips pairs of images with a lower correlation of their downsampled images. This speeds up"
+          + " large datasets but may miss correlated pairs. The recall is estimated on skipped pairs"
+          + " and written to the log.", 0.5, 0d, 1d), false);
+
 
   public static final OptionalParameter<StringParameter> SUFFIX = new OptionalParameter<>(
       new StringParameter("Suffix (or auto)", "Select suffix or deselect for auto suffix"), false);
@@ -84,7 +90,7 @@ public class ImageCorrelateGroupingParameters extends SimpleParameterSet {
   // Constructor
   public ImageCorrelateGroupingParameters() {
     super(new Parameter[]{FEATURE_LISTS, NOISE_LEVEL, MIN_NUMBER_OF_PIXELS, MEDIAN_FILTER_WINDOW,
-            QUANTILE_THRESHOLD, HOTSPOT_REMOVAL, MEASURE, MIN_R, SUFFIX},
+            QUANTILE_THRESHOLD, HOTSPOT_REMOVAL, MEASURE, MIN_R, SKETCH_PREFILTER, SUFFIX},
         "https://mzmine.github.io/mzmine_documentation/module_docs/group_imagecorrelate/image-colocalization.html");
   }
 
@@ -92,4 +98,9 @@ public class ImageCorrelateGroupingParameters extends SimpleParameterSet {
   public @NotNull IonMobilitySupport getIonMobilitySupport() {
     return IonMobilitySupport.SUPPORTED;
   }
+
+  @Override
+  public int getVersion() {
+    return 2;
+  }
 }
@@ -63,6 +63,8 @@ import org.jetbrains.annotations.Nullable;
 public class ImageCorrelateGroupingTask extends AbstractTask {
 
   private static final Logger logger = Logger.getLogger(ImageCorrelateGroupingTask.class.getName());
+  // every n-th pair skipped by the downsampled images is checked exactly to estimate the recall
+  private static final int RECALL_CHECK_INTERVAL = 1000;
   private final ParameterSet parameters;
   private final ModularFeatureList featureList;
   private final List<FeatureListRow> rows;
@@ -82,6 +84,16 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
 
   private final SimilarityMeasure similarityMeasure;
   private final double minR;
+  // null if the lossy prefilter is deactivated
+  private final @Nullable Double minDownsampledCorrelation;
+
+  // statistics of feature pair comparisons
+  private final AtomicLong featurePairs = new AtomicLong(0);
+  private final AtomicLong skippedByPixelCount = new AtomicLong(0);
+  private final AtomicLong skippedByDownsampled = new AtomicLong(0);
+  private final AtomicLong correlatedPairs = new AtomicLong(0);
+  private final AtomicLong recallChecks = new AtomicLong(0);
+  private final AtomicLong missedPairs = new AtomicLong(0);
 
   public ImageCorrelateGroupingTask(final ParameterSet parameterSet,
       final ModularFeatureList featureList, @NotNull Instant moduleCallDate) {
@@ -115,6 +127,8 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
     }
     similarityMeasure = parameters.getValue(ImageCorrelateGroupingParameters.MEASURE);
     minR = parameters.getValue(ImageCorrelateGroupingParameters.MIN_R);
+    minDownsampledCorrelation = parameters.getEmbeddedParameterValueIfSelectedOrElse(
+        ImageCorrelateGroupingParameters.SKETCH_PREFILTER, null);
   }
 
   @Override
@@ -199,6 +213,28 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
 
     logger.info(
         "Image correlation: Performed %d pairwise comparisons of rows.".formatted(comparedPairs));
+    logPrefilterStatistics();
+  }
+
+  private void logPrefilterStatistics() {
+    logger.info(
+        "Image correlation: Skipped %d of %d feature pairs with less than %d common pixels above the noise level.".formatted(
+            skippedByPixelCount.get(), featurePairs.get(), minimumNumberOfCorrelatedPixels));
+    if (minDownsampledCorrelation == null) {
+      return;
+    }
+
+    final long checks = recallChecks.get();
+    final long missed = missedPairs.get();
+    // extrapolate the missed pairs from the checked sample
+    final double estimatedMissed =
+        checks == 0 ? 0 : missed / (double) checks * skippedByDownsampled.get();
+    final double estimatedRecall = correlatedPairs.get() + estimatedMissed == 0 ? 1
+        : correlatedPairs.get() / (correlatedPairs.get() + estimatedMissed);
+    logger.info("""
+        Image correlation: %d feature pairs were skipped by the downsampled image prefilter.
+        Recall check: %d of %d exactly checked skipped pairs reached the minimum similarity. Estimated recall: %.4f""".formatted(
+        skippedByDownsampled.get(), missed, checks, estimatedRecall));
   }
 
   private boolean prepareRows(
@@ -223,7 +259,7 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
           double[] intensities = ((FeatureFullDataAccess) featureDataAccess).getIntensityValues()
               .clone();
           return intensities.length > 0 ? new ImageCorrelateGroupingTask.FilteredRowData(row,
-              intensities) : null;
+              intensities, ImageSketch.create(intensities, noiseLevel)) : null;
         }
       }
     } else {
@@ -234,7 +270,7 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
 
 
   //Intensities have to be sorted by scan number
-  private record FilteredRowData(FeatureListRow row, double[] intensities) {
+  private record FilteredRowData(FeatureListRow row, double[] intensities, ImageSketch sketch) {
 
   }
 
@@ -245,7 +281,8 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
         Type.MS1_FEATURE_CORR);
     for (Feature fa : a.getFeatures()) {
       double similarity = 0;
-      double[] intensitiesA = mapFeatureData.get(fa).intensities;
+      final FilteredRowData dataA = mapFeatureData.get(fa);
+      double[] intensitiesA = dataA.intensities;
       if (intensitiesA != null) {
 
         RawDataFile dataFile = fa.getRawDataFile();
@@ -254,9 +291,10 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
           continue;
         }
 
-        double[] intensitiesB = mapFeatureData.get(fb).intensities;
+        final FilteredRowData dataB = mapFeatureData.get(fb);
+        double[] intensitiesB = dataB.intensities;
         if (intensitiesB != null) {
-          similarity = calculateSimilarity(intensitiesA, intensitiesB);
+          similarity = calculateSimilarity(dataA, dataB);
         }
       }
       // always add value also 0 if no correlation
@@ -267,6 +305,36 @@ public class ImageCorrelateGroupingTask extends AbstractTask {
     }
   }
 
+  /**
+   * Uses the image sketches to skip the exact similarity calculation of pairs that cannot or are
+   * unlikely to reach the minimum similarity
+   */
+  private double calculateSimilarity(final FilteredRowData a, final FilteredRowData b) {
+    featurePairs.incrementAndGet();
+    if (!a.sketch().canShareMinPixels(b.sketch(), minimumNumberOfCorrelatedPixels)) {
+      // the exact similarity is 0 for less than the minimum number of pixels
+      skippedByPixelCount.incrementAndGet();
+      return 0;
+    }
+
+    if (minDownsampledCorrelation != null
+        && a.sketch().downsampledCorrelation(b.sketch()) < minDownsampledCorrelation) {
+      if (skippedByDownsampled.incrementAndGet() % RECALL_CHECK_INTERVAL == 1) {
+        recallChecks.incrementAndGet();
+        if (calculateSimilarity(a.intensities(), b.intensities()) >= minR) {
+          missedPairs.incrementAndGet();
+        }
+      }
+      return 0;
+    }
+
+    final double similarity = calculateSimilarity(a.intensities(), b.intensities());
+    if (similarity >= minR) {
+      correlatedPairs.incrementAndGet();
+    }
+    return similarity;
+  }
+
   private double calculateSimilarity(final double[] intensitiesA, final double[] intensitiesB) {
     List<IntensityPair> intensityPairs = new ArrayList<>();
 
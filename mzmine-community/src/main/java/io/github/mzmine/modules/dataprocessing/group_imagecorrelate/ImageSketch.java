@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.group_imagecorrelate;
+
+/**
+ * Compact summary of an image to discard pairs of images before the exact pixel-wise similarity.
+ * The pixels are split into consecutive blocks. For each block, the sketch stores the number of
+ * pixels at or above the noise level and the normalized sum of their intensities. Counts are
+ * stored in two levels of a pyramid to reject most pairs after a few comparisons.
+ */
+final class ImageSketch {
+
+  private static final int FINE_BLOCKS = 1024;
+  private static final int COARSE_BLOCKS = 32;
+
+  private final int numPixels;
+  private final int totalCount;
+  private final int[] coarseCounts;
+  private final int[] fineCounts;
+  // block sums centered and scaled to unit length, null if all blocks are equal
+  private final float[] normalizedSums;
+
+  private ImageSketch(int numPixels, int totalCount, int[] coarseCounts, int[] fineCounts,
+      float[] normalizedSums) {
+    this.numPixels = numPixels;
+    this.totalCount = totalCount;
+    this.coarseCounts = coarseCounts;
+    this.fineCounts = fineCounts;
+    this.normalizedSums = normalizedSums;
+  }
+
+  /**
+   * @param intensities all pixel intensities of an image sorted by scan
+   * @param noiseLevel  pixels below are not counted
+   */
+  static ImageSketch create(double[] intensities, double noiseLevel) {
+    final int numPixels = intensities.length;
+    final int blockSize = Math.max(1, Math.ceilDiv(numPixels, FINE_BLOCKS));
+    final int numFine = Math.ceilDiv(numPixels, blockSize);
+    final int finePerCoarse = Math.max(1, Math.ceilDiv(numFine, COARSE_BLOCKS));
+
+    final int[] fineCounts = new int[numFine];
+    final int[] coarseCounts = new int[Math.ceilDiv(numFine, finePerCoarse)];
+    final double[] sums = new double[numFine];
+    int total = 0;
+    for (int i = 0; i < numPixels; i++) {
+      if (intensities[i] >= noiseLevel) {
+        final int block = i / blockSize;
+        fineCounts[block]++;
+        coarseCounts[block / finePerCoarse]++;
+        sums[block] += intensities[i];
+        total++;
+      }
+    }
+
+    return new ImageSketch(numPixels, total, coarseCounts, fineCounts, normalize(sums));
+  }
+
+  private static float[] normalize(double[] sums) {
+    if (sums.length == 0) {
+      return null;
+    }
+    double mean = 0;
+    for (double sum : sums) {
+      mean += sum;
+    }
+    mean /= sums.length;
+
+    double norm = 0;
+    for (double sum : sums) {
+      norm += (sum - mean) * (sum - mean);
+    }
+    norm = Math.sqrt(norm);
+    if (norm == 0) {
+      return null;
+    }
+
+    final float[] normalized = new float[sums.length];
+    for (int i = 0; i < sums.length; i++) {
+      normalized[i] = (float) ((sums[i] - mean) / norm);
+    }
+    return normalized;
+  }
+
+  /**
+   * The number of pixels above the noise level in both images is limited by the minimum of both
+   * counts in each block. The exact similarity is only calculated with at least minPixels of such
+   * pixels, so this check never discards a pair that would be correlated.
+   *
+   * @return false if the images cannot share minPixels pixels above the noise level
+   */
+  boolean canShareMinPixels(ImageSketch other, int minPixels) {
+    if (numPixels != other.numPixels) {
+      return true;
+    }
+    if (Math.min(totalCount, other.totalCount) < minPixels) {
+      return false;
+    }
+    if (sumOfMinimums(coarseCounts, other.coarseCounts, minPixels) < minPixels) {
+      return false;
+    }
+    return sumOfMinimums(fineCounts, other.fineCounts, minPixels) >= minPixels;
+  }
+
+  /**
+   * @return the sum of minimums or any value >= limit if the limit was reached
+   */
+  private static int sumOfMinimums(int[] a, int[] b, int limit) {
+    int sum = 0;
+    for (int i = 0; i < a.length && sum < limit; i++) {
+      sum += Math.min(a[i], b[i]);
+    }
+    return sum;
+  }
+
+  /**
+   * Pearson correlation of the block sums. Only an estimate of the pixel-wise similarity, therefore
+   * it may discard correlated pairs.
+   *
+   * @return the correlation of the downsampled images or NaN if it cannot be calculated
+   */
+  double downsampledCorrelation(ImageSketch other) {
+    if (numPixels != other.numPixels || normalizedSums == null || other.normalizedSums == null) {
+      return Double.NaN;
+    }
+    double dot = 0;
+    for (int i = 0; i < normalizedSums.length; i++) {
+      dot += normalizedSums[i] * other.normalizedSums[i];
+    }
+    return dot;
+  }
+}
@@ -30,16 +30,17 @@ import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.data_access.CachedFeatureDataAccess;
+import io.github.mzmine.datamodel.data_access.CachedFeatureDataAccess.GridIntensities;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.correlation.CorrelationData;
 import io.github.mzmine.datamodel.features.correlation.FullCorrelationData;
 import io.github.mzmine.datamodel.features.correlation.R2RFullCorrelationData;
+import io.github.mzmine.datamodel.features.correlation.SummedCorrelationData;
 import io.github.mzmine.parameters.parametertypes.MinimumFeatureFilter;
 import io.github.mzmine.util.ArrayUtils;
 import io.github.mzmine.util.MathUtils;
-import io.github.mzmine.util.maths.similarity.Similarity;
 import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -219,19 +220,25 @@ public class FeatureCorrelationUtil {
       f2 = tmp;
     }
 
-    List<Scan> scansA = f1.getScanNumbers();
-    List<Scan> scansB = f2.getScanNumbers();
+    final int numDpA = f1.getNumberOfDataPoints();
+    final int numDpB = f2.getNumberOfDataPoints();
 
-    if (scansA.size() < minCorrelatedDataPoints || scansB.size() < minCorrelatedDataPoints) {
+    if (numDpA < minCorrelatedDataPoints || numDpB < minCorrelatedDataPoints) {
       return null;
     }
 
+    if (sameRawFile && data != null) {
+      // preloaded intensities share the scan grid of the raw data file
+      return corrFeatureShape(data.getGridIntensities(f1), data.getGridIntensities(f2),
+          minCorrelatedDataPoints, minCorrDPOnFeatureEdge, noiseLevelShapeCorr);
+    }
+
     // access data from features or preloaded data access
     final double[] intensities1;
     final double[] intensities2;
     if (data == null) {
-      intensities1 = f1.getFeatureData().getIntensityValues(new double[f1.getNumberOfDataPoints()]);
-      intensities2 = f2.getFeatureData().getIntensityValues(new double[f2.getNumberOfDataPoints()]);
+      intensities1 = f1.getFeatureData().getIntensityValues(new double[numDpA]);
+      intensities2 = f2.getFeatureData().getIntensityValues(new double[numDpB]);
     } else {
       intensities1 = data.getIntensityValues(f1);
       intensities2 = data.getIntensityValues(f2);
@@ -242,56 +249,51 @@ public class FeatureCorrelationUtil {
 
     if (sameRawFile) {
       // index offset between f1 and f2 data arrays (not all features are based on the same scans)
-      int maxIndexInB = scansB.indexOf(scansA.get(maxIndexOfA));
-
-      // save max and min of intensity of val1(x)
-      List<double[]> corrData = new ArrayList<>();
-
-      // add all data points <=max
-      int i1 = maxIndexOfA;
-      int i2 = maxIndexInB;
-      while (i1 >= 0 && i2 >= 0) {
-        Scan s1 = scansA.get(i1);
-        Scan s2 = scansB.get(i2);
-        // add point, if not break
-        if (s1 == s2 && intensities1[i1] >= noiseLevelShapeCorr
-            && intensities2[i2] >= noiseLevelShapeCorr) {
-          corrData.add(new double[]{intensities1[i1], intensities2[i2]});
-        } else {
+      final List<Scan> scansA = f1.getScanNumbers();
+      final List<Scan> scansB = f2.getScanNumbers();
+      final int maxIndexInB = scansB.indexOf(scansA.get(maxIndexOfA));
+
+      // count all data points <=max
+      int numLeft = 0;
+      for (int i1 = maxIndexOfA, i2 = maxIndexInB; i1 >= 0 && i2 >= 0; i1--, i2--) {
+        if (scansA.get(i1) != scansB.get(i2) || intensities1[i1] < noiseLevelShapeCorr
+            || intensities2[i2] < noiseLevelShapeCorr) {
           // end of feature found
           break;
         }
-        i1--;
-        i2--;
+        numLeft++;
       }
 
       // check min data points left from apex
-      int left = corrData.size() - 1;
-      if (left < minCorrDPOnFeatureEdge) {
+      if (numLeft - 1 < minCorrDPOnFeatureEdge) {
         return null;
       }
 
-      // add all dp>max
-      i1 = maxIndexOfA + 1;
-      i2 = maxIndexInB + 1;
-      while (i1 < scansA.size() && i2 < scansB.size()) {
-        Scan s1 = scansA.get(i1);
-        Scan s2 = scansB.get(i2);
-        // add point, if not break
-        if (s1 == s2 && intensities1[i1] >= noiseLevelShapeCorr
-            && intensities2[i2] >= noiseLevelShapeCorr) {
-          corrData.add(new double[]{intensities1[i1], intensities2[i2]});
-        } else {
+      // count all dp>max
+      int numRight = 0;
+      for (int i1 = maxIndexOfA + 1, i2 = maxIndexInB + 1; i1 < numDpA && i2 < numDpB;
+          i1++, i2++) {
+        if (scansA.get(i1) != scansB.get(i2) || intensities1[i1] < noiseLevelShapeCorr
+            || intensities2[i2] < noiseLevelShapeCorr) {
           // end of peak found
           break;
         }
-        i1++;
-        i2++;
+        numRight++;
       }
+
       // check right and total dp
-      int right = corrData.size() - 1 - left;
-      // return pearson r
-      if (corrData.size() >= minCorrelatedDataPoints && right >= minCorrDPOnFeatureEdge) {
+      final int numCorrelated = numLeft + numRight;
+      if (numCorrelated >= minCorrelatedDataPoints && numRight >= minCorrDPOnFeatureEdge) {
+        // from the apex to the left, then right of the apex
+        final double[][] corrData = new double[numCorrelated][];
+        for (int i = 0; i < numLeft; i++) {
+          corrData[i] = new double[]{intensities1[maxIndexOfA - i], intensities2[maxIndexInB - i]};
+        }
+        for (int i = 1; i <= numRight; i++) {
+          corrData[numLeft + i - 1] = new double[]{intensities1[maxIndexOfA + i],
+              intensities2[maxIndexInB + i]};
+        }
+        // return pearson r
         return new FullCorrelationData(corrData);
       }
     } else {
@@ -326,6 +328,66 @@ public class FeatureCorrelationUtil {
     return null;
   }
 
+  /**
+   * Feature shape correlation on the shared scan grid of one raw data file. Walks from the apex of
+   * a to both edges and sums up the data points without creating data point pairs. Grid indices
+   * where both features have no data point are skipped, all other gaps end the feature shape.
+   *
+   * @param a the higher feature
+   * @param b the other feature
+   * @return feature shape correlation or null if there are not enough data points
+   */
+  private static CorrelationData corrFeatureShape(GridIntensities a, GridIntensities b,
+      int minCorrelatedDataPoints, int minCorrDPOnFeatureEdge, double noiseLevelShapeCorr) {
+    final int apex = a.indexOfMax();
+
+    // count all data points <=max
+    int numLeft = 0;
+    int from = apex + 1;
+    for (int i = apex; i >= a.firstIndex(); i--) {
+      final double ia = a.get(i);
+      final double ib = b.get(i);
+      if (Double.isNaN(ia) && Double.isNaN(ib) && i != apex) {
+        continue;
+      }
+      if (!(ia >= noiseLevelShapeCorr && ib >= noiseLevelShapeCorr)) {
+        // end of feature found, also if only one feature has a data point
+        break;
+      }
+      numLeft++;
+      from = i;
+    }
+
+    // check min data points left from apex
+    if (numLeft - 1 < minCorrDPOnFeatureEdge) {
+      return null;
+    }
+
+    // count all dp>max
+    int numRight = 0;
+    int to = apex;
+    final int lastIndex = a.firstIndex() + a.intensities().length - 1;
+    for (int i = apex + 1; i <= lastIndex; i++) {
+      final double ia = a.get(i);
+      final double ib = b.get(i);
+      if (Double.isNaN(ia) && Double.isNaN(ib)) {
+        continue;
+      }
+      if (!(ia >= noiseLevelShapeCorr && ib >= noiseLevelShapeCorr)) {
+        // end of peak found
+        break;
+      }
+      numRight++;
+      to = i;
+    }
+
+    // check right and total dp
+    if (numLeft + numRight >= minCorrelatedDataPoints && numRight >= minCorrDPOnFeatureEdge) {
+      return SummedCorrelationData.ofGrid(a, b, apex, from, to);
+    }
+    return null;
+  }
+
   /**
    * Find index of maximum value
    */
@@ -456,8 +518,7 @@ public class FeatureCorrelationUtil {
       return false;
     }
 
-    double maxFC = Math.max(Similarity.maxFoldChange(corr.getData(), 0),
-        Similarity.maxFoldChange(corr.getData(), 1));
+    double maxFC = Math.max(corr.getMaxFoldChange(0), corr.getMaxFoldChange(1));
     // do not use as filter if
     if (maxFC < minFoldChange) {
       return false;
@@ -240,6 +240,8 @@ public class CorrelateGroupingTask extends AbstractTask {
       // filter by avg correlation in group
       // delete single connections between sub networks
       if (groups != null) {
+        // frozen map serves the lookups of all groups without locking
+        corrMap.freeze();
         // set groups to pkl
         for (final RowGroup group : groups) {
           // not needed for RowGroupSimple
@@ -294,7 +296,9 @@ public class CorrelateGroupingTask extends AbstractTask {
     boolean calculateShapeOverlap = raws.size() < simplifyLargeDatasets;
     boolean preloadIntensities =
         useTotalShapeCorrFilter || groupByFShapeCorr || calculateShapeOverlap;
-    CachedFeatureDataAccess data = new CachedFeatureDataAccess(rows, false, preloadIntensities);
+    // feature shapes are correlated on the intensities resampled on a shared scan grid
+    CachedFeatureDataAccess data = new CachedFeatureDataAccess(rows, false, preloadIntensities,
+        groupByFShapeCorr);
 
     // for all rows - do in parallel
     long correlated = IntStream.range(0, totalRows - 1).parallel().mapToLong(i -> {
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.group_spectral_networking;
+
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Inverted index of binned fragment signals and neutral losses (precursor m/z - signal m/z) of
+ * spectra. The modified cosine aligns two signals if they match directly or after a shift by the
+ * precursor m/z difference, which is the same as matching their neutral losses. Two entries can
+ * therefore only reach a minimum number of matched signals if at least as many signals of one
+ * entry have a direct or neutral loss candidate in the other entry. This upper bound is used to
+ * skip all other pairs before the expensive alignment.
+ * <p>
+ * Entries need to be sorted by their m/z ascending. The bins are at least as wide as the largest
+ * tolerance, so that any two matching signals fall into the same or a neighboring bin.
+ */
+final class SpectralCandidateIndex {
+
+  private final double[] entryMzs;
+  private final double binWidth;
+  // per entry and signal
+  private final int[][] signalBins;
+  private final int[][] lossBins;
+  // bin -> entries that have at least one signal in this bin, ascending
+  private final Int2ObjectMap<int[]> signalPostings;
+  private final Int2ObjectMap<int[]> lossPostings;
+  private final ThreadLocal<Scratch> scratch;
+
+  /**
+   * @param entryMzs      m/z of each entry, sorted ascending
+   * @param signalMzs     fragment signal m/z values per entry
+   * @param neutralLosses precursor m/z - signal m/z, same length and order as signalMzs
+   * @param mzTol         tolerance used to match signals
+   */
+  SpectralCandidateIndex(double[] entryMzs, double[][] signalMzs, double[][] neutralLosses,
+      @NotNull MZTolerance mzTol) {
+    this.entryMzs = entryMzs;
+    final int numEntries = entryMzs.length;
+
+    // shifted signals are at most max signal + max precursor
+    double maxMz = 0;
+    for (int i = 0; i < numEntries; i++) {
+      maxMz = Math.max(maxMz, entryMzs[i]);
+      for (double mz : signalMzs[i]) {
+        maxMz = Math.max(maxMz, mz);
+      }
+    }
+    // small margin for rounding at the bin borders
+    binWidth = Math.max(mzTol.getMzToleranceForMass(2 * maxMz) * 1.001, 1E-6);
+
+    signalBins = new int[numEntries][];
+    lossBins = new int[numEntries][];
+    for (int i = 0; i < numEntries; i++) {
+      signalBins[i] = toBins(signalMzs[i]);
+      lossBins[i] = toBins(neutralLosses[i]);
+    }
+    signalPostings = createPostings(signalBins);
+    lossPostings = createPostings(lossBins);
+    scratch = ThreadLocal.withInitial(() -> new Scratch(numEntries));
+  }
+
+  private int[] toBins(double[] values) {
+    final int[] bins = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bins[i] = (int) Math.floor(values[i] / binWidth);
+    }
+    return bins;
+  }
+
+  private static Int2ObjectMap<int[]> createPostings(int[][] entryBins) {
+    final Int2ObjectMap<IntArrayList> lists = new Int2ObjectOpenHashMap<>();
+    for (int entry = 0; entry < entryBins.length; entry++) {
+      for (int bin : entryBins[entry]) {
+        final IntArrayList list = lists.computeIfAbsent(bin, _ -> new IntArrayList());
+        // entries are added in order, only add once per bin
+        if (list.isEmpty() || list.getInt(list.size() - 1) != entry) {
+          list.add(entry);
+        }
+      }
+    }
+    final Int2ObjectMap<int[]> postings = new Int2ObjectOpenHashMap<>(lists.size());
+    lists.int2ObjectEntrySet()
+        .forEach(e -> postings.put(e.getIntKey(), e.getValue().toIntArray()));
+    return postings;
+  }
+
+  /**
+   * @return the exclusive end index of all entries following entry within maxMzDelta
+   */
+  int windowEnd(int entry, double maxMzDelta) {
+    final double maxMz = entryMzs[entry] + maxMzDelta;
+    int end = Arrays.binarySearch(entryMzs, entry + 1, entryMzs.length, maxMz);
+    if (end < 0) {
+      return -end - 1;
+    }
+    // include equal values
+    while (end < entryMzs.length && entryMzs[end] <= maxMz) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Finds all entries after entry within maxMzDelta that may share at least minMatch signals.
+   * Thread safe.
+   *
+   * @param consumer receives the index of each candidate entry in ascending order
+   */
+  void forEachCandidate(int entry, int minMatch, double maxMzDelta,
+      @NotNull IntConsumer consumer) {
+    final int end = windowEnd(entry, maxMzDelta);
+    if (end <= entry + 1) {
+      return;
+    }
+    final Scratch s = scratch.get();
+    final int[] signals = signalBins[entry];
+    final int[] losses = lossBins[entry];
+    for (int i = 0; i < signals.length; i++) {
+      // each signal of entry can only be matched once per other entry
+      final int stamp = ++s.stamp;
+      countNeighborBins(signalPostings, signals[i], entry, end, stamp, s);
+      countNeighborBins(lossPostings, losses[i], entry, end, stamp, s);
+    }
+
+    s.touched.sort(null);
+    for (int i = 0; i < s.touched.size(); i++) {
+      final int other = s.touched.getInt(i);
+      if (s.counts[other] >= minMatch) {
+        consumer.accept(other);
+      }
+      s.counts[other] = 0;
+    }
+    s.touched.clear();
+  }
+
+  private static void countNeighborBins(Int2ObjectMap<int[]> postings, int bin, int entry,
+      int end, int stamp, Scratch s) {
+    for (int b = bin - 1; b <= bin + 1; b++) {
+      final int[] entries = postings.get(b);
+      if (entries == null) {
+        continue;
+      }
+      // only entries after this entry and within the m/z window
+      int start = Arrays.binarySearch(entries, entry + 1);
+      start = start < 0 ? -start - 1 : start;
+      for (int k = start; k < entries.length && entries[k] < end; k++) {
+        final int other = entries[k];
+        if (s.stamps[other] != stamp) {
+          s.stamps[other] = stamp;
+          if (s.counts[other]++ == 0) {
+            s.touched.add(other);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Per thread counters, the stamps avoid counting one signal twice for the same entry
+   */
+  private static final class Scratch {
+
+    private final int[] counts;
+    private final int[] stamps;
+    private final IntArrayList touched = new IntArrayList();
+    private int stamp;
+
+    private Scratch(int numEntries) {
+      counts = new int[numEntries];
+      stamps = new int[numEntries];
+    }
+  }
+}
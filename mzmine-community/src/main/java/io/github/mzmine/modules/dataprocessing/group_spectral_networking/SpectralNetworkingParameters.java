@@ -60,6 +60,11 @@ public class SpectralNetworkingParameters extends SimpleParameterSet {
       "Min cosine similarity", "Minimum spectral cosine similarity",
       MZmineCore.getConfiguration().getScoreFormat(), 0.7, 0d, 1d);
 
+  public static final OptionalParameter<IntegerParameter> TOP_K_NEIGHBORS = new OptionalParameter<>(
+      new IntegerParameter("Top K neighbors",
+          "Keeps an edge only if both rows are within each other's K most similar neighbors. This limits the size of the network.",
+          10, 1, null), false);
+
   public static final BooleanParameter ONLY_BEST_MS2_SCAN = new BooleanParameter(
       "Only best MS2 scan", "Compares only the best MS2 scan (or all MS2 scans)", true);
 
@@ -83,7 +88,7 @@ public class SpectralNetworkingParameters extends SimpleParameterSet {
 
   public SpectralNetworkingParameters() {
     super(FEATURE_LISTS, MZ_TOLERANCE, ONLY_BEST_MS2_SCAN, MAX_MZ_DELTA, MIN_MATCH,
-        MIN_COSINE_SIMILARITY, CHECK_NEUTRAL_LOSS_SIMILARITY, signalFilters);
+        MIN_COSINE_SIMILARITY, TOP_K_NEIGHBORS, CHECK_NEUTRAL_LOSS_SIMILARITY, signalFilters);
   }
 
   @Override
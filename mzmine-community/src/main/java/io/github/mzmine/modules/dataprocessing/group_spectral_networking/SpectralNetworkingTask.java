@@ -36,6 +36,7 @@ import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
+import io.github.mzmine.datamodel.features.correlation.R2RAdjacency;
 import io.github.mzmine.datamodel.features.correlation.R2RMap;
 import io.github.mzmine.datamodel.features.correlation.R2RNetworkingMaps;
 import io.github.mzmine.datamodel.features.correlation.R2RSpectralSimilarity;
@@ -62,6 +63,9 @@ import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.ScanMZDiffConverter;
 import io.github.mzmine.util.scans.similarity.Weights;
 import it.unimi.dsi.fastutil.Pair;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntComparator;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.text.MessageFormat;
 import java.time.Instant;
@@ -98,6 +102,10 @@ public class SpectralNetworkingTask extends AbstractTask {
   private final boolean checkNeutralLoss;
   private final SpectralSignalFilter signalFilter;
   private final double maxMzDelta;
+  // 0 to keep all edges
+  private final int topKNeighbors;
+  // candidate index only bounds the signal overlap, not the overlap of neutral loss differences
+  private final boolean useCandidateIndex;
   private List<FeatureListRow> rows;
   private long totalMaxPairs = 0;
 
@@ -112,6 +120,8 @@ public class SpectralNetworkingTask extends AbstractTask {
 
     minMatch = params.getValue(SpectralNetworkingParameters.MIN_MATCH);
     minCosineSimilarity = params.getValue(SpectralNetworkingParameters.MIN_COSINE_SIMILARITY);
+    topKNeighbors = params.getEmbeddedParameterValueIfSelectedOrElse(
+        SpectralNetworkingParameters.TOP_K_NEIGHBORS, 0);
     onlyBestMS2Scan = params.getValue(SpectralNetworkingParameters.ONLY_BEST_MS2_SCAN);
     // check neutral loss similarity?
     checkNeutralLoss = params.getValue(SpectralNetworkingParameters.CHECK_NEUTRAL_LOSS_SIMILARITY);
@@ -124,6 +134,7 @@ public class SpectralNetworkingTask extends AbstractTask {
     }
     // embedded signal filters
     signalFilter = params.getValue(SpectralNetworkingParameters.signalFilters).createFilter();
+    useCandidateIndex = !checkNeutralLoss && minMatch > 0;
   }
 
   /**
@@ -366,6 +377,10 @@ public class SpectralNetworkingTask extends AbstractTask {
       } else {
         checkAllFeatures(mapCosineSim, mapNeutralLoss, rows);
       }
+      if (topKNeighbors > 0) {
+        retainTopKNeighbors(mapCosineSim, topKNeighbors);
+        retainTopKNeighbors(mapNeutralLoss, topKNeighbors);
+      }
       logger.info(MessageFormat.format(
           "MS2 similarity check on rows done. MS2 modified cosine similarity edges={0}, MS2 neutral loss edges={1}",
           mapCosineSim.size(), mapNeutralLoss.size()));
@@ -446,6 +461,28 @@ public class SpectralNetworkingTask extends AbstractTask {
     totalMaxPairs = Combinatorics.uniquePairs(filteredRows);
     logger.log(Level.INFO, MessageFormat.format("Checking MS2 similarity on {0} rows", numRows));
 
+    if (useCandidateIndex) {
+      final SpectralCandidateIndex index = createCandidateIndex(filteredRows);
+      long comparedPairs = IntStream.range(0, numRows).parallel().mapToLong(i -> {
+        if (isCanceled()) {
+          return 0;
+        }
+        final FilteredRowData a = filteredRows.get(i);
+        final AtomicLong compared = new AtomicLong();
+        index.forEachCandidate(i, minMatch, maxMzDelta, j -> {
+          checkSpectralPair(a, filteredRows.get(j), mapSimilarity, mapNeutralLoss);
+          compared.incrementAndGet();
+        });
+        // skipped pairs count as processed
+        processedPairs.addAndGet(index.windowEnd(i, maxMzDelta) - i - 1);
+        return compared.get();
+      }).sum();
+      logger.info(
+          "Spectral networking: Performed %d pairwise comparisons of candidate pairs.".formatted(
+              comparedPairs));
+      return;
+    }
+
     long comparedPairs = StreamUtils.processPairs(filteredRows, this::isCanceled, true, //
         (first, later) -> maxMzDelta < later.row.getAverageMZ() - first.row.getAverageMZ(), //
         pair -> {
@@ -537,11 +574,36 @@ public class SpectralNetworkingTask extends AbstractTask {
         filteredRows.add(row);
       }
     }
+    // required to stop at maxMzDelta
+    filteredRows.sort(FeatureListRowSorter.MZ_ASCENDING);
     int numRows = filteredRows.size();
     totalMaxPairs = Combinatorics.uniquePairs(filteredRows);
     logger.log(Level.INFO,
         () -> MessageFormat.format("Checking MS2 similarity on {0} rows", numRows));
 
+    if (useCandidateIndex) {
+      final SpectralCandidateIndex index = createCandidateIndex(filteredRows, mapFeatureData);
+      long comparedPairs = IntStream.range(0, numRows).parallel().mapToLong(i -> {
+        if (isCanceled()) {
+          return 0;
+        }
+        final FeatureListRow a = filteredRows.get(i);
+        final AtomicLong compared = new AtomicLong();
+        index.forEachCandidate(i, minMatch, maxMzDelta, j -> {
+          checkR2RAllFeaturesMs2Similarity(mapFeatureData, a, filteredRows.get(j), mapSimilarity,
+              mapNeutralLoss);
+          compared.incrementAndGet();
+        });
+        // skipped pairs count as processed
+        processedPairs.addAndGet(index.windowEnd(i, maxMzDelta) - i - 1);
+        return compared.get();
+      }).sum();
+      logger.info(
+          "Spectral networking: Performed %d pairwise comparisons of candidate rows.".formatted(
+              comparedPairs));
+      return;
+    }
+
     // try map multi for all pairs
     long comparedPairs = IntStream.range(0, numRows - 1).boxed()
         .<Pair<FeatureListRow, FeatureListRow>>mapMulti((i, consumer) -> {
@@ -585,7 +647,7 @@ public class SpectralNetworkingTask extends AbstractTask {
     DataPoint[] massDiffB = null;
 
     for (Feature fa : a.getFeatures()) {
-      DataPoint[] dpa = mapFeatureData.get(fa).data();
+      DataPoint[] dpa = getFilteredData(mapFeatureData, fa);
       if (dpa != null) {
         // create mass diff array
         if (checkNeutralLoss) {
@@ -593,7 +655,7 @@ public class SpectralNetworkingTask extends AbstractTask {
           Arrays.sort(massDiffA, DataPointSorter.DEFAULT_INTENSITY);
         }
         for (Feature fb : b.getFeatures()) {
-          DataPoint[] dpb = mapFeatureData.get(fb).data();
+          DataPoint[] dpb = getFilteredData(mapFeatureData, fb);
           if (dpb != null) {
             // align and check spectra
             SpectralSimilarity spectralSim = createMS2SimModificationAware(mzTolerance, dpa, dpb,
@@ -626,6 +688,101 @@ public class SpectralNetworkingTask extends AbstractTask {
     }
   }
 
+  @Nullable
+  private static DataPoint[] getFilteredData(Map<Feature, FilteredRowData> mapFeatureData,
+      Feature feature) {
+    final FilteredRowData data = mapFeatureData.get(feature);
+    return data == null ? null : data.data();
+  }
+
+  /**
+   * Index of the filtered signals of the best MS2 of each row
+   *
+   * @param filteredRows sorted by m/z
+   */
+  private SpectralCandidateIndex createCandidateIndex(List<FilteredRowData> filteredRows) {
+    final int numRows = filteredRows.size();
+    final double[] rowMzs = new double[numRows];
+    final double[][] signals = new double[numRows][];
+    final double[][] losses = new double[numRows][];
+    for (int i = 0; i < numRows; i++) {
+      final FilteredRowData data = filteredRows.get(i);
+      rowMzs[i] = data.row().getAverageMZ();
+      signals[i] = new double[data.data().length];
+      losses[i] = new double[data.data().length];
+      for (int s = 0; s < signals[i].length; s++) {
+        signals[i][s] = data.data()[s].getMZ();
+        losses[i][s] = rowMzs[i] - signals[i][s];
+      }
+    }
+    return new SpectralCandidateIndex(rowMzs, signals, losses, mzTolerance);
+  }
+
+  /**
+   * Index of the filtered signals of all features of each row. The neutral losses are relative to
+   * the feature m/z, which is used as precursor m/z in the modification aware alignment.
+   *
+   * @param filteredRows sorted by m/z
+   */
+  private SpectralCandidateIndex createCandidateIndex(List<FeatureListRow> filteredRows,
+      Map<Feature, FilteredRowData> mapFeatureData) {
+    final int numRows = filteredRows.size();
+    final double[] rowMzs = new double[numRows];
+    final double[][] signals = new double[numRows][];
+    final double[][] losses = new double[numRows][];
+    for (int i = 0; i < numRows; i++) {
+      final FeatureListRow row = filteredRows.get(i);
+      rowMzs[i] = row.getAverageMZ();
+      final DoubleArrayList rowSignals = new DoubleArrayList();
+      final DoubleArrayList rowLosses = new DoubleArrayList();
+      for (Feature feature : row.getFeatures()) {
+        final DataPoint[] dps = getFilteredData(mapFeatureData, feature);
+        if (dps == null) {
+          continue;
+        }
+        for (DataPoint dp : dps) {
+          rowSignals.add(dp.getMZ());
+          rowLosses.add(feature.getMZ() - dp.getMZ());
+        }
+      }
+      signals[i] = rowSignals.toDoubleArray();
+      losses[i] = rowLosses.toDoubleArray();
+    }
+    return new SpectralCandidateIndex(rowMzs, signals, losses, mzTolerance);
+  }
+
+  /**
+   * Keeps only edges between rows that are within each other's top K most similar neighbors (by
+   * score).
+   *
+   * @param map the edges to filter
+   * @param k   maximum number of neighbors per row
+   */
+  public static void retainTopKNeighbors(R2RMap<RowsRelationship> map, int k) {
+    final R2RAdjacency<RowsRelationship> graph = map.freeze();
+
+    // count how many of the two rows have the edge within their top K
+    final byte[] topKCounts = new byte[graph.getNumEdges()];
+    final IntArrayList edges = new IntArrayList();
+    final IntComparator byScore = (a, b) -> Double.compare(graph.getValue(b).getScore(),
+        graph.getValue(a).getScore());
+    for (int node = 0; node < graph.getNumNodes(); node++) {
+      edges.clear();
+      graph.forEachNeighbor(graph.getRowId(node), (_, edge, _) -> edges.add(edge));
+      if (edges.size() > k) {
+        edges.sort(byScore);
+      }
+      for (int i = 0; i < Math.min(k, edges.size()); i++) {
+        topKCounts[edges.getInt(i)]++;
+      }
+    }
+    for (int edge = 0; edge < topKCounts.length; edge++) {
+      if (topKCounts[edge] < 2) {
+        map.remove(graph.getRowIdA(edge), graph.getRowIdB(edge));
+      }
+    }
+  }
+
   /**
    * Checks the minimum requirements for a row to be matched by MS2 similarity (minimum number of
    * data points and MS2 data availability)
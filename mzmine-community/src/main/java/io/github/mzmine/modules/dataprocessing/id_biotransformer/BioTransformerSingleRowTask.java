@@ -28,6 +28,7 @@ package io.github.mzmine.modules.dataprocessing.id_biotransformer;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
 import io.github.mzmine.datamodel.features.compoundannotations.CompoundDBAnnotation;
+import io.github.mzmine.datamodel.features.correlation.R2RMap;
 import io.github.mzmine.datamodel.features.correlation.RowsRelationship;
 import io.github.mzmine.datamodel.features.types.numbers.RTType;
 import io.github.mzmine.parameters.ParameterSet;
@@ -132,6 +133,8 @@ public class BioTransformerSingleRowTask extends AbstractTask {
 
     final ModularFeatureList flist = row.getFeatureList();
     final var ms1Groups = flist.getMs1CorrelationMap();
+    // lock free lookups for all rows
+    ms1Groups.ifPresent(R2RMap::freeze);
     for (CompoundDBAnnotation annotation : bioTransformerAnnotations) {
       flist.stream().forEach(r -> {
         final CompoundDBAnnotation clone = annotation.checkMatchAndCalculateDeviation(r,
@@ -317,7 +317,7 @@ public class RowsSpectralMatchTask extends AbstractTask {
       var totalMatches = rows.stream().filter(FeatureListRow::hasMs2Fragmentation).parallel()
           .mapToInt(row -> {
             if (!isCanceled()) {
-              int matches = matchRowToLibraries(entries, row);
+              int matches = matchRowToLibraries(entries, row.getAverageMZ(), row);
               finishedRows.incrementAndGet();
               return matches;
             }
@@ -343,7 +343,7 @@ public class RowsSpectralMatchTask extends AbstractTask {
       // get a ccs for the precursor of this scan
       final Float precursorCCS = getPrecursorCCSFromMsMs(scan);
 
-      for (var entry : entries) {
+      for (var entry : getCandidateEntries(entries, scanPrecursorMZ)) {
         float rt = scan.getRetentionTime();
         final SpectralSimilarity sim = matchSpectrum(rt, scanPrecursorMZ,
             precursorCCS, masses, entry);
@@ -395,6 +395,38 @@ public class RowsSpectralMatchTask extends AbstractTask {
     return precursorCCS;
   }
 
+  /**
+   * Only the entries within the precursor tolerance need to be scored. Uses the precursor m/z index
+   * of each library. Falls back to all entries if the precursor m/z is not checked.
+   *
+   * @param entries     combined library entries of all libraries
+   * @param precursorMz the query precursor m/z
+   * @return all entries that may match the precursor m/z in the same order as entries
+   */
+  protected List<SpectralLibraryEntry> getCandidateEntries(List<SpectralLibraryEntry> entries,
+      @Nullable Double precursorMz) {
+    if (msLevelFilter.isMs1Only() || mzTolerancePrecursor == null || precursorMz == null) {
+      return entries;
+    }
+    List<SpectralLibraryEntry> candidates = new ArrayList<>();
+    for (var lib : libraries) {
+      candidates.addAll(lib.getPrecursorIndex().findCandidates(precursorMz, mzTolerancePrecursor));
+    }
+    return candidates;
+  }
+
+  /**
+   * Match row against all entries within the precursor tolerance, add matches, sort them by score
+   *
+   * @param entries     combined library entries
+   * @param precursorMz the precursor m/z used to preselect entries
+   * @param row         target row
+   */
+  public int matchRowToLibraries(List<SpectralLibraryEntry> entries, @Nullable Double precursorMz,
+      FeatureListRow row) {
+    return matchRowToLibraries(getCandidateEntries(entries, precursorMz), row);
+  }
+
   /**
    * Match row against all entries, add matches, sort them by score
    *
@@ -43,7 +43,8 @@ import org.jetbrains.annotations.Nullable;
 /**
  * A module that creates one task per feature list
  */
-public abstract class TaskPerFeatureListModule extends AbstractProcessingModule {
+public abstract class TaskPerFeatureListModule extends AbstractProcessingModule implements
+    PerFileProcessingModule {
 
   private final boolean requiresMemoryMapping;
 
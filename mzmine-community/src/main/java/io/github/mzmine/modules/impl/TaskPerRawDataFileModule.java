@@ -45,7 +45,7 @@ import org.jetbrains.annotations.Nullable;
  * A module that creates one task per RawDataFile
  */
 public abstract class TaskPerRawDataFileModule extends AbstractProcessingModule implements
-    Supplier<MemoryMapStorage> {
+    PerFileProcessingModule, Supplier<MemoryMapStorage> {
 
   private final boolean requiresMemoryMapping;
 
@@ -49,6 +49,8 @@ public class CSVExportModularParameters extends SimpleParameterSet {
   public static final ComboParameter<FeatureListRowsFilter> filter = new ComboParameter<>(
       "Filter rows", "Limit the exported rows to those with MS/MS data (or annotated rows)",
       FeatureListRowsFilter.values(), FeatureListRowsFilter.ALL);
+  public static final BooleanParameter compress = new BooleanParameter("Compress (gzip)",
+      "Writes a gzip compressed file (.csv.gz)", false);
   private static final List<ExtensionFilter> extensions = List.of( //
       new ExtensionFilter("comma-separated values", "*.csv"), //
       new ExtensionFilter("All files", "*.*") //
@@ -63,7 +65,7 @@ public class CSVExportModularParameters extends SimpleParameterSet {
 
   public CSVExportModularParameters() {
     super(new Parameter[]{featureLists, filename, fieldSeparator, idSeparator, omitEmptyColumns,
-        filter});
+        filter, compress});
   }
 
   @Override
@@ -83,4 +85,9 @@ public class CSVExportModularParameters extends SimpleParameterSet {
 
     return superCheck && errorMessages.isEmpty();
   }
+
+  @Override
+  public int getVersion() {
+    return 2;
+  }
 }
@@ -45,23 +45,30 @@ import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.FeatureListRowSorter;
 import io.github.mzmine.util.files.FileAndPathUtil;
 import io.github.mzmine.util.io.CSVUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -69,6 +76,10 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
 
   public static final String DATAFILE_PREFIX = "datafile";
   private static final Logger logger = Logger.getLogger(CSVExportModularTask.class.getName());
+  private static final int ROWS_PER_CHUNK = 256;
+  // limits the formatted chunks kept in memory while waiting for the writer
+  private static final int MAX_PENDING_CHUNKS = Math.max(8,
+      Runtime.getRuntime().availableProcessors() * 4);
   private final ModularFeatureList[] featureLists;
   // parameter values
   private final File fileName;
@@ -77,10 +88,11 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
   private final String headerSeparator = ":";
   private final FeatureListRowsFilter rowFilter;
   private final boolean removeEmptyCols;
+  private final boolean compress;
   private final ParameterSet parameters;
   // track number of exported items
   private final AtomicInteger exportedRows = new AtomicInteger(0);
-  private int processedTypes = 0, totalTypes = 0;
+  private int totalRows = 0;
 
   public CSVExportModularTask(ParameterSet parameters, @NotNull Instant moduleCallDate) {
     super(null, moduleCallDate); // no new data stored -> null
@@ -91,6 +103,7 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
     idSeparator = parameters.getParameter(CSVExportModularParameters.idSeparator).getValue();
     this.rowFilter = parameters.getParameter(CSVExportModularParameters.filter).getValue();
     removeEmptyCols = parameters.getValue(CSVExportModularParameters.omitEmptyColumns);
+    compress = parameters.getValue(CSVExportModularParameters.compress);
     this.parameters = parameters;
   }
 
@@ -104,6 +117,21 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
   public CSVExportModularTask(ModularFeatureList[] featureLists, File fileName,
       String fieldSeparator, String idSeparator, FeatureListRowsFilter rowFilter,
       boolean removeEmptyCols, @NotNull Instant moduleCallDate) {
+    this(featureLists, fileName, fieldSeparator, idSeparator, rowFilter, removeEmptyCols, false,
+        moduleCallDate);
+  }
+
+  /**
+   * @param featureLists   feature lists to export
+   * @param fileName       export file name
+   * @param fieldSeparator separation of columns
+   * @param idSeparator    identity field separation
+   * @param rowFilter      Row filter
+   * @param compress       write gzip compressed files (name.csv.gz)
+   */
+  public CSVExportModularTask(ModularFeatureList[] featureLists, File fileName,
+      String fieldSeparator, String idSeparator, FeatureListRowsFilter rowFilter,
+      boolean removeEmptyCols, boolean compress, @NotNull Instant moduleCallDate) {
     super(null, moduleCallDate); // no new data stored -> null
     if (fieldSeparator.equals(idSeparator)) {
       throw new IllegalArgumentException(MessageFormat.format(
@@ -115,6 +143,7 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
     this.idSeparator = idSeparator;
     this.rowFilter = rowFilter;
     this.removeEmptyCols = removeEmptyCols;
+    this.compress = compress;
     parameters = null;
   }
 
@@ -125,10 +154,10 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
 
   @Override
   public double getFinishedPercentage() {
-    if (totalTypes == 0) {
+    if (totalRows == 0) {
       return 0;
     }
-    return (double) processedTypes / (double) totalTypes;
+    return exportedRows.get() / (double) totalRows;
   }
 
   @Override
@@ -156,7 +185,7 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
 
     // Total number of rows
     for (ModularFeatureList featureList : featureLists) {
-      totalTypes += featureList.getNumberOfRows();
+      totalRows += featureList.getNumberOfRows();
     }
 
     // Process feature lists
@@ -180,12 +209,19 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
             .replaceAll(Pattern.quote(plNamePattern), cleanPlName);
         curFile = new File(newFilename);
       }
-      curFile = FileAndPathUtil.getRealFilePath(curFile, "csv");
+      if (compress) {
+        // name.csv.gz
+        if (curFile.getName().endsWith(".gz")) {
+          curFile = FileAndPathUtil.eraseFormat(curFile);
+        }
+        curFile = new File(FileAndPathUtil.getRealFilePath(curFile, "csv").getPath() + ".gz");
+      } else {
+        curFile = FileAndPathUtil.getRealFilePath(curFile, "csv");
+      }
 
       // Open file
 
-      try (BufferedWriter writer = Files.newBufferedWriter(curFile.toPath(),
-          StandardCharsets.UTF_8)) {
+      try (BufferedWriter writer = openWriter(curFile)) {
         exportFeatureList(featureList, writer);
 
       } catch (IOException e) {
@@ -217,6 +253,15 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
     }
   }
 
+  private BufferedWriter openWriter(File file) throws IOException {
+    if (!compress) {
+      return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+    return new BufferedWriter(new OutputStreamWriter(
+        new GZIPOutputStream(Files.newOutputStream(file.toPath()), 1 << 16),
+        StandardCharsets.UTF_8));
+  }
+
   @SuppressWarnings("rawtypes")
   private void exportFeatureList(ModularFeatureList flist, BufferedWriter writer)
       throws IOException {
@@ -224,100 +269,154 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
         .sorted(FeatureListRowSorter.DEFAULT_ID).toList();
     List<RawDataFile> rawDataFiles = flist.getRawDataFiles();
 
-    List<DataType> rowTypes = flist.getRowTypes().stream().filter(this::filterType)
+    // columns are compiled once per type and reused for all raw data files
+    final List<TypeColumns> rowColumns = flist.getRowTypes().stream().filter(this::filterType)
         .filter(type -> !removeEmptyCols || typeContainData(type, rows, false, -1))
-        .collect(Collectors.toList());
+        .map(type -> compileColumns(type, rows, false)).toList();
 
-    List<DataType> featureTypes = flist.getFeatureTypes().stream().filter(this::filterType)
+    final List<TypeColumns> featureColumns = flist.getFeatureTypes().stream()
+        .filter(this::filterType)
         .filter(type -> !removeEmptyCols || typeContainData(type, rows, true, -1))
-        .collect(Collectors.toList());
+        .map(type -> compileColumns(type, rows, true)).toList();
 
     // Write feature row headers
-    StringBuilder header = new StringBuilder(getJoinedHeader(rowTypes, "", rows, false));
+    StringBuilder header = new StringBuilder(getJoinedHeader(rowColumns, ""));
     for (RawDataFile raw : rawDataFiles) {
       header.append((header.length() == 0) ? "" : fieldSeparator).append(
-          getJoinedHeader(featureTypes, DATAFILE_PREFIX + headerSeparator + raw.getName(), rows,
-              true));
+          getJoinedHeader(featureColumns, DATAFILE_PREFIX + headerSeparator + raw.getName()));
     }
 
     writer.append(header.toString());
     writer.newLine();
 
-    // write data
-    totalTypes = rowTypes.size() + featureTypes.size() * rawDataFiles.size();
-
-    List<String[]> formattedCols = new ArrayList<>(totalTypes);
-
-    // list string values for each type and sub type
-    for (DataType rowType : rowTypes) {
+    // chunks of rows are formatted in parallel, the number formats of data types and export
+    // formats are thread local. Each write is chained to the previous one to keep the order and
+    // runs concurrently with formatting and compression. Only a limited number of formatted chunks
+    // is kept in memory
+    final ArrayDeque<CompletableFuture<Void>> pendingChunks = new ArrayDeque<>();
+    CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    for (int start = 0; start < rows.size(); start += ROWS_PER_CHUNK) {
+      // Cancel?
       if (isCanceled()) {
-        return;
+        break;
       }
 
-      addFormattedColumnsRecursively(formattedCols, rows, null, rowType);
+      final List<FeatureListRow> chunk = rows.subList(start,
+          Math.min(rows.size(), start + ROWS_PER_CHUNK));
+      final CompletableFuture<StringBuilder> lines = CompletableFuture.supplyAsync(
+          () -> formatRows(chunk, rawDataFiles, rowColumns, featureColumns));
+      lastWrite = lastWrite.thenCombine(lines, (previous, chunkLines) -> chunkLines)
+          .thenAccept(chunkLines -> writeChunk(writer, chunkLines));
+      pendingChunks.add(lastWrite);
 
-      processedTypes++;
+      if (pendingChunks.size() >= MAX_PENDING_CHUNKS) {
+        awaitChunk(pendingChunks.poll());
+      }
     }
+    // the writer is closed afterwards, all chunks need to be written
+    awaitChunk(lastWrite);
+  }
 
-    // add feature types for each raw data file
-    for (RawDataFile raw : rawDataFiles) {
-      for (DataType featureType : featureTypes) {
-        if (isCanceled()) {
-          return;
-        }
+  private static void writeChunk(BufferedWriter writer, StringBuilder lines) {
+    try {
+      writer.append(lines);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 
-        addFormattedColumnsRecursively(formattedCols, rows, raw, featureType);
-        processedTypes++;
+  private static void awaitChunk(CompletableFuture<Void> chunk) throws IOException {
+    try {
+      chunk.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException io) {
+        throw io.getCause();
       }
+      throw e;
     }
+  }
 
-    for (int i = 0; i < rows.size(); i++) {
-      // Cancel?
+  /**
+   * Formats the lines of all rows. Missing values are replaced by empty strings or default values
+   *
+   * @return the lines, each terminated by a line separator
+   */
+  private StringBuilder formatRows(List<FeatureListRow> rows, List<RawDataFile> rawDataFiles,
+      List<TypeColumns> rowColumns, List<TypeColumns> featureColumns) {
+    final StringBuilder b = new StringBuilder(rows.size() * 64);
+    for (FeatureListRow row : rows) {
       if (isCanceled()) {
-        return;
+        return b;
       }
 
-      final int row = i;
-      writer.append(
-          formattedCols.stream().map(col -> col[row]).collect(Collectors.joining(fieldSeparator)));
-      writer.newLine();
+      final int lineStart = b.length();
+      for (TypeColumns columns : rowColumns) {
+        appendFormattedValues(b, row, columns);
+      }
+      for (RawDataFile raw : rawDataFiles) {
+        final ModularFeature feature = (ModularFeature) row.getFeature(raw);
+        for (TypeColumns columns : featureColumns) {
+          appendFormattedValues(b, feature, columns);
+        }
+      }
+      // remove last field separator
+      if (b.length() > lineStart) {
+        b.setLength(b.length() - fieldSeparator.length());
+      }
+      b.append(System.lineSeparator());
 
       exportedRows.incrementAndGet();
-      processedTypes++;
     }
+    return b;
   }
 
   /**
-   * Adds columns of formatted values for each column / sub column. missing values are replaced by
-   * empty strings or default values
+   * Appends the formatted values of all columns, each followed by the field separator
+   */
+  private void appendFormattedValues(StringBuilder b, @Nullable ModularDataModel data,
+      TypeColumns columns) {
+    final DataType type = columns.type();
+    Object value = data == null ? null : data.get(type);
+    if (value == null) {
+      value = type.getDefaultValue();
+    }
+    for (final int subColumn : columns.subColumns()) {
+      if (subColumn == -1) {
+        b.append(getFormattedValue(type, value));
+      } else {
+        b.append(csvEscape(
+            ((SubColumnsFactory) type).getFormattedSubColExportValue(subColumn, value)));
+      }
+      b.append(fieldSeparator);
+    }
+  }
+
+  /**
+   * Selects the exported sub columns of a type - maybe excluded, no text, empty
    *
-   * @param formattedCols the target list
    * @param rows          the data
-   * @param raw           defines the feature
-   * @param type          the feature data type to be added (and its sub columns)
+   * @param isFeatureType defines if row or feature type (true)
    */
-  private void addFormattedColumnsRecursively(List<String[]> formattedCols,
-      List<FeatureListRow> rows, @Nullable RawDataFile raw, DataType type) {
-    if (type instanceof SubColumnsFactory subFactory) {
-      int subCols = subFactory.getNumberOfSubColumns();
-      for (int s = 0; s < subCols; s++) {
-        // filter sub column - maybe excluded, no text, empty
-        DataType<?> subType = subFactory.getType(s);
-        if (!filterType(subType) || (removeEmptyCols && !typeContainData(type, rows, raw != null,
-            s))) {
-          continue;
-        }
-        // collect column data
-        final int subIndex = s;
-        String[] column = getDataStream(rows, raw, false).map(
-            data -> getFormattedValue(data, subFactory, subIndex)).toArray(String[]::new);
-        formattedCols.add(column);
+  private TypeColumns compileColumns(DataType type, List<FeatureListRow> rows,
+      boolean isFeatureType) {
+    if (!(type instanceof SubColumnsFactory subFactory)) {
+      return new TypeColumns(type, new int[]{-1}, new String[]{type.getUniqueID()});
+    }
+
+    final IntList subColumns = new IntArrayList();
+    final List<String> headers = new ArrayList<>();
+    int subCols = subFactory.getNumberOfSubColumns();
+    for (int s = 0; s < subCols; s++) {
+      // filter sub column - maybe excluded, no text, empty
+      DataType<?> subType = subFactory.getType(s);
+      if (!filterType(subType) || (removeEmptyCols && !typeContainData(type, rows, isFeatureType,
+          s))) {
+        continue;
       }
-    } else {
-      String[] column = getDataStream(rows, raw, false).map(data -> getFormattedValue(data, type))
-          .toArray(String[]::new);
-      formattedCols.add(column);
+      subColumns.add(s);
+      headers.add(type.getUniqueID() + headerSeparator + subFactory.getUniqueID(s));
     }
+    return new TypeColumns(type, subColumns.toIntArray(), headers.toArray(String[]::new));
   }
 
   /**
@@ -339,21 +438,7 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
     }
   }
 
-
-  private String getFormattedValue(@Nullable ModularDataModel data, SubColumnsFactory subColFactory,
-      int col) {
-    Object value = data == null ? null : data.get((DataType) subColFactory);
-    if (value == null) {
-      value = ((DataType) subColFactory).getDefaultValue();
-    }
-    return csvEscape(subColFactory.getFormattedSubColExportValue(col, value));
-  }
-
-  private String getFormattedValue(@Nullable ModularDataModel data, DataType type) {
-    Object value = data == null ? null : data.get(type);
-    if (value == null) {
-      value = type.getDefaultValue();
-    }
+  private String getFormattedValue(DataType type, Object value) {
     try {
       return csvEscape(type.getFormattedExportString(value));
     } catch (Exception e) {
@@ -405,35 +490,19 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
   /**
    * Join headers by field separator and sub data types by headerSeparator (Standard is colon :)
    *
-   * @param types
-   * @param prefix
-   * @return
+   * @param columns the compiled columns of each type
+   * @param prefix  prefix of each header
+   * @return the joined headers
    */
-  private String getJoinedHeader(List<DataType> types, String prefix, List<FeatureListRow> rows,
-      boolean isFeatureType) {
+  private String getJoinedHeader(List<TypeColumns> columns, String prefix) {
     StringBuilder b = new StringBuilder();
-    for (DataType t : types) {
-      String header =
-          (prefix == null || prefix.isEmpty() ? "" : prefix + headerSeparator) + t.getUniqueID();
-      if (t instanceof SubColumnsFactory subCols) {
-        int numberOfSub = subCols.getNumberOfSubColumns();
-        for (int i = 0; i < numberOfSub; i++) {
-          DataType subType = subCols.getType(i);
-          if (!filterType(subType) || (removeEmptyCols && !typeContainData(t, rows, isFeatureType,
-              i))) {
-            continue;
-          }
-          String field = subCols.getUniqueID(i);
-          if (b.length() != 0) {
-            b.append(fieldSeparator);
-          }
-          b.append(csvEscape(header + headerSeparator + field));
-        }
-      } else {
+    for (TypeColumns typeColumns : columns) {
+      for (String header : typeColumns.headers()) {
         if (b.length() != 0) {
           b.append(fieldSeparator);
         }
-        b.append(csvEscape(header));
+        b.append(csvEscape(
+            (prefix == null || prefix.isEmpty() ? "" : prefix + headerSeparator) + header));
       }
     }
     return b.toString();
@@ -466,4 +535,16 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
           featureList.getName(), numMS2, numMS2End));
     }
   }
+
+  /**
+   * The exported columns of one type
+   *
+   * @param type       the data type
+   * @param subColumns the exported sub column indices or -1 for types without sub columns
+   * @param headers    the header of each column without prefix
+   */
+  @SuppressWarnings("rawtypes")
+  private record TypeColumns(DataType type, int[] subColumns, String[] headers) {
+
+  }
 }
@@ -25,14 +25,12 @@
 
 package io.github.mzmine.modules.io.import_rawdata_imzml;
 
-import com.alanmrace.jimzmlparser.imzml.ImzML;
-import com.alanmrace.jimzmlparser.mzml.CVParam;
-import com.alanmrace.jimzmlparser.mzml.ScanSettings;
-import com.alanmrace.jimzmlparser.mzml.ScanSettingsList;
 import io.github.mzmine.modules.io.import_rawdata_bruker_tdf.datamodel.sql.TDFMaldiFrameInfoTable;
 import io.github.mzmine.modules.io.import_rawdata_bruker_tdf.datamodel.sql.TDFMaldiFrameLaserInfoTable;
 import io.github.mzmine.modules.io.import_rawdata_bruker_tdf.datamodel.sql.TDFMetaDataTable;
 import io.github.mzmine.modules.io.import_rawdata_bruker_tdf.datamodel.sql.TDFMetaDataTable.Keys;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /*
@@ -112,74 +110,67 @@ public class ImagingParameters {
     pixelHeight = laserInfoTable.getSpotSizeColumn().get(0);
   }
 
-  public ImagingParameters(ImzML imz) {
-    maxNumberOfPixelX = imz.getWidth();
-    maxNumberOfPixelY = imz.getHeight();
-    maxNumberOfPixelZ = imz.getDepth();
-    spectraPerPixel = imz.getNumberOfSpectraPerPixel();
-    minMZ = imz.getMinimumDetectedmz();
-    maxMZ = imz.getMaximumDetectedmz();
-    // Check scan settings first
-    ScanSettingsList scanSettingsList = imz.getScanSettingsList();
-
-    if (scanSettingsList != null) {
-      for (ScanSettings scanSettings : scanSettingsList) {
-        CVParam p = scanSettings.getCVParam(ScanSettings.MAX_DIMENSION_X_ID);
-        if (p != null) {
-          lateralWidth = p.getValueAsDouble();
-        }
-        p = scanSettings.getCVParam(ScanSettings.MAX_DIMENSION_Y_ID);
-        if (p != null) {
-          lateralHeight = p.getValueAsDouble();
-        }
-
-        p = scanSettings.getCVParam(ScanSettings.LINE_SCAN_DIRECTION_BOTTOM_UP_ID);
-        if (p != null) {
-          vStart = VerticalStart.BOTTOM;
-        } else {
-          vStart = VerticalStart.TOP;
-        }
-
-        p = scanSettings.getCVParam(ScanSettings.LINE_SCAN_DIRECTION_RIGHT_LEFT_ID);
-        if (p != null) {
-          hStart = HorizontalStart.RIGHT;
-        } else {
-          hStart = HorizontalStart.LEFT;
-        }
-
-        p = scanSettings.getCVParam(ScanSettings.PIXEL_AREA_ID);
-        if (p != null) {
-          pixelWidth = p.getValueAsDouble();
-        }
-        pixelHeight = pixelWidth;
-
-        p = scanSettings.getCVParam(ScanSettings.SCAN_PATTERN_MEANDERING_ID);
-        if (p != null) {
-          pattern = Pattern.MEANDER;
-        }
-        p = scanSettings.getCVParam(ScanSettings.SCAN_PATTERN_FLYBACK_ID);
-        if (p != null) {
-          pattern = Pattern.FLY_BACK;
-        }
-        p = scanSettings.getCVParam(ScanSettings.SCAN_PATTERN_RANDOM_ACCESS_ID);
-        if (p != null) {
-          pattern = Pattern.RANDOM;
-        }
-
-        p = scanSettings.getCVParam(ScanSettings.SCAN_TYPE_VERTICAL_ID);
-        if (p != null) {
-          scanDirection = ScanDirection.VERTICAL;
-        } else {
-          scanDirection = ScanDirection.HORIZONTAL;
-        }
+  /**
+   * Image dimensions are read from the scan settings or derived from the pixel coordinates of all
+   * spectra. The m/z range is not part of the index and needs to be set after the data was read.
+   */
+  public ImagingParameters(ImzMLIndex index) {
+    final Map<Coordinates, Integer> spectraPerCoordinate = new HashMap<>();
+    int maxX = -1, maxY = -1, maxZ = -1;
+    for (ImzMLSpectrumInfo spectrum : index.getSpectra()) {
+      final Coordinates c = spectrum.coordinates();
+      if (c != null) {
+        maxX = Math.max(maxX, c.getX());
+        maxY = Math.max(maxY, c.getY());
+        maxZ = Math.max(maxZ, c.getZ());
+        spectraPerCoordinate.merge(c, 1, Integer::sum);
       }
+    }
 
-      if(Double.compare(lateralHeight, 0d) == 0) {
-        lateralHeight = maxNumberOfPixelY * pixelHeight;
-      }
-      if(Double.compare(lateralWidth, 0d) == 0) {
-        lateralWidth = maxNumberOfPixelX * pixelWidth;
-      }
+    final Map<String, String> settings = index.getScanSettings();
+    maxNumberOfPixelX = (int) getDouble(settings, ImzMLIndex.CV_MAX_COUNT_OF_PIXELS_X, maxX + 1);
+    maxNumberOfPixelY = (int) getDouble(settings, ImzMLIndex.CV_MAX_COUNT_OF_PIXELS_Y, maxY + 1);
+    maxNumberOfPixelZ = Math.max(1, maxZ + 1);
+    spectraPerPixel = spectraPerCoordinate.values().stream().mapToInt(Integer::intValue).max()
+        .orElse(1);
+
+    lateralWidth = getDouble(settings, ImzMLIndex.CV_MAX_DIMENSION_X, 0d);
+    lateralHeight = getDouble(settings, ImzMLIndex.CV_MAX_DIMENSION_Y, 0d);
+    pixelWidth = getDouble(settings, ImzMLIndex.CV_PIXEL_SIZE_X, pixelWidth);
+    pixelHeight = getDouble(settings, ImzMLIndex.CV_PIXEL_SIZE_Y, pixelWidth);
+
+    vStart = settings.containsKey(ImzMLIndex.CV_LINE_SCAN_BOTTOM_UP) ? VerticalStart.BOTTOM
+        : VerticalStart.TOP;
+    hStart = settings.containsKey(ImzMLIndex.CV_LINE_SCAN_RIGHT_LEFT) ? HorizontalStart.RIGHT
+        : HorizontalStart.LEFT;
+    if (settings.containsKey(ImzMLIndex.CV_SCAN_PATTERN_RANDOM_ACCESS)) {
+      pattern = Pattern.RANDOM;
+    } else if (settings.containsKey(ImzMLIndex.CV_SCAN_PATTERN_FLYBACK)) {
+      pattern = Pattern.FLY_BACK;
+    } else if (settings.containsKey(ImzMLIndex.CV_SCAN_PATTERN_MEANDERING)) {
+      pattern = Pattern.MEANDER;
+    }
+    scanDirection = settings.containsKey(ImzMLIndex.CV_SCAN_TYPE_VERTICAL) ? ScanDirection.VERTICAL
+        : ScanDirection.HORIZONTAL;
+
+    if (Double.compare(lateralHeight, 0d) == 0) {
+      lateralHeight = maxNumberOfPixelY * pixelHeight;
+    }
+    if (Double.compare(lateralWidth, 0d) == 0) {
+      lateralWidth = maxNumberOfPixelX * pixelWidth;
+    }
+  }
+
+  private static double getDouble(Map<String, String> params, String accession,
+      double defaultValue) {
+    final String value = params.get(accession);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
     }
   }
 
@@ -25,53 +25,54 @@
 
 package io.github.mzmine.modules.io.import_rawdata_imzml;
 
-import com.alanmrace.jimzmlparser.imzml.ImzML;
-import com.alanmrace.jimzmlparser.mzml.BinaryDataArray;
-import com.alanmrace.jimzmlparser.mzml.BinaryDataArrayList;
-import com.alanmrace.jimzmlparser.mzml.CVParam;
-import com.alanmrace.jimzmlparser.mzml.Precursor;
-import com.alanmrace.jimzmlparser.mzml.PrecursorList;
-import com.alanmrace.jimzmlparser.mzml.Scan;
-import com.alanmrace.jimzmlparser.mzml.ScanList;
-import com.alanmrace.jimzmlparser.mzml.SelectedIon;
-import com.alanmrace.jimzmlparser.mzml.SelectedIonList;
-import com.alanmrace.jimzmlparser.mzml.Spectrum;
-import com.alanmrace.jimzmlparser.mzml.SpectrumList;
-import com.alanmrace.jimzmlparser.parser.ImzMLHandler;
+import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.ImagingRawDataFile;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.MassSpectrumType;
-import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.impl.SimpleImagingScan;
-import io.github.mzmine.datamodel.impl.SimpleScan;
 import io.github.mzmine.datamodel.impl.builders.SimpleBuildingScan;
 import io.github.mzmine.datamodel.impl.masslist.ScanPointerMassList;
 import io.github.mzmine.modules.MZmineModule;
 import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.ScanImportProcessorConfig;
 import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.processors.SortByMzMsProcessor;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.exceptions.ExceptionUtils;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
 import java.time.Instant;
-import java.util.Hashtable;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * This class reads mzML 1.0 and 1.1.0 files (http://www.psidev.info/index.php?q=node/257) using the
- * jmzml library (http://code.google.com/p/jmzml/).
+ * Imports imzML files. The XML part is parsed once into an {@link ImzMLIndex}, the .ibd file is
+ * memory mapped and spectra are decoded in parallel directly from the mapped file.
  */
 public class ImzMLImportTask extends AbstractTask {
 
+  // spectra are decoded in parallel chunks and added to the data file in the original order
+  private static final int MIN_SPECTRA_PER_CHUNK = 64;
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private static final Pattern SCAN_NUMBER_PATTERN = Pattern.compile("scan=([0-9]+)");
+
   private Logger logger = Logger.getLogger(this.getClass().getName());
 
   private File file;
@@ -80,21 +81,12 @@ public class ImzMLImportTask extends AbstractTask {
   private ImagingRawDataFile newMZmineFile;
   private final ParameterSet parameters;
   private final Class<? extends MZmineModule> module;
-  private int totalScans = 0, parsedScans;
+  private int totalScans = 0;
+  private final AtomicInteger parsedScans = new AtomicInteger(0);
 
   private int lastScanNumber = 0;
 
-  private Map<String, Integer> scanIdTable = new Hashtable<>();
-
-  /*
-   * This stack stores at most 20 consecutive scans. This window serves to find possible fragments
-   * (current scan) that belongs to any of the stored scans in the stack. The reason of the size
-   * follows the concept of neighborhood of scans and all his fragments. These solution is
-   * implemented because exists the possibility to find fragments of one scan after one or more full
-   * scans.
-   */
-  private static final int PARENT_STACK_SIZE = 20;
-  private LinkedList<SimpleScan> parentStack = new LinkedList<>();
+  private Map<String, Integer> scanIdTable = new HashMap<>();
 
   public ImzMLImportTask(MZmineProject project, File fileToOpen,
       final @NotNull ScanImportProcessorConfig scanProcessorConfig,
@@ -111,7 +103,7 @@ public class ImzMLImportTask extends AbstractTask {
 
   @Override
   public double getFinishedPercentage() {
-    return totalScans == 0 ? 0 : (double) parsedScans / totalScans;
+    return totalScans == 0 ? 0 : (double) parsedScans.get() / totalScans;
   }
 
   /**
@@ -123,333 +115,200 @@ public class ImzMLImportTask extends AbstractTask {
     setStatus(TaskStatus.PROCESSING);
     logger.info("Started parsing file " + file);
 
-    ImzML imzml;
+    final List<SimpleImagingScan> scans;
     try {
-      imzml = ImzMLHandler.parseimzML(file.getAbsolutePath());
-
-      SpectrumList spectra = imzml.getRun().getSpectrumList();
+      final ImzMLIndex index = ImzMLIndex.parse(file);
+      final List<ImzMLSpectrumInfo> spectra = index.getSpectra();
       totalScans = spectra.size();
-      for (int i = 0; i < totalScans; i++) {
-
-        if (isCanceled()) {
-          return;
-        }
-
-        Spectrum spectrum = spectra.get(i);
 
-        // Ignore scans that are not MS, e.g. UV
-        if (!isMsSpectrum(spectrum)) {
-          parsedScans++;
-          continue;
-        }
-
-        String scanId = spectrum.getID();
-        int scanNumber = convertScanIdToScanNumber(scanId);
-
-        // Extract scan data
-        int msLevel = extractMSLevel(spectrum);
-        float retentionTime = extractRetentionTime(spectrum);
-        PolarityType polarity = extractPolarity(spectrum);
-        int parentScan = extractParentScanNumber(spectrum);
-        double precursorMz = extractPrecursorMz(spectrum);
-        int precursorCharge = extractPrecursorCharge(spectrum);
-        String scanDefinition = extractScanDefinition(spectrum);
-        // imaging
-        Coordinates coord = extractCoordinates(spectrum);
-
-        // TODO find out if spectrum type is encoded in imzml file
-        var metadataScan = new SimpleBuildingScan(scanNumber, msLevel, polarity,
-            MassSpectrumType.CENTROIDED, retentionTime, precursorMz, precursorCharge);
-        if (!scanProcessorConfig.scanFilter().matches(metadataScan)) {
-          // skip parsing of data and skip this scan completely
-          parsedScans++;
-          continue;
-        }
-
-        double[] mzValues = extractMzValues(spectrum);
-        double[] intensityValues = extractIntensityValues(spectrum);
-        // Auto-detect whether this scan is centroided
-        SimpleSpectralArrays data = new SimpleSpectralArrays(mzValues, intensityValues);
-        MassSpectrumType spectrumType = ScanUtils.detectSpectrumType(mzValues, intensityValues);
+      final MappedIbdFile ibd = MappedIbdFile.map(index.findIbdFile(),
+          index.getMaxArrayByteLength());
 
-        data = scanProcessorConfig.processor().processScan(metadataScan, data);
-
-        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
-          spectrumType = MassSpectrumType.CENTROIDED;
-        }
-
-        SimpleImagingScan scan = new SimpleImagingScan(newMZmineFile, scanNumber, msLevel,
-            retentionTime, precursorMz, precursorCharge, data.mzs(), data.intensities(),
-            spectrumType, polarity, scanDefinition, null, coord);
-
-        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
-          scan.addMassList(new ScanPointerMassList(scan));
-        }
-
-        /*
-         * Verify the size of parentStack. The actual size of the window to cover possible
-         * candidates is defined by limitSize.
-         */
-        if (parentStack.size() > PARENT_STACK_SIZE) {
-          io.github.mzmine.datamodel.Scan firstScan = parentStack.removeLast();
-          newMZmineFile.addScan(firstScan);
-        }
+      // scan numbers depend on the previous spectra, assign them in file order
+      final int[] scanNumbers = new int[spectra.size()];
+      for (int i = 0; i < scanNumbers.length; i++) {
+        scanNumbers[i] = convertScanIdToScanNumber(spectra.get(i).id());
+      }
 
-        parentStack.addFirst(scan);
+      final SharedMzs sharedMzs = createSharedMzs(index, ibd);
+      if (sharedMzs != null) {
+        logger.fine(() -> "Continuous mode imzML, all spectra share one m/z array of "
+            + sharedMzs.values().length + " values");
+      }
 
-        parsedScans++;
+      final int maxChunks = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD;
+      final int numChunks = Math.clamp(totalScans / MIN_SPECTRA_PER_CHUNK, 1, maxChunks);
+      final int chunkSize = Math.ceilDiv(Math.max(totalScans, 1), numChunks);
+      scans = IntStream.range(0, numChunks).parallel().mapToObj(
+              chunk -> readSpectra(spectra, scanNumbers, Math.min(chunk * chunkSize, totalScans),
+                  Math.min((chunk + 1) * chunkSize, totalScans), ibd, sharedMzs))
+          .flatMap(List::stream).toList();
 
+      if (isCanceled()) {
+        return;
       }
 
-      while (!parentStack.isEmpty()) {
-        io.github.mzmine.datamodel.Scan scan = parentStack.removeLast();
+      for (SimpleImagingScan scan : scans) {
         newMZmineFile.addScan(scan);
       }
 
       // set settings of image
-      newMZmineFile.setImagingParam(new ImagingParameters(imzml));
+      final ImagingParameters imagingParameters = new ImagingParameters(index);
+      if (!scans.isEmpty()) {
+        final Range<Double> mzRange = newMZmineFile.getDataMZRange();
+        imagingParameters.setMinMZ(mzRange.lowerEndpoint());
+        imagingParameters.setMaxMZ(mzRange.upperEndpoint());
+      }
+      newMZmineFile.setImagingParam(imagingParameters);
       newMZmineFile.getAppliedMethods()
           .add(new SimpleFeatureListAppliedMethod(module, parameters, getModuleCallDate()));
       project.addFile(newMZmineFile);
 
     } catch (Throwable e) {
       setStatus(TaskStatus.ERROR);
-      setErrorMessage("Error parsing mzML: " + ExceptionUtils.exceptionToString(e));
+      setErrorMessage("Error parsing imzML: " + ExceptionUtils.exceptionToString(e));
       e.printStackTrace();
       return;
     }
 
-    if (parsedScans == 0) {
+    if (scans.isEmpty()) {
       setStatus(TaskStatus.ERROR);
       setErrorMessage("No scans found");
       return;
     }
 
-    logger.info("Finished parsing " + file + ", parsed " + parsedScans + " scans");
+    logger.info("Finished parsing " + file + ", parsed " + scans.size() + " scans");
     setStatus(TaskStatus.FINISHED);
 
   }
 
-  private int convertScanIdToScanNumber(String scanId) {
-
-    if (scanIdTable.containsKey(scanId)) {
-      return scanIdTable.get(scanId);
-    }
-
-    final Pattern pattern = Pattern.compile("scan=([0-9]+)");
-    final Matcher matcher = pattern.matcher(scanId);
-    boolean scanNumberFound = matcher.find();
-
-    // Some vendors include scan=XX in the ID, some don't, such as
-    // mzML converted from WIFF files. See the definition of nativeID in
-    // http://psidev.cvs.sourceforge.net/viewvc/psidev/psi/psi-ms/mzML/controlledVocabulary/psi-ms.obo
-    if (scanNumberFound) {
-      int scanNumber = Integer.parseInt(matcher.group(1));
-      scanIdTable.put(scanId, scanNumber);
-      return scanNumber;
-    }
-
-    int scanNumber = lastScanNumber + 1;
-    lastScanNumber++;
-    scanIdTable.put(scanId, scanNumber);
-    return scanNumber;
-  }
-
-  private int extractMSLevel(Spectrum spectrum) {
-    // Browse the spectrum parameters
-    // MS level MS:1000511
-    // CVParam param = spectrum.getCVParam(Spectrum.MS1_SPECTRUM_ID);
-    // if (param != null)
-    // return param.getValueAsInteger();
-    return 1;
-  }
-
-  private float extractRetentionTime(Spectrum spectrum) {
-    ScanList scanListElement = spectrum.getScanList();
-    if (scanListElement == null) {
-      return 0;
-    }
-
-    for (Scan scan : scanListElement) {
-      try {
-        // scan start time correct?
-        CVParam param = scan.getCVParam(Scan.SCAN_START_TIME_ID);
-        if (param != null) {
-          return (float) param.getValueAsDouble();
-        }
-      } catch (Exception e) {
-        e.printStackTrace();
+  /**
+   * Decodes a consecutive range of spectra. Called concurrently for different ranges.
+   *
+   * @param from inclusive
+   * @param to   exclusive
+   * @return the scans of this range in file order
+   */
+  private List<SimpleImagingScan> readSpectra(List<ImzMLSpectrumInfo> spectra, int[] scanNumbers,
+      int from, int to, MappedIbdFile ibd, @Nullable SharedMzs sharedMzs) {
+    final List<SimpleImagingScan> scans = new ArrayList<>(to - from);
+    final MemoryMapStorage storage = newMZmineFile.getMemoryMapStorage();
+
+    for (int i = from; i < to; i++) {
+      if (isCanceled()) {
+        return scans;
       }
-    }
-
-    return 0;
-  }
-
-  private double[] extractIntensityValues(Spectrum spectrum) {
-    try {
-      BinaryDataArrayList dataList = spectrum.getBinaryDataArrayList();
-      BinaryDataArray intensityArray = dataList.getIntensityArray();
-      double intensityValues[] = intensityArray.getDataAsDouble();
-      return intensityValues;
-    } catch (IOException e) {
-      e.printStackTrace();
-      return new double[0];
-    }
-  }
-
-  private double[] extractMzValues(Spectrum spectrum) {
-    try {
-      BinaryDataArrayList dataList = spectrum.getBinaryDataArrayList();
-
-      BinaryDataArray mzArray = dataList.getmzArray();
-      double mzValues[] = mzArray.getDataAsDouble();
-      return mzValues;
-
-    } catch (IOException e) {
-      e.printStackTrace();
-      return new double[0];
-    }
-
-  }
 
-  private Coordinates extractCoordinates(Spectrum spectrum) {
-    ScanList list = spectrum.getScanList();
-    if (list != null) {
-      for (Scan scan : spectrum.getScanList()) {
-        CVParam xValue = scan.getCVParam(Scan.POSITION_X_ID);
-        CVParam yValue = scan.getCVParam(Scan.POSITION_Y_ID);
-        CVParam zValue = scan.getCVParam(Scan.POSITION_Z_ID);
-
-        if (xValue != null && yValue != null) {
-          int x = xValue.getValueAsInteger() - 1;
-          int y = yValue.getValueAsInteger() - 1;
-
-          if (zValue != null) {
-            return new Coordinates(x, y, zValue.getValueAsInteger() - 1);
-          } else {
-            return new Coordinates(x, y, 0);
-          }
-        }
+      final ImzMLSpectrumInfo spectrum = spectra.get(i);
+      parsedScans.incrementAndGet();
+      // Ignore scans that are not MS, e.g. UV
+      if (!spectrum.isMs() || !spectrum.hasData()) {
+        continue;
       }
-    }
-    return null;
-  }
 
-
-  private int extractParentScanNumber(Spectrum spectrum) {
-    PrecursorList precursorListElement = spectrum.getPrecursorList();
-    if ((precursorListElement == null) || (precursorListElement.size() == 0)) {
-      return -1;
-    }
-
-    for (Precursor parent : precursorListElement) {
-      // Get the precursor scan number
-      String precursorScanId = parent.getXMLAttributeText();
-      if (precursorScanId == null) {
-        return -1;
+      final int scanNumber = scanNumbers[i];
+      // imaging files only contain MS1 spectra
+      final int msLevel = 1;
+
+      // TODO find out if spectrum type is encoded in imzml file
+      var metadataScan = new SimpleBuildingScan(scanNumber, msLevel, spectrum.polarity(),
+          MassSpectrumType.CENTROIDED, spectrum.retentionTime(), spectrum.precursorMz(),
+          spectrum.precursorCharge());
+      if (!scanProcessorConfig.scanFilter().matches(metadataScan)) {
+        // skip parsing of data and skip this scan completely
+        continue;
       }
-      int parentScan = convertScanIdToScanNumber(precursorScanId);
-      return parentScan;
-    }
-    return -1;
-  }
-
-  private double extractPrecursorMz(Spectrum spectrum) {
 
-    PrecursorList precursorListElement = spectrum.getPrecursorList();
-    if ((precursorListElement == null) || (precursorListElement.size() == 0)) {
-      return 0;
-    }
-
-    for (Precursor parent : precursorListElement) {
-
-      SelectedIonList selectedIonListElement = parent.getSelectedIonList();
-      if ((selectedIonListElement == null) || (selectedIonListElement.size() == 0)) {
-        return 0;
+      final double[] intensityValues;
+      final double[] mzValues;
+      try {
+        intensityValues = ibd.read(spectrum.intensities());
+        mzValues = sharedMzs != null && sharedMzs.values().length == intensityValues.length
+            ? sharedMzs.values() : ibd.read(spectrum.mzs());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
       }
+      // Auto-detect whether this scan is centroided
+      MassSpectrumType spectrumType = ScanUtils.detectSpectrumType(mzValues, intensityValues);
+
+      final SimpleImagingScan scan;
+      if (sharedMzs != null && mzValues == sharedMzs.values()) {
+        // unprocessed continuous mode data, only store the intensities of each pixel
+        scan = new SimpleImagingScan(newMZmineFile, scanNumber, msLevel,
+            spectrum.retentionTime(), spectrum.precursorMz(), spectrum.precursorCharge(),
+            sharedMzs.stored(), StorageUtils.storeIntensityValues(storage, intensityValues),
+            spectrumType, spectrum.polarity(), spectrum.scanDefinition(), null,
+            spectrum.coordinates());
+      } else {
+        final SimpleSpectralArrays data = scanProcessorConfig.processor()
+            .processScan(metadataScan, new SimpleSpectralArrays(mzValues, intensityValues));
 
-      // MS:1000040 is used in mzML 1.0,
-      // MS:1000744 is used in mzML 1.1.0
-      for (SelectedIon sion : selectedIonListElement) {
-        CVParam param = sion.getCVParam("MS:1000040");
-        if (param != null) {
-          return param.getValueAsDouble();
+        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
+          spectrumType = MassSpectrumType.CENTROIDED;
         }
 
-        param = sion.getCVParam("MS:1000744");
-        if (param != null) {
-          return param.getValueAsDouble();
-        }
+        scan = new SimpleImagingScan(newMZmineFile, scanNumber, msLevel, spectrum.retentionTime(),
+            spectrum.precursorMz(), spectrum.precursorCharge(), data.mzs(), data.intensities(),
+            spectrumType, spectrum.polarity(), spectrum.scanDefinition(), null,
+            spectrum.coordinates());
       }
-    }
-    return 0;
-  }
-
-  private int extractPrecursorCharge(Spectrum spectrum) {
-    PrecursorList precursorList = spectrum.getPrecursorList();
-    if ((precursorList == null) || (precursorList.size() == 0)) {
-      return 0;
-    }
 
-    for (Precursor parent : precursorList) {
-      SelectedIonList selectedIonListElement = parent.getSelectedIonList();
-      if ((selectedIonListElement == null) || (selectedIonListElement.size() == 0)) {
-        return 0;
-      }
-
-      for (SelectedIon sion : selectedIonListElement) {
-
-        // precursor charge
-        CVParam param = sion.getCVParam("MS:1000041");
-        if (param != null) {
-          return param.getValueAsInteger();
-        }
+      if (scanProcessorConfig.isMassDetectActive(msLevel)) {
+        scan.addMassList(new ScanPointerMassList(scan));
       }
+      scans.add(scan);
     }
-    return 0;
+    return scans;
   }
 
-  private PolarityType extractPolarity(Spectrum spectrum) {
-    CVParam cv = spectrum.getCVParam(Spectrum.SCAN_POLARITY_ID);
-    if (spectrum.getCVParam("MS:1000130") != null) {
-      return PolarityType.POSITIVE;
-    } else if (spectrum.getCVParam("MS:1000129") != null) {
-      return PolarityType.NEGATIVE;
+  /**
+   * In continuous mode, the m/z array is decoded and stored only once and shared by all scans. This
+   * is only possible if the scans are not processed during import and the m/z values are sorted.
+   *
+   * @return the shared m/z values or null if every spectrum needs its own m/z values
+   */
+  @Nullable
+  private SharedMzs createSharedMzs(ImzMLIndex index, MappedIbdFile ibd) throws IOException {
+    if (!index.isContinuous() || scanProcessorConfig.isMassDetectActive(1)
+        || !scanProcessorConfig.processor().stream()
+        .allMatch(SortByMzMsProcessor.class::isInstance)) {
+      return null;
     }
 
-    ScanList scanListElement = spectrum.getScanList();
-    if (scanListElement != null) {
-      for (int i = 0; i < scanListElement.size(); i++) {
-        Scan scan = scanListElement.get(i);
-
-        if (scan.getCVParam("MS:1000130") != null) {
-          return PolarityType.POSITIVE;
-        } else if (scan.getCVParam("MS:1000129") != null) {
-          return PolarityType.NEGATIVE;
-        }
+    final ImzMLSpectrumInfo first = index.getSpectra().stream().filter(ImzMLSpectrumInfo::hasData)
+        .findFirst().orElseThrow();
+    final double[] mzs = ibd.read(first.mzs());
+    for (int i = 1; i < mzs.length; i++) {
+      if (mzs[i] < mzs[i - 1]) {
+        return null;
       }
     }
-    return PolarityType.UNKNOWN;
+    return new SharedMzs(mzs,
+        StorageUtils.storeValuesToDoubleBuffer(newMZmineFile.getMemoryMapStorage(), mzs));
   }
 
-  private String extractScanDefinition(Spectrum spectrum) {
-    CVParam cvParams = spectrum.getCVParam("MS:1000512");
-    if (cvParams != null) {
-      return cvParams.getValueAsString();
+  private int convertScanIdToScanNumber(String scanId) {
+
+    if (scanIdTable.containsKey(scanId)) {
+      return scanIdTable.get(scanId);
     }
 
-    ScanList scanListElement = spectrum.getScanList();
-    if (scanListElement != null) {
-      for (int i = 0; i < scanListElement.size(); i++) {
-        Scan scan = scanListElement.get(i);
+    final Matcher matcher = SCAN_NUMBER_PATTERN.matcher(scanId);
+    boolean scanNumberFound = matcher.find();
 
-        cvParams = scan.getCVParam("MS:1000512");
-        if (cvParams != null) {
-          return cvParams.getValueAsString();
-        }
-      }
+    // Some vendors include scan=XX in the ID, some don't, such as
+    // mzML converted from WIFF files. See the definition of nativeID in
+    // http://psidev.cvs.sourceforge.net/viewvc/psidev/psi/psi-ms/mzML/controlledVocabulary/psi-ms.obo
+    if (scanNumberFound) {
+      int scanNumber = Integer.parseInt(matcher.group(1));
+      scanIdTable.put(scanId, scanNumber);
+      return scanNumber;
     }
-    return spectrum.getID();
+
+    int scanNumber = lastScanNumber + 1;
+    lastScanNumber++;
+    scanIdTable.put(scanId, scanNumber);
+    return scanNumber;
   }
 
   @Override
@@ -457,12 +316,11 @@ public class ImzMLImportTask extends AbstractTask {
     return "Opening file " + file;
   }
 
-  boolean isMsSpectrum(Spectrum spectrum) {
-    // one thats not MS (code for UV?)
-    CVParam cvParams = spectrum.getCVParam("MS:1000804");
+  /**
+   * @param values decoded m/z values, sorted ascending
+   * @param stored the same values in the storage of the data file
+   */
+  private record SharedMzs(double[] values, DoubleBuffer stored) {
 
-    // By default, let's assume unidentified spectra are MS spectra
-    return cvParams == null;
   }
-
 }
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLArrayType;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLBitLength;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLCV;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLTags;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Streams the XML part of an imzML data set once and keeps only the metadata of all spectra and
+ * the locations of their binary arrays in the .ibd file. The binary data is read separately, see
+ * {@link MappedIbdFile}.
+ */
+public final class ImzMLIndex {
+
+  // imzML specific controlled vocabulary
+  static final String CV_MAX_COUNT_OF_PIXELS_X = "IMS:1000042";
+  static final String CV_MAX_COUNT_OF_PIXELS_Y = "IMS:1000043";
+  static final String CV_MAX_DIMENSION_X = "IMS:1000044";
+  static final String CV_MAX_DIMENSION_Y = "IMS:1000045";
+  static final String CV_PIXEL_SIZE_X = "IMS:1000046";
+  static final String CV_PIXEL_SIZE_Y = "IMS:1000047";
+  static final String CV_POSITION_X = "IMS:1000050";
+  static final String CV_POSITION_Y = "IMS:1000051";
+  static final String CV_POSITION_Z = "IMS:1000052";
+  static final String CV_EXTERNAL_OFFSET = "IMS:1000102";
+  static final String CV_EXTERNAL_ARRAY_LENGTH = "IMS:1000103";
+  static final String CV_INT_32 = "IMS:1000141";
+  static final String CV_INT_64 = "IMS:1000142";
+  static final String CV_SCAN_PATTERN_MEANDERING = "IMS:1000410";
+  static final String CV_SCAN_PATTERN_RANDOM_ACCESS = "IMS:1000412";
+  static final String CV_SCAN_PATTERN_FLYBACK = "IMS:1000413";
+  static final String CV_SCAN_TYPE_VERTICAL = "IMS:1000481";
+  static final String CV_LINE_SCAN_RIGHT_LEFT = "IMS:1000490";
+  static final String CV_LINE_SCAN_BOTTOM_UP = "IMS:1000492";
+  static final String CV_ZLIB_COMPRESSION = "MS:1000574";
+
+  private static final String TAG_SCAN_SETTINGS = "scanSettings";
+  private static final String ATTR_REF = "ref";
+
+  private final File imzMLFile;
+  private final List<ImzMLSpectrumInfo> spectra;
+  private final Map<String, String> scanSettings;
+
+  private ImzMLIndex(File imzMLFile, List<ImzMLSpectrumInfo> spectra,
+      Map<String, String> scanSettings) {
+    this.imzMLFile = imzMLFile;
+    this.spectra = Collections.unmodifiableList(spectra);
+    this.scanSettings = scanSettings;
+  }
+
+  /**
+   * Parses the metadata of all spectra. Binary data is not read.
+   *
+   * @param imzMLFile the imzML file, the .ibd file is expected next to it
+   */
+  @NotNull
+  public static ImzMLIndex parse(@NotNull File imzMLFile) throws IOException {
+    final InputFactoryImpl factory = new InputFactoryImpl();
+    factory.configureForSpeed();
+
+    try (InputStream is = Files.newInputStream(imzMLFile.toPath())) {
+      final XMLStreamReader reader = factory.createXMLStreamReader(is);
+      try {
+        return new Parser(imzMLFile).parse(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Cannot parse imzML file " + imzMLFile, e);
+    }
+  }
+
+  /**
+   * @return the .ibd file that holds the binary data of the imzML file
+   */
+  @NotNull
+  public File findIbdFile() throws IOException {
+    final String name = imzMLFile.getName();
+    final int dot = name.lastIndexOf('.');
+    final String baseName = dot > 0 ? name.substring(0, dot) : name;
+    for (final String extension : new String[]{".ibd", ".IBD", ".Ibd"}) {
+      final File ibd = new File(imzMLFile.getParentFile(), baseName + extension);
+      if (ibd.exists()) {
+        return ibd;
+      }
+    }
+    throw new IOException("Cannot find the .ibd file of " + imzMLFile);
+  }
+
+  @NotNull
+  public List<ImzMLSpectrumInfo> getSpectra() {
+    return spectra;
+  }
+
+  /**
+   * In continuous mode (IMS:1000030), all spectra share the same m/z array. Instead of relying on
+   * the file content flag, this checks that all m/z arrays point to the same location in the .ibd
+   * file.
+   *
+   * @return true if all spectra share one m/z array
+   */
+  public boolean isContinuous() {
+    ImzMLBinaryArray sharedMzs = null;
+    for (ImzMLSpectrumInfo spectrum : spectra) {
+      if (!spectrum.hasData()) {
+        continue;
+      }
+      if (sharedMzs == null) {
+        sharedMzs = spectrum.mzs();
+      } else if (!sharedMzs.equals(spectrum.mzs())) {
+        return false;
+      }
+    }
+    return sharedMzs != null;
+  }
+
+  /**
+   * @return the number of bytes of the longest binary array
+   */
+  public long getMaxArrayByteLength() {
+    long max = 0;
+    for (ImzMLSpectrumInfo spectrum : spectra) {
+      if (spectrum.hasData()) {
+        max = Math.max(max, spectrum.mzs().byteLength());
+        max = Math.max(max, spectrum.intensities().byteLength());
+      }
+    }
+    return max;
+  }
+
+  /**
+   * @return the cv params of all scan settings by their accession
+   */
+  @NotNull
+  public Map<String, String> getScanSettings() {
+    return scanSettings;
+  }
+
+  /**
+   * Tracks the element that cv params are currently added to. Params of nested elements, e.g., scan
+   * or selected ion, are added to the enclosing spectrum.
+   */
+  private static final class Parser {
+
+    private final File imzMLFile;
+    private final List<ImzMLSpectrumInfo> spectra = new ArrayList<>();
+    private final Map<String, Map<String, String>> paramGroups = new HashMap<>();
+    private final Map<String, String> scanSettings = new HashMap<>();
+    private final Deque<Map<String, String>> paramTargets = new ArrayDeque<>();
+
+    private String spectrumId;
+    private Map<String, String> spectrumParams;
+    private final List<Map<String, String>> arrayParams = new ArrayList<>(2);
+
+    private Parser(File imzMLFile) {
+      this.imzMLFile = imzMLFile;
+    }
+
+    private ImzMLIndex parse(XMLStreamReader reader) throws XMLStreamException {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT -> openElement(reader, reader.getLocalName());
+          case XMLStreamConstants.END_ELEMENT -> closeElement(reader.getLocalName());
+        }
+      }
+      return new ImzMLIndex(imzMLFile, spectra, scanSettings);
+    }
+
+    private void openElement(XMLStreamReader reader, String name) {
+      switch (name) {
+        case MzMLTags.TAG_CV_PARAM -> {
+          final Map<String, String> target = paramTargets.peekFirst();
+          if (target != null) {
+            final String value = reader.getAttributeValue(null, MzMLTags.ATTR_VALUE);
+            target.put(reader.getAttributeValue(null, MzMLTags.ATTR_ACCESSION),
+                value == null ? "" : value);
+          }
+        }
+        case MzMLTags.TAG_REF_PARAM_GROUP_REF -> {
+          final Map<String, String> target = paramTargets.peekFirst();
+          final Map<String, String> group = paramGroups.get(
+              reader.getAttributeValue(null, ATTR_REF));
+          if (target != null && group != null) {
+            target.putAll(group);
+          }
+        }
+        case MzMLTags.TAG_REF_PARAM_GROUP -> {
+          final Map<String, String> group = new HashMap<>();
+          paramGroups.put(reader.getAttributeValue(null, MzMLTags.ATTR_ID), group);
+          paramTargets.push(group);
+        }
+        case TAG_SCAN_SETTINGS -> paramTargets.push(scanSettings);
+        case MzMLTags.TAG_SPECTRUM -> {
+          spectrumId = reader.getAttributeValue(null, MzMLTags.ATTR_ID);
+          spectrumParams = new HashMap<>();
+          arrayParams.clear();
+          paramTargets.push(spectrumParams);
+        }
+        case MzMLTags.TAG_BINARY_DATA_ARRAY -> {
+          final Map<String, String> params = new HashMap<>();
+          arrayParams.add(params);
+          paramTargets.push(params);
+        }
+        default -> {
+        }
+      }
+    }
+
+    private void closeElement(String name) {
+      switch (name) {
+        case MzMLTags.TAG_REF_PARAM_GROUP, TAG_SCAN_SETTINGS, MzMLTags.TAG_BINARY_DATA_ARRAY ->
+            paramTargets.pop();
+        case MzMLTags.TAG_SPECTRUM -> {
+          paramTargets.pop();
+          spectra.add(createSpectrum());
+          spectrumParams = null;
+        }
+        default -> {
+        }
+      }
+    }
+
+    private ImzMLSpectrumInfo createSpectrum() {
+      ImzMLBinaryArray mzs = null;
+      ImzMLBinaryArray intensities = null;
+      for (Map<String, String> params : arrayParams) {
+        if (params.containsKey(MzMLArrayType.MZ.getAccession())) {
+          mzs = createBinaryArray(params);
+        } else if (params.containsKey(MzMLArrayType.INTENSITY.getAccession())) {
+          intensities = createBinaryArray(params);
+        }
+      }
+
+      final Map<String, String> params = spectrumParams;
+      final PolarityType polarity;
+      if (params.containsKey(MzMLCV.cvPolarityPositive)) {
+        polarity = PolarityType.POSITIVE;
+      } else if (params.containsKey(MzMLCV.cvPolarityNegative)) {
+        polarity = PolarityType.NEGATIVE;
+      } else {
+        polarity = PolarityType.UNKNOWN;
+      }
+
+      double precursorMz = parseDouble(params.get("MS:1000744"), 0d);
+      if (precursorMz == 0d) {
+        precursorMz = parseDouble(params.get("MS:1000040"), 0d);
+      }
+
+      return new ImzMLSpectrumInfo(spectrumId, createCoordinates(params),
+          (float) parseDouble(params.get(MzMLCV.MS_RT_SCAN_START), 0d), polarity,
+          params.getOrDefault(MzMLCV.cvScanFilterString, spectrumId), precursorMz,
+          (int) parseDouble(params.get("MS:1000041"), 0d),
+          !params.containsKey(MzMLCV.cvUVSpectrum), mzs, intensities);
+    }
+
+    @Nullable
+    private ImzMLBinaryArray createBinaryArray(Map<String, String> params) {
+      if (params.containsKey(CV_ZLIB_COMPRESSION)) {
+        throw new IllegalStateException(
+            "Compressed binary data is not supported in imzML files (spectrum " + spectrumId + ")");
+      }
+      final String offset = params.get(CV_EXTERNAL_OFFSET);
+      final String length = params.get(CV_EXTERNAL_ARRAY_LENGTH);
+      if (offset == null || length == null) {
+        return null;
+      }
+
+      MzMLBitLength bitLength = null;
+      for (MzMLBitLength bl : MzMLBitLength.values()) {
+        if (params.containsKey(bl.getAccession())) {
+          bitLength = bl;
+          break;
+        }
+      }
+      if (bitLength == null) {
+        if (params.containsKey(CV_INT_32)) {
+          bitLength = MzMLBitLength.THIRTY_TWO_BIT_INTEGER;
+        } else if (params.containsKey(CV_INT_64)) {
+          bitLength = MzMLBitLength.SIXTY_FOUR_BIT_INTEGER;
+        } else {
+          throw new IllegalStateException(
+              "No binary data type defined for spectrum " + spectrumId);
+        }
+      }
+      return new ImzMLBinaryArray(Long.parseLong(offset.trim()), Integer.parseInt(length.trim()),
+          bitLength);
+    }
+
+    @Nullable
+    private static Coordinates createCoordinates(Map<String, String> params) {
+      final String x = params.get(CV_POSITION_X);
+      final String y = params.get(CV_POSITION_Y);
+      if (x == null || y == null) {
+        return null;
+      }
+      final String z = params.get(CV_POSITION_Z);
+      // imzML positions are 1-based
+      return new Coordinates(Integer.parseInt(x.trim()) - 1, Integer.parseInt(y.trim()) - 1,
+          z == null ? 0 : Integer.parseInt(z.trim()) - 1);
+    }
+
+    private static double parseDouble(@Nullable String value, double defaultValue) {
+      if (value == null || value.isBlank()) {
+        return defaultValue;
+      }
+      try {
+        return Double.parseDouble(value.trim());
+      } catch (NumberFormatException e) {
+        return defaultValue;
+      }
+    }
+  }
+}
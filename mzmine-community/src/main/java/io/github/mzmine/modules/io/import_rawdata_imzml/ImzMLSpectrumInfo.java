@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import io.github.mzmine.datamodel.PolarityType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Metadata of a single spectrum in an imzML file and the location of its data in the .ibd file.
+ *
+ * @param id          the spectrum id
+ * @param coordinates 0-based pixel coordinates or null if no position was specified
+ * @param mzs         the m/z array or null if the spectrum defines no m/z array
+ * @param intensities the intensity array or null if the spectrum defines no intensity array
+ * @param isMs        false for spectra that are no mass spectra, e.g., UV spectra
+ */
+public record ImzMLSpectrumInfo(String id, @Nullable Coordinates coordinates, float retentionTime,
+                                PolarityType polarity, @Nullable String scanDefinition,
+                                double precursorMz, int precursorCharge, boolean isMs,
+                                @Nullable ImzMLBinaryArray mzs,
+                                @Nullable ImzMLBinaryArray intensities) {
+
+  /**
+   * @return true if both data arrays are defined
+   */
+  public boolean hasData() {
+    return mzs != null && intensities != null;
+  }
+}
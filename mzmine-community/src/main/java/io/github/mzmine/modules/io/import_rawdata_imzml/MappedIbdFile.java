@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Read-only memory map of an .ibd file. The file is mapped in windows of 1 GB that overlap by the
+ * longest binary array, so every array lies completely within one window and is decoded without
+ * copying the raw bytes. Reading is thread safe.
+ */
+public final class MappedIbdFile {
+
+  private static final int WINDOW_SHIFT = 30;
+  private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+
+  private final File file;
+  private final long size;
+  private final MappedByteBuffer[] windows;
+
+  private MappedIbdFile(File file, long size, MappedByteBuffer[] windows) {
+    this.file = file;
+    this.size = size;
+    this.windows = windows;
+  }
+
+  /**
+   * @param maxArrayByteLength the length of the longest array in bytes, see
+   *                           {@link ImzMLIndex#getMaxArrayByteLength()}
+   */
+  @NotNull
+  public static MappedIbdFile map(@NotNull File ibdFile, long maxArrayByteLength)
+      throws IOException {
+    if (WINDOW_SIZE + maxArrayByteLength > Integer.MAX_VALUE) {
+      throw new IOException(
+          "Binary array of " + maxArrayByteLength + " bytes exceeds the supported length");
+    }
+    try (FileChannel channel = FileChannel.open(ibdFile.toPath(), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      final int numWindows = (int) Math.max(1, Math.ceilDiv(size, WINDOW_SIZE));
+      final MappedByteBuffer[] windows = new MappedByteBuffer[numWindows];
+      for (int i = 0; i < numWindows; i++) {
+        final long start = i * WINDOW_SIZE;
+        final long length = Math.min(size - start, WINDOW_SIZE + maxArrayByteLength);
+        windows[i] = channel.map(MapMode.READ_ONLY, start, Math.max(0, length));
+      }
+      // the mapping stays valid after the channel is closed
+      return new MappedIbdFile(ibdFile, size, windows);
+    }
+  }
+
+  /**
+   * Decodes a binary array. imzML data is always stored little endian.
+   *
+   * @return the decoded values
+   */
+  public double[] read(@NotNull ImzMLBinaryArray array) throws IOException {
+    final long byteLength = array.byteLength();
+    if (array.offset() < 0 || array.offset() + byteLength > size) {
+      throw new IOException(
+          "Binary array at offset %d with %d bytes exceeds the size of %s".formatted(
+              array.offset(), byteLength, file));
+    }
+
+    final int window = (int) (array.offset() >>> WINDOW_SHIFT);
+    final int start = (int) (array.offset() - window * WINDOW_SIZE);
+    // absolute slice, does not change the state of the shared window
+    final ByteBuffer bytes = windows[window].slice(start, (int) byteLength)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    final double[] values = new double[array.length()];
+    switch (array.bitLength()) {
+      case SIXTY_FOUR_BIT_FLOAT -> {
+        final DoubleBuffer buffer = bytes.asDoubleBuffer();
+        buffer.get(0, values);
+      }
+      case THIRTY_TWO_BIT_FLOAT -> {
+        final FloatBuffer buffer = bytes.asFloatBuffer();
+        for (int i = 0; i < values.length; i++) {
+          values[i] = buffer.get(i);
+        }
+      }
+      case THIRTY_TWO_BIT_INTEGER -> {
+        final IntBuffer buffer = bytes.asIntBuffer();
+        for (int i = 0; i < values.length; i++) {
+          values[i] = buffer.get(i);
+        }
+      }
+      case SIXTY_FOUR_BIT_INTEGER -> {
+        final LongBuffer buffer = bytes.asLongBuffer();
+        for (int i = 0; i < values.length; i++) {
+          values[i] = buffer.get(i);
+        }
+      }
+      case SIXTEEN_BIT_FLOAT -> {
+        final ShortBuffer buffer = bytes.asShortBuffer();
+        for (int i = 0; i < values.length; i++) {
+          values[i] = Float.float16ToFloat(buffer.get(i));
+        }
+      }
+    }
+    return values;
+  }
+}
@@ -32,11 +32,13 @@ import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.util.TagTracker;
 import io.github.mzmine.util.MemoryMapStorage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -55,11 +57,16 @@ import org.jetbrains.annotations.NotNull;
 public class MzMLParser {
 
   private static final Logger logger = Logger.getLogger(MzMLParser.class.getName());
+  // limits the decoded spectra in memory that wait for their predecessors
+  private static final int MAX_PENDING_SCANS = Math.max(8,
+      Runtime.getRuntime().availableProcessors() * 4);
 
   private final Vars vars;
   private final TagTracker tracker;
   private final MemoryMapStorage storage;
   private final @NotNull ScanImportProcessorConfig scanProcessorConfig;
+  // scans are decoded, processed and memory mapped concurrently but added in the order of the file
+  private final ArrayDeque<PendingScan> pendingScans = new ArrayDeque<>();
 
   private int totalScans = 0, parsedScans = 0;
   private final MzMLRawDataFile newRawFile;
@@ -510,6 +517,7 @@ public class MzMLParser {
     }
     if (closingTagName.contentEquals(MzMLTags.TAG_SPECTRUM_LIST)) {
       // finished the last scan
+      addLoadedScans(true);
       vars.memoryMapAndClearFrameMobilityScanData(storage);
     }
 
@@ -527,19 +535,40 @@ public class MzMLParser {
 
   /**
    * Called when spectrum end is read. Check if spectrum is filtered - skip this scan if not in
-   * filter. Then process data points and memory map resulting data to disk to save RAM.
+   * filter. Then process data points and memory map resulting data to disk to save RAM. The
+   * decoding (Base64, zlib, numpress), processing and storage runs on the common pool while the
+   * XML stream is read further.
    */
   private void filterProcessFinalizeScan() {
     var spectrum = vars.spectrum;
 //    logger.info(STR."Finalizing scan \{spectrum.getScanNumber()}");
     if (scanProcessorConfig.scanFilter().matches(spectrum)) {
-      if (spectrum.loadProcessMemMapData(storage, scanProcessorConfig)) {
-        vars.addSpectrumToList(storage, spectrum);
-      }
+      pendingScans.add(new PendingScan(spectrum, CompletableFuture.supplyAsync(
+          () -> spectrum.loadProcessMemMapData(storage, scanProcessorConfig))));
+      addLoadedScans(false);
     }
     vars.spectrum = null;
   }
 
+  /**
+   * Adds loaded scans in the original order. Mobility scans are grouped into frames by their order,
+   * so a scan is only added after all previous scans.
+   *
+   * @param all wait for all pending scans. Otherwise, only wait if too many scans are pending
+   */
+  private void addLoadedScans(boolean all) {
+    while (!pendingScans.isEmpty()) {
+      final PendingScan next = pendingScans.peekFirst();
+      if (!all && !next.loaded().isDone() && pendingScans.size() < MAX_PENDING_SCANS) {
+        return;
+      }
+      pendingScans.removeFirst();
+      if (next.loaded().join()) {
+        vars.addSpectrumToList(storage, next.scan());
+      }
+    }
+  }
+
   /**
    * <p>
    * Carry out the required parsing of the mzML data when the
@@ -693,6 +722,15 @@ public class MzMLParser {
     return newRawFile;
   }
 
+  /**
+   * A scan that is decoded and processed in parallel
+   *
+   * @param loaded true if the data was loaded, false if there was no data or an error
+   */
+  private record PendingScan(BuildingMzMLMsScan scan, CompletableFuture<Boolean> loaded) {
+
+  }
+
   /**
    * Static class for holding temporary instances of variables initialized while parsing
    */
@@ -29,6 +29,8 @@ import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryReader;
+import io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryWriter;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
 import io.github.mzmine.util.spectraldb.parser.AutoLibraryParser;
@@ -97,13 +99,42 @@ public class SpectralLibraryImportTask extends AbstractTask {
   }
 
   /**
-   * Load all library entries from data base file
+   * Load all library entries from data base file. Maps the columnar file of a previous import if it
+   * matches the current data base file, otherwise the file is parsed and the columnar file written
+   * to the library cache in the temp directory for the next import.
    *
    * @param dataBaseFile the target database file
    */
   private SpectralLibrary parseFile(File dataBaseFile)
       throws UnsupportedFormatException, IOException {
-    //
+    try {
+      final SpectralLibrary mapped = ColumnarLibraryReader.read(dataBaseFile, this);
+      if (mapped != null) {
+        logger.fine(() -> "Mapped columnar library file of " + dataBaseFile);
+        return mapped;
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING,
+          "Cannot read columnar library file of %s, will parse the library instead".formatted(
+              dataBaseFile), e);
+    }
+
+    final SpectralLibrary library = parseLibraryFile(dataBaseFile);
+    if (!isCanceled() && library.size() > 0) {
+      try {
+        ColumnarLibraryWriter.write(library, dataBaseFile, this);
+      } catch (IOException | RuntimeException e) {
+        // optional cache, the temp directory may be full or read-only
+        logger.log(Level.WARNING,
+            "Cannot write columnar library file of %s: %s".formatted(dataBaseFile,
+                e.getMessage()));
+      }
+    }
+    return library;
+  }
+
+  private SpectralLibrary parseLibraryFile(File dataBaseFile)
+      throws UnsupportedFormatException, IOException {
     SpectralLibrary library = new SpectralLibrary(MemoryMapStorage.forMassList(), dataBaseFile);
     parser = new AutoLibraryParser(1000, (list, alreadyProcessed) -> library.addEntries(list));
     // return tasks
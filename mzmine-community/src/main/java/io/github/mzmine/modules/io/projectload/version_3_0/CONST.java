@@ -75,6 +75,13 @@ public class CONST {
   public static final String XML_ROW_ELEMENT = "row";
   public static final String XML_FEATURE_LIST_ELEMENT = "featurelist";
   public static final String XML_ROOT_ELEMENT = "root";
+  public static final String XML_FLIST_DATA_VERSION_ATTR = "dataversion";
+  /**
+   * Feature data version that stores series values in a binary entry next to the data xml. Missing
+   * version attribute means all values are stored as text in the xml.
+   */
+  public static final int FLIST_DATA_VERSION_BINARY_SERIES = 2;
+  public static final String XML_BINARY_OFFSET_ATTR = "binaryoffset";
 
   public static final String XML_FLIST_METADATA_ELEMENT = "metadata";
   public static final String XML_FLIST_DATE_CREATED_ELEMENT = "date";
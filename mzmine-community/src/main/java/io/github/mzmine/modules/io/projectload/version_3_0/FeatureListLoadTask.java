@@ -43,22 +43,23 @@ import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.ParsingUtils;
-import io.github.mzmine.util.ZipUtils;
-import io.github.mzmine.util.files.FileAndPathUtil;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -81,7 +82,6 @@ import org.xml.sax.SAXException;
 
 public class FeatureListLoadTask extends AbstractTask {
 
-  public static final String TEMP_FLIST_DATA_FOLDER = "mzmine_featurelists_temp";
   public static final Pattern fileNamePattern = Pattern
       .compile("([^\\n]+)(" + FeatureListSaveTask.DATA_FILE_SUFFIX + ")");
 
@@ -89,12 +89,10 @@ public class FeatureListLoadTask extends AbstractTask {
   final String idTypeUniqueID = new IDType().getUniqueID();
   private final ZipFile zip;
   private final MZmineProject project;
-  private final AtomicInteger rowCounter = new AtomicInteger(0);
-  private int totalRows = 1;
-  private int processedRows = 0;
-  private String currentFlist = "";
+  private final AtomicInteger processedFlists = new AtomicInteger(0);
   private int numFlists = 1;
-  private int processedFlists;
+  // progress of each feature list entry, both arrays are replaced together
+  private volatile RowProgress rowProgress = new RowProgress(0);
 
   public FeatureListLoadTask(@Nullable MemoryMapStorage storage, @NotNull MZmineProject project,
       ZipFile zip) {
@@ -132,65 +130,78 @@ public class FeatureListLoadTask extends AbstractTask {
 
   @Override
   public String getTaskDescription() {
-    return "Importing feature list " + currentFlist + (processedFlists + 1) + "/" + numFlists
-           + ". Parsing row " + processedRows + "/" + totalRows;
+    return "Importing feature lists " + processedFlists.get() + "/" + numFlists;
   }
 
   @Override
   public double getFinishedPercentage() {
-    return (double) processedFlists / numFlists // overall progress finished flists
-           + (double) processedRows / totalRows / numFlists; // current flist progress
+    final RowProgress progress = rowProgress;
+    final int n = progress.totalRows().length();
+    if (n == 0) {
+      return 0;
+    }
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += (double) progress.processedRows().get(i) / Math.max(progress.totalRows().get(i), 1);
+    }
+    return sum / n;
   }
 
   @Override
   public void run() {
     setStatus(TaskStatus.PROCESSING);
     try {
-      Path tempDirectory = FileAndPathUtil.createTempDirectory(TEMP_FLIST_DATA_FOLDER);
-
-      logger.info(() -> "Unzipping feature lists of project to " + tempDirectory.toString());
-      ZipUtils.unzipDirectory(FeatureListSaveTask.FLIST_FOLDER, zip, tempDirectory.toFile());
-      logger.info(() -> "Unzipping feature lists done.");
-
-      File[] files = new File(tempDirectory.toFile(), FeatureListSaveTask.FLIST_FOLDER)
-          .listFiles((dir, name) -> fileNamePattern.matcher(name).matches());
-      if (files == null) {
+      // feature lists are read directly from the zip, each in its own thread
+      final List<? extends ZipEntry> dataEntries = zip.stream().filter(
+          e -> e.getName().startsWith(FeatureListSaveTask.FLIST_FOLDER) && fileNamePattern.matcher(
+              e.getName()).matches()).toList();
+      if (dataEntries.isEmpty()) {
         logger.info("Did not find feature lists to load.");
         setStatus(TaskStatus.FINISHED);
         return;
       }
 
-      numFlists = files.length;
-
-      final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
+      numFlists = dataEntries.size();
+      rowProgress = new RowProgress(numFlists);
 
       // enable caching of mobility scans during project import.
       project.setProjectLoadImsImportCaching(true);
 
-      for (File flistFile : files) {
+      final ModularFeatureList[] flists = new ModularFeatureList[numFlists];
+      // a broken feature list must not abort the import of the others
+      final String[] errors = new String[numFlists];
+      IntStream.range(0, numFlists).parallel().forEach(i -> {
         if (isCanceled()) {
           return;
         }
-        rowCounter.set(0);
-
-        final File metadataFile = new File(flistFile.toString()
-            .replace(FeatureListSaveTask.DATA_FILE_SUFFIX,
-                FeatureListSaveTask.METADATA_FILE_SUFFIX));
-        ModularFeatureList flist = createRows(storage, flistFile, metadataFile);
-
-        if (flist == null) {
-          logger.severe(
-              () -> "Cannot load feature list from files " + flistFile.getAbsolutePath() + " and "
-                    + metadataFile.getAbsolutePath());
-          continue;
+        try {
+          // separate storage for each feature list, as they are loaded concurrently
+          flists[i] = loadFeatureList(i, dataEntries.get(i), MemoryMapStorage.forFeatureList());
+        } catch (Exception e) {
+          logger.log(Level.SEVERE, e,
+              () -> "Cannot load feature list " + dataEntries.get(i).getName());
+          errors[i] = dataEntries.get(i).getName() + ": " + e.getMessage();
         }
-        parseFeatureList(storage, project, flist, flistFile);
+        processedFlists.incrementAndGet();
+      });
+      if (isCanceled()) {
+        project.setProjectLoadImsImportCaching(false);
+        return;
+      }
 
-        // disable buffering after the import (replace references to CachedIMSRawDataFiles with IMSRawDataFiles
-        flist.replaceCachedFilesAndScans();
+      // keep the order of the project file
+      for (ModularFeatureList flist : flists) {
+        if (flist != null) {
+          project.addFeatureList(flist);
+        }
+      }
 
-        project.addFeatureList(flist);
-        processedFlists++;
+      final String failed = Arrays.stream(errors).filter(Objects::nonNull)
+          .collect(Collectors.joining("\n"));
+      if (!failed.isEmpty()) {
+        // the project opening task waits for this task to finish, report but do not set an error
+        MZmineCore.getDesktop()
+            .displayErrorMessage("The following feature lists could not be loaded:\n" + failed);
       }
     } catch (Exception e) {
       e.printStackTrace();
@@ -206,66 +217,116 @@ public class FeatureListLoadTask extends AbstractTask {
     setStatus(TaskStatus.FINISHED);
   }
 
-  private void parseFeatureList(MemoryMapStorage storage, MZmineProject project,
-      ModularFeatureList flist, File flistFile) {
-    currentFlist = flist.getName();
-    processedRows = 0;
-    totalRows = flist.getNumberOfRows();
+  /**
+   * Loads a single feature list from its zip entries
+   *
+   * @param index     index of this feature list for progress reporting
+   * @param dataEntry the feature list data entry
+   * @return the feature list or null if it could not be loaded
+   */
+  @Nullable
+  private ModularFeatureList loadFeatureList(int index, ZipEntry dataEntry,
+      MemoryMapStorage storage) {
+    final ZipEntry metadataEntry = zip.getEntry(dataEntry.getName()
+        .replace(FeatureListSaveTask.DATA_FILE_SUFFIX, FeatureListSaveTask.METADATA_FILE_SUFFIX));
+    final ZipEntry seriesEntry = zip.getEntry(dataEntry.getName()
+        .replace(FeatureListSaveTask.DATA_FILE_SUFFIX, FeatureListSaveTask.SERIES_FILE_SUFFIX));
+
+    ModularFeatureList flist = metadataEntry == null ? null
+        : createRows(storage, dataEntry, metadataEntry);
+    if (flist == null) {
+      logger.severe(() -> "Cannot load feature list from entries " + dataEntry.getName() + " and "
+                          + (metadataEntry == null ? "missing metadata" : metadataEntry.getName()));
+      return null;
+    }
+    rowProgress.totalRows().set(index, flist.getNumberOfRows());
+    parseFeatureList(storage, project, flist, dataEntry, seriesEntry, index);
 
-    try (InputStream fis = new FileInputStream(flistFile)) {
+    // disable buffering after the import (replace references to CachedIMSRawDataFiles with IMSRawDataFiles
+    flist.replaceCachedFilesAndScans();
+    return flist;
+  }
+
+  private void parseFeatureList(MemoryMapStorage storage, MZmineProject project,
+      ModularFeatureList flist, ZipEntry dataEntry, @Nullable ZipEntry seriesEntry, int index) {
+    try (InputStream fis = zip.getInputStream(dataEntry)) {
       final XMLInputFactory xif = XMLInputFactory.newInstance();
-      final XMLStreamReader reader = xif.createXMLStreamReader(fis);
+      XMLStreamReader reader = xif.createXMLStreamReader(fis);
+      if (seriesEntry != null) {
+        reader = new SeriesBinaryXMLStreamReader(reader,
+            new BufferedInputStream(zip.getInputStream(seriesEntry)));
+      }
 
-      while (reader.hasNext()) {
-        if (isCanceled()) {
-          return;
-        }
+      try {
+        int rowIndex = 0;
+        while (reader.hasNext()) {
+          if (isCanceled()) {
+            return;
+          }
 
-        int type = reader.next();
-        if (type == XMLEvent.START_ELEMENT) {
-          final String localName = reader.getLocalName();
-          if (CONST.XML_FEATURE_LIST_ELEMENT.equals(localName)) {
-            if (!flist.getName().equals(reader.getAttributeValue(null, CONST.XML_FLIST_NAME_ATTR))
-                || !flist.getDateCreated()
-                .equals(reader.getAttributeValue(null, CONST.XML_DATE_CREATED_ATTR))) {
-              throw new IllegalArgumentException(
-                  "Feature list names do not match. " + flist.getName() + " != " + reader
-                      .getAttributeValue(null, CONST.XML_FLIST_NAME_ATTR));
+          int type = reader.next();
+          if (type == XMLEvent.START_ELEMENT) {
+            final String localName = reader.getLocalName();
+            if (CONST.XML_FEATURE_LIST_ELEMENT.equals(localName)) {
+              if (!flist.getName()
+                  .equals(reader.getAttributeValue(null, CONST.XML_FLIST_NAME_ATTR))
+                  || !flist.getDateCreated()
+                  .equals(reader.getAttributeValue(null, CONST.XML_DATE_CREATED_ATTR))) {
+                throw new IllegalArgumentException(
+                    "Feature list names do not match. " + flist.getName() + " != " + reader
+                        .getAttributeValue(null, CONST.XML_FLIST_NAME_ATTR));
+              }
+              checkDataVersion(reader, dataEntry);
+            } else if (CONST.XML_ROW_ELEMENT.equals(localName)) {
+              parseRow(reader, storage, project, flist, rowIndex++);
+              rowProgress.processedRows().incrementAndGet(index);
             }
-          } else if (CONST.XML_ROW_ELEMENT.equals(localName)) {
-            parseRow(reader, storage, project, flist);
-            processedRows++;
           }
         }
+      } finally {
+        reader.close();
       }
 
     } catch (IOException | XMLStreamException e) {
-      logger.log(Level.WARNING, "Error opening file " + flistFile.getAbsolutePath(), e);
+      logger.log(Level.WARNING, "Error opening entry " + dataEntry.getName(), e);
+    }
+  }
+
+  /**
+   * Feature lists saved with binary series data cannot be loaded without the binary entry.
+   */
+  private static void checkDataVersion(XMLStreamReader reader, ZipEntry dataEntry) {
+    final String version = reader.getAttributeValue(null, CONST.XML_FLIST_DATA_VERSION_ATTR);
+    if (version != null && Integer.parseInt(version) >= CONST.FLIST_DATA_VERSION_BINARY_SERIES
+        && !(reader instanceof SeriesBinaryXMLStreamReader)) {
+      throw new IllegalStateException(
+          "Feature list data " + dataEntry.getName() + " references binary series data but "
+              + FeatureListSaveTask.SERIES_FILE_SUFFIX + " is missing in the project.");
     }
   }
 
   /**
    * Creates the modular feature list from the metadata file using {@link
-   * this#readMetadataCreateFeatureList(File, MemoryMapStorage)}.
+   * this#readMetadataCreateFeatureList(ZipEntry, MemoryMapStorage)}.
    * <p></p>
    * Then passes the feature list data file once and creates the rows with the associated ids. No
    * other data will be put into the rows. This is done so rows can reference each other by their id
    * while being loaded to the feature list.
    *
-   * @param storage      The storage for the feature list.
-   * @param dataFile     The file containing the feature list data.
-   * @param metadataFile The file containign the metadata associated with the feature list.
+   * @param storage       The storage for the feature list.
+   * @param dataEntry     The entry containing the feature list data.
+   * @param metadataEntry The entry containing the metadata associated with the feature list.
    * @return The created feature list with empty rows (row ids are set)
    */
-  private ModularFeatureList createRows(MemoryMapStorage storage, File dataFile,
-      File metadataFile) {
+  private ModularFeatureList createRows(MemoryMapStorage storage, ZipEntry dataEntry,
+      ZipEntry metadataEntry) {
 
-    ModularFeatureList flist = readMetadataCreateFeatureList(metadataFile, storage);
+    ModularFeatureList flist = readMetadataCreateFeatureList(metadataEntry, storage);
     if (flist == null) {
       throw new IllegalStateException("Cannot create feature list.");
     }
 
-    try (InputStream fis = new FileInputStream(dataFile)) {
+    try (InputStream fis = zip.getInputStream(dataEntry)) {
       final XMLInputFactory xif = XMLInputFactory.newInstance();
       final XMLStreamReader reader = xif.createXMLStreamReader(fis);
 
@@ -293,16 +354,17 @@ public class FeatureListLoadTask extends AbstractTask {
    * Creates a feature list from the metadata xml file. Adds the selected raw data files (must be in
    * the loaded project) and sets the selected scans.
    *
-   * @param file    The Metadata file.
+   * @param file    The Metadata entry.
    * @param storage The storage to use for the feature list.
    * @return The created feature list.
    */
-  private ModularFeatureList readMetadataCreateFeatureList(File file, MemoryMapStorage storage) {
-    try {
+  private ModularFeatureList readMetadataCreateFeatureList(ZipEntry file,
+      MemoryMapStorage storage) {
+    try (InputStream is = zip.getInputStream(file)) {
       DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
 
       DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-      Document configuration = dBuilder.parse(file);
+      Document configuration = dBuilder.parse(is);
 
       XPathFactory factory = XPathFactory.newInstance();
       XPath xpath = factory.newXPath();
@@ -381,13 +443,13 @@ public class FeatureListLoadTask extends AbstractTask {
   }
 
   private void parseRow(XMLStreamReader reader, MemoryMapStorage storage, MZmineProject project,
-      ModularFeatureList flist) throws XMLStreamException {
+      ModularFeatureList flist, int rowIndex) throws XMLStreamException {
     if (!reader.getLocalName().equals(CONST.XML_ROW_ELEMENT)) {
       throw new IllegalStateException("Cannot parse row if current element is not a row element");
     }
 
     int id = Integer.parseInt(reader.getAttributeValue(null, idTypeUniqueID));
-    final ModularFeatureListRow row = (ModularFeatureListRow) flist.getRow(rowCounter.get());
+    final ModularFeatureListRow row = (ModularFeatureListRow) flist.getRow(rowIndex);
     if (id != row.getID()) {
       throw new IllegalStateException("Row ids do not match.");
     }
@@ -423,7 +485,6 @@ public class FeatureListLoadTask extends AbstractTask {
         }
       }
     }
-    rowCounter.getAndIncrement();
   }
 
   private void parseFeature(@NotNull XMLStreamReader reader, @Nullable MemoryMapStorage storage,
@@ -462,4 +523,14 @@ public class FeatureListLoadTask extends AbstractTask {
 
     row.addFeature(originalFile, feature);
   }
+
+  /**
+   * Number of rows and processed rows of each feature list entry
+   */
+  private record RowProgress(AtomicIntegerArray totalRows, AtomicIntegerArray processedRows) {
+
+    RowProgress(int numFlists) {
+      this(new AtomicIntegerArray(numFlists), new AtomicIntegerArray(numFlists));
+    }
+  }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.projectload.version_3_0;
+
+import io.github.mzmine.modules.io.projectsave.SeriesBinaryXMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Xml reader with access to the binary series values written by
+ * {@link SeriesBinaryXMLStreamWriter}. The binary data is streamed, so blocks must be read in the
+ * order they were written, which is the order of the referencing xml elements. Blocks that are not
+ * read are skipped.
+ */
+public class SeriesBinaryXMLStreamReader extends StreamReaderDelegate {
+
+  private final InputStream binaryData;
+  private long position = 0;
+
+  /**
+   * @param reader     the xml reader to delegate to
+   * @param binaryData the binary series data of the same feature list, closed with this reader
+   */
+  public SeriesBinaryXMLStreamReader(@NotNull XMLStreamReader reader,
+      @NotNull InputStream binaryData) {
+    super(reader);
+    this.binaryData = binaryData;
+  }
+
+  /**
+   * Reads a block written by {@link SeriesBinaryXMLStreamWriter#writeSeries(int[], double[],
+   * double[])}. All arrays must have the length of the block.
+   *
+   * @param offset the offset of the block, must not be before the end of the last read block
+   */
+  public void readSeries(long offset, int[] scanIndices, double[] mzs, double[] intensities)
+      throws XMLStreamException {
+    if (offset < position) {
+      throw new XMLStreamException(
+          "Binary series data at offset " + offset + " was already passed (" + position + ")");
+    }
+    final int n = scanIndices.length;
+    final int length = n * (Integer.BYTES + 2 * Double.BYTES);
+    final byte[] bytes;
+    try {
+      binaryData.skipNBytes(offset - position);
+      bytes = binaryData.readNBytes(length);
+    } catch (IOException e) {
+      throw new XMLStreamException("Cannot read binary series data", e);
+    }
+    if (bytes.length < length) {
+      throw new XMLStreamException("Binary series data ended unexpectedly at offset " + offset);
+    }
+    position = offset + length;
+
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asIntBuffer().get(scanIndices);
+    buffer.position(n * Integer.BYTES);
+    buffer.asDoubleBuffer().get(mzs);
+    buffer.position(n * (Integer.BYTES + Double.BYTES));
+    buffer.asDoubleBuffer().get(intensities);
+  }
+
+  /**
+   * Closes the xml reader and the binary data
+   */
+  @Override
+  public void close() throws XMLStreamException {
+    try {
+      binaryData.close();
+    } catch (IOException e) {
+      throw new XMLStreamException("Cannot close binary series data", e);
+    }
+    super.close();
+  }
+}
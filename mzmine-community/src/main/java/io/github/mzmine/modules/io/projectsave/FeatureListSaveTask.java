@@ -25,7 +25,6 @@
 
 package io.github.mzmine.modules.io.projectsave;
 
-import com.sun.xml.txw2.output.IndentingXMLStreamWriter;
 import io.github.mzmine.datamodel.FeatureStatus;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
@@ -73,6 +72,7 @@ public class FeatureListSaveTask extends AbstractTask {
 
   public static final String METADATA_FILE_SUFFIX = "_metadata.xml";
   public static final String DATA_FILE_SUFFIX = "_data.xml";
+  public static final String SERIES_FILE_SUFFIX = "_series.bin";
   public static final String FLIST_FOLDER = "featurelists/";
   private static final Logger logger = Logger.getLogger(FeatureListSaveTask.class.getName());
   private static final IDType idType = new IDType();
@@ -95,6 +95,10 @@ public class FeatureListSaveTask extends AbstractTask {
     return FLIST_FOLDER + CONST.XML_FEATURE_LIST_ELEMENT + "_" + flistname + DATA_FILE_SUFFIX;
   }
 
+  public static String getSeriesFileName(String flistname) {
+    return FLIST_FOLDER + CONST.XML_FEATURE_LIST_ELEMENT + "_" + flistname + SERIES_FILE_SUFFIX;
+  }
+
   public static String getMetadataFileName(String flistname) {
     return FLIST_FOLDER + CONST.XML_FEATURE_LIST_ELEMENT + "_" + flistname + METADATA_FILE_SUFFIX;
   }
@@ -143,10 +147,12 @@ public class FeatureListSaveTask extends AbstractTask {
       appendMetadata(document, root, flist);
 
       XMLUtils.saveToFile(tempFile, document);
-      zos.putNextEntry(new ZipEntry(getMetadataFileName(flist.getName())));
 
       try (InputStream is = new FileInputStream(tempFile)) {
-        copy.copy(is, zos);
+        synchronized (zos) {
+          zos.putNextEntry(new ZipEntry(getMetadataFileName(flist.getName())));
+          copy.copy(is, zos);
+        }
       }
 
       tempFile.delete();
@@ -211,23 +217,30 @@ public class FeatureListSaveTask extends AbstractTask {
   private boolean saveFeatureData() {
     logger.finest(() -> "Creating temporary file for feature list " + flist.getName() + ".");
     File tempFile;
+    File seriesTempFile;
     try {
       tempFile = FileAndPathUtil.createTempFile("mzmine_featurelist_data", ".tmp");
+      seriesTempFile = FileAndPathUtil.createTempFile("mzmine_featurelist_series", ".tmp");
     } catch (IOException e) {
       logger.log(Level.SEVERE, "Cannot create temporary file.", e);
       setStatus(TaskStatus.ERROR);
       return false;
     }
 
+    final ZipEntry seriesEntry = new ZipEntry(getSeriesFileName(flist.getName()));
     try (OutputStream os = new FileOutputStream(tempFile)) {
       final XMLOutputFactory xof = XMLOutputFactory.newInstance();
-      final XMLStreamWriter writer = new IndentingXMLStreamWriter(xof.createXMLStreamWriter(os));
+      // series values are written to a binary file, see SeriesBinaryXMLStreamWriter
+      final SeriesBinaryXMLStreamWriter writer = new SeriesBinaryXMLStreamWriter(
+          xof.createXMLStreamWriter(os), seriesTempFile.toPath());
       writer.writeStartDocument("UTF-8", "1.0");
 
       writer.writeStartElement("featurelist");
       writer.writeAttribute(CONST.XML_FLIST_NAME_ATTR, flist.getName());
       writer.writeAttribute(CONST.XML_NUM_ROWS_ATTR, String.valueOf(flist.getNumberOfRows()));
       writer.writeAttribute(CONST.XML_DATE_CREATED_ATTR, flist.getDateCreated());
+      writer.writeAttribute(CONST.XML_FLIST_DATA_VERSION_ATTR,
+          String.valueOf(CONST.FLIST_DATA_VERSION_BINARY_SERIES));
 
       for (FeatureListRow r : flist.getRows()) {
         if (isCanceled()) {
@@ -243,6 +256,12 @@ public class FeatureListSaveTask extends AbstractTask {
       writer.writeEndDocument();
       writer.flush();
       writer.close();
+
+      // binary data barely compresses, store it so the zip stream is not blocked by deflating
+      seriesEntry.setMethod(ZipEntry.STORED);
+      seriesEntry.setSize(writer.getBinarySize());
+      seriesEntry.setCompressedSize(writer.getBinarySize());
+      seriesEntry.setCrc(writer.getBinaryCrc());
     } catch (IOException | XMLStreamException e) {
       logger.log(Level.SEVERE, e.getMessage(), e);
       setStatus(TaskStatus.ERROR);
@@ -251,16 +270,25 @@ public class FeatureListSaveTask extends AbstractTask {
 
     if (isCanceled()) {
       tempFile.delete();
+      seriesTempFile.delete();
       return false;
     }
 
-    try (FileInputStream is = new FileInputStream(tempFile)) {
-      zos.putNextEntry(new ZipEntry(getDataFileName(flist.getName())));
-      copy.copy(is, zos);
+    // multiple feature lists may be saved concurrently into the same zip stream
+    try (FileInputStream is = new FileInputStream(tempFile);
+        FileInputStream seriesIs = new FileInputStream(seriesTempFile)) {
+      synchronized (zos) {
+        zos.putNextEntry(new ZipEntry(getDataFileName(flist.getName())));
+        copy.copy(is, zos);
+        zos.putNextEntry(seriesEntry);
+        copy.copy(seriesIs, zos);
+      }
     } catch (IOException e) {
       logger.log(Level.SEVERE, e.getMessage(), e);
       setStatus(TaskStatus.ERROR);
       return false;
+    } finally {
+      seriesTempFile.delete();
     }
 
 //    tempFile.delete();
@@ -273,7 +301,7 @@ public class FeatureListSaveTask extends AbstractTask {
     writer.writeStartElement(CONST.XML_ROW_ELEMENT);
     writer.writeAttribute(idType.getUniqueID(), String.valueOf(row.getID()));
 
-    for (Entry<DataType, Object> entry : row.getMap().entrySet()) {
+    for (Entry<DataType, Object> entry : row.getValueMap().entrySet()) {
       DataType dataType = entry.getKey();
       Object value = entry.getValue();
       if (dataType instanceof FeaturesType) {
@@ -317,7 +345,7 @@ public class FeatureListSaveTask extends AbstractTask {
     writer.writeStartElement(CONST.XML_FEATURE_ELEMENT);
     writer.writeAttribute(CONST.XML_RAW_FILE_ELEMENT, rawDataFile.getName());
 
-    for (Entry<DataType, Object> entry : feature.getMap().entrySet()) {
+    for (Entry<DataType, Object> entry : feature.getValueMap().entrySet()) {
       writeDataType(writer, entry.getKey(), entry.getValue(), flist, row, feature, rawDataFile);
     }
 
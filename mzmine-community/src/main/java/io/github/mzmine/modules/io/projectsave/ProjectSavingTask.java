@@ -34,6 +34,7 @@ import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.project.impl.MZmineProjectImpl;
 import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.StreamCopy;
 import io.github.mzmine.util.exceptions.ExceptionUtils;
@@ -44,10 +45,12 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
@@ -74,6 +77,7 @@ public class ProjectSavingTask extends AbstractTask {
   private final Hashtable<RawDataFile, String> dataFilesIDMap;
   private RawDataFileSaveHandler rawDataFileSaveHandler;
   private UserParameterSaveHandler userParameterSaveHandler;
+  private List<FeatureListSaveTask> featureListSaveTasks = List.of();
   private int currentStage;
   private String currentSavedObjectName;
 
@@ -111,7 +115,10 @@ public class ProjectSavingTask extends AbstractTask {
         }
         break;
       case 3:
-        // todo update feature list saving progress
+        currentItemProgress = savedProject.getDataFiles().length;
+        for (FeatureListSaveTask task : featureListSaveTasks) {
+          currentItemProgress += task.getFinishedPercentage();
+        }
         break;
       case 4:
       case 5:
@@ -359,33 +366,36 @@ public class ProjectSavingTask extends AbstractTask {
   private void savePeakLists(ZipOutputStream zipStream)
       throws IOException, TransformerConfigurationException, SAXException {
 
+    // all feature lists are serialized concurrently, entries are appended to the zip one by one
     final List<FeatureList> currentFeatureLists = savedProject.getCurrentFeatureLists();
+    final AtomicInteger remaining = new AtomicInteger(currentFeatureLists.size());
+    final List<FeatureListSaveTask> saveTasks = new ArrayList<>();
     for (FeatureList featureList : currentFeatureLists) {
       FeatureListSaveTask saveTask = new FeatureListSaveTask((ModularFeatureList) featureList,
           zipStream);
 
-      AtomicBoolean finished = new AtomicBoolean(false);
       saveTask.addTaskStatusListener((task, newStatus, oldStatus) -> {
         switch (newStatus) {
           case WAITING, PROCESSING -> {
           }
           case FINISHED, ERROR, CANCELED -> {
-            finished.set(true);
+            remaining.decrementAndGet();
           }
         }
       });
-      MZmineCore.getTaskController().addTask(saveTask);
-
-      while (!finished.get()) {
-        try {
-          Thread.sleep(50);
-        } catch (InterruptedException e) {
-          logger.log(Level.SEVERE, e.getMessage(), e);
-        }
-      }
+      saveTasks.add(saveTask);
+    }
+    featureListSaveTasks = saveTasks;
+    MZmineCore.getTaskController().addTasks(saveTasks.toArray(Task[]::new));
 
+    while (remaining.get() > 0) {
       if (isCanceled()) {
-        break;
+        saveTasks.forEach(Task::cancel);
+      }
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        logger.log(Level.SEVERE, e.getMessage(), e);
       }
     }
   }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.projectsave;
+
+import com.sun.xml.txw2.output.IndentingXMLStreamWriter;
+import io.github.mzmine.modules.io.projectload.version_3_0.SeriesBinaryXMLStreamReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Indenting xml writer that additionally writes series values as little-endian binary blocks to a
+ * separate file. Elements reference their block by the offset returned by
+ * {@link #writeSeries(int[], double[], double[])}. Read with {@link SeriesBinaryXMLStreamReader}.
+ */
+public class SeriesBinaryXMLStreamWriter extends IndentingXMLStreamWriter {
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+  // checksum for stored zip entries
+  private final CRC32 crc = new CRC32();
+  private long position = 0;
+
+  /**
+   * @param writer     the xml writer to delegate to
+   * @param binaryFile the file to write series values to, will be overwritten
+   */
+  public SeriesBinaryXMLStreamWriter(@NotNull XMLStreamWriter writer, @NotNull Path binaryFile)
+      throws IOException {
+    super(writer);
+    channel = FileChannel.open(binaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Writes all scan indices followed by all m/z and intensity values. All arrays must have the same
+   * length.
+   *
+   * @return the offset of this block in the binary file
+   */
+  public long writeSeries(int[] scanIndices, double[] mzs, double[] intensities)
+      throws IOException {
+    if (scanIndices.length != mzs.length || mzs.length != intensities.length) {
+      throw new IllegalArgumentException("Length of scans, mz and intensity values does not match");
+    }
+    final long offset = position;
+    for (int index : scanIndices) {
+      ensureRemaining(Integer.BYTES);
+      buffer.putInt(index);
+    }
+    putDoubles(mzs);
+    putDoubles(intensities);
+    position += (long) scanIndices.length * (Integer.BYTES + 2 * Double.BYTES);
+    return offset;
+  }
+
+  private void putDoubles(double[] values) throws IOException {
+    for (double value : values) {
+      ensureRemaining(Double.BYTES);
+      buffer.putDouble(value);
+    }
+  }
+
+  private void ensureRemaining(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    buffer.flip();
+    crc.update(buffer);
+    buffer.rewind();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * @return the number of bytes written to the binary file
+   */
+  public long getBinarySize() {
+    return position;
+  }
+
+  /**
+   * @return the CRC-32 of the binary file, complete after {@link #close()}
+   */
+  public long getBinaryCrc() {
+    return crc.getValue();
+  }
+
+  /**
+   * Closes the xml writer and the binary file
+   */
+  @Override
+  public void close() throws XMLStreamException {
+    try {
+      flushBuffer();
+      channel.close();
+    } catch (IOException e) {
+      throw new XMLStreamException("Cannot write binary series data", e);
+    }
+    super.close();
+  }
+}
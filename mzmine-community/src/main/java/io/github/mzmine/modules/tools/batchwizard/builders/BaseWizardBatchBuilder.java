@@ -921,6 +921,7 @@ public abstract class BaseWizardBatchBuilder extends WizardBatchBuilder {
         .map(w -> w instanceof WorkflowDiaWizardParameters).orElse(false);
     boolean denormalize = massDetectorOption.getValueType() == FACTOR_OF_LOWEST_SIGNAL && !isDia;
     param.setParameter(MassDetectionParameters.denormalizeMSnScans, denormalize);
+    param.setParameter(MassDetectionParameters.createCentroidIndex, false);
 
     param.setParameter(MassDetectionParameters.dataFiles,
         new RawDataFilesSelection(RawDataFilesSelectionType.BATCH_LAST_FILES));
@@ -1144,6 +1145,7 @@ public abstract class BaseWizardBatchBuilder extends WizardBatchBuilder {
     param.setParameter(SpectralNetworkingParameters.MIN_MATCH, 4);
     param.setParameter(SpectralNetworkingParameters.CHECK_NEUTRAL_LOSS_SIMILARITY, false);
     param.setParameter(SpectralNetworkingParameters.MIN_COSINE_SIMILARITY, 0.7);
+    param.setParameter(SpectralNetworkingParameters.TOP_K_NEIGHBORS, false, 10);
     param.setParameter(SpectralNetworkingParameters.ONLY_BEST_MS2_SCAN, true);
     param.setParameter(SpectralNetworkingParameters.MZ_TOLERANCE, mzTolScans);
 
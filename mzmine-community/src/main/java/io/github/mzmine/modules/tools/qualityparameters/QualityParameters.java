@@ -36,7 +36,6 @@ import io.github.mzmine.datamodel.features.types.numbers.AsymmetryFactorType;
 import io.github.mzmine.datamodel.features.types.numbers.FwhmType;
 import io.github.mzmine.datamodel.features.types.numbers.RTRangeType;
 import io.github.mzmine.datamodel.features.types.numbers.TailingFactorType;
-import io.github.mzmine.util.DataPointUtils;
 import java.util.List;
 
 /**
@@ -72,7 +71,7 @@ public class QualityParameters {
 
       height = peak.getHeight();
       rt = peak.getRT();
-      double[] intensities = DataPointUtils.getDoubleBufferAsArray(dps.getIntensityValueBuffer());
+      double[] intensities = dps.getIntensityValues(new double[dps.getNumberOfValues()]);
 
       // FWHM
       double[] rtValues =
@@ -121,8 +120,9 @@ public class QualityParameters {
 
     List<Scan> scanNumbers = feature.getScanNumbers();
     RawDataFile dataFile = feature.getRawDataFile();
-    double[] intensities = DataPointUtils
-        .getDoubleBufferAsArray(feature.getFeatureData().getIntensityValueBuffer());
+    final IonTimeSeries<? extends Scan> featureData = feature.getFeatureData();
+    double[] intensities = featureData.getIntensityValues(
+        new double[featureData.getNumberOfValues()]);
     if (height == null || rt == null || dataFile == null
         || scanNumbers.isEmpty() || intensities.length == 0) {
       throw new IllegalArgumentException("Modular feature values are not initialized.");
@@ -163,8 +163,9 @@ public class QualityParameters {
 
     List<Scan> scanNumbers = feature.getScanNumbers();
     RawDataFile dataFile = feature.getRawDataFile();
-    double[] intensities = DataPointUtils
-        .getDoubleBufferAsArray(feature.getFeatureData().getIntensityValueBuffer());
+    final IonTimeSeries<? extends Scan> featureData = feature.getFeatureData();
+    double[] intensities = featureData.getIntensityValues(
+        new double[featureData.getNumberOfValues()]);
 
     if (height == null || rt == null || dataFile == null
         || scanNumbers.isEmpty() || intensities.length == 0) {
@@ -203,8 +204,9 @@ public class QualityParameters {
 
     List<Scan> scanNumbers = feature.getScanNumbers();
     RawDataFile dataFile = feature.getRawDataFile();
-    double[] intensities = DataPointUtils
-        .getDoubleBufferAsArray(feature.getFeatureData().getIntensityValueBuffer());
+    final IonTimeSeries<? extends Scan> featureData = feature.getFeatureData();
+    double[] intensities = featureData.getIntensityValues(
+        new double[featureData.getNumberOfValues()]);
     if (height == null || rt == null || dataFile == null
         || scanNumbers.isEmpty() || intensities.length == 0) {
       throw new IllegalArgumentException("Modular feature values are not initialized.");
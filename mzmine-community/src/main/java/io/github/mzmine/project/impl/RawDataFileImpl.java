@@ -32,6 +32,7 @@ import io.github.mzmine.datamodel.MassSpectrumType;
 import io.github.mzmine.datamodel.PolarityType;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.CentroidMzIndex;
 import io.github.mzmine.datamodel.features.FeatureList.FeatureListAppliedMethod;
 import io.github.mzmine.javafx.util.FxColorUtil;
 import io.github.mzmine.main.MZmineCore;
@@ -92,6 +93,9 @@ public class RawDataFileImpl implements RawDataFile {
   @Nullable
   private LocalDateTime startTimeStamp = null;
 
+  @Nullable
+  private volatile CentroidMzIndex centroidMzIndex;
+
   public RawDataFileImpl(@NotNull final String dataFileName, @Nullable final String absolutePath,
       @Nullable final MemoryMapStorage storage) {
     this(dataFileName, absolutePath, storage,
@@ -405,6 +409,21 @@ public class RawDataFileImpl implements RawDataFile {
    */
   @Override
   public void applyMassListChanged(Scan scan, MassList old, MassList masses) {
+    // index is a snapshot of the mass lists. Other scans like MS2 or merged spectra may change
+    final CentroidMzIndex index = centroidMzIndex;
+    if (index != null && index.containsScan(scan)) {
+      centroidMzIndex = null;
+    }
+  }
+
+  @Override
+  public @Nullable CentroidMzIndex getCentroidMzIndex() {
+    return centroidMzIndex;
+  }
+
+  @Override
+  public void setCentroidMzIndex(@Nullable CentroidMzIndex index) {
+    centroidMzIndex = index;
   }
 
   @Nullable
@@ -32,13 +32,11 @@ import io.github.mzmine.datamodel.features.correlation.CorrelationRowGroup;
 import io.github.mzmine.datamodel.features.correlation.R2RCorrelationData;
 import io.github.mzmine.datamodel.features.correlation.RowGroup;
 import io.github.mzmine.datamodel.features.correlation.RowGroupSimple;
-import io.github.mzmine.datamodel.features.correlation.RowsRelationship;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -85,50 +83,35 @@ public class CorrelationGroupingUtils {
       logger.info("Creating groups for " + flist.getName());
       var corrMap = opCorrMap.get();
 
-      List<RowGroup> groups = new ArrayList<>();
-      HashMap<FeatureListRow, RowGroup> used = new HashMap<>();
+      final Int2ObjectOpenHashMap<FeatureListRow> rowsById = new Int2ObjectOpenHashMap<>();
+      for (FeatureListRow row : flist.getRows()) {
+        rowsById.put(row.getID(), row);
+      }
 
-      int c = 0;
+      List<RowGroup> groups = new ArrayList<>();
       ObservableList<RawDataFile> raw = flist.getRawDataFiles();
-      // add all connections
-      for (Entry<Integer, RowsRelationship> e : corrMap.entrySet()) {
-        RowsRelationship r2r = e.getValue();
-        FeatureListRow rowA = r2r.getRowA();
-        FeatureListRow rowB = r2r.getRowB();
-        if (r2r instanceof R2RCorrelationData) {
-          // already added?
-          RowGroup group = used.get(rowA);
-          RowGroup group2 = used.get(rowB);
-          // merge groups if both present
-          if (group != null && group2 != null && group.getGroupID() != group2.getGroupID()) {
-            // copy all to group1 and remove g2
-            for (FeatureListRow r : group2.getRows()) {
-              group.add(r);
-              used.put(r, group);
-            }
-            groups.remove(group2);
-          } else if (group == null && group2 == null) {
-            // create new group with both rows
-            if (keepExtendedStats) {
-              group = new CorrelationRowGroup(raw, groups.size());
-            } else {
-              group = new RowGroupSimple(groups.size(), corrMap);
-            }
-            group.addAll(rowA, rowB);
-            groups.add(group);
-            // mark as used
-            used.put(rowA, group);
-            used.put(rowB, group);
-          } else if (group2 == null) {
-            group.add(rowB);
-            used.put(rowB, group);
-          } else if (group == null) {
-            group2.add(rowA);
-            used.put(rowA, group2);
+      // connected components of all correlation edges
+      var components = corrMap.freeze()
+          .getConnectedComponents(r2r -> r2r instanceof R2RCorrelationData);
+      for (int[] rowIds : components) {
+        final List<FeatureListRow> rows = new ArrayList<>(rowIds.length);
+        for (int id : rowIds) {
+          FeatureListRow row = rowsById.get(id);
+          if (row != null) {
+            rows.add(row);
           }
         }
-        // report back progress
-        c++;
+        if (rows.size() < 2) {
+          continue;
+        }
+        final RowGroup group;
+        if (keepExtendedStats) {
+          group = new CorrelationRowGroup(raw, groups.size());
+        } else {
+          group = new RowGroupSimple(groups.size(), corrMap);
+        }
+        group.addAll(rows);
+        groups.add(group);
       }
       // sort by retention time
       Collections.sort(groups);
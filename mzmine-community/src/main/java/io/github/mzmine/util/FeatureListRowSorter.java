@@ -25,10 +25,11 @@
 
 package io.github.mzmine.util;
 
-import static java.util.Objects.requireNonNullElse;
-
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
 import java.util.Comparator;
 
 
@@ -45,6 +46,9 @@ public class FeatureListRowSorter implements Comparator<FeatureListRow> {
       SortingProperty.MZ, SortingDirection.Ascending);
 
 
+  private static final MZType MZ_TYPE = DataTypes.get(MZType.class);
+  private static final RTType RT_TYPE = DataTypes.get(RTType.class);
+
   private final SortingProperty property;
   private final SortingDirection direction;
 
@@ -55,13 +59,13 @@ public class FeatureListRowSorter implements Comparator<FeatureListRow> {
 
   public int compare(FeatureListRow row1, FeatureListRow row2) {
 
-    Double row1Value = getValue(row1);
-    Double row2Value = getValue(row2);
+    final double row1Value = getValue(row1);
+    final double row2Value = getValue(row2);
 
     if (direction == SortingDirection.Ascending) {
-      return row1Value.compareTo(row2Value);
+      return Double.compare(row1Value, row2Value);
     } else {
-      return row2Value.compareTo(row1Value);
+      return Double.compare(row2Value, row1Value);
     }
 
   }
@@ -92,10 +96,11 @@ public class FeatureListRowSorter implements Comparator<FeatureListRow> {
         }
         double medianHeight = MathUtils.calcQuantile(peakHeights, 0.5);
         return medianHeight;
+      // primitive access, sorting reads these values many times
       case MZ:
-        return row.getAverageMZ() + requireNonNullElse(row.getAverageRT(), 0f) / 10000000.0;
+        return row.getDouble(MZ_TYPE, 0) + row.getFloat(RT_TYPE, 0f) / 10000000.0;
       case RT:
-        return requireNonNullElse(row.getAverageRT(), 0f) + row.getAverageMZ() / 10000000.0;
+        return row.getFloat(RT_TYPE, 0f) + row.getDouble(MZ_TYPE, 0) / 10000000.0;
       case ID:
         return row.getID();
     }
@@ -315,6 +315,27 @@ public class FeatureListUtils {
     });
   }
 
+  /**
+   * Recalculates the alignment scores of all rows after samples were added to an aligned feature
+   * list. Rates, distances and deltas are calculated for the new number of samples and the current
+   * row averages, see {@link RowAlignmentScoreCalculator#recalcScore}.
+   *
+   * @param alignedFeatureList the aligned list with average values for mz,RT, mobility
+   * @param calculator         holds tolerances and the added feature lists to count extra
+   *                           features
+   */
+  public static void recalcAlignmentScores(@NotNull FeatureList alignedFeatureList,
+      RowAlignmentScoreCalculator calculator) {
+    alignedFeatureList.addRowType(DataTypes.get(AlignmentMainType.class));
+    final int totalSamples = alignedFeatureList.getNumberOfRawDataFiles();
+
+    alignedFeatureList.getRows().stream().parallel().forEach(alignedRow -> {
+      AlignmentScores oldScore = alignedRow.get(AlignmentMainType.class);
+      alignedRow.set(AlignmentMainType.class,
+          calculator.recalcScore(alignedRow, totalSamples, oldScore));
+    });
+  }
+
   /**
    * Compare row average values to ranges (during alignment or annotation to other mz, rt, and
    * mobility values based on tolerances -> ranges). General score is SUM((difference
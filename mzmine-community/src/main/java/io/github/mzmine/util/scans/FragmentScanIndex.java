@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.Frame;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.impl.MSnInfoImpl;
+import io.github.mzmine.datamodel.msms.DDAMsMsInfo;
+import io.github.mzmine.datamodel.msms.PasefMsMsInfo;
+import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.IndexRange;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Index of the fragmentation scans of a {@link RawDataFile} sorted by precursor m/z in primitive
+ * arrays. Used to find all fragment scans in a precursor m/z and retention time range without
+ * checking all scans of the data file. PASEF precursors of MS2 frames are indexed separately.
+ * Query results keep the order of the data file.
+ */
+public class FragmentScanIndex {
+
+  private final @NotNull List<Scan> scans;
+  // sorted precursor mz values and the matching rt and index in scans
+  private final double[] precursorMzs;
+  private final float[] rts;
+  private final int[] scanIndices;
+
+  // PASEF precursors in order of frames and precursors in each frame
+  private final @NotNull List<PasefPrecursor> pasefPrecursors;
+  private final double[] pasefMzs;
+  private final float[] pasefRts;
+  private final int[] pasefIndices;
+
+  private FragmentScanIndex(@NotNull List<Scan> scans, double[] precursorMzs, float[] rts,
+      int[] scanIndices, @NotNull List<PasefPrecursor> pasefPrecursors, double[] pasefMzs,
+      float[] pasefRts, int[] pasefIndices) {
+    this.scans = scans;
+    this.precursorMzs = precursorMzs;
+    this.rts = rts;
+    this.scanIndices = scanIndices;
+    this.pasefPrecursors = pasefPrecursors;
+    this.pasefMzs = pasefMzs;
+    this.pasefRts = pasefRts;
+    this.pasefIndices = pasefIndices;
+  }
+
+  /**
+   * Indexes all scans with MS level > 1 and a precursor m/z and all PASEF precursors of MS2
+   * frames.
+   *
+   * @param raw the data file
+   * @return the index of all fragment scans
+   */
+  public static FragmentScanIndex create(@NotNull RawDataFile raw) {
+    final List<Scan> scans = List.copyOf(raw.getScans());
+    final int numScans = scans.size();
+    final double[] mzs = new double[numScans];
+    final float[] rts = new float[numScans];
+    final int[] indices = new int[numScans];
+    int n = 0;
+
+    final List<PasefPrecursor> pasefPrecursors = new ArrayList<>();
+    for (int i = 0; i < numScans; i++) {
+      final Scan scan = scans.get(i);
+      if (scan.getMSLevel() <= 1) {
+        continue;
+      }
+
+      final double precursorMz = getPrecursorMz(scan);
+      if (precursorMz != 0 && !Double.isNaN(precursorMz)) {
+        mzs[n] = precursorMz;
+        rts[n] = scan.getRetentionTime();
+        indices[n] = i;
+        n++;
+      }
+
+      if (scan.getMSLevel() == 2 && scan instanceof Frame frame) {
+        for (PasefMsMsInfo info : frame.getImsMsMsInfos()) {
+          pasefPrecursors.add(new PasefPrecursor(frame, info));
+        }
+      }
+    }
+
+    final int[] sorted = sortByMz(mzs, n);
+    final double[] sortedMzs = new double[n];
+    final float[] sortedRts = new float[n];
+    final int[] sortedIndices = new int[n];
+    for (int i = 0; i < n; i++) {
+      sortedMzs[i] = mzs[sorted[i]];
+      sortedRts[i] = rts[sorted[i]];
+      sortedIndices[i] = indices[sorted[i]];
+    }
+
+    final int numPasef = pasefPrecursors.size();
+    final double[] pasefMzs = new double[numPasef];
+    for (int i = 0; i < numPasef; i++) {
+      pasefMzs[i] = pasefPrecursors.get(i).info().getIsolationMz();
+    }
+    final int[] pasefSorted = sortByMz(pasefMzs, numPasef);
+    final double[] sortedPasefMzs = new double[numPasef];
+    final float[] sortedPasefRts = new float[numPasef];
+    for (int i = 0; i < numPasef; i++) {
+      sortedPasefMzs[i] = pasefMzs[pasefSorted[i]];
+      sortedPasefRts[i] = pasefPrecursors.get(pasefSorted[i]).frame().getRetentionTime();
+    }
+
+    return new FragmentScanIndex(scans, sortedMzs, sortedRts, sortedIndices,
+        List.copyOf(pasefPrecursors), sortedPasefMzs, sortedPasefRts, pasefSorted);
+  }
+
+  /**
+   * Precursor m/z of MSn scans is the MS2 precursor m/z, otherwise the isolation m/z
+   *
+   * @return the precursor m/z or 0 if not available
+   */
+  public static double getPrecursorMz(@NotNull Scan scan) {
+    if (scan.getMsMsInfo() instanceof MSnInfoImpl msn) {
+      return msn.getMS2PrecursorMz();
+    } else if (scan.getMsMsInfo() instanceof DDAMsMsInfo info) {
+      return info.getIsolationMz();
+    } else {
+      return Objects.requireNonNullElse(scan.getPrecursorMz(), 0d);
+    }
+  }
+
+  /**
+   * @return permutation of the first n values sorted by m/z - stable to keep the scan order for
+   * equal values
+   */
+  private static int[] sortByMz(double[] mzs, int n) {
+    final int[] perm = new int[n];
+    Arrays.setAll(perm, i -> i);
+    DoubleArrays.radixSortIndirect(perm, mzs, 0, n, true);
+    return perm;
+  }
+
+  /**
+   * Finds all fragment scans with a precursor m/z within the m/z range and a retention time within
+   * the rt range.
+   *
+   * @param precursorMzRange precursor m/z range, both bounds included
+   * @param rtRange          retention time range or null to skip the retention time filter
+   * @return the matching scans in the order of the data file
+   */
+  public @NotNull List<Scan> getFragmentScans(@NotNull Range<Double> precursorMzRange,
+      @Nullable Range<Float> rtRange) {
+    final int[] matches = findMatches(precursorMzs, rts, scanIndices, precursorMzRange, rtRange);
+    final List<Scan> result = new ArrayList<>(matches.length);
+    for (int index : matches) {
+      result.add(scans.get(index));
+    }
+    return result;
+  }
+
+  /**
+   * Finds all PASEF precursors of MS2 frames with an isolation m/z within the m/z range and a frame
+   * retention time within the rt range.
+   *
+   * @param precursorMzRange isolation m/z range, both bounds included
+   * @param rtRange          retention time range or null to skip the retention time filter
+   * @return the matching precursors in the order of frames
+   */
+  public @NotNull List<PasefPrecursor> getPasefPrecursors(@NotNull Range<Double> precursorMzRange,
+      @Nullable Range<Float> rtRange) {
+    final int[] matches = findMatches(pasefMzs, pasefRts, pasefIndices, precursorMzRange, rtRange);
+    final List<PasefPrecursor> result = new ArrayList<>(matches.length);
+    for (int index : matches) {
+      result.add(pasefPrecursors.get(index));
+    }
+    return result;
+  }
+
+  /**
+   * @return the original indices of all matches sorted ascending
+   */
+  private static int[] findMatches(double[] mzs, float[] rts, int[] indices,
+      @NotNull Range<Double> mzRange, @Nullable Range<Float> rtRange) {
+    final IndexRange range = BinarySearch.indexRange(mzs, mzRange);
+    if (range.isEmpty()) {
+      return new int[0];
+    }
+
+    final int[] matches = new int[range.size()];
+    int n = 0;
+    for (int i = range.min(); i < range.maxExclusive(); i++) {
+      if (mzRange.contains(mzs[i]) && (rtRange == null || rtRange.contains(rts[i]))) {
+        matches[n++] = indices[i];
+      }
+    }
+    // keep data file order
+    Arrays.sort(matches, 0, n);
+    return n == matches.length ? matches : Arrays.copyOf(matches, n);
+  }
+
+  /**
+   * @return number of indexed fragment scans (with precursor m/z)
+   */
+  public int size() {
+    return precursorMzs.length;
+  }
+
+  /**
+   * @return number of indexed PASEF precursors
+   */
+  public int getNumberOfPasefPrecursors() {
+    return pasefMzs.length;
+  }
+
+  /**
+   * A PASEF precursor and the MS2 frame it was listed in
+   */
+  public record PasefPrecursor(@NotNull Frame frame, @NotNull PasefMsMsInfo info) {
+
+  }
+}
@@ -243,20 +243,54 @@ public class ScanUtils {
    */
   @Nullable
   public static DataPoint findBasePeak(@NotNull Scan scan, @NotNull Range<Double> mzRange) {
+    final DataPoint scanBasePeak = getBasePeakIfInRange(scan, mzRange);
+    if (scanBasePeak != null) {
+      return scanBasePeak;
+    }
+    final int startIndex = scan.binarySearch(mzRange.lowerEndpoint(), DefaultTo.GREATER_EQUALS);
+    return findBasePeakFromIndex(scan, mzRange, startIndex);
+  }
+
+  /**
+   * Find a base peak of a given scan in a given m/z range, when the index of the first data point
+   * with m/z >= the lower bound of the range is already known (e.g., when ranges are visited in
+   * ascending order). Same result as {@link #findBasePeak(Scan, Range)}.
+   *
+   * @param scan       Scan to search
+   * @param mzRange    mz range to search in
+   * @param startIndex index of the first data point with m/z >= lower bound or -1 if there is none
+   * @return data point containing base peak m/z and intensity
+   */
+  @Nullable
+  public static DataPoint findBasePeak(@NotNull Scan scan, @NotNull Range<Double> mzRange,
+      int startIndex) {
+    final DataPoint scanBasePeak = getBasePeakIfInRange(scan, mzRange);
+    if (scanBasePeak != null) {
+      return scanBasePeak;
+    }
+    return findBasePeakFromIndex(scan, mzRange, startIndex);
+  }
+
+  @Nullable
+  private static DataPoint getBasePeakIfInRange(@NotNull Scan scan,
+      @NotNull Range<Double> mzRange) {
     final Double scanBasePeakMz = scan.getBasePeakMz();
     if (scanBasePeakMz != null && mzRange.contains(scanBasePeakMz)) {
       return new SimpleDataPoint(scanBasePeakMz,
           requireNonNullElse(scan.getBasePeakIntensity(), 0d));
     }
+    return null;
+  }
 
-    final double lower = mzRange.lowerEndpoint();
+  @Nullable
+  private static DataPoint findBasePeakFromIndex(@NotNull Scan scan,
+      @NotNull Range<Double> mzRange, int startIndex) {
     final double upper = mzRange.upperEndpoint();
 
     boolean found = false;
     double baseMz = 0d;
     double baseIntensity = 0d;
 
-    final int startIndex = scan.binarySearch(lower, DefaultTo.GREATER_EQUALS);
     if (startIndex == -1) {
       return null;
     }
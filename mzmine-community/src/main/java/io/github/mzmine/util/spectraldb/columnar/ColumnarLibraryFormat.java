@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.columnar;
+
+import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.spectraldb.entry.DBEntryField;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary columnar format of a spectral library that is written once after parsing and then memory
+ * mapped on the next import. The files are kept in a cache directory in the mzmine temp directory,
+ * so library directories are never written to. All values are little endian and all sections start
+ * 8 byte aligned.
+ * <pre>
+ * header (56 bytes): magic, version, number of entries, source file length, last modified and
+ *                    content hash, total number of data points, number of metadata columns,
+ *                    indexed entries
+ * long[entries+1]    data point offset of each entry
+ * double[points]     m/z values of all entries
+ * double[points]     intensities of all entries
+ * double[entries]    precursor m/z of each entry or NaN
+ * double[indexed]    precursor m/z sorted ascending
+ * int[indexed]       entry index for each sorted precursor m/z
+ * metadata columns   one dictionary encoded column per {@link DBEntryField}
+ * </pre>
+ * Each metadata column starts with a 16 byte header (name length, dictionary size, dictionary byte
+ * length) followed by the field name, the value type of each dictionary value, the byte offsets of
+ * the UTF-8 encoded dictionary values, the dictionary bytes and one code per entry (-1 for
+ * missing).
+ */
+final class ColumnarLibraryFormat {
+
+  static final byte[] MAGIC = "MZLIBCOL".getBytes(StandardCharsets.US_ASCII);
+  static final int VERSION = 2;
+  static final int HEADER_BYTES = 56;
+  static final int COLUMN_HEADER_BYTES = 16;
+  static final String FILE_SUFFIX = ".mzlib";
+  static final String CACHE_DIR_NAME = "mzmine_library_cache";
+
+  // value types in the metadata dictionary
+  static final byte TYPE_STRING = 0;
+  static final byte TYPE_DOUBLE = 1;
+  static final byte TYPE_FLOAT = 2;
+  static final byte TYPE_INTEGER = 3;
+
+  private ColumnarLibraryFormat() {
+  }
+
+  /**
+   * @return the default cache directory in the mzmine temp directory
+   */
+  static File getDefaultCacheDir() {
+    return new File(FileAndPathUtil.getTempDir(), CACHE_DIR_NAME);
+  }
+
+  /**
+   * @param libraryFile the original library file
+   * @param cacheDir    the directory of all columnar files
+   * @return the columnar file in the cache directory, unique for the absolute library path
+   */
+  static File getColumnarFile(File libraryFile, File cacheDir) {
+    final String pathHash = Integer.toHexString(libraryFile.getAbsolutePath().hashCode());
+    return new File(cacheDir, libraryFile.getName() + "_" + pathHash + FILE_SUFFIX);
+  }
+
+  /**
+   * Length and last modified time are not changed by all tools that replace a file, so the content
+   * is hashed as well. Much faster than parsing the library.
+   *
+   * @return CRC32C of the file content
+   */
+  static long contentHash(File file) throws IOException {
+    final CRC32C crc = new CRC32C();
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        crc.update(buffer);
+        buffer.clear();
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * @return the value padded to the next multiple of 8
+   */
+  static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.columnar;
+
+import static io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryFormat.COLUMN_HEADER_BYTES;
+import static io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryFormat.HEADER_BYTES;
+import static io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryFormat.align;
+
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.util.spectraldb.entry.DBEntryField;
+import io.github.mzmine.util.spectraldb.entry.SpectralDBEntry;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryPrecursorIndex;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Memory maps a library written by {@link ColumnarLibraryWriter}. Data points of all entries are
+ * backed by the mapped file and the metadata fields of an entry are only decoded on first access.
+ */
+public final class ColumnarLibraryReader {
+
+  private static final Logger logger = Logger.getLogger(ColumnarLibraryReader.class.getName());
+
+  private ColumnarLibraryReader() {
+  }
+
+  /**
+   * Maps the columnar file of a library file from the cache directory in the mzmine temp
+   * directory.
+   *
+   * @param libraryFile the original library file that was parsed to write the columnar file
+   * @param parentTask  checked for cancellation
+   * @return the library with the original library file as path or null if there is no columnar file
+   * for the current version of the library file or the task was canceled
+   * @throws IOException on errors while mapping the file
+   */
+  public static @Nullable SpectralLibrary read(@NotNull File libraryFile,
+      @Nullable Task parentTask) throws IOException {
+    return read(libraryFile, ColumnarLibraryFormat.getDefaultCacheDir(), parentTask);
+  }
+
+  /**
+   * Maps the columnar file of a library file.
+   *
+   * @param cacheDir the directory of the columnar files
+   * @see #read(File, Task)
+   */
+  static @Nullable SpectralLibrary read(@NotNull File libraryFile, @NotNull File cacheDir,
+      @Nullable Task parentTask) throws IOException {
+    final File columnarFile = ColumnarLibraryFormat.getColumnarFile(libraryFile, cacheDir);
+    if (!columnarFile.isFile()) {
+      return null;
+    }
+
+    try (var channel = FileChannel.open(columnarFile.toPath(), StandardOpenOption.READ)) {
+      final Header header = readHeader(channel, libraryFile);
+      if (header == null) {
+        logger.fine(() -> "Columnar library file %s is outdated".formatted(columnarFile));
+        return null;
+      }
+      final int n = header.numEntries();
+      long position = HEADER_BYTES;
+
+      final LongBuffer offsets = map(channel, position, (n + 1L) * Long.BYTES).asLongBuffer();
+      position += (n + 1L) * Long.BYTES;
+      final long peakBytes = header.totalPeaks() * Double.BYTES;
+      final DoubleBuffer mzs = map(channel, position, peakBytes).asDoubleBuffer();
+      position += peakBytes;
+      final DoubleBuffer intensities = map(channel, position, peakBytes).asDoubleBuffer();
+      position += peakBytes;
+      final DoubleBuffer precursorMzs = map(channel, position, (long) n * Double.BYTES)
+          .asDoubleBuffer();
+      position += (long) n * Double.BYTES;
+
+      // the index is small and kept on heap
+      final int numIndexed = header.numIndexed();
+      final double[] sortedMzs = new double[numIndexed];
+      map(channel, position, (long) numIndexed * Double.BYTES).asDoubleBuffer().get(sortedMzs);
+      position += (long) numIndexed * Double.BYTES;
+      final int[] sortedIndices = new int[numIndexed];
+      map(channel, position, (long) numIndexed * Integer.BYTES).asIntBuffer().get(sortedIndices);
+      position = align(position + (long) numIndexed * Integer.BYTES);
+
+      final List<MetadataColumn> columns = new ArrayList<>(header.numColumns());
+      for (int c = 0; c < header.numColumns(); c++) {
+        final MetadataColumn column = readColumn(channel, position, n);
+        position = column.end();
+        if (column.field() != null) {
+          columns.add(column);
+        }
+      }
+      if (isCanceled(parentTask)) {
+        return null;
+      }
+
+      final SpectralLibrary library = new SpectralLibrary(null, libraryFile);
+      final List<SpectralLibraryEntry> entries = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        final int start = Math.toIntExact(offsets.get(i));
+        final int length = Math.toIntExact(offsets.get(i + 1) - start);
+        final double precursorMZ = precursorMzs.get(i);
+        final int entryIndex = i;
+        entries.add(new SpectralDBEntry(mzs.slice(start, length), intensities.slice(start, length),
+            Double.isNaN(precursorMZ) ? null : precursorMZ, () -> decodeFields(columns, entryIndex),
+            library));
+      }
+      library.addEntries(entries);
+      // index covers all entries in the same order
+      library.setPrecursorIndex(
+          SpectralLibraryPrecursorIndex.ofSorted(library.getEntries(), sortedMzs, sortedIndices));
+      return library;
+    }
+  }
+
+  private static @Nullable Header readHeader(FileChannel channel, File libraryFile)
+      throws IOException {
+    if (channel.size() < HEADER_BYTES) {
+      return null;
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, buffer.position()) < 0) {
+        return null;
+      }
+    }
+    buffer.flip();
+    final byte[] magic = new byte[ColumnarLibraryFormat.MAGIC.length];
+    buffer.get(magic);
+    if (!Arrays.equals(magic, ColumnarLibraryFormat.MAGIC)
+        || buffer.getInt() != ColumnarLibraryFormat.VERSION) {
+      return null;
+    }
+    final int numEntries = buffer.getInt();
+    final long sourceLength = buffer.getLong();
+    final long sourceLastModified = buffer.getLong();
+    final long sourceHash = buffer.getLong();
+    if (sourceLength != libraryFile.length() || sourceLastModified != libraryFile.lastModified()
+        || sourceHash != ColumnarLibraryFormat.contentHash(libraryFile)) {
+      return null;
+    }
+    return new Header(numEntries, buffer.getLong(), buffer.getInt(), buffer.getInt());
+  }
+
+  private static MetadataColumn readColumn(FileChannel channel, long position, int numEntries)
+      throws IOException {
+    final ByteBuffer columnHeader = map(channel, position, COLUMN_HEADER_BYTES);
+    final int nameLength = columnHeader.getInt(0);
+    final int dictionarySize = columnHeader.getInt(Integer.BYTES);
+    final long dictionaryBytes = columnHeader.getLong(2 * Integer.BYTES);
+    position += COLUMN_HEADER_BYTES;
+
+    final byte[] name = new byte[nameLength];
+    map(channel, position, nameLength).get(name);
+    position = align(position + nameLength);
+
+    final byte[] types = new byte[dictionarySize];
+    map(channel, position, dictionarySize).get(types);
+    position = align(position + dictionarySize);
+
+    final long offsetBytes = (dictionarySize + 1L) * Integer.BYTES;
+    final IntBuffer offsets = map(channel, position, offsetBytes).asIntBuffer();
+    position = align(position + offsetBytes);
+
+    final ByteBuffer values = map(channel, position, dictionaryBytes);
+    position = align(position + dictionaryBytes);
+
+    final long codeBytes = (long) numEntries * Integer.BYTES;
+    final IntBuffer codes = map(channel, position, codeBytes).asIntBuffer();
+    position = align(position + codeBytes);
+
+    // fields that were removed from mzmine are skipped
+    DBEntryField field;
+    try {
+      field = DBEntryField.valueOf(new String(name, StandardCharsets.US_ASCII));
+    } catch (IllegalArgumentException e) {
+      field = null;
+    }
+    return new MetadataColumn(field, types, offsets, values, codes, position);
+  }
+
+  private static Map<DBEntryField, Object> decodeFields(List<MetadataColumn> columns,
+      int entryIndex) {
+    final Map<DBEntryField, Object> fields = new EnumMap<>(DBEntryField.class);
+    for (MetadataColumn column : columns) {
+      final Object value = column.get(entryIndex);
+      if (value != null) {
+        fields.put(column.field(), value);
+      }
+    }
+    return fields;
+  }
+
+  private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+    return channel.map(MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static boolean isCanceled(@Nullable Task parentTask) {
+    return parentTask != null && parentTask.isCanceled();
+  }
+
+  private record Header(int numEntries, long totalPeaks, int numColumns, int numIndexed) {
+
+  }
+
+  /**
+   * Dictionary encoded column of a field. Values are decoded on access with absolute reads, so
+   * concurrent reads are safe.
+   *
+   * @param end position after this column in the file
+   */
+  private record MetadataColumn(@Nullable DBEntryField field, byte[] types, IntBuffer offsets,
+                                ByteBuffer values, IntBuffer codes, long end) {
+
+    @Nullable
+    Object get(int entryIndex) {
+      final int code = codes.get(entryIndex);
+      if (code < 0) {
+        return null;
+      }
+      final int start = offsets.get(code);
+      final byte[] bytes = new byte[offsets.get(code + 1) - start];
+      values.get(start, bytes);
+      final String value = new String(bytes, StandardCharsets.UTF_8);
+      return switch (types[code]) {
+        case ColumnarLibraryFormat.TYPE_DOUBLE -> Double.parseDouble(value);
+        case ColumnarLibraryFormat.TYPE_FLOAT -> Float.parseFloat(value);
+        case ColumnarLibraryFormat.TYPE_INTEGER -> Integer.parseInt(value);
+        default -> value;
+      };
+    }
+  }
+}
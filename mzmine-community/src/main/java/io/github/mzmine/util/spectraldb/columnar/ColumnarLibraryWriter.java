@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.columnar;
+
+import static io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryFormat.COLUMN_HEADER_BYTES;
+import static io.github.mzmine.util.spectraldb.columnar.ColumnarLibraryFormat.HEADER_BYTES;
+
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.util.spectraldb.entry.DBEntryField;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryPrecursorIndex;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes a {@link SpectralLibrary} to the {@link ColumnarLibraryFormat} in the library cache
+ * directory of the mzmine temp directory, so that the next import can memory map it with
+ * {@link ColumnarLibraryReader} instead of parsing. The source file stays untouched.
+ */
+public final class ColumnarLibraryWriter {
+
+  private static final int CHUNK_BYTES = 1 << 20;
+
+  private ColumnarLibraryWriter() {
+  }
+
+  /**
+   * Writes the library to a temporary file that replaces the columnar file once complete. The file
+   * is written to the cache directory in the mzmine temp directory.
+   *
+   * @param library    the parsed library
+   * @param sourceFile the library file that was parsed. Its length, last modified time and content
+   *                   hash are used to detect outdated columnar files
+   * @param parentTask checked for cancellation
+   * @return the columnar file or null if the task was canceled
+   * @throws IOException if writing fails or the library is too large for the format
+   */
+  public static @Nullable File write(@NotNull SpectralLibrary library, @NotNull File sourceFile,
+      @Nullable Task parentTask) throws IOException {
+    return write(library, sourceFile, ColumnarLibraryFormat.getDefaultCacheDir(), parentTask);
+  }
+
+  /**
+   * @param cacheDir the directory of the columnar files, created if missing
+   * @see #write(SpectralLibrary, File, Task)
+   */
+  static @Nullable File write(@NotNull SpectralLibrary library, @NotNull File sourceFile,
+      @NotNull File cacheDir, @Nullable Task parentTask) throws IOException {
+    final List<SpectralLibraryEntry> entries = library.getEntries();
+    final int numEntries = entries.size();
+
+    long totalPeaks = 0;
+    final EnumSet<DBEntryField> fields = EnumSet.noneOf(DBEntryField.class);
+    for (SpectralLibraryEntry entry : entries) {
+      totalPeaks += entry.getNumberOfDataPoints();
+      for (var field : entry.getFields().entrySet()) {
+        if (field.getValue() != null) {
+          // throws on values that cannot be restored
+          getValueType(field.getKey(), field.getValue());
+          fields.add(field.getKey());
+        }
+      }
+    }
+    // sections are mapped separately and limited to the max size of a buffer
+    checkSectionSize(totalPeaks * Double.BYTES);
+    checkSectionSize((numEntries + 1L) * Long.BYTES);
+
+    final SpectralLibraryPrecursorIndex index = library.getPrecursorIndex();
+    final int numIndexed = index.size();
+
+    Files.createDirectories(cacheDir.toPath());
+    final File columnarFile = ColumnarLibraryFormat.getColumnarFile(sourceFile, cacheDir);
+    final long sourceHash = ColumnarLibraryFormat.contentHash(sourceFile);
+    final Path tmp = new File(columnarFile.getParentFile(),
+        columnarFile.getName() + ".tmp").toPath();
+    try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      final ChannelWriter out = new ChannelWriter(channel);
+      // header
+      out.putBytes(ColumnarLibraryFormat.MAGIC);
+      out.putInt(ColumnarLibraryFormat.VERSION);
+      out.putInt(numEntries);
+      out.putLong(sourceFile.length());
+      out.putLong(sourceFile.lastModified());
+      out.putLong(sourceHash);
+      out.putLong(totalPeaks);
+      out.putInt(fields.size());
+      out.putInt(numIndexed);
+      assert out.position() == HEADER_BYTES;
+
+      // data points
+      long offset = 0;
+      for (SpectralLibraryEntry entry : entries) {
+        out.putLong(offset);
+        offset += entry.getNumberOfDataPoints();
+      }
+      out.putLong(offset);
+      for (SpectralLibraryEntry entry : entries) {
+        for (int i = 0; i < entry.getNumberOfDataPoints(); i++) {
+          out.putDouble(entry.getMzValue(i));
+        }
+      }
+      if (isCanceled(parentTask)) {
+        return null;
+      }
+      for (SpectralLibraryEntry entry : entries) {
+        for (int i = 0; i < entry.getNumberOfDataPoints(); i++) {
+          out.putDouble(entry.getIntensityValue(i));
+        }
+      }
+      for (SpectralLibraryEntry entry : entries) {
+        final Double precursorMZ = entry.getPrecursorMZ();
+        out.putDouble(precursorMZ == null ? Double.NaN : precursorMZ);
+      }
+
+      // precursor index
+      for (int i = 0; i < numIndexed; i++) {
+        out.putDouble(index.getPrecursorMz(i));
+      }
+      for (int i = 0; i < numIndexed; i++) {
+        out.putInt(index.getEntryIndex(i));
+      }
+      out.pad();
+
+      for (DBEntryField field : fields) {
+        if (isCanceled(parentTask)) {
+          return null;
+        }
+        writeColumn(out, field, entries);
+      }
+      out.flush();
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+
+    if (isCanceled(parentTask)) {
+      Files.deleteIfExists(tmp);
+      return null;
+    }
+    Files.move(tmp, columnarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    return columnarFile;
+  }
+
+  /**
+   * Dictionary encodes the values of one field. Each distinct value is only stored once.
+   */
+  private static void writeColumn(ChannelWriter out, DBEntryField field,
+      List<SpectralLibraryEntry> entries) throws IOException {
+    final Object2IntOpenHashMap<Object> dictionary = new Object2IntOpenHashMap<>();
+    dictionary.defaultReturnValue(-1);
+    final List<byte[]> values = new ArrayList<>();
+    final ByteArrayList types = new ByteArrayList();
+    final int[] codes = new int[entries.size()];
+    long dictionaryBytes = 0;
+
+    for (int i = 0; i < entries.size(); i++) {
+      final Map<DBEntryField, Object> entryFields = entries.get(i).getFields();
+      final Object value = entryFields.get(field);
+      if (value == null) {
+        codes[i] = -1;
+        continue;
+      }
+      int code = dictionary.getInt(value);
+      if (code == -1) {
+        code = values.size();
+        dictionary.put(value, code);
+        final byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        values.add(bytes);
+        types.add(getValueType(field, value));
+        dictionaryBytes += bytes.length;
+      }
+      codes[i] = code;
+    }
+    checkSectionSize(dictionaryBytes);
+
+    final byte[] name = field.name().getBytes(StandardCharsets.US_ASCII);
+    final long start = out.position();
+    out.putInt(name.length);
+    out.putInt(values.size());
+    out.putLong(dictionaryBytes);
+    assert out.position() - start == COLUMN_HEADER_BYTES;
+    out.putBytes(name);
+    out.pad();
+    out.putBytes(types.toByteArray());
+    out.pad();
+    int offset = 0;
+    for (byte[] value : values) {
+      out.putInt(offset);
+      offset += value.length;
+    }
+    out.putInt(offset);
+    out.pad();
+    for (byte[] value : values) {
+      out.putBytes(value);
+    }
+    out.pad();
+    for (int code : codes) {
+      out.putInt(code);
+    }
+    out.pad();
+  }
+
+  private static byte getValueType(DBEntryField field, Object value) {
+    return switch (value) {
+      case String _ -> ColumnarLibraryFormat.TYPE_STRING;
+      case Double _ -> ColumnarLibraryFormat.TYPE_DOUBLE;
+      case Float _ -> ColumnarLibraryFormat.TYPE_FLOAT;
+      case Integer _ -> ColumnarLibraryFormat.TYPE_INTEGER;
+      default -> throw new IllegalArgumentException(
+          "Cannot store value of type %s for field %s".formatted(value.getClass().getSimpleName(),
+              field));
+    };
+  }
+
+  private static void checkSectionSize(long bytes) throws IOException {
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IOException("Library is too large for the columnar format");
+    }
+  }
+
+  private static boolean isCanceled(@Nullable Task parentTask) {
+    return parentTask != null && parentTask.isCanceled();
+  }
+
+  /**
+   * Buffered little endian writes to a channel
+   */
+  private static class ChannelWriter {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+
+    private ChannelWriter(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+      }
+    }
+
+    void putInt(int value) throws IOException {
+      ensure(Integer.BYTES);
+      buffer.putInt(value);
+      position += Integer.BYTES;
+    }
+
+    void putLong(long value) throws IOException {
+      ensure(Long.BYTES);
+      buffer.putLong(value);
+      position += Long.BYTES;
+    }
+
+    void putDouble(double value) throws IOException {
+      ensure(Double.BYTES);
+      buffer.putDouble(value);
+      position += Double.BYTES;
+    }
+
+    void putBytes(byte[] bytes) throws IOException {
+      int written = 0;
+      while (written < bytes.length) {
+        ensure(1);
+        final int length = Math.min(buffer.remaining(), bytes.length - written);
+        buffer.put(bytes, written, length);
+        written += length;
+      }
+      position += bytes.length;
+    }
+
+    /**
+     * Pads with zeros to the next 8 byte boundary
+     */
+    void pad() throws IOException {
+      final long aligned = ColumnarLibraryFormat.align(position);
+      while (position < aligned) {
+        ensure(1);
+        buffer.put((byte) 0);
+        position++;
+      }
+    }
+
+    long position() {
+      return position;
+    }
+
+    void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+}
@@ -32,12 +32,14 @@ import io.github.mzmine.datamodel.structures.StructureParser;
 import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.ParsingUtils;
+import java.nio.DoubleBuffer;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
@@ -50,7 +52,12 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
   public static final String XML_LIBRARY_FILE_NAME_ATTR = "library_file";
   private static final String XML_DB_FIELD_ELEMENT = "entry";
   private static final String XML_FIELD_NAME_ATTR = "name";
-  private final Map<DBEntryField, Object> fields;
+  // null until loaded by the fieldsLoader
+  private volatile Map<DBEntryField, Object> fields;
+  // only set for lazily loaded fields, e.g., from a memory mapped columnar library
+  private @Nullable Supplier<Map<DBEntryField, Object>> fieldsLoader;
+  // precursor mz is available without loading the fields
+  private final @Nullable Double lazyPrecursorMZ;
 
   @Nullable
   private SpectralLibrary library;
@@ -65,6 +72,26 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
       this.fields.putAll(fields);
     }
     this.library = library;
+    this.lazyPrecursorMZ = null;
+  }
+
+  /**
+   * Entry with data in (memory mapped) buffers and fields that are only loaded on first access,
+   * e.g., from a columnar library file.
+   *
+   * @param mzValues        m/z values sorted ascending
+   * @param intensityValues intensity values
+   * @param precursorMZ     the precursor m/z, available without loading the fields
+   * @param fieldsLoader    loads the fields on first access
+   */
+  public SpectralDBEntry(@NotNull DoubleBuffer mzValues, @NotNull DoubleBuffer intensityValues,
+      @Nullable Double precursorMZ, @NotNull Supplier<Map<DBEntryField, Object>> fieldsLoader,
+      @Nullable SpectralLibrary library) {
+    super(mzValues, intensityValues);
+    this.fields = null;
+    this.fieldsLoader = fieldsLoader;
+    this.lazyPrecursorMZ = precursorMZ;
+    this.library = library;
   }
 
   public SpectralDBEntry(@Nullable MemoryMapStorage storage, @NotNull double[] mzValues,
@@ -151,9 +178,27 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
     return fields;
   }
 
+  /**
+   * @return the fields, loads them on first access if needed
+   */
+  private Map<DBEntryField, Object> fields() {
+    Map<DBEntryField, Object> loaded = fields;
+    if (loaded == null) {
+      synchronized (this) {
+        loaded = fields;
+        if (loaded == null) {
+          loaded = new HashMap<>(fieldsLoader.get());
+          fields = loaded;
+          fieldsLoader = null;
+        }
+      }
+    }
+    return loaded;
+  }
+
   @Override
   public void putAll(Map<DBEntryField, Object> fields) {
-    this.fields.putAll(fields);
+    fields().putAll(fields);
   }
 
   @Override
@@ -163,7 +208,7 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
     }
 
     if (field != null && value != null) {
-      fields.put(field, value);
+      fields().put(field, value);
       return true;
     }
     return false;
@@ -171,17 +216,21 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
 
   @Override
   public Double getPrecursorMZ() {
-    return (Double) fields.get(DBEntryField.PRECURSOR_MZ);
+    final Map<DBEntryField, Object> loaded = fields;
+    if (loaded == null) {
+      return lazyPrecursorMZ;
+    }
+    return (Double) loaded.get(DBEntryField.PRECURSOR_MZ);
   }
 
   @Override
   public Optional<Object> getField(DBEntryField f) {
-    return Optional.ofNullable(fields.get(f));
+    return Optional.ofNullable(fields().get(f));
   }
 
   @Override
   public <T> T getOrElse(DBEntryField f, T defaultValue) {
-    final Object value = fields.get(f);
+    final Object value = fields().get(f);
     return value == null ? defaultValue : (T) value;
   }
 
@@ -203,7 +252,7 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
     writer.writeEndElement(); // intensities
 
     writer.writeStartElement(XML_DB_FIELD_LIST_ELEMENT);
-    for (Entry<DBEntryField, Object> entry : fields.entrySet()) {
+    for (Entry<DBEntryField, Object> entry : fields().entrySet()) {
       var key = entry.getKey();
       var value = entry.getValue();
       writer.writeStartElement(XML_DB_FIELD_ELEMENT);
@@ -225,7 +274,7 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
       return false;
     }
     SpectralDBEntry that = (SpectralDBEntry) o;
-    return Objects.equals(fields, that.fields)
+    return Objects.equals(fields(), that.fields())
            && getNumberOfDataPoints() == that.getNumberOfDataPoints();
   }
 
@@ -237,12 +286,12 @@ public class SpectralDBEntry extends SimpleMassList implements SpectralLibraryEn
 
   @Override
   public int hashCode() {
-    return Objects.hash(fields, getNumberOfDataPoints());
+    return Objects.hash(fields(), getNumberOfDataPoints());
   }
 
   @Override
   public Map<DBEntryField, Object> getFields() {
-    return fields;
+    return fields();
   }
 
   public @Nullable SpectralLibrary getLibrary() {
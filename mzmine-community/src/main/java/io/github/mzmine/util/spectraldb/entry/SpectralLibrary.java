@@ -54,6 +54,9 @@ public class SpectralLibrary {
   @Nullable
   private final MemoryMapStorage storage;
   private final ObservableSet<DataType> types = FXCollections.observableSet(new LinkedHashSet<>());
+  // lazily created and reset on changes
+  @Nullable
+  private SpectralLibraryPrecursorIndex precursorIndex;
 
   public SpectralLibrary(@Nullable MemoryMapStorage storage, @NotNull File path) {
     this(storage, path.getName(), path);
@@ -71,9 +74,35 @@ public class SpectralLibrary {
     return Collections.unmodifiableList(entries);
   }
 
-  public void addEntry(SpectralLibraryEntry entry) {
+  public synchronized void addEntry(SpectralLibraryEntry entry) {
     entry.setLibrary(this);
     entries.add(entry);
+    precursorIndex = null;
+  }
+
+  /**
+   * Index of all entries sorted by precursor m/z. Created on first use and cached until entries are
+   * added.
+   *
+   * @return the precursor m/z index of this library
+   */
+  @NotNull
+  public synchronized SpectralLibraryPrecursorIndex getPrecursorIndex() {
+    if (precursorIndex == null) {
+      precursorIndex = SpectralLibraryPrecursorIndex.create(getEntries());
+    }
+    return precursorIndex;
+  }
+
+  /**
+   * Sets a precomputed index, e.g., loaded from a columnar library file. Needs to cover all current
+   * entries.
+   *
+   * @param precursorIndex the index over all entries
+   */
+  public synchronized void setPrecursorIndex(
+      @NotNull SpectralLibraryPrecursorIndex precursorIndex) {
+    this.precursorIndex = precursorIndex;
   }
 
   public void addEntries(Collection<SpectralLibraryEntry> entries) {
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.entry;
+
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.IndexRange;
+import it.unimi.dsi.fastutil.doubles.DoubleArrays;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Index of library entries sorted by their precursor m/z in primitive arrays. Used to only score
+ * the entries within the precursor m/z tolerance window instead of all entries of a library.
+ * Entries without precursor m/z are not indexed as they never pass the precursor check.
+ */
+public class SpectralLibraryPrecursorIndex {
+
+  private final @NotNull List<SpectralLibraryEntry> entries;
+  // sorted precursor mz values and the matching index in entries
+  private final double[] precursorMzs;
+  private final int[] entryIndices;
+
+  private SpectralLibraryPrecursorIndex(@NotNull List<SpectralLibraryEntry> entries,
+      double[] precursorMzs, int[] entryIndices) {
+    this.entries = entries;
+    this.precursorMzs = precursorMzs;
+    this.entryIndices = entryIndices;
+  }
+
+  /**
+   * @param entries the entries to index. The list is not copied and should not change afterward
+   * @return an index over all entries with a precursor m/z
+   */
+  public static SpectralLibraryPrecursorIndex create(@NotNull List<SpectralLibraryEntry> entries) {
+    final double[] mzs = new double[entries.size()];
+    final int[] indices = new int[entries.size()];
+    int n = 0;
+    for (int i = 0; i < entries.size(); i++) {
+      final Double precursorMZ = entries.get(i).getPrecursorMZ();
+      if (precursorMZ != null && !Double.isNaN(precursorMZ)) {
+        mzs[n] = precursorMZ;
+        indices[n] = i;
+        n++;
+      }
+    }
+
+    // sort by precursor mz - stable to keep the library order for equal values
+    final int[] perm = new int[n];
+    Arrays.setAll(perm, i -> i);
+    DoubleArrays.radixSortIndirect(perm, mzs, 0, n, true);
+
+    final double[] sortedMzs = new double[n];
+    final int[] sortedIndices = new int[n];
+    for (int i = 0; i < n; i++) {
+      sortedMzs[i] = mzs[perm[i]];
+      sortedIndices[i] = indices[perm[i]];
+    }
+    return new SpectralLibraryPrecursorIndex(entries, sortedMzs, sortedIndices);
+  }
+
+  /**
+   * Creates the index from already sorted arrays, e.g., when loaded from a columnar library file.
+   *
+   * @param entries       the indexed entries. The list is not copied and should not change
+   *                      afterward
+   * @param sortedMzs     precursor m/z values sorted ascending
+   * @param sortedIndices the index of the entry for each value in sortedMzs
+   * @return the index
+   */
+  public static SpectralLibraryPrecursorIndex ofSorted(@NotNull List<SpectralLibraryEntry> entries,
+      double[] sortedMzs, int[] sortedIndices) {
+    if (sortedMzs.length != sortedIndices.length) {
+      throw new IllegalArgumentException("Precursor m/z and entry indices differ in length");
+    }
+    return new SpectralLibraryPrecursorIndex(entries, sortedMzs, sortedIndices);
+  }
+
+  /**
+   * Finds all entries with a precursor m/z that matches the query m/z within tolerance. This is the
+   * same check as {@link MZTolerance#checkWithinTolerance(double, double)} with the library
+   * precursor m/z as the first argument.
+   *
+   * @param mz        query precursor m/z
+   * @param tolerance precursor tolerance
+   * @return the matching entries in the original order of the library
+   */
+  public @NotNull List<SpectralLibraryEntry> findCandidates(double mz,
+      @NotNull MZTolerance tolerance) {
+    // the tolerance is calculated for the library m/z so a wider window is searched first
+    final double window = tolerance.getMzToleranceForMass(mz) * 2;
+    final IndexRange range = BinarySearch.indexRange(precursorMzs, mz - window, mz + window);
+    if (range.isEmpty()) {
+      return List.of();
+    }
+
+    final int[] matches = new int[range.size()];
+    int n = 0;
+    for (int i = range.min(); i < range.maxExclusive(); i++) {
+      final double libMz = precursorMzs[i];
+      final double libTolerance = tolerance.getMzToleranceForMass(libMz);
+      if (libMz - libTolerance <= mz && mz <= libMz + libTolerance) {
+        matches[n++] = entryIndices[i];
+      }
+    }
+    // keep library order
+    Arrays.sort(matches, 0, n);
+    final List<SpectralLibraryEntry> candidates = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      candidates.add(entries.get(matches[i]));
+    }
+    return candidates;
+  }
+
+  /**
+   * @return number of indexed entries (with precursor m/z)
+   */
+  public int size() {
+    return precursorMzs.length;
+  }
+
+  /**
+   * @param sortedIndex index in the sorted order
+   * @return the precursor m/z at sorted position
+   */
+  public double getPrecursorMz(int sortedIndex) {
+    return precursorMzs[sortedIndex];
+  }
+
+  /**
+   * @param sortedIndex index in the sorted order
+   * @return the index of the entry in the library at sorted position
+   */
+  public int getEntryIndex(int sortedIndex) {
+    return entryIndices[sortedIndex];
+  }
+}
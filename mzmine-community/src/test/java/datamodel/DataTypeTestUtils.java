@@ -33,12 +33,16 @@ import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
 import io.github.mzmine.datamodel.features.types.DataType;
 import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
+import io.github.mzmine.modules.io.projectload.version_3_0.SeriesBinaryXMLStreamReader;
+import io.github.mzmine.modules.io.projectsave.SeriesBinaryXMLStreamWriter;
 import io.github.mzmine.project.impl.MZmineProjectImpl;
 import io.github.mzmine.project.impl.RawDataFileImpl;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import javafx.scene.paint.Color;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
@@ -125,14 +129,30 @@ public class DataTypeTestUtils {
       @NotNull MZmineProject project, @NotNull ModularFeatureList flist,
       @NotNull ModularFeatureListRow row, @Nullable ModularFeature feature,
       @Nullable RawDataFile file) {
+    return saveAndLoad(type, value, project, flist, row, feature, file, null);
+  }
+
+  /**
+   * Tests saving and loads a data type with the given parameters. Can be used to manually retrieve
+   * the loaded value in case {@link Object#equals(Object)} does not work.
+   *
+   * @param binaryFile if not null, series values are saved to this file in binary format
+   * @return The loaded value or null if an error occurred.
+   */
+  public static Object saveAndLoad(@NotNull DataType<?> type, @Nullable Object value,
+      @NotNull MZmineProject project, @NotNull ModularFeatureList flist,
+      @NotNull ModularFeatureListRow row, @Nullable ModularFeature feature,
+      @Nullable RawDataFile file, @Nullable Path binaryFile) {
 
     // test row save
     final ByteArrayOutputStream os = new ByteArrayOutputStream();
     final XMLOutputFactory xof = XMLOutputFactory.newInstance();
     XMLStreamWriter writer = null;
     try {
-      writer = new IndentingXMLStreamWriter(xof.createXMLStreamWriter(os, "UTF-8"));
-    } catch (XMLStreamException e) {
+      writer = binaryFile != null ? new SeriesBinaryXMLStreamWriter(
+          xof.createXMLStreamWriter(os, "UTF-8"), binaryFile)
+          : new IndentingXMLStreamWriter(xof.createXMLStreamWriter(os, "UTF-8"));
+    } catch (XMLStreamException | IOException e) {
       Assertions.fail("Cannot initialise xml writer.");
     }
     Assertions.assertNotNull(writer);
@@ -161,7 +181,10 @@ public class DataTypeTestUtils {
     XMLStreamReader reader = null;
     try {
       reader = xif.createXMLStreamReader(is);
-    } catch (XMLStreamException e) {
+      if (binaryFile != null) {
+        reader = new SeriesBinaryXMLStreamReader(reader, Files.newInputStream(binaryFile));
+      }
+    } catch (XMLStreamException | IOException e) {
       Assertions.fail("Cannot initialise xml reader.");
     }
     Assertions.assertNotNull(reader);
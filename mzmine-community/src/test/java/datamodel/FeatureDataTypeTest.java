@@ -51,6 +51,8 @@ import io.github.mzmine.project.impl.IMSRawDataFileImpl;
 import io.github.mzmine.project.impl.MZmineProjectImpl;
 import io.github.mzmine.project.impl.RawDataFileImpl;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.scene.paint.Color;
@@ -61,7 +63,7 @@ import org.junit.jupiter.api.Test;
 public class FeatureDataTypeTest {
 
   @Test
-  void testSimpleIonTimeSeries() {
+  void testSimpleIonTimeSeries() throws IOException {
     RawDataFile file = null;
     file = new RawDataFileImpl("testfile", null, null, Color.BLACK);
     Assertions.assertNotNull(file);
@@ -114,6 +116,17 @@ public class FeatureDataTypeTest {
     Assertions.assertNotEquals(series, series_3);
 
     DataTypeTestUtils.testSaveLoad(new FeatureDataType(), null, project, flist, row, feature, file);
+
+    // binary series data
+    final Path binaryFile = Files.createTempFile("mzmine_series_test", ".bin");
+    try {
+      Assertions.assertEquals(series,
+          DataTypeTestUtils.saveAndLoad(new FeatureDataType(), series, project, flist, row,
+              feature, file, binaryFile));
+      Assertions.assertEquals(5L * (Integer.BYTES + 2 * Double.BYTES), Files.size(binaryFile));
+    } finally {
+      Files.deleteIfExists(binaryFile);
+    }
   }
 
   @Test
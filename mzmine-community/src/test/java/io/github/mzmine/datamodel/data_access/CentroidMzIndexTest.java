@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.data_access;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeriesUtils;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.IntensityMode;
+import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.MzMode;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CentroidMzIndexTest {
+
+  private RawDataFile file;
+  private List<Scan> scans;
+
+  @BeforeEach
+  void setUp() {
+    file = new RawDataFileImpl("test", null, null, Color.BLACK);
+    scans = new ArrayList<>();
+    final Random random = new Random(42);
+    for (int i = 0; i < 50; i++) {
+      final int n = random.nextInt(30);
+      final double[] mzs = new double[n];
+      final double[] intensities = new double[n];
+      for (int dp = 0; dp < n; dp++) {
+        // coarse values create many equal mzs across scans
+        mzs[dp] = 100 + Math.round(random.nextDouble() * 200) / 2d;
+        intensities[dp] = random.nextDouble() * 1E5;
+      }
+      Arrays.sort(mzs);
+      final SimpleScan scan = new SimpleScan(file, i, 1, i * 0.1f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(100d, 200d));
+      scan.addMassList(new SimpleMassList(null, mzs, intensities));
+      scans.add(scan);
+    }
+  }
+
+  @Test
+  void testLowerBound() {
+    final CentroidMzIndex index = CentroidMzIndex.create(file, scans, null);
+    int total = scans.stream().mapToInt(s -> s.getMassList().getNumberOfDataPoints()).sum();
+    assertEquals(total, index.getNumberOfValues());
+
+    for (int i = 1; i < index.getNumberOfValues(); i++) {
+      final int lower = index.lowerBound(index.getMz(i));
+      assertEquals(index.getMz(i), index.getMz(lower));
+      if (lower > 0) {
+        // first occurrence
+        assertEquals(-1, Double.compare(index.getMz(lower - 1), index.getMz(lower)));
+      }
+    }
+    assertEquals(0, index.lowerBound(0));
+    assertEquals(index.getNumberOfValues(), index.lowerBound(1000));
+  }
+
+  @Test
+  void testExtractEqualsScanByScan() {
+    final CentroidMzIndex index = CentroidMzIndex.create(file, scans, null);
+    // overlapping ranges
+    final List<Range<Double>> ranges = List.of(Range.closed(110d, 111d), Range.closed(110.5d, 150d),
+        Range.closed(199.5d, 250d));
+    // every second scan
+    final List<Scan> targets = new ArrayList<>();
+    for (int i = 0; i < scans.size(); i += 2) {
+      targets.add(scans.get(i));
+    }
+
+    for (IntensityMode mode : IntensityMode.values()) {
+      final BuildingIonSeries[] indexed = index.extract(ranges, targets, MzMode.MEAN, mode);
+      assertNotNull(indexed);
+      for (int r = 0; r < ranges.size(); r++) {
+        final BuildingIonSeries expected = new BuildingIonSeries(targets.size(), MzMode.MEAN, mode);
+        for (int t = 0; t < targets.size(); t++) {
+          final var masses = targets.get(t).getMassList();
+          for (int dp = 0; dp < masses.getNumberOfDataPoints(); dp++) {
+            if (ranges.get(r).contains(masses.getMzValue(dp))) {
+              expected.addValue(t, masses.getMzValue(dp), masses.getIntensityValue(dp));
+            }
+          }
+        }
+        assertArrayEquals(expected.getIntensities(), indexed[r].getIntensities(), 1E-8);
+        assertArrayEquals(expected.getMzs(), indexed[r].getMzs(), 1E-8);
+      }
+    }
+  }
+
+  @Test
+  void testForEachValueInRtRange() {
+    final CentroidMzIndex index = CentroidMzIndex.create(file, scans, null);
+    final Range<Float> rtRange = Range.closed(1f, 2f);
+    final int[] counted = new int[1];
+    index.forEachValue(Range.closed(100d, 200d), rtRange, (scan, mz, intensity) -> {
+      assertEquals(true, rtRange.contains(index.getScans().get(scan).getRetentionTime()));
+      counted[0]++;
+    });
+    final int expected = scans.stream().filter(s -> rtRange.contains(s.getRetentionTime()))
+        .mapToInt(s -> s.getMassList().getNumberOfDataPoints()).sum();
+    assertEquals(expected, counted[0]);
+  }
+
+  @Test
+  void testUncoveredScansAndInvalidation() {
+    final CentroidMzIndex index = CentroidMzIndex.create(file, scans.subList(0, 10), null);
+    assertNull(index.extract(List.of(Range.closed(100d, 200d)), scans, MzMode.DEFAULT,
+        IntensityMode.DEFAULT));
+
+    file.setCentroidMzIndex(index);
+    assertEquals(index, file.getCentroidMzIndex());
+    // scans that are not indexed may change
+    assertFalse(index.containsScan(scans.get(20)));
+    scans.get(20).addMassList(new SimpleMassList(null, new double[]{150d}, new double[]{1d}));
+    assertEquals(index, file.getCentroidMzIndex());
+    // changing an indexed mass list drops the index
+    assertTrue(index.containsScan(scans.getFirst()));
+    scans.getFirst().addMassList(new SimpleMassList(null, new double[]{150d}, new double[]{1d}));
+    assertNull(file.getCentroidMzIndex());
+  }
+
+  @Test
+  void testClosestValueExtractionEqualsScanByScan() {
+    // distinct mzs, the closest data point to the range center is unique
+    final RawDataFile file = new RawDataFileImpl("closest", null, null, Color.BLACK);
+    final List<Scan> scans = new ArrayList<>();
+    final Random random = new Random(7);
+    for (int i = 0; i < 60; i++) {
+      final double[] mzs = random.doubles(1 + random.nextInt(40), 100, 200).sorted().toArray();
+      final double[] intensities = random.doubles(mzs.length, 0, 1E5).toArray();
+      final SimpleScan scan = new SimpleScan(file, i, 1, i * 0.1f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(100d, 200d));
+      scan.addMassList(new SimpleMassList(null, mzs, intensities));
+      scans.add(scan);
+    }
+    final List<Scan> targets = scans.subList(5, 50);
+    final Range<Double> mzRange = Range.closed(140d, 150d);
+    final Range<Float> rtRange = Range.closed(1f, 4f);
+
+    final IonTimeSeries<Scan> expected = IonTimeSeriesUtils.extractIonTimeSeries(file, targets,
+        mzRange, rtRange, null);
+    file.setCentroidMzIndex(CentroidMzIndex.create(file, scans, null));
+    final IonTimeSeries<Scan> indexed = IonTimeSeriesUtils.extractIonTimeSeries(file, targets,
+        mzRange, rtRange, null);
+
+    assertEquals(expected.getSpectra(), indexed.getSpectra());
+    assertArrayEquals(expected.getMzValues(new double[expected.getNumberOfValues()]),
+        indexed.getMzValues(new double[indexed.getNumberOfValues()]));
+    assertArrayEquals(expected.getIntensityValues(new double[expected.getNumberOfValues()]),
+        indexed.getIntensityValues(new double[indexed.getNumberOfValues()]));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.numbers.AreaType;
+import io.github.mzmine.datamodel.features.types.numbers.ChargeType;
+import io.github.mzmine.datamodel.features.types.numbers.HeightType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.collections.MapChangeListener;
+import org.junit.jupiter.api.Test;
+
+class DataTypeSlotMapTest {
+
+  @Test
+  void testPrimitiveAndObjectSlots() {
+    final List<DataType> added = new ArrayList<>();
+    final DataTypeSlotMap map = new DataTypeSlotMap(new DataTypeSchema(), added::add);
+
+    final MZType mz = DataTypes.get(MZType.class);
+    final RTType rt = DataTypes.get(RTType.class);
+    final HeightType height = DataTypes.get(HeightType.class);
+    final AreaType area = DataTypes.get(AreaType.class);
+    final ChargeType charge = DataTypes.get(ChargeType.class);
+
+    map.put(mz, 301.1234567891);
+    map.put(rt, 4.25f);
+    map.put(height, 1.5E6f);
+    map.put(charge, 2);
+    map.put(area, null);
+
+    assertEquals(301.1234567891, map.get(mz));
+    assertInstanceOf(Float.class, map.get(rt));
+    assertEquals(4.25f, map.get(rt));
+    assertEquals(1.5E6f, map.get(height));
+    assertEquals(2, map.get(charge));
+    // null values are mappings
+    assertTrue(map.containsKey(area));
+    assertNull(map.getOrDefault(area, 1f));
+    assertEquals(5, map.size());
+    assertEquals(5, added.size());
+
+    // replacing does not add the type again
+    assertEquals(4.25f, map.put(rt, 5f));
+    assertEquals(5, added.size());
+
+    final Map<DataType, Object> copy = new HashMap<>(map);
+    assertEquals(copy, map);
+
+    assertEquals(5f, map.remove(rt));
+    assertFalse(map.containsKey(rt));
+    assertEquals(4, map.size());
+    assertEquals(4, map.entrySet().stream().count());
+  }
+
+  @Test
+  void testPrimitiveAccessAndSchemaChange() {
+    final DataTypeSchema schema = new DataTypeSchema();
+    final DataTypeSlotMap map = new DataTypeSlotMap(schema, null);
+    final MZType mz = DataTypes.get(MZType.class);
+    final RTType rt = DataTypes.get(RTType.class);
+    final ChargeType charge = DataTypes.get(ChargeType.class);
+
+    map.put(charge, 2);
+    map.put(mz, 200.5);
+    map.put(rt, null);
+    // only number types have an index in the number column
+    assertEquals(-1, schema.getNumberIndex(schema.slotOf(charge)));
+    assertEquals(0, schema.getNumberIndex(schema.slotOf(mz)));
+    assertEquals(1, schema.getNumberIndex(schema.slotOf(rt)));
+    assertEquals(2, schema.numberCount());
+
+    assertEquals(200.5, map.getDouble(mz, -1));
+    assertEquals(-1f, map.getFloat(rt, -1f));
+    assertEquals(2d, map.getDouble(DataTypes.get(HeightType.class), 2d));
+
+    // other schema with a different slot order
+    final DataTypeSchema other = new DataTypeSchema();
+    other.register(DataTypes.get(AreaType.class));
+    other.register(rt);
+    final List<DataType> added = new ArrayList<>();
+    final DataTypeSlotMap moved = new DataTypeSlotMap(schema, added::add);
+    moved.putAll(map);
+    added.clear();
+    moved.setSchema(other);
+    assertEquals(map, moved);
+    assertEquals(3, added.size());
+    assertEquals(200.5, moved.getDouble(mz, -1));
+    assertTrue(moved.containsKey(rt));
+  }
+
+  @Test
+  void testSetNotifiesObservableMap() {
+    final ModularFeatureList flist = new ModularFeatureList("flist", null, List.of());
+    final ModularFeatureListRow row = new ModularFeatureListRow(flist, 1);
+    row.set(MZType.class, 100d);
+
+    final List<DataType> changed = new ArrayList<>();
+    row.getMap().addListener(
+        (MapChangeListener<DataType, Object>) change -> changed.add(change.getKey()));
+    row.set(MZType.class, 200d);
+    row.set(RTType.class, 1.5f);
+    assertEquals(List.of(DataTypes.get(MZType.class), DataTypes.get(RTType.class)), changed);
+    assertEquals(200d, row.getDouble(DataTypes.get(MZType.class), 0));
+    assertTrue(flist.getRowTypes().contains(DataTypes.get(RTType.class)));
+
+    // rows use the schema of their feature list
+    final ModularFeatureList other = new ModularFeatureList("other", null, List.of());
+    row.setFeatureList(other);
+    assertEquals(1.5f, row.getFloat(DataTypes.get(RTType.class), 0f));
+    assertTrue(other.getRowTypes().contains(DataTypes.get(MZType.class)));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class R2RMapTest {
+
+  @Test
+  void testKeyIsUndirectedAndDoesNotOverflow() {
+    assertEquals(R2RMap.toKey(3, 70_000), R2RMap.toKey(70_000, 3));
+    final long key = R2RMap.toKey(2_000_000, 1_999_999);
+    assertEquals(1_999_999, R2RMap.getRowIdA(key));
+    assertEquals(2_000_000, R2RMap.getRowIdB(key));
+    // the int pairing of these IDs overflows
+    final R2RMap<String> map = new R2RMap<>();
+    map.put(R2RMap.toKey(50_000, 50_001), "a");
+    map.put(R2RMap.toKey(60_000, 60_001), "b");
+    assertEquals(2, map.size());
+    assertEquals("a", map.get(R2RMap.toKey(50_001, 50_000)));
+  }
+
+  @Test
+  void testConcurrentPut() {
+    final R2RMap<Integer> map = new R2RMap<>();
+    IntStream.range(0, 1000).parallel().forEach(
+        i -> IntStream.range(i + 1, 1000).filter(j -> (i + j) % 7 == 0)
+            .forEach(j -> map.put(R2RMap.toKey(i, j), i + j)));
+
+    final long expected = IntStream.range(0, 1000)
+        .mapToLong(i -> IntStream.range(i + 1, 1000).filter(j -> (i + j) % 7 == 0).count()).sum();
+    assertEquals(expected, map.size());
+    assertEquals(expected, map.values().size());
+    assertEquals(14, map.get(R2RMap.toKey(10, 4)));
+  }
+
+  @Test
+  void testFreeze() {
+    final R2RMap<Double> map = new R2RMap<>();
+    // component 1, 5, 9 and 20, 21 and a filtered edge 9-20
+    map.put(R2RMap.toKey(5, 1), 0.9);
+    map.put(R2RMap.toKey(9, 5), 0.8);
+    map.put(R2RMap.toKey(21, 20), 0.7);
+    map.put(R2RMap.toKey(20, 9), 0.1);
+
+    final R2RAdjacency<Double> graph = map.freeze();
+    assertEquals(5, graph.getNumNodes());
+    assertEquals(4, graph.getNumEdges());
+    assertEquals(2, graph.getDegree(9));
+    assertEquals(0, graph.getDegree(2));
+    assertEquals(0.8, graph.get(5, 9));
+    assertNull(graph.get(1, 9));
+
+    final IntArrayList neighbors = new IntArrayList();
+    graph.forEachNeighbor(5, (neighbor, _, _) -> neighbors.add(neighbor));
+    neighbors.sort(null);
+    assertArrayEquals(new int[]{1, 9}, neighbors.toIntArray());
+
+    final IntArrayList edgeRows = new IntArrayList();
+    graph.forEachEdge((a, b, _) -> {
+      edgeRows.add(a);
+      edgeRows.add(b);
+    });
+    assertArrayEquals(new int[]{1, 5, 5, 9, 9, 20, 20, 21}, edgeRows.toIntArray());
+
+    assertEquals(1, graph.getConnectedComponents(_ -> true).size());
+    final List<int[]> components = graph.getConnectedComponents(score -> score > 0.5);
+    assertEquals(2, components.size());
+    assertArrayEquals(new int[]{1, 5, 9}, IntStream.of(components.get(0)).sorted().toArray());
+  }
+
+  @Test
+  void testFrozenLookupsFollowChanges() {
+    final R2RMap<Integer> map = new R2RMap<>();
+    map.put(R2RMap.toKey(1, 2), 3);
+    final R2RAdjacency<Integer> graph = map.freeze();
+    assertSame(graph, map.freeze());
+    assertEquals(3, map.get(R2RMap.toKey(2, 1)));
+
+    // changes invalidate the frozen adjacency
+    map.put(R2RMap.toKey(2, 3), 5);
+    assertEquals(5, map.get(R2RMap.toKey(3, 2)));
+    map.remove(1, 2);
+    assertNull(map.get(R2RMap.toKey(1, 2)));
+    final R2RAdjacency<Integer> changed = map.freeze();
+    assertNotSame(graph, changed);
+    assertEquals(1, changed.getNumEdges());
+
+    // parallel lookups on the frozen map
+    IntStream.range(0, 1000).parallel()
+        .forEach(i -> assertEquals(5, map.get(R2RMap.toKey(3, 2))));
+    map.removeIf(v -> v == 5);
+    assertNull(map.get(R2RMap.toKey(2, 3)));
+  }
+}
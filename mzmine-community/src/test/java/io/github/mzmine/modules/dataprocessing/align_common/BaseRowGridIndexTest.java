@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance.Unit;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BaseRowGridIndexTest {
+
+  @Test
+  void testCandidates() {
+    final ModularFeatureList flist = new ModularFeatureList("flist", null, List.of());
+    final double[] mzs = {200, 200.004, 200.02, 350, 350.001};
+    final Float[] rts = {5f, 5.05f, 5f, 8f, null};
+    final List<FeatureListRow> rows = new ArrayList<>();
+    for (int i = 0; i < mzs.length; i++) {
+      final var row = new ModularFeatureListRow(flist, i + 1);
+      row.set(MZType.class, mzs[i]);
+      row.set(RTType.class, rts[i]);
+      rows.add(row);
+    }
+
+    final MZTolerance mzTol = new MZTolerance(0.005, 10);
+    final RTTolerance rtTol = new RTTolerance(0.1f, Unit.MINUTES);
+    final var index = new BaseRowGridIndex(rows, mzTol, rtTol);
+
+    final IntArrayList candidates = new IntArrayList();
+    index.forEachCandidate(mzTol.getToleranceRange(200.001), rtTol.getToleranceRange(5.01f),
+        candidates::add);
+    candidates.sort(null);
+    assertEquals(List.of(0, 1), candidates);
+
+    // rows without RT always match the RT range
+    candidates.clear();
+    index.forEachCandidate(mzTol.getToleranceRange(350), rtTol.getToleranceRange(1f),
+        candidates::add);
+    assertEquals(List.of(4), candidates);
+
+    candidates.clear();
+    index.forEachCandidate(mzTol.getToleranceRange(350), Range.all(), candidates::add);
+    candidates.sort(null);
+    assertEquals(List.of(3, 4), candidates);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.align_join;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.alignment.AlignmentMainType;
+import io.github.mzmine.datamodel.features.types.alignment.AlignmentScores;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance.Unit;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.util.FeatureListUtils;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RowAlignmentScoreCalculatorTest {
+
+  private static final MZTolerance mzTol = new MZTolerance(0.005, 10);
+  private static final RTTolerance rtTol = new RTTolerance(0.1f, Unit.MINUTES);
+
+  private static RowAlignmentScoreCalculator calculator(List<FeatureList> flists) {
+    return new RowAlignmentScoreCalculator(flists, mzTol, rtTol, null, 1, 1, 0);
+  }
+
+  private static ModularFeature feature(ModularFeatureList flist, RawDataFile raw, double mz,
+      float rt) {
+    final ModularFeature f = new ModularFeature(flist, raw, FeatureStatus.DETECTED);
+    f.set(MZType.class, mz);
+    f.set(RTType.class, rt);
+    return f;
+  }
+
+  private static ModularFeatureList sampleList(RawDataFile raw, double[] mzs, float[] rts) {
+    final ModularFeatureList flist = new ModularFeatureList(raw.getName(), null, raw);
+    for (int i = 0; i < mzs.length; i++) {
+      final var row = new ModularFeatureListRow(flist, i + 1,
+          feature(flist, raw, mzs[i], rts[i]));
+      row.set(MZType.class, mzs[i]);
+      row.set(RTType.class, rts[i]);
+      flist.addRow(row);
+    }
+    return flist;
+  }
+
+  @Test
+  void testRecalcScoresAfterAddingSamples() {
+    final RawDataFile rawA = new RawDataFileImpl("a.mzML", null, null);
+    final RawDataFile rawB = new RawDataFileImpl("b.mzML", null, null);
+    final RawDataFile rawC = new RawDataFileImpl("c.mzML", null, null);
+    final var flistA = sampleList(rawA, new double[]{200, 300}, new float[]{5f, 8f});
+    final var flistB = sampleList(rawB, new double[]{200.001}, new float[]{5.02f});
+    // second row of C is an extra candidate for the first aligned row
+    final var flistC = sampleList(rawC, new double[]{200.002, 200.003},
+        new float[]{5.01f, 5.03f});
+
+    final var aligned = new ModularFeatureList("aligned", null,
+        new ArrayList<>(List.of(rawA, rawB)));
+    final var row1 = new ModularFeatureListRow(aligned, 1);
+    row1.addFeature(rawA, feature(aligned, rawA, 200, 5f), false);
+    row1.addFeature(rawB, feature(aligned, rawB, 200.001, 5.02f), false);
+    final var row2 = new ModularFeatureListRow(aligned, 2);
+    row2.addFeature(rawA, feature(aligned, rawA, 300, 8f), false);
+    for (var row : List.of(row1, row2)) {
+      aligned.addRow(row);
+    }
+    row1.set(MZType.class, 200.0005);
+    row1.set(RTType.class, 5.01f);
+    row2.set(MZType.class, 300d);
+    row2.set(RTType.class, 8f);
+
+    final var initial = calculator(List.of(flistA, flistB));
+    aligned.addRowType(new AlignmentMainType());
+    for (var row : aligned.getRows()) {
+      row.set(AlignmentMainType.class, initial.calcScore(row));
+    }
+    assertEquals(1f, row1.get(AlignmentMainType.class).rate());
+    assertEquals(0.5f, row2.get(AlignmentMainType.class).rate());
+
+    // add sample C to the first row only
+    aligned.getRawDataFiles().add(rawC);
+    row1.addFeature(rawC, feature(aligned, rawC, 200.002, 5.01f), false);
+    row1.set(MZType.class, 200.001);
+
+    FeatureListUtils.recalcAlignmentScores(aligned, calculator(List.of(flistC)));
+
+    // all rows are rescored for three samples, not only the changed row
+    final AlignmentScores score1 = row1.get(AlignmentMainType.class);
+    assertEquals(1f, score1.rate());
+    assertEquals(3, score1.alignedFeatures());
+    assertEquals(1, score1.extraFeatures());
+    assertEquals(0.002, score1.maxMzDelta(), 1e-9);
+
+    final AlignmentScores score2 = row2.get(AlignmentMainType.class);
+    assertEquals(1 / 3f, score2.rate());
+    assertEquals(1, score2.alignedFeatures());
+    assertEquals(0, score2.extraFeatures());
+
+    assertEquals(List.of(1, 2), aligned.getRows().stream().map(r -> r.getID()).toList());
+  }
+}
@@ -38,9 +38,10 @@ import org.jetbrains.annotations.NotNull;
 
 
 /**
- * Chromatogram.
+ * The former chromatogram implementation of the ADAP chromatogram builder. Kept as the reference
+ * for {@link PrimitiveADAPChromatogramBuilder}, see {@link PrimitiveADAPChromatogramBuilderTest}.
  */
-public class ADAPChromatogram {
+class ADAPChromatogram {
 
   // Data points of the chromatogram (map of scan number -> m/z feature)
   // private Hashtable<Integer, DataPoint> dataPointsMap;
@@ -37,9 +37,10 @@ import io.github.mzmine.datamodel.Scan;
 
 
 /**
- * DataPoint implementation extended with scan number
+ * DataPoint implementation extended with scan number. Used by the reference implementation in
+ * {@link PrimitiveADAPChromatogramBuilderTest}.
  */
-public class ExpandedDataPoint implements DataPoint {
+class ExpandedDataPoint implements DataPoint {
 
   private Scan scan = null;
   private double mz, intensity;
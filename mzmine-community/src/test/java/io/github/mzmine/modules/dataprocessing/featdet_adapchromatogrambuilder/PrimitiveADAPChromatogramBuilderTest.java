@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.ScanDataAccess;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.util.DataPointSorter;
+import io.github.mzmine.util.SortingDirection;
+import io.github.mzmine.util.SortingProperty;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+class PrimitiveADAPChromatogramBuilderTest {
+
+  @Test
+  void testGapsAndZeros() throws IOException {
+    // ion at 300 is missing in scan 2 and below the group intensity in scan 5
+    final double[][] mzs = {{300.000}, {300.001}, {}, {300.000}, {300.002}, {300.001}, {300.000}};
+    final double[][] intensities = {{100}, {200}, {}, {500}, {400}, {50}, {300}};
+    final Scan[] scans = createScans(mzs, intensities);
+    final MZTolerance tolerance = new MZTolerance(0.005, 0);
+
+    // scans 0 and 1 are consecutive but only scans 3 and 4 reach the minimum highest point
+    final List<String> series = buildPrimitive(scans, tolerance, 300, 1, 100, 2);
+    assertEquals(1, series.size());
+    assertEquals(buildReference(scans, tolerance, 300, 1, 100, 2), series);
+    // a zero is only added to the empty scan 2
+    assertTrue(series.getFirst().startsWith("0:300.0:100.0; 1:300.001:200.0; 2:"));
+    assertTrue(series.getFirst().endsWith("; 5:300.001:50.0; 6:300.0:300.0"));
+
+    // no three consecutive data points above 100
+    assertEquals(List.of(), buildPrimitive(scans, tolerance, 300, 1, 100, 3));
+    assertEquals(List.of(), buildReference(scans, tolerance, 300, 1, 100, 3));
+    // only scan 3 is above 450
+    assertEquals(List.of(), buildPrimitive(scans, tolerance, 300, 1, 450, 2));
+    // six detected data points
+    assertEquals(1, buildPrimitive(scans, tolerance, 300, 6, 0, 1).size());
+    assertEquals(List.of(), buildPrimitive(scans, tolerance, 300, 7, 0, 1));
+  }
+
+  /**
+   * Compares the builder with the previous implementation based on {@link ADAPChromatogram}s in a
+   * range map on random scans with many close and equal m/z values, equal intensities, gaps and
+   * data points below the thresholds.
+   */
+  @Test
+  void testEqualsReferenceOnRandomScans() throws IOException {
+    for (int seed = 0; seed < 100; seed++) {
+      final Random random = new Random(seed);
+      final double[] ions = new double[1 + random.nextInt(80)];
+      for (int i = 0; i < ions.length; i++) {
+        // narrow m/z ranges create many overlapping tolerance ranges
+        ions[i] = 100 + random.nextDouble() * (seed % 3 == 0 ? 0.5 : 1500);
+      }
+
+      final int numScans = 1 + random.nextInt(60);
+      final double[][] mzs = new double[numScans][];
+      final double[][] intensities = new double[numScans][];
+      for (int s = 0; s < numScans; s++) {
+        final int dps = random.nextInt(2 * ions.length + 1);
+        mzs[s] = new double[dps];
+        for (int i = 0; i < dps; i++) {
+          final double mz = ions[random.nextInt(ions.length)] + random.nextGaussian() * 0.002;
+          // rounding creates m/z ties within and across scans
+          mzs[s][i] = seed % 2 == 0 ? Math.round(mz * 1000) / 1000d : mz;
+        }
+        Arrays.sort(mzs[s]);
+        intensities[s] = new double[dps];
+        for (int i = 0; i < dps; i++) {
+          // few distinct intensities create ties
+          intensities[s][i] = seed % 4 == 0 ? 200 * (1 + random.nextInt(5))
+              : 10 * (1 + random.nextInt(100));
+        }
+      }
+      final Scan[] scans = createScans(mzs, intensities);
+
+      final MZTolerance tolerance = new MZTolerance(0.001 * (1 + random.nextInt(5)),
+          random.nextInt(20));
+      final double minHighestPoint = 10 * random.nextInt(60);
+      final int minimumTotalScans = 1 + random.nextInt(5);
+      final double minGroupIntensity = 10 * random.nextInt(60);
+      final int minimumConsecutiveScans = 1 + random.nextInt(5);
+
+      final List<String> expected = buildReference(scans, tolerance, minHighestPoint,
+          minimumTotalScans, minGroupIntensity, minimumConsecutiveScans);
+      final List<String> actual = buildPrimitive(scans, tolerance, minHighestPoint,
+          minimumTotalScans, minGroupIntensity, minimumConsecutiveScans);
+      assertEquals(expected, actual, "seed " + seed);
+    }
+  }
+
+  private static Scan[] createScans(double[][] mzs, double[][] intensities) throws IOException {
+    final RawDataFileImpl raw = new RawDataFileImpl("raw", null, null, Color.BLACK);
+    final Scan[] scans = new Scan[mzs.length];
+    for (int i = 0; i < mzs.length; i++) {
+      scans[i] = new SimpleScan(raw, i, 1, i * 0.1f, null, mzs[i], intensities[i],
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(0d, 1000d));
+      raw.addScan(scans[i]);
+    }
+    return scans;
+  }
+
+  private static List<String> buildPrimitive(Scan[] scans, MZTolerance tolerance,
+      double minHighestPoint, int minimumTotalScans, double minGroupIntensity,
+      int minimumConsecutiveScans) {
+    final int totalDps = Arrays.stream(scans).mapToInt(Scan::getNumberOfDataPoints).sum();
+    final PrimitiveADAPChromatogramBuilder builder = new PrimitiveADAPChromatogramBuilder(scans,
+        totalDps, tolerance, minHighestPoint);
+    final ScanDataAccess access = EfficientDataAccess.of(scans[0].getDataFile(), ScanDataType.RAW,
+        List.of(scans));
+    int scanIndex = 0;
+    while (access.hasNextScan()) {
+      access.nextScan();
+      builder.addScan(scanIndex++, access);
+    }
+    builder.buildChromatograms(null);
+
+    final List<String> result = new ArrayList<>();
+    builder.createIonTimeSeries(null, minimumTotalScans, minGroupIntensity,
+        minimumConsecutiveScans, null, series -> {
+          final StringBuilder b = new StringBuilder();
+          for (int i = 0; i < series.getNumberOfValues(); i++) {
+            append(b, series.getSpectrum(i), series.getMZ(i), series.getIntensity(i));
+          }
+          result.add(b.toString());
+        });
+    return result;
+  }
+
+  /**
+   * The former chromatogram building of the ModularADAPChromatogramBuilderTask with a range map of
+   * {@link ADAPChromatogram}s.
+   */
+  private static List<String> buildReference(Scan[] scans, MZTolerance tolerance,
+      double minHighestPoint, int minimumTotalScans, double minGroupIntensity,
+      int minimumConsecutiveScans) {
+    final List<ExpandedDataPoint> allMzValues = new ArrayList<>();
+    for (final Scan scan : scans) {
+      for (int i = 0; i < scan.getNumberOfDataPoints(); i++) {
+        allMzValues.add(new ExpandedDataPoint(scan.getMzValue(i), scan.getIntensityValue(i), scan));
+      }
+    }
+    final ExpandedDataPoint[] sorted = allMzValues.toArray(ExpandedDataPoint[]::new);
+    Arrays.parallelSort(sorted,
+        new DataPointSorter(SortingProperty.Intensity, SortingDirection.Descending));
+
+    final RangeMap<Double, ADAPChromatogram> rangeToChromMap = TreeRangeMap.create();
+    for (final ExpandedDataPoint mzFeature : sorted) {
+      final Entry<Range<Double>, ADAPChromatogram> existing = rangeToChromMap.getEntry(
+          mzFeature.getMZ());
+      if (existing != null) {
+        existing.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
+      } else if (mzFeature.getIntensity() >= minHighestPoint) {
+        startNewChromatogramLimitMzRanges(rangeToChromMap, tolerance, mzFeature);
+      }
+    }
+
+    final List<String> result = new ArrayList<>();
+    for (final ADAPChromatogram chromatogram : rangeToChromMap.asMapOfRanges().values()) {
+      if (chromatogram.getNumberOfDataPoints() >= minimumTotalScans
+          && chromatogram.matchesMinContinuousDataPoints(scans, minGroupIntensity,
+          minimumConsecutiveScans, minHighestPoint)) {
+        chromatogram.addNZeros(scans, 1, 1);
+
+        final StringBuilder b = new StringBuilder();
+        final Iterator<Scan> scanIterator = chromatogram.getScanNumbers().iterator();
+        for (final DataPoint dp : chromatogram.getDataPoints()) {
+          append(b, scanIterator.next(), dp.getMZ(), dp.getIntensity());
+        }
+        result.add(b.toString());
+      }
+    }
+    return result;
+  }
+
+  private static void startNewChromatogramLimitMzRanges(
+      RangeMap<Double, ADAPChromatogram> rangeToChromMap, MZTolerance tolerance,
+      ExpandedDataPoint mzFeature) {
+    final Range<Double> toleranceRange = tolerance.getToleranceRange(mzFeature.getMZ());
+    final Entry<Range<Double>, ADAPChromatogram> minusRange = rangeToChromMap.getEntry(
+        toleranceRange.lowerEndpoint());
+    final Entry<Range<Double>, ADAPChromatogram> plusRange = rangeToChromMap.getEntry(
+        toleranceRange.upperEndpoint());
+
+    final Double toBeLowerBound =
+        minusRange == null ? toleranceRange.lowerEndpoint() : minusRange.getKey().upperEndpoint();
+    final Double toBeUpperBound =
+        plusRange == null ? toleranceRange.upperEndpoint() : plusRange.getKey().lowerEndpoint();
+
+    if (toBeLowerBound < toBeUpperBound) {
+      final ADAPChromatogram newChrom = new ADAPChromatogram();
+      newChrom.addMzFeature(mzFeature.getScan(), mzFeature);
+      rangeToChromMap.put(Range.closedOpen(toBeLowerBound, toBeUpperBound), newChrom);
+    } else if (toBeLowerBound.equals(toBeUpperBound) && plusRange != null) {
+      plusRange.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
+    } else {
+      throw new IllegalStateException("Incorrect range for m/z " + mzFeature.getMZ());
+    }
+  }
+
+  private static void append(StringBuilder b, Scan scan, double mz, double intensity) {
+    if (!b.isEmpty()) {
+      b.append("; ");
+    }
+    b.append(scan.getScanNumber()).append(':').append(mz).append(':').append(intensity);
+  }
+}
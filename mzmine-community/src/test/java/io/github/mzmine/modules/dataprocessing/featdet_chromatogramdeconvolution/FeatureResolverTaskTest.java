@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_chromatogramdeconvolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.FeatureDataUtils;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.modules.dataprocessing.featdet_chromatogramdeconvolution.minimumsearch.MinimumSearchFeatureResolverParameters;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.OriginalFeatureListHandlingParameter.OriginalFeatureListOption;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+class FeatureResolverTaskTest {
+
+  // several chunks of at least 256 rows
+  private static final int NUM_ROWS = 1100;
+  private static final int NUM_SCANS = 100;
+
+  private static ModularFeatureList createChromatograms(RawDataFile raw) throws IOException {
+    final List<Scan> scans = new ArrayList<>();
+    for (int i = 0; i < NUM_SCANS; i++) {
+      final SimpleScan scan = new SimpleScan(raw, i, 1, 0.05f * i, null, new double[0],
+          new double[0], MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "",
+          Range.closed(0d, 1000d));
+      raw.addScan(scan);
+      scans.add(scan);
+    }
+
+    final ModularFeatureList flist = new ModularFeatureList("chromatograms", null, raw);
+    flist.setSelectedScans(raw, scans);
+    final Random random = new Random(42);
+    for (int r = 0; r < NUM_ROWS; r++) {
+      final double mz = 100 + random.nextDouble() * 900;
+      // two separated peaks per chromatogram
+      final double apex1 = 0.5 + random.nextDouble() * 1.5;
+      final double apex2 = 2.8 + random.nextDouble() * 1.7;
+      final double height1 = 1E5 + random.nextDouble() * 1E6;
+      final double height2 = 1E5 + random.nextDouble() * 1E6;
+      final double[] mzs = new double[NUM_SCANS];
+      final double[] intensities = new double[NUM_SCANS];
+      for (int i = 0; i < NUM_SCANS; i++) {
+        final double rt = scans.get(i).getRetentionTime();
+        mzs[i] = mz;
+        intensities[i] = height1 * Math.exp(-Math.pow(rt - apex1, 2) / 0.02)
+                         + height2 * Math.exp(-Math.pow(rt - apex2, 2) / 0.02);
+      }
+      final ModularFeature feature = new ModularFeature(flist, raw,
+          new SimpleIonTimeSeries(null, mzs, intensities, scans), FeatureStatus.DETECTED);
+      flist.addRow(new ModularFeatureListRow(flist, r + 1, feature));
+    }
+    return flist;
+  }
+
+  private static ParameterSet createParameters() {
+    final var param = new MinimumSearchFeatureResolverParameters();
+    param.setParameter(MinimumSearchFeatureResolverParameters.handleOriginal,
+        OriginalFeatureListOption.KEEP);
+    param.setParameter(MinimumSearchFeatureResolverParameters.CHROMATOGRAPHIC_THRESHOLD_LEVEL,
+        0.8);
+    param.setParameter(MinimumSearchFeatureResolverParameters.dimension,
+        ResolvingDimension.RETENTION_TIME);
+    param.setParameter(MinimumSearchFeatureResolverParameters.MIN_ABSOLUTE_HEIGHT, 1E4);
+    param.setParameter(MinimumSearchFeatureResolverParameters.MIN_NUMBER_OF_DATAPOINTS, 4);
+    param.setParameter(MinimumSearchFeatureResolverParameters.MIN_RATIO, 1.8);
+    param.setParameter(MinimumSearchFeatureResolverParameters.MIN_RELATIVE_HEIGHT, 0d);
+    param.setParameter(MinimumSearchFeatureResolverParameters.PEAK_DURATION,
+        Range.closed(0.02, 2d));
+    param.setParameter(MinimumSearchFeatureResolverParameters.SEARCH_RT_RANGE, 0.15);
+    param.setParameter(MinimumSearchFeatureResolverParameters.SUFFIX, "resolved");
+    param.setParameter(MinimumSearchFeatureResolverParameters.groupMS2Parameters, false);
+    return param;
+  }
+
+  private static FeatureList resolve(ModularFeatureList flist, int maxChunks) {
+    final MZmineProject project = new MZmineProjectImpl();
+    final FeatureResolverTask task = new FeatureResolverTask(project, null, flist,
+        createParameters(), FeatureDataUtils.DEFAULT_CENTER_FUNCTION, Instant.now());
+    task.setMaxChunks(maxChunks);
+    task.run();
+    return project.getCurrentFeatureLists().stream().filter(f -> f != flist).findFirst()
+        .orElseThrow();
+  }
+
+  @Test
+  void testChunkedResolvingEqualsSingleChunk() throws IOException {
+    final RawDataFile raw = new RawDataFileImpl("raw", null, null, Color.BLACK);
+    final ModularFeatureList flist = createChromatograms(raw);
+
+    final FeatureList single = resolve(flist, 1);
+    final FeatureList chunked = resolve(flist, 4);
+
+    assertTrue(single.getNumberOfRows() >= NUM_ROWS);
+    assertEquals(single.getNumberOfRows(), chunked.getNumberOfRows());
+    for (int i = 0; i < single.getNumberOfRows(); i++) {
+      final var expectedRow = single.getRow(i);
+      final var actualRow = chunked.getRow(i);
+      assertEquals(expectedRow.getID(), actualRow.getID());
+      final IonTimeSeries<? extends Scan> expected = expectedRow.getFeature(raw).getFeatureData();
+      final IonTimeSeries<? extends Scan> actual = actualRow.getFeature(raw).getFeatureData();
+      assertEquals(expected.getSpectra(), actual.getSpectra(), "row " + i);
+      assertArrayEquals(expected.getMzValues(new double[0]), actual.getMzValues(new double[0]),
+          "row " + i);
+      assertArrayEquals(expected.getIntensityValues(new double[0]),
+          actual.getIntensityValues(new double[0]), "row " + i);
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_recursiveimsbuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.MobilityScan;
+import io.github.mzmine.datamodel.MobilityType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.impl.BuildingMobilityScan;
+import io.github.mzmine.datamodel.impl.SimpleFrame;
+import io.github.mzmine.modules.dataprocessing.featdet_ionmobilitytracebuilder.RetentionTimeMobilityDataPoint;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.IMSRawDataFileImpl;
+import io.github.mzmine.util.scans.SpectraMerging;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FrameMobilogramBuilderTest {
+
+  private final MZTolerance tolerance = new MZTolerance(0.005, 0);
+  private List<MobilityScan> mobilityScans;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    final IMSRawDataFileImpl file = new IMSRawDataFileImpl("test", null, null, Color.BLACK);
+    final List<BuildingMobilityScan> scans = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      scans.add(new BuildingMobilityScan(i, new double[0], new double[0]));
+    }
+    final SimpleFrame frame = new SimpleFrame(file, 1, 1, 0.1f, new double[0], new double[0],
+        MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(0d, 1000d),
+        MobilityType.TIMS, null, null);
+    frame.setMobilities(new double[]{1.2d, 1.1d, 1.0d});
+    frame.setMobilityScans(scans, true);
+    file.addScan(frame);
+    mobilityScans = frame.getMobilityScans();
+  }
+
+  private void addFrame(FrameMobilogramBuilder builder) {
+    builder.startFrame();
+    builder.addMobilityScan(mobilityScans.get(0));
+    builder.addDataPoint(500.000, 100);
+    builder.addDataPoint(500.003, 50);
+    builder.addMobilityScan(mobilityScans.get(1));
+    builder.addDataPoint(500.001, 200);
+    builder.addMobilityScan(mobilityScans.get(2));
+    builder.addDataPoint(500.002, 80);
+    builder.addDataPoint(700.000, 10);
+  }
+
+  @Test
+  void testGroupsByIntensityAndTolerance() {
+    final FrameMobilogramBuilder builder = new FrameMobilogramBuilder(tolerance, 50);
+    addFrame(builder);
+    final List<BuildingIonMobilitySeries> mobilograms = sorted(builder.buildMobilograms(null));
+
+    // 500.003 is further away from the center than 500.000 and not grouped recursively
+    assertEquals(2, mobilograms.size());
+    final BuildingIonMobilitySeries first = mobilograms.get(0);
+    assertEquals(3, first.getNumberOfValues());
+    assertEquals(500.000, first.getMZ(0));
+    assertEquals(500.001, first.getMZ(1));
+    assertEquals(500.002, first.getMZ(2));
+    assertSame(mobilityScans.get(0), first.getSpectrum(0));
+    assertSame(mobilityScans.get(2), first.getSpectrum(2));
+    assertEquals(380d, first.getSummedIntensity());
+
+    final BuildingIonMobilitySeries second = mobilograms.get(1);
+    assertEquals(1, second.getNumberOfValues());
+    assertEquals(700d, second.getMZ(0));
+  }
+
+  @Test
+  void testRecursiveLeftovers() {
+    final FrameMobilogramBuilder builder = new FrameMobilogramBuilder(tolerance, 0);
+    // buffers are reused for the second frame
+    addFrame(builder);
+    builder.buildMobilograms(null);
+    addFrame(builder);
+    final List<BuildingIonMobilitySeries> mobilograms = sorted(builder.buildMobilograms(null));
+
+    assertEquals(3, mobilograms.size());
+    assertEquals(500.000, mobilograms.get(0).getMZ(0));
+    assertEquals(500.003, mobilograms.get(1).getMZ(0));
+    assertSame(mobilityScans.get(0), mobilograms.get(1).getSpectrum(0));
+    assertEquals(700d, mobilograms.get(2).getMZ(0));
+  }
+
+  /**
+   * Compares the builder with the previous implementation based on {@link TempMobilogram}s in a
+   * range map on random frames with many close and equal m/z values and equal intensities.
+   */
+  @Test
+  void testEqualsReferenceOnRandomFrames() throws IOException {
+    final MZTolerance tolerance = new MZTolerance(0.005, 15);
+    final int threshold = 50;
+    final FrameMobilogramBuilder builder = new FrameMobilogramBuilder(tolerance, threshold);
+    final List<MobilityScan> scans = createMobilityScans(200);
+
+    for (int seed = 0; seed < 100; seed++) {
+      final Random random = new Random(seed);
+      final int numScans = 1 + random.nextInt(scans.size());
+      final double[] ions = new double[1 + random.nextInt(300)];
+      for (int i = 0; i < ions.length; i++) {
+        // narrow m/z ranges create many overlapping tolerance ranges
+        ions[i] = 100 + random.nextDouble() * (seed % 3 == 0 ? 5 : 1500);
+      }
+
+      // intensity order, equal intensities keep the insertion order
+      final TreeSet<RetentionTimeMobilityDataPoint> dps = new TreeSet<>(
+          (o1, o2) -> o1.getIntensity() > o2.getIntensity() ? -1 : 1);
+      builder.startFrame();
+      for (int s = 0; s < numScans; s++) {
+        final MobilityScan scan = scans.get(s);
+        builder.addMobilityScan(scan);
+        final double[] mzs = new double[random.nextInt(60)];
+        for (int i = 0; i < mzs.length; i++) {
+          mzs[i] = ions[random.nextInt(ions.length)] + random.nextGaussian() * 0.003;
+        }
+        Arrays.sort(mzs);
+        for (double mz : mzs) {
+          final double intensity = random.nextInt(4) == 0 ? 100 * random.nextInt(5)
+              : Math.exp(random.nextDouble() * 10);
+          dps.add(new RetentionTimeMobilityDataPoint(scan, mz, intensity));
+          builder.addDataPoint(mz, intensity);
+        }
+      }
+
+      final List<String> expected = referenceMobilograms(dps, tolerance, threshold).stream()
+          .map(m -> asString(m.toBuildingSeries(null))).sorted().toList();
+      final List<String> actual = builder.buildMobilograms(null).stream()
+          .map(FrameMobilogramBuilderTest::asString).sorted().toList();
+      assertEquals(expected, actual, "seed " + seed);
+    }
+  }
+
+  /**
+   * The grouping of the recursive IMS builder before {@link FrameMobilogramBuilder}.
+   */
+  private static Set<TempMobilogram> referenceMobilograms(
+      Collection<RetentionTimeMobilityDataPoint> dps, MZTolerance tolerance, int threshold) {
+    final RangeMap<Double, TempMobilogram> map = TreeRangeMap.create();
+    final Set<RetentionTimeMobilityDataPoint> leftovers = new TreeSet<>(
+        (o1, o2) -> o1.getIntensity() > o2.getIntensity() ? -1 : 1);
+
+    for (final var dp : dps) {
+      TempMobilogram mobilogram = map.get(dp.getMZ());
+      if (mobilogram == null) {
+        final Range<Double> proposed = tolerance.getToleranceRange(dp.getMZ());
+        final Range<Double> actual = SpectraMerging.createNewNonOverlappingRange(map, proposed);
+        if (!proposed.equals(actual)) {
+          leftovers.add(dp);
+          continue;
+        }
+        mobilogram = new TempMobilogram();
+        map.put(actual, mobilogram);
+      }
+      final RetentionTimeMobilityDataPoint previous = mobilogram.keepBetterFittingDataPoint(dp);
+      if (previous != null) {
+        leftovers.add(previous);
+      }
+    }
+
+    final Set<TempMobilogram> mobilograms = new HashSet<>(map.asMapOfRanges().values());
+    if (leftovers.size() > threshold) {
+      mobilograms.addAll(referenceMobilograms(leftovers, tolerance, threshold));
+    }
+    return mobilograms;
+  }
+
+  private static List<MobilityScan> createMobilityScans(int numScans) throws IOException {
+    final IMSRawDataFileImpl file = new IMSRawDataFileImpl("random", null, null, Color.BLACK);
+    final List<BuildingMobilityScan> scans = new ArrayList<>();
+    final double[] mobilities = new double[numScans];
+    for (int i = 0; i < numScans; i++) {
+      scans.add(new BuildingMobilityScan(i, new double[0], new double[0]));
+      mobilities[i] = 1.5d - i * 0.001;
+    }
+    final SimpleFrame frame = new SimpleFrame(file, 1, 1, 0.1f, new double[0], new double[0],
+        MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(0d, 2000d),
+        MobilityType.TIMS, null, null);
+    frame.setMobilities(mobilities);
+    frame.setMobilityScans(scans, true);
+    file.addScan(frame);
+    return frame.getMobilityScans();
+  }
+
+  private static String asString(BuildingIonMobilitySeries series) {
+    final StringBuilder b = new StringBuilder();
+    for (int i = 0; i < series.getNumberOfValues(); i++) {
+      b.append(series.getSpectrum(i).getMobilityScanNumber()).append(':')
+          .append(series.getMZ(i)).append('/').append(series.getIntensity(i)).append(' ');
+    }
+    return b.toString();
+  }
+
+  private static List<BuildingIonMobilitySeries> sorted(List<BuildingIonMobilitySeries> list) {
+    return list.stream().sorted(Comparator.comparingDouble(s -> s.getMZ(0))).toList();
+  }
+}
@@ -34,7 +34,11 @@ import java.util.TreeMap;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.Nullable;
 
-public class TempMobilogram {
+/**
+ * The former mobilogram implementation of the recursive IMS builder. Kept as the reference for
+ * {@link FrameMobilogramBuilder}, see {@link FrameMobilogramBuilderTest}.
+ */
+class TempMobilogram {
 
   private static Logger logger = Logger.getLogger(TempMobilogram.class.getName());
 
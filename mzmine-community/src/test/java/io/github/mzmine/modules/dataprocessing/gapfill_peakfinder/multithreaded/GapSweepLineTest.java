@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.multithreaded;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.features.Feature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.Gap;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+class GapSweepLineTest {
+
+  private static final double[] MZS = {100, 100.005, 250, 400};
+  // apex RT of each m/z, 400 is a flat baseline
+  private static final double[] APEX_RTS = {3, 5, 5, Double.NaN};
+
+  /**
+   * m/z and RT ranges of all gaps in random order. Includes touching and overlapping RT ranges,
+   * overlapping m/z ranges, a gap without data points and a gap without scans.
+   */
+  private static final double[][] GAPS = {
+      // mz min, mz max, rt min, rt max
+      {249.99, 250.01, 3, 7},
+      {99.99, 100.01, 2, 4},
+      {100.004, 100.006, 4, 6},
+      {249.99, 250.01, 4.5, 5.5},
+      {399.99, 400.01, 0, 10},
+      {500, 501, 1, 2},
+      {99.99, 100.01, 2.1, 2.2},
+      {99.99, 100.01, 6, 8},
+  };
+
+  private static List<Scan> createScans(RawDataFile raw) throws IOException {
+    final List<Scan> scans = new ArrayList<>();
+    // exact float RTs so that scans fall on the range boundaries
+    for (int i = 0; i <= 40; i++) {
+      final float rt = i * 0.25f;
+      final double[] intensities = new double[MZS.length];
+      for (int k = 0; k < MZS.length; k++) {
+        intensities[k] = Double.isNaN(APEX_RTS[k]) ? 50 + (i % 4) * 10
+            : 1E5 * Math.exp(-Math.pow(rt - APEX_RTS[k], 2) / 0.5);
+      }
+      final SimpleScan scan = new SimpleScan(raw, i, 1, rt, null, MZS.clone(), intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(0d, 1000d));
+      raw.addScan(scan);
+      scans.add(scan);
+    }
+    return scans;
+  }
+
+  private static List<Gap> createGaps(RawDataFile raw, String name) {
+    final ModularFeatureList flist = new ModularFeatureList(name, null, raw);
+    final List<Gap> gaps = new ArrayList<>();
+    for (int i = 0; i < GAPS.length; i++) {
+      final ModularFeatureListRow row = new ModularFeatureListRow(flist, i + 1);
+      flist.addRow(row);
+      gaps.add(new Gap(row, raw, Range.closed(GAPS[i][0], GAPS[i][1]),
+          Range.closed((float) GAPS[i][2], (float) GAPS[i][3]), 0.5));
+    }
+    return gaps;
+  }
+
+  @Test
+  void testSweepLineEqualsOfferToAllGaps() throws IOException {
+    final RawDataFile raw = new RawDataFileImpl("raw", null, null, Color.BLACK);
+    final List<Scan> scans = createScans(raw);
+
+    final List<Gap> allGaps = createGaps(raw, "all");
+    final List<Gap> sweepGaps = createGaps(raw, "sweep");
+    final GapSweepLine sweepLine = new GapSweepLine(sweepGaps);
+    for (Scan scan : scans) {
+      for (Gap gap : allGaps) {
+        gap.offerNextScan(scan);
+      }
+      sweepLine.offerNextScan(scan);
+    }
+
+    int filled = 0;
+    for (int i = 0; i < GAPS.length; i++) {
+      final Gap expectedGap = allGaps.get(i);
+      final Gap actualGap = sweepGaps.get(i);
+      assertEquals(expectedGap.noMoreOffers(3), actualGap.noMoreOffers(3), "gap " + i);
+
+      final Feature expected = expectedGap.getFeatureListRow().getFeature(raw);
+      final Feature actual = actualGap.getFeatureListRow().getFeature(raw);
+      if (expected == null) {
+        assertNull(actual, "gap " + i);
+        continue;
+      }
+      filled++;
+      assertNotNull(actual, "gap " + i);
+      final IonTimeSeries<? extends Scan> expectedData = expected.getFeatureData();
+      final IonTimeSeries<? extends Scan> actualData = actual.getFeatureData();
+      assertEquals(expectedData.getSpectra(), actualData.getSpectra(), "gap " + i);
+      assertArrayEquals(expectedData.getMzValues(new double[0]),
+          actualData.getMzValues(new double[0]), "gap " + i);
+      assertArrayEquals(expectedData.getIntensityValues(new double[0]),
+          actualData.getIntensityValues(new double[0]), "gap " + i);
+    }
+    // peaks at m/z 100, 100.005, 250 (twice) and the baseline at 400
+    assertEquals(5, filled);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.group_imagecorrelate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ImageSketchTest {
+
+  private static final double NOISE = 10;
+
+  @Test
+  void minPixelsNeverDiscardsSharedPixels() {
+    final Random random = new Random(42);
+    final int numPixels = 5000;
+    final double[][] images = new double[40][];
+    for (int i = 0; i < images.length; i++) {
+      images[i] = createSparseImage(random, numPixels);
+    }
+    final ImageSketch[] sketches = new ImageSketch[images.length];
+    for (int i = 0; i < images.length; i++) {
+      sketches[i] = ImageSketch.create(images[i], NOISE);
+    }
+
+    int rejected = 0;
+    for (int a = 0; a < images.length; a++) {
+      for (int b = a + 1; b < images.length; b++) {
+        final int shared = countSharedPixels(images[a], images[b]);
+        for (int minPixels : new int[]{0, 1, 10, 50, 200}) {
+          if (!sketches[a].canShareMinPixels(sketches[b], minPixels)) {
+            assertTrue(shared < minPixels);
+            rejected++;
+          }
+        }
+      }
+    }
+    // sparse images in different regions are rejected
+    assertTrue(rejected > 0);
+  }
+
+  @Test
+  void downsampledCorrelation() {
+    final Random random = new Random(1);
+    final double[] image = createSparseImage(random, 3000);
+    final double[] scaled = new double[image.length];
+    for (int i = 0; i < image.length; i++) {
+      // keep noise below the noise level
+      scaled[i] = image[i] >= NOISE ? image[i] * 3 : image[i];
+    }
+    final ImageSketch sketch = ImageSketch.create(image, NOISE);
+    assertEquals(1d, sketch.downsampledCorrelation(ImageSketch.create(scaled, NOISE)), 1E-5);
+    assertTrue(sketch.canShareMinPixels(ImageSketch.create(scaled, NOISE), 1));
+
+    // constant images have no correlation
+    assertTrue(Double.isNaN(sketch.downsampledCorrelation(ImageSketch.create(new double[3000], 0))));
+    // different image sizes are not compared
+    assertTrue(Double.isNaN(sketch.downsampledCorrelation(ImageSketch.create(new double[10], 0))));
+    assertTrue(sketch.canShareMinPixels(ImageSketch.create(new double[10], 0), 100));
+    assertFalse(sketch.canShareMinPixels(ImageSketch.create(new double[3000], NOISE), 1));
+  }
+
+  /**
+   * Signal in a random region of the image, noise everywhere else
+   */
+  private static double[] createSparseImage(Random random, int numPixels) {
+    final double[] image = new double[numPixels];
+    final int start = random.nextInt(numPixels);
+    final int length = random.nextInt(numPixels / 4);
+    for (int i = 0; i < numPixels; i++) {
+      final boolean signal = i >= start && i < start + length && random.nextDouble() < 0.7;
+      image[i] = signal ? NOISE + random.nextDouble() * 1000 : random.nextDouble() * NOISE;
+    }
+    return image;
+  }
+
+  private static int countSharedPixels(double[] a, double[] b) {
+    int shared = 0;
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] >= NOISE && b[i] >= NOISE) {
+        shared++;
+      }
+    }
+    return shared;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.group_metacorrelate.correlation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.CachedFeatureDataAccess;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.correlation.CorrelationData;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import javafx.scene.paint.Color;
+import org.apache.commons.math.MathException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FeatureCorrelationUtilTest {
+
+  private static final int MIN_DP = 5;
+  private static final int MIN_DP_EDGE = 2;
+
+  private RawDataFile raw;
+  private ModularFeatureList flist;
+  private final List<FeatureListRow> rows = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    raw = new RawDataFileImpl("raw", null, null, Color.BLACK);
+    for (int i = 0; i < 30; i++) {
+      raw.addScan(new SimpleScan(raw, i, 1, 0.1f * i, null, new double[0], new double[0],
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(0d, 1d)));
+    }
+    flist = new ModularFeatureList("flist", null, raw);
+    rows.clear();
+  }
+
+  /**
+   * @param scanIndices ascending scan indices in the raw data file
+   * @param apex        scan index of the apex
+   */
+  private ModularFeature feature(int[] scanIndices, double height, double apex) {
+    final List<Scan> scans = new ArrayList<>();
+    final double[] mzs = new double[scanIndices.length];
+    final double[] intensities = new double[scanIndices.length];
+    for (int i = 0; i < scanIndices.length; i++) {
+      final int s = scanIndices[i];
+      scans.add(raw.getScan(s));
+      mzs[i] = 200;
+      // small deterministic distortion so that shapes are not identical
+      intensities[i] = height * Math.exp(-Math.pow(s - apex, 2) / 6) + (s % 3);
+    }
+    final ModularFeature feature = new ModularFeature(flist, raw,
+        new SimpleIonTimeSeries(null, mzs, intensities, scans), FeatureStatus.DETECTED);
+    final ModularFeatureListRow row = new ModularFeatureListRow(flist, rows.size() + 1, feature);
+    flist.addRow(row);
+    rows.add(row);
+    return feature;
+  }
+
+  private static int[] range(int from, int to) {
+    return IntStream.range(from, to).toArray();
+  }
+
+  private static int[] without(int[] indices, int remove) {
+    return Arrays.stream(indices).filter(i -> i != remove).toArray();
+  }
+
+  @Test
+  void testPreloadedDataEqualsFeatureAccess() throws MathException {
+    final ModularFeature a = feature(range(5, 15), 1000, 9);
+    final List<ModularFeature> others = List.of(
+        // same scans
+        feature(range(5, 15), 500, 9.3),
+        // offset, apex of a is in b
+        feature(range(7, 17), 500, 9.5),
+        // missing scan right of the apex
+        feature(without(range(5, 15), 13), 500, 9.3),
+        // missing scan left of the apex, too few points left
+        feature(without(range(5, 15), 8), 500, 9.3),
+        // apex of a is missing in b, before all and between scans of b
+        feature(range(11, 21), 500, 12),
+        feature(without(range(5, 15), 9), 500, 9.3));
+    final boolean[] expectCorrelation = {true, true, true, false, false, false};
+
+    final CachedFeatureDataAccess data = new CachedFeatureDataAccess(
+        rows.toArray(FeatureListRow[]::new), false, true, true);
+
+    for (int i = 0; i < others.size(); i++) {
+      final ModularFeature b = others.get(i);
+      final CorrelationData direct = FeatureCorrelationUtil.corrFeatureShape(null, a, b, true,
+          MIN_DP, MIN_DP_EDGE, 0);
+      final CorrelationData preloaded = FeatureCorrelationUtil.corrFeatureShape(data, a, b, true,
+          MIN_DP, MIN_DP_EDGE, 0);
+
+      if (!expectCorrelation[i]) {
+        assertNull(direct, "case " + i);
+        assertNull(preloaded, "case " + i);
+        continue;
+      }
+      assertNotNull(direct, "case " + i);
+      assertNotNull(preloaded, "case " + i);
+      assertSameCorrelation(direct, preloaded, "case " + i);
+    }
+  }
+
+  @Test
+  void testScanMissingInBothFeatures() throws MathException {
+    // scan 12 is missing in both features, the data points on both sides are matched
+    final ModularFeature a = feature(without(range(5, 15), 12), 1000, 9);
+    final ModularFeature b = feature(without(range(5, 15), 12), 500, 9.3);
+    // another feature on scan 12 puts it on the shared grid
+    feature(range(10, 20), 800, 14);
+
+    final CachedFeatureDataAccess data = new CachedFeatureDataAccess(
+        rows.toArray(FeatureListRow[]::new), false, true, true);
+    final CorrelationData direct = FeatureCorrelationUtil.corrFeatureShape(null, a, b, true,
+        MIN_DP, MIN_DP_EDGE, 0);
+    final CorrelationData preloaded = FeatureCorrelationUtil.corrFeatureShape(data, a, b, true,
+        MIN_DP, MIN_DP_EDGE, 0);
+    assertNotNull(direct);
+    assertEquals(9, direct.getDPCount());
+    assertSameCorrelation(direct, preloaded, "missing scan");
+  }
+
+  private static void assertSameCorrelation(CorrelationData expected, CorrelationData actual,
+      String message) throws MathException {
+    assertNotNull(actual, message);
+    assertEquals(expected.getDPCount(), actual.getDPCount(), message);
+    assertEquals(expected.getPearsonR(), actual.getPearsonR(), 1E-9, message);
+    assertEquals(expected.getCosineSimilarity(), actual.getCosineSimilarity(), 1E-9, message);
+    assertEquals(expected.getSlope(), actual.getSlope(), 1E-9, message);
+    assertEquals(expected.getRegressionSignificance(), actual.getRegressionSignificance(), 1E-9,
+        message);
+    assertEquals(expected.getMaxFoldChange(0), actual.getMaxFoldChange(0), 1E-9, message);
+    assertEquals(expected.getMaxFoldChange(1), actual.getMaxFoldChange(1), 1E-9, message);
+    assertArrayEquals(expected.getData(), actual.getData(), message);
+  }
+}
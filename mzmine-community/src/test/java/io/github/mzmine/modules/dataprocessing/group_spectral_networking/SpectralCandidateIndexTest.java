@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.group_spectral_networking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SpectralCandidateIndexTest {
+
+  @Test
+  void testCandidates() {
+    final double[] rowMzs = {200, 214, 300, 900};
+    final double[][] signals = { //
+        {50.001, 80.002, 120.003}, //
+        {50.002, 94.002, 134.001}, // two signals shifted by +14
+        {51, 81, 121}, //
+        {50.001, 80.002, 120.003}};
+    final double[][] losses = new double[rowMzs.length][];
+    for (int i = 0; i < rowMzs.length; i++) {
+      losses[i] = new double[signals[i].length];
+      for (int s = 0; s < signals[i].length; s++) {
+        losses[i][s] = rowMzs[i] - signals[i][s];
+      }
+    }
+
+    final var index = new SpectralCandidateIndex(rowMzs, signals, losses,
+        new MZTolerance(0.005, 10));
+
+    final IntArrayList candidates = new IntArrayList();
+    index.forEachCandidate(0, 3, 500, candidates::add);
+    // row 2 does not match, row 3 is out of the m/z window
+    assertEquals(List.of(1), candidates);
+
+    candidates.clear();
+    index.forEachCandidate(0, 3, 1000, candidates::add);
+    assertEquals(List.of(1, 3), candidates);
+
+    assertEquals(3, index.windowEnd(0, 100));
+  }
+}
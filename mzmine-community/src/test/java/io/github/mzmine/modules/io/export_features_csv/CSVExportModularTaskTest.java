@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.export_features_csv;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.numbers.IDType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.modules.io.export_features_gnps.fbmn.FeatureListRowsFilter;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CSVExportModularTaskTest {
+
+  // spans multiple chunks of formatted rows
+  private static final int NUM_ROWS = 1500;
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void testChunkedExportEqualsRowByRow() throws IOException {
+    final ModularFeatureList flist = new ModularFeatureList("flist", null, List.of());
+    // add in reverse order, export sorts by ID
+    for (int id = NUM_ROWS; id >= 1; id--) {
+      final var row = new ModularFeatureListRow(flist, id);
+      row.set(MZType.class, 100d + id * 0.123456789);
+      row.set(RTType.class, id * 0.01f);
+      flist.addRow(row);
+    }
+
+    final String csv = export(flist, false);
+    final String gzip = export(flist, true);
+    assertEquals(csv, gzip);
+
+    final List<String> lines = csv.lines().toList();
+    assertEquals(NUM_ROWS + 1, lines.size());
+
+    final List<String> header = List.of(lines.getFirst().split(","));
+    final MZType mzType = new MZType();
+    final RTType rtType = new RTType();
+    final int idCol = header.indexOf(new IDType().getUniqueID());
+    final int mzCol = header.indexOf(mzType.getUniqueID());
+    final int rtCol = header.indexOf(rtType.getUniqueID());
+
+    // reference: rows formatted one by one in export order
+    final var rows = flist.getRows().stream()
+        .sorted((a, b) -> Integer.compare(a.getID(), b.getID())).toList();
+    for (int i = 0; i < rows.size(); i++) {
+      final var row = rows.get(i);
+      final String[] values = lines.get(i + 1).split(",", -1);
+      assertEquals(header.size(), values.length, "line " + (i + 1));
+      assertEquals(String.valueOf(row.getID()), values[idCol]);
+      assertEquals(mzType.getFormattedExportString(row.get(mzType)), values[mzCol]);
+      assertEquals(rtType.getFormattedExportString(row.get(rtType)), values[rtCol]);
+    }
+  }
+
+  private String export(ModularFeatureList flist, boolean compress) throws IOException {
+    final File file = tempDir.resolve("export_" + compress + ".csv").toFile();
+    final var task = new CSVExportModularTask(new ModularFeatureList[]{flist}, file, ",", ";",
+        FeatureListRowsFilter.ALL, false, compress, Instant.now());
+    task.run();
+    assertEquals(TaskStatus.FINISHED, task.getStatus());
+
+    if (!compress) {
+      return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    }
+    final Path gzFile = tempDir.resolve("export_" + compress + ".csv.gz");
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(gzFile))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLBitLength;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImzMLIndexTest {
+
+  private static final double[] MZS = {100.5, 200.25, 300.125};
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void testContinuousMode() throws IOException {
+    // one m/z array as 64-bit float, intensities as 32-bit float
+    final ByteBuffer ibd = ByteBuffer.allocate(16 + 24 + 4 * 12).order(ByteOrder.LITTLE_ENDIAN);
+    ibd.position(16);
+    for (double mz : MZS) {
+      ibd.putDouble(mz);
+    }
+    final StringBuilder spectra = new StringBuilder();
+    for (int i = 0; i < 4; i++) {
+      final long offset = ibd.position();
+      for (int j = 0; j < MZS.length; j++) {
+        ibd.putFloat(i * 10 + j);
+      }
+      spectra.append(spectrum(i, i % 2 + 1, i / 2 + 1, 16, offset, "mzArray", "intensityArray"));
+    }
+    final File imzML = write("continuous", ibd, """
+        <referenceableParamGroup id="mzArray">
+          <cvParam cvRef="MS" accession="MS:1000514" name="m/z array" value=""/>
+          <cvParam cvRef="MS" accession="MS:1000523" name="64-bit float" value=""/>
+          <cvParam cvRef="MS" accession="MS:1000576" name="no compression" value=""/>
+        </referenceableParamGroup>
+        <referenceableParamGroup id="intensityArray">
+          <cvParam cvRef="MS" accession="MS:1000515" name="intensity array" value=""/>
+          <cvParam cvRef="MS" accession="MS:1000521" name="32-bit float" value=""/>
+        </referenceableParamGroup>
+        """, spectra.toString());
+
+    final ImzMLIndex index = ImzMLIndex.parse(imzML);
+    final List<ImzMLSpectrumInfo> infos = index.getSpectra();
+    assertEquals(4, infos.size());
+    assertTrue(index.isContinuous());
+    assertEquals(24, index.getMaxArrayByteLength());
+    assertEquals("3", index.getScanSettings().get(ImzMLIndex.CV_MAX_COUNT_OF_PIXELS_X));
+
+    final ImzMLSpectrumInfo last = infos.get(3);
+    assertEquals("spectrum=3", last.id());
+    assertEquals(new Coordinates(1, 1, 0), last.coordinates());
+    assertEquals(PolarityType.POSITIVE, last.polarity());
+    assertEquals(MzMLBitLength.SIXTY_FOUR_BIT_FLOAT, last.mzs().bitLength());
+    assertEquals(MzMLBitLength.THIRTY_TWO_BIT_FLOAT, last.intensities().bitLength());
+
+    final MappedIbdFile mapped = MappedIbdFile.map(index.findIbdFile(),
+        index.getMaxArrayByteLength());
+    assertArrayEquals(MZS, mapped.read(last.mzs()));
+    assertArrayEquals(new double[]{30, 31, 32}, mapped.read(last.intensities()));
+
+    final ImagingParameters parameters = new ImagingParameters(index);
+    assertEquals(3, parameters.getMaxNumberOfPixelX());
+    assertEquals(2, parameters.getMaxNumberOfPixelY());
+    assertEquals(1, parameters.getSpectraPerPixel());
+  }
+
+  @Test
+  void testProcessedMode() throws IOException {
+    // spectrum specific m/z arrays with a legacy imzML integer type for intensities
+    final ByteBuffer ibd = ByteBuffer.allocate(16 + 2 * (24 + 12)).order(ByteOrder.LITTLE_ENDIAN);
+    ibd.position(16);
+    final StringBuilder spectra = new StringBuilder();
+    for (int i = 0; i < 2; i++) {
+      final long mzOffset = ibd.position();
+      for (double mz : MZS) {
+        ibd.putDouble(mz + i);
+      }
+      final long intensityOffset = ibd.position();
+      for (int j = 0; j < MZS.length; j++) {
+        ibd.putInt(1000 * i + j);
+      }
+      spectra.append(spectrum(i, i + 1, 1, mzOffset, intensityOffset, "mzArray", "intensityArray"));
+    }
+    final File imzML = write("processed", ibd, """
+        <referenceableParamGroup id="mzArray">
+          <cvParam cvRef="MS" accession="MS:1000514" name="m/z array" value=""/>
+          <cvParam cvRef="MS" accession="MS:1000523" name="64-bit float" value=""/>
+        </referenceableParamGroup>
+        <referenceableParamGroup id="intensityArray">
+          <cvParam cvRef="MS" accession="MS:1000515" name="intensity array" value=""/>
+          <cvParam cvRef="IMS" accession="IMS:1000141" name="32-bit integer" value=""/>
+        </referenceableParamGroup>
+        """, spectra.toString());
+
+    final ImzMLIndex index = ImzMLIndex.parse(imzML);
+    assertFalse(index.isContinuous());
+    final ImzMLSpectrumInfo second = index.getSpectra().get(1);
+    assertNotNull(second.mzs());
+    assertEquals(MzMLBitLength.THIRTY_TWO_BIT_INTEGER, second.intensities().bitLength());
+
+    final MappedIbdFile mapped = MappedIbdFile.map(index.findIbdFile(),
+        index.getMaxArrayByteLength());
+    assertArrayEquals(new double[]{101.5, 201.25, 301.125}, mapped.read(second.mzs()));
+    assertArrayEquals(new double[]{1000, 1001, 1002}, mapped.read(second.intensities()));
+  }
+
+  private File write(String name, ByteBuffer ibd, String paramGroups, String spectra)
+      throws IOException {
+    Files.write(dir.resolve(name + ".ibd"), ibd.array());
+    final File imzML = dir.resolve(name + ".imzML").toFile();
+    Files.writeString(imzML.toPath(), """
+        <?xml version="1.0" encoding="ISO-8859-1"?>
+        <mzML xmlns="http://psi.hupo.org/ms/mzml" version="1.1">
+          <fileDescription>
+            <fileContent>
+              <cvParam cvRef="IMS" accession="IMS:1000030" name="continuous" value=""/>
+            </fileContent>
+          </fileDescription>
+          <referenceableParamGroupList count="2">
+          %s
+          </referenceableParamGroupList>
+          <scanSettingsList count="1">
+            <scanSettings id="scansettings1">
+              <cvParam cvRef="IMS" accession="IMS:1000042" name="max count of pixel x" value="3"/>
+            </scanSettings>
+          </scanSettingsList>
+          <run id="run">
+            <spectrumList count="0">
+            %s
+            </spectrumList>
+          </run>
+        </mzML>
+        """.formatted(paramGroups, spectra));
+    return imzML;
+  }
+
+  private static String spectrum(int index, int x, int y, long mzOffset, long intensityOffset,
+      String mzGroup, String intensityGroup) {
+    return """
+        <spectrum id="spectrum=%d" defaultArrayLength="0" index="%d">
+          <cvParam cvRef="MS" accession="MS:1000130" name="positive scan" value=""/>
+          <scanList count="1">
+            <scan>
+              <cvParam cvRef="IMS" accession="IMS:1000050" name="position x" value="%d"/>
+              <cvParam cvRef="IMS" accession="IMS:1000051" name="position y" value="%d"/>
+            </scan>
+          </scanList>
+          <binaryDataArrayList count="2">
+            <binaryDataArray encodedLength="0">
+              <referenceableParamGroupRef ref="%s"/>
+              <cvParam cvRef="IMS" accession="IMS:1000103" name="external array length" value="3"/>
+              <cvParam cvRef="IMS" accession="IMS:1000102" name="external offset" value="%d"/>
+              <binary/>
+            </binaryDataArray>
+            <binaryDataArray encodedLength="0">
+              <referenceableParamGroupRef ref="%s"/>
+              <cvParam cvRef="IMS" accession="IMS:1000103" name="external array length" value="3"/>
+              <cvParam cvRef="IMS" accession="IMS:1000102" name="external offset" value="%d"/>
+              <binary/>
+            </binaryDataArray>
+          </binaryDataArrayList>
+        </spectrum>
+        """.formatted(index, index, x, y, mzGroup, mzOffset, intensityGroup, intensityOffset);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.impl.DDAMsMsInfoImpl;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FragmentScanIndexTest {
+
+  private RawDataFile file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = new RawDataFileImpl("test", null, null, Color.BLACK);
+    final Random random = new Random(42);
+    final double[] empty = new double[0];
+    for (int i = 0; i < 500; i++) {
+      // every 5th scan is an MS1 scan. Coarse precursor values create equal m/z across scans
+      final boolean ms1 = i % 5 == 0;
+      final double precursorMz = 100 + Math.round(random.nextDouble() * 100) / 4d;
+      final SimpleScan scan = new SimpleScan(file, i, ms1 ? 1 : 2, i * 0.02f,
+          ms1 ? null : new DDAMsMsInfoImpl(precursorMz, 1, 2), empty, empty,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(50d, 200d));
+      file.addScan(scan);
+    }
+  }
+
+  @Test
+  void testQueryEqualsFilteredScans() {
+    final FragmentScanIndex index = FragmentScanIndex.create(file);
+    assertEquals(400, index.size());
+    assertEquals(0, index.getNumberOfPasefPrecursors());
+
+    final MZTolerance mzTol = new MZTolerance(0.005, 10);
+    final List<Range<Float>> rtRanges = List.of(Range.closed(0f, 100f), Range.closed(2.5f, 4.1f),
+        Range.closed(20f, 30f));
+    for (double mz = 99; mz < 127; mz += 0.125) {
+      final Range<Double> mzRange = mzTol.getToleranceRange(mz);
+      for (Range<Float> rtRange : rtRanges) {
+        final List<Scan> expected = file.getScans().stream()
+            .filter(scan -> scan.getMSLevel() > 1)
+            .filter(scan -> mzRange.contains(scan.getPrecursorMz()))
+            .filter(scan -> rtRange.contains(scan.getRetentionTime())).toList();
+        assertEquals(expected, index.getFragmentScans(mzRange, rtRange));
+      }
+      // no rt filter
+      assertEquals(file.getScans().stream().filter(scan -> scan.getMSLevel() > 1)
+              .filter(scan -> mzRange.contains(scan.getPrecursorMz())).toList(),
+          index.getFragmentScans(mzRange, null));
+    }
+  }
+}
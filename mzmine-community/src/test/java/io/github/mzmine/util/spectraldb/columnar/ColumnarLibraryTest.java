@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.spectraldb.columnar;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.util.spectraldb.entry.DBEntryField;
+import io.github.mzmine.util.spectraldb.entry.SpectralDBEntry;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibrary;
+import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ColumnarLibraryTest {
+
+  @TempDir
+  File dir;
+  @TempDir
+  File cacheDir;
+
+  @Test
+  void testWriteAndRead() throws IOException {
+    final File source = new File(dir, "library.msp");
+    Files.writeString(source.toPath(), "placeholder for the parsed library");
+
+    final SpectralLibrary library = new SpectralLibrary(null, source);
+    library.addEntry(new SpectralDBEntry(null, new double[]{50.1, 100.2, 150.3},
+        new double[]{10, 1000, 100},
+        Map.of(DBEntryField.NAME, "Caffeine", DBEntryField.PRECURSOR_MZ, 195.0877,
+            DBEntryField.CHARGE, 1, DBEntryField.RT, 1.25f), null));
+    library.addEntry(new SpectralDBEntry(null, new double[]{}, new double[]{},
+        Map.of(DBEntryField.NAME, "Empty"), null));
+    library.addEntry(new SpectralDBEntry(null, new double[]{80.5}, new double[]{5},
+        Map.of(DBEntryField.NAME, "Caffeine", DBEntryField.PRECURSOR_MZ, 120.5), null));
+
+    assertNotNull(ColumnarLibraryWriter.write(library, source, cacheDir, null));
+    final SpectralLibrary mapped = ColumnarLibraryReader.read(source, cacheDir, null);
+    assertNotNull(mapped);
+    assertEquals(source, mapped.getPath());
+    // the library directory is not written to
+    assertArrayEquals(new File[]{source}, dir.listFiles());
+    assertEquals(library.size(), mapped.size());
+
+    for (int i = 0; i < library.size(); i++) {
+      final SpectralLibraryEntry expected = library.getEntries().get(i);
+      final SpectralLibraryEntry actual = mapped.getEntries().get(i);
+      assertEquals(expected.getPrecursorMZ(), actual.getPrecursorMZ());
+      assertArrayEquals(expected.getMzValues(new double[0]), actual.getMzValues(new double[0]));
+      assertArrayEquals(expected.getIntensityValues(new double[0]),
+          actual.getIntensityValues(new double[0]));
+      assertEquals(expected.getFields(), actual.getFields());
+    }
+    assertEquals(library.getPrecursorIndex().size(), mapped.getPrecursorIndex().size());
+    assertEquals(120.5, mapped.getPrecursorIndex().getPrecursorMz(0));
+    assertEquals(2, mapped.getPrecursorIndex().getEntryIndex(0));
+  }
+
+  @Test
+  void testOutdatedFile() throws IOException {
+    final File source = new File(dir, "library.mgf");
+    Files.writeString(source.toPath(), "first version");
+    final SpectralLibrary library = new SpectralLibrary(null, source);
+    library.addEntry(new SpectralDBEntry(null, new double[]{50.1}, new double[]{10},
+        Map.of(DBEntryField.NAME, "A"), null));
+    ColumnarLibraryWriter.write(library, source, cacheDir, null);
+
+    Files.writeString(source.toPath(), "second version of the library");
+    assertNull(ColumnarLibraryReader.read(source, cacheDir, null));
+  }
+
+  @Test
+  void testChangedContentWithSameLengthAndLastModified() throws IOException {
+    final File source = new File(dir, "library.json");
+    Files.writeString(source.toPath(), "first version");
+    final long lastModified = source.lastModified();
+    final SpectralLibrary library = new SpectralLibrary(null, source);
+    library.addEntry(new SpectralDBEntry(null, new double[]{50.1}, new double[]{10},
+        Map.of(DBEntryField.NAME, "A"), null));
+    ColumnarLibraryWriter.write(library, source, cacheDir, null);
+    assertNotNull(ColumnarLibraryReader.read(source, cacheDir, null));
+
+    Files.writeString(source.toPath(), "other version");
+    assertTrue(source.setLastModified(lastModified));
+    assertNull(ColumnarLibraryReader.read(source, cacheDir, null));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.modules.dataanalysis.pca_new.PCAResult;
+import io.github.mzmine.modules.dataanalysis.pca_new.TruncatedSVD;
+import java.util.Random;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.junit.jupiter.api.Test;
+
+class TruncatedSVDTest {
+
+  @Test
+  void randomizedEqualsFullSvd() {
+    final int rows = 60;
+    final int columns = 3000;
+    final int components = 5;
+    final double[] data = createLowRankData(rows, columns, new Random(1));
+
+    final PCAResult truncated = TruncatedSVD.decompose(data, rows, columns, components, 42);
+    assertEquals(components, truncated.componentCount());
+    assertEquals(rows, truncated.u().getRowDimension());
+    assertEquals(columns, truncated.v().getRowDimension());
+
+    final double[][] matrix = new double[rows][columns];
+    for (int row = 0; row < rows; row++) {
+      System.arraycopy(data, row * columns, matrix[row], 0, columns);
+    }
+    final SingularValueDecomposition svd = new SingularValueDecomposition(
+        new Array2DRowRealMatrix(matrix, false));
+
+    for (int c = 0; c < components; c++) {
+      assertEquals(svd.getSingularValues()[c], truncated.singularValues()[c], 1E-6);
+      // singular vectors are only defined up to their sign
+      final double sign = Math.signum(
+          svd.getU().getColumnVector(c).dotProduct(truncated.u().getColumnVector(c)));
+      for (int row = 0; row < rows; row++) {
+        assertEquals(svd.getU().getEntry(row, c), sign * truncated.u().getEntry(row, c), 1E-6);
+      }
+      for (int col = 0; col < columns; col++) {
+        assertEquals(svd.getV().getEntry(col, c), sign * truncated.v().getEntry(col, c), 1E-6);
+      }
+    }
+  }
+
+  @Test
+  void smallMatrixIsTruncated() {
+    final double[] data = createLowRankData(10, 12, new Random(2));
+    final PCAResult result = TruncatedSVD.decompose(data, 10, 12, 3, 42);
+    assertEquals(3, result.componentCount());
+    assertEquals(3, result.u().getColumnDimension());
+    assertEquals(3, result.v().getColumnDimension());
+  }
+
+  /**
+   * Few components with decreasing weight and some noise
+   */
+  private static double[] createLowRankData(int rows, int columns, Random random) {
+    final double[] data = new double[rows * columns];
+    for (int k = 0; k < 6; k++) {
+      final double weight = 100 * Math.pow(0.5, k) / Math.sqrt(rows * columns);
+      final double[] x = random.doubles(rows).map(v -> v - 0.5).toArray();
+      final double[] y = random.doubles(columns).map(v -> v - 0.5).toArray();
+      for (int row = 0; row < rows; row++) {
+        for (int col = 0; col < columns; col++) {
+          data[row * columns + col] += weight * x[row] * y[col];
+        }
+      }
+    }
+    for (int i = 0; i < data.length; i++) {
+      data[i] += 1E-4 * random.nextGaussian();
+    }
+    return data;
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.collections;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Primitive index of non-overlapping, closed-open intervals [lower, upper) that are mapped to
+ * consecutive int ids (in insertion order). Replaces a {@code TreeRangeMap<Double, T>} in hot loops
+ * where millions of lookups and insertions are performed, e.g., when building chromatograms. No
+ * objects are created per lookup or per interval.
+ * <p>
+ * Like {@link com.google.common.collect.TreeRangeMap#put(com.google.common.collect.Range, Object)},
+ * adding an interval removes all existing intervals that are enclosed by the new interval. Partial
+ * overlaps are not supported.
+ * <p>
+ * The intervals are kept sorted by their lower bound in blocks of limited size, so that lookups are
+ * two binary searches and insertions only shift values within a single block.
+ * <p>
+ * Not thread safe.
+ */
+public class DisjointIntervalIndex {
+
+  /**
+   * Returned if no interval contains a value
+   */
+  public static final int NOT_FOUND = -1;
+
+  private static final int DEFAULT_BLOCK_SIZE = 512;
+
+  private final int blockSize;
+  // bounds by interval id
+  private final DoubleArrayList lowerById;
+  private final DoubleArrayList upperById;
+
+  // blocks of lower bounds sorted ascending and the matching ids
+  private double[][] blockLowers = new double[4][];
+  private int[][] blockIds = new int[4][];
+  private int[] blockSizes = new int[4];
+  private int numBlocks = 0;
+  private int numIntervals = 0;
+
+  public DisjointIntervalIndex() {
+    this(1024);
+  }
+
+  /**
+   * @param expectedIntervals initial capacity
+   */
+  public DisjointIntervalIndex(int expectedIntervals) {
+    this(expectedIntervals, DEFAULT_BLOCK_SIZE);
+  }
+
+  DisjointIntervalIndex(int expectedIntervals, int blockSize) {
+    if (blockSize < 2) {
+      throw new IllegalArgumentException("Block size needs to be at least 2");
+    }
+    this.blockSize = blockSize;
+    lowerById = new DoubleArrayList(expectedIntervals);
+    upperById = new DoubleArrayList(expectedIntervals);
+  }
+
+  /**
+   * @return number of intervals in this index, excluding removed intervals
+   */
+  public int size() {
+    return numIntervals;
+  }
+
+  /**
+   * @return the number of ids that were assigned, including removed intervals
+   */
+  public int getNumberOfIds() {
+    return lowerById.size();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @param id interval id
+   * @return the inclusive lower bound
+   */
+  public double getLower(int id) {
+    return lowerById.getDouble(id);
+  }
+
+  /**
+   * @param id interval id
+   * @return the exclusive upper bound
+   */
+  public double getUpper(int id) {
+    return upperById.getDouble(id);
+  }
+
+  /**
+   * @param value the value to search
+   * @return the id of the interval that contains the value (lower <= value < upper) or
+   * {@link #NOT_FOUND}
+   */
+  public int find(double value) {
+    if (numBlocks == 0 || Double.isNaN(value)) {
+      return NOT_FOUND;
+    }
+    final int block = findBlock(value);
+    if (block < 0) {
+      return NOT_FOUND;
+    }
+    final int pos = lastLowerOrEqual(blockLowers[block], blockSizes[block], value);
+    if (pos < 0) {
+      return NOT_FOUND;
+    }
+    final int id = blockIds[block][pos];
+    return value < upperById.getDouble(id) ? id : NOT_FOUND;
+  }
+
+  /**
+   * Adds a new interval [lower, upper). Existing intervals that are enclosed by the new interval are
+   * removed. The caller is responsible to not add intervals that partially overlap with existing
+   * intervals.
+   *
+   * @param lower inclusive lower bound
+   * @param upper exclusive upper bound
+   * @return the id of the new interval, ids are consecutive starting at 0
+   */
+  public int add(double lower, double upper) {
+    if (!(lower < upper)) {
+      throw new IllegalArgumentException(
+          "Lower bound %f needs to be smaller than upper bound %f".formatted(lower, upper));
+    }
+    final int id = lowerById.size();
+    lowerById.add(lower);
+    upperById.add(upper);
+
+    if (numBlocks == 0) {
+      blockLowers[0] = new double[blockSize];
+      blockIds[0] = new int[blockSize];
+      numBlocks = 1;
+    } else {
+      removeEnclosed(lower, upper);
+    }
+
+    int block = Math.max(findBlock(lower), 0);
+    if (blockSizes[block] == blockSize) {
+      splitBlock(block);
+      // new value might now belong to the upper half
+      if (lower >= blockLowers[block + 1][0]) {
+        block++;
+      }
+    }
+
+    final double[] lowers = blockLowers[block];
+    final int[] ids = blockIds[block];
+    final int size = blockSizes[block];
+    final int insert = lastLowerOrEqual(lowers, size, lower) + 1;
+    System.arraycopy(lowers, insert, lowers, insert + 1, size - insert);
+    System.arraycopy(ids, insert, ids, insert + 1, size - insert);
+    lowers[insert] = lower;
+    ids[insert] = id;
+    blockSizes[block]++;
+    numIntervals++;
+    return id;
+  }
+
+  /**
+   * Removes all intervals with a lower bound within [lower, upper)
+   */
+  private void removeEnclosed(double lower, double upper) {
+    while (true) {
+      int block = Math.max(findBlock(lower), 0);
+      int pos = lastLower(blockLowers[block], blockSizes[block], lower) + 1;
+      if (pos == blockSizes[block]) {
+        block++;
+        pos = 0;
+        if (block >= numBlocks) {
+          return;
+        }
+      }
+      if (blockSizes[block] == 0 || blockLowers[block][pos] >= upper) {
+        return;
+      }
+      removeAt(block, pos);
+    }
+  }
+
+  private void removeAt(int block, int pos) {
+    final int size = blockSizes[block];
+    System.arraycopy(blockLowers[block], pos + 1, blockLowers[block], pos, size - pos - 1);
+    System.arraycopy(blockIds[block], pos + 1, blockIds[block], pos, size - pos - 1);
+    blockSizes[block]--;
+    numIntervals--;
+
+    if (blockSizes[block] == 0 && numBlocks > 1) {
+      // remove empty block
+      final int moved = numBlocks - block - 1;
+      System.arraycopy(blockLowers, block + 1, blockLowers, block, moved);
+      System.arraycopy(blockIds, block + 1, blockIds, block, moved);
+      System.arraycopy(blockSizes, block + 1, blockSizes, block, moved);
+      numBlocks--;
+      blockLowers[numBlocks] = null;
+      blockIds[numBlocks] = null;
+      blockSizes[numBlocks] = 0;
+    }
+  }
+
+  /**
+   * Iterate all interval ids in ascending order of the intervals
+   *
+   * @param idConsumer consumes ids
+   */
+  public void forEachSorted(IntConsumer idConsumer) {
+    for (int b = 0; b < numBlocks; b++) {
+      final int[] ids = blockIds[b];
+      for (int i = 0; i < blockSizes[b]; i++) {
+        idConsumer.accept(ids[i]);
+      }
+    }
+  }
+
+  /**
+   * @return all ids in ascending order of the intervals
+   */
+  public int[] getSortedIds() {
+    final int[] sorted = new int[numIntervals];
+    int c = 0;
+    for (int b = 0; b < numBlocks; b++) {
+      System.arraycopy(blockIds[b], 0, sorted, c, blockSizes[b]);
+      c += blockSizes[b];
+    }
+    return sorted;
+  }
+
+  /**
+   * @return the last block with a first lower bound <= value or -1 if the value is smaller than all
+   * lower bounds
+   */
+  private int findBlock(double value) {
+    int low = 0;
+    int high = numBlocks - 1;
+    int result = -1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      // only the first block can be empty (before the first insert)
+      if (blockSizes[mid] == 0 || blockLowers[mid][0] <= value) {
+        result = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return index of the last value < target or -1
+   */
+  private static int lastLower(double[] values, int size, double target) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (values[mid] < target) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * @return index of the last value <= target or -1
+   */
+  private static int lastLowerOrEqual(double[] values, int size, double target) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (values[mid] <= target) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low - 1;
+  }
+
+  private void splitBlock(int block) {
+    if (numBlocks == blockLowers.length) {
+      final int newLength = blockLowers.length * 2;
+      blockLowers = Arrays.copyOf(blockLowers, newLength);
+      blockIds = Arrays.copyOf(blockIds, newLength);
+      blockSizes = Arrays.copyOf(blockSizes, newLength);
+    }
+    // shift blocks to make room
+    final int moved = numBlocks - block - 1;
+    System.arraycopy(blockLowers, block + 1, blockLowers, block + 2, moved);
+    System.arraycopy(blockIds, block + 1, blockIds, block + 2, moved);
+    System.arraycopy(blockSizes, block + 1, blockSizes, block + 2, moved);
+
+    final int half = blockSizes[block] / 2;
+    final int upperHalf = blockSizes[block] - half;
+    final double[] newLowers = new double[blockSize];
+    final int[] newIds = new int[blockSize];
+    System.arraycopy(blockLowers[block], half, newLowers, 0, upperHalf);
+    System.arraycopy(blockIds[block], half, newIds, 0, upperHalf);
+    blockLowers[block + 1] = newLowers;
+    blockIds[block + 1] = newIds;
+    blockSizes[block + 1] = upperHalf;
+    blockSizes[block] = half;
+    numBlocks++;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2004-2024 The MZmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeMap;
+import java.util.Map.Entry;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DisjointIntervalIndexTest {
+
+  @Test
+  void findAndAdd() {
+    var index = new DisjointIntervalIndex();
+    assertEquals(DisjointIntervalIndex.NOT_FOUND, index.find(5));
+    assertEquals(0, index.add(10, 20));
+    assertEquals(1, index.add(0, 5));
+    assertEquals(2, index.add(20, 21));
+
+    assertEquals(1, index.find(0));
+    assertEquals(DisjointIntervalIndex.NOT_FOUND, index.find(5));
+    assertEquals(0, index.find(10));
+    assertEquals(0, index.find(19.999));
+    assertEquals(2, index.find(20));
+    assertEquals(DisjointIntervalIndex.NOT_FOUND, index.find(21));
+    assertEquals(DisjointIntervalIndex.NOT_FOUND, index.find(-1));
+    assertArrayEquals(new int[]{1, 0, 2}, index.getSortedIds());
+  }
+
+  @Test
+  void sameAsRangeMap() {
+    // small blocks to test splitting
+    var index = new DisjointIntervalIndex(16, 4);
+    TreeRangeMap<Double, Integer> rangeMap = TreeRangeMap.create();
+    Random rand = new Random(42);
+
+    for (int i = 0; i < 20_000; i++) {
+      double value = rand.nextDouble() * 1000;
+      final Entry<Range<Double>, Integer> entry = rangeMap.getEntry(value);
+      final int id = index.find(value);
+      assertEquals(entry == null ? DisjointIntervalIndex.NOT_FOUND : entry.getValue(), id);
+
+      if (entry == null) {
+        // limit by neighbors like the chromatogram builders
+        // varying tolerance so that new intervals may enclose existing intervals
+        double tol = 0.01 + rand.nextDouble() * 0.1;
+        Entry<Range<Double>, Integer> lowerEntry = rangeMap.getEntry(value - tol);
+        Entry<Range<Double>, Integer> upperEntry = rangeMap.getEntry(value + tol);
+        double lower = lowerEntry == null ? value - tol : lowerEntry.getKey().upperEndpoint();
+        double upper = upperEntry == null ? value + tol : upperEntry.getKey().lowerEndpoint();
+        if (lower < upper) {
+          int newId = index.add(lower, upper);
+          rangeMap.put(Range.closedOpen(lower, upper), newId);
+        }
+      }
+    }
+
+    assertEquals(rangeMap.asMapOfRanges().size(), index.size());
+    // some intervals were enclosed and removed
+    assertTrue(index.getNumberOfIds() > index.size());
+    assertArrayEquals(
+        rangeMap.asMapOfRanges().values().stream().mapToInt(Integer::intValue).toArray(),
+        index.getSortedIds());
+  }
+}